@@ -8,7 +8,8 @@ import java.nio.ByteBuffer;
 /**
  * An "extended query result" packet. This is the query result
  * packets used today, they allow more flexible sets of parameters
- * to be shipped with query results. This packet can be decoded only.
+ * to be shipped with query results. This packet is decoded when received, and may be encoded
+ * to be stored in serialized form.
  *
  * @author  bratseth
  */
@@ -46,6 +47,12 @@ public class DocsumPacket extends Packet {
         buffer.get(data);
     }
 
+    @Override
+    protected void encodeBody(ByteBuffer buffer) {
+        buffer.put(globalId.getRawId());
+        buffer.put(data);
+    }
+
     public GlobalId getGlobalId() { return globalId; }
 
     public byte[] getData() { return data; }
@@ -34,6 +34,16 @@ public class DocumentInfo implements Cloneable {
         this.distributionKey = distributionKey;
     }
 
+    /** Encodes this as it is decoded by the constructor taking a buffer */
+    void encode(ByteBuffer buffer, boolean mldFeature) {
+        buffer.put(globalId.getRawId());
+        buffer.putDouble(metric);
+        if (mldFeature) {
+            buffer.putInt(partId);
+            buffer.putInt(distributionKey);
+        }
+    }
+
     private double decodeMetric(ByteBuffer buffer) {
         return buffer.getDouble();
     }
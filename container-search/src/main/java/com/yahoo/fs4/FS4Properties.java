@@ -40,6 +40,21 @@ public class FS4Properties {
         }
     }
 
+    void encode(ByteBuffer buffer) {
+        encodeString(name, buffer);
+        buffer.putInt(entries.length);
+        for (Entry entry : entries) {
+            encodeString(entry.key, buffer);
+            encodeString(entry.val, buffer);
+        }
+    }
+
+    private static void encodeString(String value, ByteBuffer buffer) {
+        byte[] utf8 = Utf8.toBytes(value);
+        buffer.putInt(utf8.length);
+        buffer.put(utf8);
+    }
+
     public Entry[] getEntries() {
         return entries;
     }
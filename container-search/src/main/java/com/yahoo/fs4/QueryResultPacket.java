@@ -11,7 +11,7 @@ import java.util.List;
 /**
  * An "extended query result" packet. This is the query result packets used today,
  * they allow more flexible sets of parameters to be shipped with query results.
- * This packet can be decoded only.
+ * This packet is decoded when received, and may be encoded to be stored in serialized form.
  *
  * @author bratseth
  */
@@ -127,6 +127,37 @@ public class QueryResultPacket extends Packet {
         }
     }
 
+    @Override
+    protected void encodeBody(ByteBuffer buffer) {
+        buffer.putInt(encodeFeatures());
+        buffer.putInt(offset);
+        buffer.putInt(documents.size());
+        buffer.putLong(totalDocumentCount);
+        buffer.putDouble(maxRank == null ? 0 : maxRank.doubleValue());
+        buffer.putInt(docstamp);
+        if (coverageNodes) {
+            buffer.putShort(nodesQueried);
+            buffer.putShort(nodesReplied);
+        }
+        if (groupDataFeature) {
+            buffer.putInt(groupData.length);
+            buffer.put(groupData);
+        }
+
+        buffer.putLong(coverageDocs);
+        buffer.putLong(activeDocs);
+        buffer.putLong(soonActiveDocs);
+        buffer.putInt(degradedReason);
+
+        for (DocumentInfo document : documents)
+            document.encode(buffer, mldFeature);
+        if (propsFeature) {
+            buffer.putInt(propsArray.length);
+            for (FS4Properties properties : propsArray)
+                properties.encode(buffer);
+        }
+    }
+
     private Number decodeMaxRank(ByteBuffer buffer) {
         return Double.valueOf(buffer.getDouble());
     }
@@ -163,6 +194,16 @@ public class QueryResultPacket extends Packet {
         }
     }
 
+    /** Returns the feature int of the features which are included when this is encoded */
+    private int encodeFeatures() {
+        int features = 0;
+        if (mldFeature) features |= QRF_MLD;
+        if (coverageNodes) features |= QRF_COVERAGE_NODES;
+        if (groupDataFeature) features |= QRF_GROUPDATA;
+        if (propsFeature) features |= QRF_PROPERTIES;
+        return features;
+    }
+
     private void decodeDocuments(ByteBuffer buffer, int documentCount) {
         for (int i=0; i<documentCount; i++) {
             documents.add(new DocumentInfo(buffer, this));
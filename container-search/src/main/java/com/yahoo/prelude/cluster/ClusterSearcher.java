@@ -45,6 +45,7 @@ import java.net.UnknownHostException;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.LongSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -129,7 +130,10 @@ public class ClusterSearcher extends Searcher {
         maxQueryCacheTimeout = ParameterParser.asMilliSeconds(clusterConfig.maxQueryCacheTimeout(),
                                                               DEFAULT_MAX_QUERY_CACHE_TIMEOUT);
 
-        CacheParams cacheParams = new CacheParams(createCache(clusterConfig, clusterModelName));
+        CacheControl cacheControl = createCache(clusterConfig, clusterModelName);
+        registerCacheMetrics(cacheControl, clusterModelName, manager);
+        registerDispatchMetrics(dispatcher, clusterModelName, manager);
+        CacheParams cacheParams = new CacheParams(cacheControl);
         SummaryParameters docSumParams = new SummaryParameters(qrsConfig
                 .com().yahoo().prelude().fastsearch().FastSearcher().docsum()
                 .defaultclass());
@@ -269,9 +273,30 @@ public class ClusterSearcher extends Searcher {
     private static CacheControl createCache(ClusterConfig config, String clusterModelName) {
         log.log(Level.INFO, "Enabling cache for search cluster "
                             + clusterModelName + " (size=" + config.cacheSize()
-                            + ", timeout=" + config.cacheTimeout() + ")");
+                            + ", timeout=" + config.cacheTimeout()
+                            + (config.cacheOffHeap() ? ", off heap" : "") + ")");
 
-        return new CacheControl(config.cacheSize(), config.cacheTimeout());
+        return new CacheControl(config.cacheSize(), config.cacheTimeout(), config.cacheOffHeap());
+    }
+
+    /** Logs the cumulative counts of the packet cache and its request coalescing each time the statistics are logged */
+    private static void registerCacheMetrics(CacheControl cacheControl, String clusterModelName, Statistics manager) {
+        registerCountMetric(clusterModelName + ".packetcache.hits", cacheControl::hits, manager);
+        registerCountMetric(clusterModelName + ".packetcache.misses", cacheControl::misses, manager);
+        registerCountMetric(clusterModelName + ".packetcache.evictions", cacheControl::evictions, manager);
+        registerCountMetric(clusterModelName + ".packetcache.coalesced", cacheControl::coalescedRequests, manager);
+    }
+
+    /** Logs the cumulative counts of summary requests and how many of them were hedged to another group */
+    private static void registerDispatchMetrics(Dispatcher dispatcher, String clusterModelName, Statistics manager) {
+        registerCountMetric(clusterModelName + ".dispatch.docsum_requests", dispatcher::docsumRequests, manager);
+        registerCountMetric(clusterModelName + ".dispatch.hedged_requests", dispatcher::hedgedRequests, manager);
+        registerCountMetric(clusterModelName + ".dispatch.hedge_wins", dispatcher::hedgeWins, manager);
+    }
+
+    private static void registerCountMetric(String name, LongSupplier count, Statistics manager) {
+        new Value(name, manager, new Value.Parameters().setNameExtension(false).setLogRaw(true)
+                                                       .setCallback((handle, firstTime) -> ((Value)handle).put(count.getAsLong())));
     }
 
     public String getClusterModelName() {
@@ -412,7 +437,7 @@ public class ClusterSearcher extends Searcher {
                 return new Result(query, ErrorMessage.createTimeout("No time left for searching"));
             }
 
-            result = doSearch(searcher, query, execution);
+            result = searchTrackingLoad(searcher, query, execution);
 
             // no error: good result, let's return
             if (result.hits().getError() == null) {
@@ -430,6 +455,24 @@ public class ClusterSearcher extends Searcher {
         return result;
     }
 
+    /** Searches the given backend while letting the hasher know the load and latency of it */
+    private Result searchTrackingLoad(VespaBackEndSearcher searcher, Query query, Execution execution) {
+        long startNanos = System.nanoTime();
+        Result result = null;
+        hasher.started(searcher);
+        try {
+            result = doSearch(searcher, query, execution);
+            return result;
+        }
+        finally {
+            ErrorMessage error = result == null ? null : result.hits().getError();
+            if (result != null && (error == null || error.getCode() == Error.TIMEOUT.code))
+                hasher.completed(searcher, System.nanoTime() - startNanos);
+            else
+                hasher.failed(searcher);
+        }
+    }
+
     private void validateQueryTimeout(Query query) {
         if (query.getTimeout() <= maxQueryTimeout) return;
 
@@ -2,6 +2,8 @@
 package com.yahoo.prelude.cluster;
 
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
@@ -11,6 +13,14 @@ import com.yahoo.prelude.fastsearch.VespaBackEndSearcher;
 
 /**
  * Failover between multiple Vespa backends.
+ * <p>
+ * Backends are selected by the power of two choices: The next backend in round robin order is compared
+ * to another backend drawn at random, and the one with the lowest load is selected. Load is the number
+ * of requests in flight to the backend times its exponentially weighted average latency, such that a backend
+ * which is temporarily slow (e.g during flush or compaction) receives less traffic, which is spread over
+ * all the other backends. Backends with equal load are selected in round robin order.
+ * Failed requests count as a multiple of the average latency, and backends without latency data
+ * are assumed to have the mean latency of the others.
  *
  * @author bratseth
  * @author Prashanth B. Bhat
@@ -28,6 +38,9 @@ public class Hasher {
 
     private AtomicInteger avoidAllQrsHitSameTld = new AtomicInteger(tldSeed());
 
+    /** The load of each node. Kept when nodes are removed as they are usually added back later. */
+    private final ConcurrentHashMap<VespaBackEndSearcher, Load> loads = new ConcurrentHashMap<>();
+
     /**
      * Creates a hasher independent of the {@linkplain VipStatus programmatic VIP API}.
      */
@@ -53,6 +66,7 @@ public class Hasher {
      * @param node the backend searcher (must never be null)
      */
     public void add(VespaBackEndSearcher node) {
+        loads.computeIfAbsent(node, n -> new Load());
         allNodes = addNode(node, allNodes);
 
         if (node.isLocalDispatching()) {
@@ -124,11 +138,125 @@ public class Hasher {
         if (nodes.length == 0) {
             return null;
         }
-        int idx = 0;
-        if (nodes.length > 1) {
-            idx = Math.abs(avoidAllQrsHitSameTld.incrementAndGet() % nodes.length);
+        if (nodes.length == 1) {
+            return nodes[0];
         }
-        return nodes[idx];
+        int idx = Math.abs(avoidAllQrsHitSameTld.incrementAndGet() % nodes.length);
+        int otherIdx = ThreadLocalRandom.current().nextInt(nodes.length - 1);
+        if (otherIdx >= idx) otherIdx++; // distinct from idx
+        VespaBackEndSearcher first = nodes[idx];
+        VespaBackEndSearcher second = nodes[otherIdx];
+        double meanLatency = meanLatency(nodes, null);
+        return loadOf(second, meanLatency) < loadOf(first, meanLatency) ? second : first;
+    }
+
+    /** Call this when a request is sent to a node returned by {@link #select} */
+    public void started(VespaBackEndSearcher node) {
+        Load load = loads.get(node);
+        if (load != null)
+            load.started();
+    }
+
+    /**
+     * Call this when a request to a node has completed
+     *
+     * @param node the node the request was sent to
+     * @param latencyNanos the latency of the request, or a negative value if it should not be
+     *                     taken into account, e.g because the request failed
+     */
+    public void completed(VespaBackEndSearcher node, long latencyNanos) {
+        Load load = loads.get(node);
+        if (load != null)
+            load.completed(latencyNanos);
+    }
+
+    /**
+     * Call this when a request to a node has failed with an error other than a timeout.
+     * This counts as a request which took much longer than the average request to the other nodes.
+     */
+    public void failed(VespaBackEndSearcher node) {
+        Load load = loads.get(node);
+        if (load != null)
+            load.failed(meanLatency(allNodes, node));
+    }
+
+    private double loadOf(VespaBackEndSearcher node, double meanLatency) {
+        Load load = loads.get(node);
+        return load == null ? 0 : load.value(meanLatency);
+    }
+
+    /**
+     * Returns the mean average latency of the given nodes which have latency data, or 0 if none has
+     *
+     * @param excluded a node which should not be included in the mean, or null to include all
+     */
+    private double meanLatency(VespaBackEndSearcher[] nodes, VespaBackEndSearcher excluded) {
+        double sum = 0;
+        int count = 0;
+        for (VespaBackEndSearcher node : nodes) {
+            if (node == excluded) continue;
+            Load load = loads.get(node);
+            if (load == null || load.averageLatency() == 0) continue;
+            sum += load.averageLatency();
+            count++;
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /** The current load of a node. This is thread safe. */
+    private static class Load {
+
+        /** The weight of a new latency in the average latency */
+        private static final double latencyWeight = 0.2;
+
+        /** The latency a failed request counts as, as a multiple of the average latency of the other nodes */
+        private static final double failurePenalty = 10;
+
+        /** The latency a failed request counts as when no other node has latency data, in nanoseconds */
+        private static final double defaultFailureLatency = 100_000_000;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        /** The exponentially weighted average latency in nanoseconds, or 0 if unknown */
+        private volatile double averageLatency = 0;
+
+        void started() { inFlight.incrementAndGet(); }
+
+        void completed(long latencyNanos) {
+            inFlight.decrementAndGet();
+            if (latencyNanos < 0) return;
+            addLatency(latencyNanos);
+        }
+
+        /**
+         * Records a failed request
+         *
+         * @param otherNodesLatency the mean latency of the other nodes, or 0 if unknown. This is used rather
+         *                          than the latency of this such that repeated failures do not compound.
+         */
+        void failed(double otherNodesLatency) {
+            inFlight.decrementAndGet();
+            addLatency(otherNodesLatency == 0 ? defaultFailureLatency : failurePenalty * otherNodesLatency);
+        }
+
+        private synchronized void addLatency(double latencyNanos) {
+            averageLatency = averageLatency == 0 ? latencyNanos
+                                                 : latencyWeight * latencyNanos + (1 - latencyWeight) * averageLatency;
+        }
+
+        double averageLatency() { return averageLatency; }
+
+        /**
+         * Returns the load of this node, where the latency of an idle node still counts
+         *
+         * @param meanLatency the mean latency of the nodes having latency data, used as the latency of this
+         *                    if it has none, or 0 if no node has latency data
+         */
+        double value(double meanLatency) {
+            double latency = averageLatency != 0 ? averageLatency : meanLatency;
+            return (inFlight.get() + 1) * Math.max(1, latency);
+        }
+
     }
 
 }
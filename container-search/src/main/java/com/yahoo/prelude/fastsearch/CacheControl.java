@@ -21,13 +21,26 @@ public class CacheControl {
     /** Whether this CacheControl actually should cache hits at all. */
     private final boolean activeCache;
 
-    /** Direct unsychronized cache access */
+    /** The cache, which is thread safe */
     private final PacketCache packetCache;
 
+    /** The backend requests which are in flight, to let identical requests wait for them */
+    private final InFlightRequests inFlightRequests = new InFlightRequests();
+
     public CacheControl(int sizeMegaBytes, double cacheTimeOutSeconds) {
+        this(sizeMegaBytes, cacheTimeOutSeconds, false);
+    }
+
+    /**
+     * Creates a cache control
+     *
+     * @param offHeap whether cached packets should be kept encoded outside the Java heap
+     */
+    public CacheControl(int sizeMegaBytes, double cacheTimeOutSeconds, boolean offHeap) {
         activeCache = sizeMegaBytes > 0 && cacheTimeOutSeconds > 0.0d;
         if (activeCache) {
-            packetCache = new PacketCache(sizeMegaBytes, 0, cacheTimeOutSeconds);
+            packetCache = new PacketCache((long)sizeMegaBytes << 20, cacheTimeOutSeconds,
+                                          Runtime.getRuntime().availableProcessors(), offHeap);
         } else {
             packetCache = null;
         }
@@ -45,9 +58,7 @@ public class CacheControl {
     public final PacketWrapper lookup(CacheKey key, Query query) {
         if ((key != null) && useCache(query)) {
             long now = System.currentTimeMillis();
-            synchronized (packetCache) {
-                return packetCache.get(key, now);
-            }
+            return packetCache.get(key, now);
         }
         return null;
     }
@@ -65,9 +76,7 @@ public class CacheControl {
         oldTimestamp = wrapper.getTimestamp();
         wrapper = (PacketWrapper) wrapper.clone();
         wrapper.addResultPacket(resultPacket);
-        synchronized (packetCache) {
-            packetCache.put(key, wrapper, oldTimestamp);
-        }
+        packetCache.put(key, wrapper, oldTimestamp);
     }
 
     // updates phases after first phase phase in multi phase search
@@ -79,9 +88,7 @@ public class CacheControl {
 
         wrapper = (PacketWrapper) wrapper.clone();
         wrapper.addDocsums(packetKeys, packets);
-        synchronized (packetCache) {
-            packetCache.put(key, wrapper, wrapper.getTimestamp());
-        }
+        packetCache.put(key, wrapper, wrapper.getTimestamp());
     }
 
     void cache(CacheKey key, Query query, DocsumPacketKey[] packetKeys, Packet[] packets) {
@@ -94,19 +101,52 @@ public class CacheControl {
         if (wrapper == null) {
             wrapper = new PacketWrapper(key, packetKeys,packets);
             long now = System.currentTimeMillis();
-            synchronized (packetCache) {
-                packetCache.put(key, wrapper, now);
-            }
+            packetCache.put(key, wrapper, now);
         } else {
             wrapper = (PacketWrapper) wrapper.clone();
             wrapper.addResultPacket((QueryResultPacket) packets[0]);
             wrapper.addDocsums(packetKeys, packets, 1);
-            synchronized (packetCache) {
-                packetCache.put(key, wrapper, wrapper.getTimestamp());
-            }
+            packetCache.put(key, wrapper, wrapper.getTimestamp());
         }
     }
 
+    /**
+     * Starts a backend request whose result will be cached with the given key, unless an identical request
+     * is in flight, in which case this waits for it to complete, at most until the query times out.
+     *
+     * @return true if the caller should make the request and call {@link #requestCompleted} when done,
+     *         false if the caller should look the result up in the cache again, and only make the request
+     *         if it is not found
+     */
+    boolean startOrAwaitRequest(Object key, Query query) {
+        return inFlightRequests.startOrAwait(key, query.getTimeLeft());
+    }
+
+    /** Marks a request started by {@link #startOrAwaitRequest} as completed, whether or not it succeeded */
+    void requestCompleted(Object key) {
+        inFlightRequests.completed(key);
+    }
+
+    /** Returns the number of backend requests which have waited for an identical request since this was created */
+    public long coalescedRequests() {
+        return inFlightRequests.coalesced();
+    }
+
+    /** Returns the number of cache lookups which returned an entry since this was created */
+    public long hits() {
+        return packetCache == null ? 0 : packetCache.hits();
+    }
+
+    /** Returns the number of cache lookups which did not return an entry since this was created */
+    public long misses() {
+        return packetCache == null ? 0 : packetCache.misses();
+    }
+
+    /** Returns the number of cache entries removed to make room for others since this was created */
+    public long evictions() {
+        return packetCache == null ? 0 : packetCache.evictions();
+    }
+
     /** Test method. */
     public void clear() {
         if (packetCache != null) {
@@ -3,12 +3,15 @@ package com.yahoo.prelude.fastsearch;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.yahoo.search.result.FieldIndex;
 import com.yahoo.vespa.config.search.SummaryConfig;
 import com.yahoo.container.search.LegacyEmulationConfig;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +33,9 @@ public class DocsumDefinition {
     // Mapping between field names and their index in this.fields
     private final Map<String,Integer> fieldNameToIndex;
 
+    /** The index used to store the fields of this in the hits they are added to */
+    private final FieldIndex hitFieldIndex;
+
     DocsumDefinition(DocumentdbInfoConfig.Documentdb.Summaryclass config, LegacyEmulationConfig emulConfig) {
         this.name = config.name();
         List<DocsumField> fieldsBuilder = new ArrayList<>();
@@ -44,6 +50,7 @@ public class DocsumDefinition {
         }
         fields = ImmutableList.copyOf(fieldsBuilder);
         fieldNameToIndex = ImmutableMap.copyOf(fieldNameToIndexBuilder);
+        hitFieldIndex = new FieldIndex(new LinkedHashSet<>(Lists.transform(fields, DocsumField::getName)));
     }
 
     /** Returns the field at this index, or null if none */
@@ -74,6 +81,11 @@ public class DocsumDefinition {
         return fields;
     }
 
+    /** Returns the index of the fields of this to be shared by all hits having these fields */
+    public FieldIndex getHitFieldIndex() {
+        return hitFieldIndex;
+    }
+
     /** Returns whether this summary contains one or more dynamic fields */
     public boolean isDynamic() {
         return dynamic;
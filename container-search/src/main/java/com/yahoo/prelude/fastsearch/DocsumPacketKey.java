@@ -2,6 +2,9 @@
 package com.yahoo.prelude.fastsearch;
 
 import com.yahoo.document.GlobalId;
+import com.yahoo.text.Utf8;
+
+import java.nio.ByteBuffer;
 
 
 /**
@@ -43,6 +46,33 @@ public class DocsumPacketKey {
         return partid;
     }
 
+    /** Encodes this such that it can be decoded by {@link #decode} */
+    void encode(ByteBuffer buffer) {
+        buffer.put(globalId.getRawId());
+        buffer.putInt(partid);
+        if (summaryClass == null) {
+            buffer.putInt(-1);
+        } else {
+            byte[] utf8 = Utf8.toBytes(summaryClass);
+            buffer.putInt(utf8.length);
+            buffer.put(utf8);
+        }
+    }
+
+    static DocsumPacketKey decode(ByteBuffer buffer) {
+        byte[] rawGid = new byte[GlobalId.LENGTH];
+        buffer.get(rawGid);
+        int partid = buffer.getInt();
+        int summaryClassLength = buffer.getInt();
+        String summaryClass = null;
+        if (summaryClassLength >= 0) {
+            byte[] utf8 = new byte[summaryClassLength];
+            buffer.get(utf8);
+            summaryClass = Utf8.toString(utf8);
+        }
+        return new DocsumPacketKey(new GlobalId(rawGid), partid, summaryClass);
+    }
+
     public boolean equals(Object o) {
         if (o instanceof DocsumPacketKey) {
             DocsumPacketKey other = (DocsumPacketKey) o;
@@ -268,7 +268,7 @@ public class FastHit extends Hit {
     }
 
     void addSummary(DocsumDefinition docsumDef, Inspector value) {
-        reserve(docsumDef.getFieldCount());
+        reserve(docsumDef.getHitFieldIndex());
         for (DocsumField field : docsumDef.getFields()) {
             String fieldName = field.getName();
             Inspector f = value.field(fieldName);
@@ -3,6 +3,7 @@ package com.yahoo.prelude.fastsearch;
 
 import java.util.Optional;
 
+import com.yahoo.collections.Pair;
 import com.yahoo.compress.CompressionType;
 import com.yahoo.fs4.BasicPacket;
 import com.yahoo.fs4.ChannelTimeoutException;
@@ -281,6 +282,27 @@ public class FastSearcher extends VespaBackEndSearcher {
             packetWrapper = cacheLookupTwoPhase(cacheKey, result,summaryClass);
         }
 
+        // Identical fills of a cached result wait for the first, as it will add the summaries to the cache
+        Pair<CacheKey, String> fillKey = null;
+        if (packetWrapper != null && ! result.isFilled(summaryClass)) {
+            fillKey = new Pair<>(cacheKey, summaryClass);
+            if ( ! cacheControl.startOrAwaitRequest(fillKey, query)) {
+                fillKey = null;
+                packetWrapper = cacheLookupTwoPhase(cacheKey, result, summaryClass);
+            }
+        }
+
+        try {
+            fillFromBackend(result, summaryClass, cacheKey, packetWrapper);
+        } finally {
+            if (fillKey != null)
+                cacheControl.requestCompleted(fillKey);
+        }
+    }
+
+    /** Fills the hits which are not already filled by fetching summaries from the backend */
+    private void fillFromBackend(Result result, String summaryClass, CacheKey cacheKey, PacketWrapper packetWrapper) {
+        Query query = result.getQuery();
         FS4Channel channel = chooseBackend(query).openChannel();
         channel.setQuery(query);
         Packet[] receivedPackets;
@@ -0,0 +1,60 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.fastsearch;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of the backend requests which are in flight to allow identical concurrent requests
+ * to wait for the first one and use its cached result instead of being sent to the backend.
+ * <p>
+ * This is thread safe.
+ */
+class InFlightRequests {
+
+    /** Latches which are opened when the request of the key completes */
+    private final ConcurrentHashMap<Object, CountDownLatch> requests = new ConcurrentHashMap<>();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Starts a request with the given key unless an identical one is already in flight,
+     * in which case this waits for that to complete.
+     *
+     * @param key the key identifying identical requests
+     * @param timeoutMillis the max time to wait for an identical request to complete
+     * @return true if the caller should make the request and then call {@link #completed} with this key,
+     *         false if an identical request completed or the wait timed out, such that the caller should
+     *         look for the result in the cache and make the request itself only if it is not found
+     */
+    boolean startOrAwait(Object key, long timeoutMillis) {
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch inFlight = requests.putIfAbsent(key, latch);
+        if (inFlight == null) return true;
+
+        coalesced.increment();
+        try {
+            inFlight.await(Math.max(0, timeoutMillis), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /** Marks a request started by {@link #startOrAwait} as completed, whether or not it succeeded */
+    void completed(Object key) {
+        CountDownLatch latch = requests.remove(key);
+        if (latch != null)
+            latch.countDown();
+    }
+
+    /** Returns the number of requests which are in flight */
+    int size() { return requests.size(); }
+
+    /** Returns the number of requests which have waited for an identical request since this was created */
+    long coalesced() { return coalesced.sum(); }
+
+}
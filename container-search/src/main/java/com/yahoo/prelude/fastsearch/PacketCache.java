@@ -2,42 +2,68 @@
 package com.yahoo.prelude.fastsearch;
 
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 import com.yahoo.log.LogLevel;
 
 
 /**
- * An LRU cache using number of hits cached inside the results as
+ * An LRU cache using number of bytes of the packets cached inside the results as
  * size limiting factor. Directly modelled after com.yahoo.collections.Cache.
+ * <p>
+ * This is thread safe. To avoid contention the cache is split into segments by key hash, each of which is an
+ * LRU cache guarded by its own lock and holding a fraction of the capacity. Eviction is therefore LRU within
+ * each segment rather than across the entire cache. Small caches use fewer segments, down to a single one.
+ * <p>
+ * The cache may keep entries either on the heap, or <i>off heap</i>: Entries are then encoded and stored in
+ * blocks of direct memory which are allocated in large slabs and reused, and decoded again on each lookup.
+ * This makes it possible to use caches much larger than 2 Gb without increasing garbage collection cost,
+ * at the cost of encoding and decoding packets. Off heap capacity is measured in the number of bytes of
+ * blocks used to store entries.
  *
  * @author  <a href="mailto:steinar@yahoo-inc.com">Steinar Knutsen</a>
  * @author  bratseth
  */
-public class PacketCache extends LinkedHashMap<CacheKey, PacketWrapper> {
+public class PacketCache {
 
-    private static final long serialVersionUID = -7403077211906108356L;
+    /** The smallest capacity of a segment in bytes */
+    private static final int minSegmentCapacity = 1 << 20;
 
-    /** The <i>current</i> number of bytes of packets in this cache */
-    private int totalSize;
+    /** The largest number of segments to use */
+    private static final int maxSegmentCount = 64;
+
+    /** The size of the blocks off heap entries are stored in */
+    private static final int offHeapBlockSize = 4 * 1024;
+
+    /** The largest size of a slab of direct memory holding blocks of off heap entries */
+    private static final int maxOffHeapSlabSize = 64 * 1024 * 1024;
 
     /** The maximum number of bytes of packets in this cache */
-    private final int capacity;
+    private final long capacity;
 
     /** The max size of a cached item compared to the total size */
-    private int maxCacheItemPercentage = 1;
+    private volatile int maxCacheItemPercentage = 1;
 
     /** The max age for a valid cache entry, 0 mean infinite */
     private final long maxAge;
 
+    private final boolean offHeap;
+
+    private final Segment<?>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
     private static final Logger log = Logger.getLogger(PacketCache.class.getName());
 
     public void clear() {
-        super.clear();
-        totalSize = 0;
+        for (Segment<?> segment : segments)
+            segment.clear();
     }
 
     /**
@@ -57,58 +83,74 @@ public class PacketCache extends LinkedHashMap<CacheKey, PacketWrapper> {
      * @param maxAge seconds a cache entry is valid, 0 or less are illegal arguments
      */
     public PacketCache(int capacityMegaBytes,int capacityBytes,double maxAge) {
-        // hardcoded inital entry capacity, won't matter much anyway
-        // after a while
-        super(12500, 1.0f, true);
+        this(capacityMegaBytes, capacityBytes, maxAge, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a cache with a size given by
+     * cachesizemegabytes*2^20+cachesizebytes
+     *
+     * @param capacityMegaBytes the cache size, measured in megabytes
+     * @param capacityBytes additional number of bytes to add to the cache size
+     * @param maxAge seconds a cache entry is valid, 0 or less are illegal arguments
+     * @param concurrency the expected number of threads accessing this concurrently
+     */
+    public PacketCache(int capacityMegaBytes, int capacityBytes, double maxAge, int concurrency) {
+        this(((long)capacityMegaBytes << 20) + capacityBytes, maxAge, concurrency, false);
+    }
+
+    /**
+     * Creates a cache
+     *
+     * @param capacity the cache size in bytes. This is at most 2 Gb unless the cache is off heap
+     * @param maxAge seconds a cache entry is valid, 0 or less are illegal arguments
+     * @param concurrency the expected number of threads accessing this concurrently
+     * @param offHeap whether to keep entries encoded in memory outside the Java heap
+     */
+    public PacketCache(long capacity, double maxAge, int concurrency, boolean offHeap) {
         if (maxAge <= 0.0d) {
             throw new IllegalArgumentException("maxAge <= 0 not legal on 5.1, use some very large number for no timeout.");
         }
-        if (capacityMegaBytes > (Integer.MAX_VALUE >> 20)) {
+        if ( ! offHeap && capacity > Integer.MAX_VALUE) {
             log.log(LogLevel.INFO, "Packet cache of more than 2 GB requested. Reverting to 2 GB packet cache.");
-            this.capacity = Integer.MAX_VALUE;
-        } else {
-            this.capacity = (capacityMegaBytes << 20) + capacityBytes;
+            capacity = Integer.MAX_VALUE;
         }
-        if (this.capacity <= 0) {
+        if (capacity <= 0) {
             throw new IllegalArgumentException("Total cache size set to 0 or less bytes. If no caching is desired, avoid creating this object instead.");
         }
+        this.capacity = capacity;
         this.maxAge = (long) (maxAge * 1000.0d);
-    }
+        this.offHeap = offHeap;
 
-    /**
-     * Overrides LinkedHashMap.removeEldestEntry as suggested to implement LRU cache.
-     */
-    protected boolean removeEldestEntry(Map.Entry<CacheKey, PacketWrapper> eldest)
-    {
-        if (totalSize > capacity) {
-            totalSize -= eldest.getValue().getPacketsSize();
-            return true;
-        }
-        return false;
+        int segmentCount = segmentCount(capacity, concurrency);
+        this.segments = new Segment<?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = offHeap ? new OffHeapSegment(capacity / segmentCount) : new HeapSegment(capacity / segmentCount);
     }
 
-    private void removeOverflow() {
-        if (totalSize < capacity) return;
-
-        for (Iterator<PacketWrapper> i = values().iterator(); i.hasNext();) {
-            PacketWrapper eldestEntry = i.next();
-            totalSize -= eldestEntry.getPacketsSize();
+    /** Returns the number of segments to use: A power of two which is at most twice the concurrency */
+    private static int segmentCount(long capacity, int concurrency) {
+        long count = Math.min(Math.min(capacity / minSegmentCapacity, concurrency * 2), maxSegmentCount);
+        return Integer.highestOneBit(Math.max(1, (int)count));
+    }
 
-            i.remove();
-            if (totalSize < capacity) {
-                break;
-            }
-        }
+    private Segment<?> segmentOf(CacheKey key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
     }
 
+    /** Returns the capacity of this in megabytes */
     public int getCapacity() {
-        return capacity >> 20;
+        return (int)(capacity >> 20);
     }
 
-    public int getByteCapacity() {
+    public long getByteCapacity() {
         return capacity;
     }
 
+    /** Returns whether this keeps entries outside the Java heap */
+    public boolean isOffHeap() { return offHeap; }
+
     /**
      * Adds a PacketWrapper object to this cache,
      * unless the size is more than maxCacheItemPercentage of the total size
@@ -123,64 +165,317 @@ public class PacketCache extends LinkedHashMap<CacheKey, PacketWrapper> {
      *
      * @param timestamp the timestamp for the first packet in the array,
      * unit milliseconds
+     * @return the entry previously cached for this key, or null if there was none or this is off heap
      */
     public PacketWrapper put(CacheKey key, PacketWrapper result, long timestamp) {
-        int size = result.getPacketsSize();
-
-        if (size > 0) {
+        if (result.getPacketsSize() > 0) {
             result.setTimestamp(timestamp);
         }
+        return segmentOf(key).put(key, result);
+    }
+
+    /** Returns whether an entry of the given size in bytes may be added to the given segment */
+    private boolean admits(long size, Segment<?> segment) {
+        return size * 100 <= capacity * maxCacheItemPercentage && size <= segment.capacity;
+    }
+
+    public PacketWrapper get(CacheKey key) {
+        return get(key, System.currentTimeMillis());
+    }
+
+    public PacketWrapper get(CacheKey key, long now) {
+        PacketWrapper result = segmentOf(key).get(key, now);
+        if (result == null)
+            misses.increment();
+        else
+            hits.increment();
+        return result;
+    }
+
+    /** Removes the entry of the given key, and returns it if this is on heap */
+    public PacketWrapper remove(CacheKey key) {
+        return segmentOf(key).remove(key);
+    }
+
+    /** Returns the number of entries in this cache */
+    public int size() {
+        int size = 0;
+        for (Segment<?> segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    /** Returns the number of bytes used by entries in this cache */
+    public long totalPacketSize() {
+        long totalSize = 0;
+        for (Segment<?> segment : segments)
+            totalSize += segment.totalSize();
+        return totalSize;
+    }
+
+    /** Returns the number of lookups which have returned an entry since this was created */
+    public long hits() { return hits.sum(); }
+
+    /** Returns the number of lookups which have not returned an entry, including expired ones, since this was created */
+    public long misses() { return misses.sum(); }
+
+    /** Returns the number of entries which have been removed to make room for others since this was created */
+    public long evictions() { return evictions.sum(); }
+
+    /**
+     * A part of this cache: An access ordered LRU cache where all access is synchronized on the segment.
+     *
+     * @param <ENTRY> the type of the entries stored in this
+     */
+    private abstract class Segment<ENTRY> {
+
+        private final LinkedHashMap<CacheKey, ENTRY> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** The maximum number of bytes of entries in this segment */
+        final long capacity;
+
+        /** The <i>current</i> number of bytes of entries in this segment */
+        private long totalSize = 0;
+
+        Segment(long capacity) {
+            this.capacity = capacity;
+        }
+
+        abstract PacketWrapper get(CacheKey key, long now);
+
+        abstract PacketWrapper put(CacheKey key, PacketWrapper packets);
+
+        abstract PacketWrapper remove(CacheKey key);
+
+        /** Returns the number of bytes of capacity used by the given entry */
+        abstract long sizeOf(ENTRY entry);
+
+        /** Returns the timestamp in milliseconds of the given entry */
+        abstract long timestampOf(ENTRY entry);
+
+        /** Called when an entry is no longer in this */
+        void removed(ENTRY entry) { }
+
+        /** Returns the entry of the given key, or null if it is not present or has expired */
+        ENTRY getEntry(CacheKey key, long now) {
+            ENTRY entry = entries.get(key);
+            if (entry == null) return null;
+
+            if ((now - timestampOf(entry)) > maxAge) {
+                removeEntry(key);
+                return null;
+            }
+            return entry;
+        }
+
+        /**
+         * Removes the entry of the given key, and then the least recently used entries
+         * until an entry of the given size fits.
+         *
+         * @return the removed entry of the given key, or null if none
+         */
+        ENTRY makeRoom(CacheKey key, long size) {
+            ENTRY previous = removeEntry(key);
+            for (Iterator<ENTRY> i = entries.values().iterator(); totalSize + size > capacity && i.hasNext(); ) {
+                ENTRY evicted = i.next();
+                i.remove();
+                totalSize -= sizeOf(evicted);
+                removed(evicted);
+                evictions.increment();
+            }
+            return previous;
+        }
 
-        // don't insert if it is too big
-        if (size * 100 > capacity * maxCacheItemPercentage) {
-            // removeField the old one since that is now stale.
-            return remove(key);
+        /** Adds an entry, which must have been made room for */
+        void addEntry(CacheKey key, ENTRY entry) {
+            entries.put(key, entry);
+            totalSize += sizeOf(entry);
         }
 
-        totalSize += size;
-        PacketWrapper previous = super.put(key, result);
-        if (previous != null) {
-            totalSize -= previous.getPacketsSize();
+        ENTRY removeEntry(CacheKey key) {
+            ENTRY removed = entries.remove(key);
+            if (removed != null) {
+                totalSize -= sizeOf(removed);
+                removed(removed);
+            }
+            return removed;
         }
-        if (totalSize > (capacity * 1.1)) {
-            removeOverflow();
+
+        synchronized void clear() {
+            for (ENTRY entry : entries.values())
+                removed(entry);
+            entries.clear();
+            totalSize = 0;
         }
 
-        return previous;
+        synchronized int size() { return entries.size(); }
+
+        synchronized long totalSize() { return totalSize; }
+
     }
 
-    public PacketWrapper get(CacheKey key) {
-        return get(key, System.currentTimeMillis());
+    /** A segment storing the packet wrappers on the heap */
+    private final class HeapSegment extends Segment<PacketWrapper> {
+
+        HeapSegment(long capacity) {
+            super(capacity);
+        }
+
+        @Override
+        synchronized PacketWrapper get(CacheKey key, long now) {
+            return getEntry(key, now);
+        }
+
+        @Override
+        synchronized PacketWrapper put(CacheKey key, PacketWrapper packets) {
+            int size = packets.getPacketsSize();
+            if ( ! admits(size, this)) {
+                // remove the old one since that is now stale.
+                return removeEntry(key);
+            }
+            PacketWrapper previous = makeRoom(key, size);
+            addEntry(key, packets);
+            return previous;
+        }
+
+        @Override
+        synchronized PacketWrapper remove(CacheKey key) {
+            return removeEntry(key);
+        }
+
+        @Override
+        long sizeOf(PacketWrapper packets) { return packets.getPacketsSize(); }
+
+        @Override
+        long timestampOf(PacketWrapper packets) { return packets.getTimestamp(); }
+
     }
 
-    public PacketWrapper get(CacheKey key, long now) {
-        PacketWrapper result = super.get(key);
+    /**
+     * A segment storing encoded packet wrappers in fixed size blocks of direct memory.
+     * Blocks are allocated from slabs of direct memory which are allocated when needed and never released,
+     * and blocks of removed entries are reused.
+     */
+    private final class OffHeapSegment extends Segment<OffHeapEntry> {
+
+        private final int blockCount;
+        private final int blocksPerSlab;
+        private final ByteBuffer[] slabs;
+
+        /** The blocks which have been used and are now free */
+        private final int[] freeBlocks;
+        private int freeBlockCount = 0;
 
-        if (result == null) {
-            return result;
+        /** The blocks from this and up have never been used */
+        private int nextUnusedBlock = 0;
+
+        OffHeapSegment(long capacity) {
+            super(capacity / offHeapBlockSize * offHeapBlockSize);
+            blockCount = (int)Math.min(capacity / offHeapBlockSize, Integer.MAX_VALUE);
+            blocksPerSlab = Math.max(1, Math.min(blockCount, maxOffHeapSlabSize / offHeapBlockSize));
+            slabs = new ByteBuffer[(blockCount + blocksPerSlab - 1) / blocksPerSlab];
+            freeBlocks = new int[blockCount];
+        }
+
+        @Override
+        PacketWrapper get(CacheKey key, long now) {
+            ByteBuffer encoded;
+            synchronized (this) {
+                OffHeapEntry entry = getEntry(key, now);
+                if (entry == null) return null;
+                encoded = read(entry);
+            }
+            return PacketWrapper.decode(encoded);
         }
 
-        long timestamp = result.getTimestamp();
+        @Override
+        PacketWrapper put(CacheKey key, PacketWrapper packets) {
+            ByteBuffer encoded = packets.encode();
+            int blocksNeeded = (encoded.remaining() + offHeapBlockSize - 1) / offHeapBlockSize;
+            synchronized (this) {
+                if ( ! admits((long)blocksNeeded * offHeapBlockSize, this)) {
+                    removeEntry(key);
+                    return null;
+                }
+                makeRoom(key, (long)blocksNeeded * offHeapBlockSize);
+                addEntry(key, write(encoded, blocksNeeded, packets.getTimestamp()));
+            }
+            return null;
+        }
 
-        if ((now - timestamp) > maxAge) {
-            remove(key);
+        @Override
+        synchronized PacketWrapper remove(CacheKey key) {
+            removeEntry(key);
             return null;
-        } else {
-            return result;
         }
-    }
 
-    public PacketWrapper remove(CacheKey key) {
-        PacketWrapper removed = super.remove(key);
+        @Override
+        long sizeOf(OffHeapEntry entry) { return (long)entry.blocks.length * offHeapBlockSize; }
+
+        @Override
+        long timestampOf(OffHeapEntry entry) { return entry.timestamp; }
 
-        if (removed != null) {
-            totalSize -= removed.getPacketsSize();
+        @Override
+        void removed(OffHeapEntry entry) {
+            for (int block : entry.blocks)
+                freeBlocks[freeBlockCount++] = block;
         }
-        return removed;
+
+        private OffHeapEntry write(ByteBuffer encoded, int blocksNeeded, long timestamp) {
+            int length = encoded.remaining();
+            int end = encoded.limit();
+            int[] blocks = new int[blocksNeeded];
+            for (int i = 0; i < blocksNeeded; i++) {
+                blocks[i] = allocateBlock();
+                encoded.limit(Math.min(encoded.position() + offHeapBlockSize, end));
+                slabPositionedAt(blocks[i]).put(encoded);
+            }
+            return new OffHeapEntry(blocks, length, timestamp);
+        }
+
+        private ByteBuffer read(OffHeapEntry entry) {
+            byte[] encoded = new byte[entry.length];
+            for (int i = 0; i < entry.blocks.length; i++) {
+                int offset = i * offHeapBlockSize;
+                slabPositionedAt(entry.blocks[i]).get(encoded, offset, Math.min(offHeapBlockSize, entry.length - offset));
+            }
+            return ByteBuffer.wrap(encoded);
+        }
+
+        /** Returns a free block. This must only be called when there is room for it. */
+        private int allocateBlock() {
+            if (freeBlockCount > 0) return freeBlocks[--freeBlockCount];
+            return nextUnusedBlock++;
+        }
+
+        /** Returns the slab containing the given block, positioned at the start of it */
+        private ByteBuffer slabPositionedAt(int block) {
+            int slabIndex = block / blocksPerSlab;
+            if (slabs[slabIndex] == null) {
+                int slabBlocks = Math.min(blocksPerSlab, blockCount - slabIndex * blocksPerSlab);
+                slabs[slabIndex] = ByteBuffer.allocateDirect(slabBlocks * offHeapBlockSize);
+            }
+            ByteBuffer slab = slabs[slabIndex];
+            slab.clear();
+            slab.position((block % blocksPerSlab) * offHeapBlockSize);
+            return slab;
+        }
+
     }
 
-    public int totalPacketSize() {
-        return totalSize;
+    /** The location of an encoded entry in an off heap segment */
+    private static final class OffHeapEntry {
+
+        private final int[] blocks;
+        private final int length;
+        private final long timestamp;
+
+        OffHeapEntry(int[] blocks, int length, long timestamp) {
+            this.blocks = blocks;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+
     }
 
 }
@@ -2,13 +2,17 @@
 package com.yahoo.prelude.fastsearch;
 
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.logging.Logger;
 
 import com.yahoo.fs4.BasicPacket;
+import com.yahoo.fs4.BufferTooSmallException;
 import com.yahoo.fs4.DocsumPacket;
 import com.yahoo.fs4.DocumentInfo;
 import com.yahoo.fs4.Packet;
+import com.yahoo.fs4.PacketDecoder;
 import com.yahoo.fs4.QueryResultPacket;
 import com.yahoo.document.GlobalId;
 import com.yahoo.document.DocumentId;
@@ -71,6 +75,11 @@ public class PacketWrapper implements Cloneable {
 
     }
 
+    private PacketWrapper(int keySize) {
+        this.keySize = keySize;
+        this.packets = new LinkedHashMap<>();
+    }
+
     public QueryResultPacket getFirstResultPacket() {
         if (resultPackets.size() > 0) {
             return (QueryResultPacket) resultPackets.get(0);
@@ -280,6 +289,58 @@ public class PacketWrapper implements Cloneable {
         return size;
     }
 
+    /**
+     * Returns this encoded to a buffer which is ready to be read by {@link #decode}.
+     * This wrapper must not be modified by other threads while it is encoded.
+     */
+    ByteBuffer encode() {
+        int bufferSize = getPacketsSize() + 1024;
+        while (true) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+                encode(buffer);
+                buffer.flip();
+                return buffer;
+            } catch (BufferTooSmallException | BufferOverflowException e) {
+                bufferSize *= 2;
+            }
+        }
+    }
+
+    private void encode(ByteBuffer buffer) throws BufferTooSmallException {
+        buffer.putLong(getTimestamp());
+        buffer.putInt(keySize);
+        buffer.putInt(resultPackets.size());
+        for (BasicPacket resultPacket : resultPackets)
+            encode(resultPacket, buffer);
+        buffer.putInt(packets.size());
+        for (Map.Entry<DocsumPacketKey, BasicPacket> entry : packets.entrySet()) {
+            entry.getKey().encode(buffer);
+            encode(entry.getValue(), buffer);
+        }
+    }
+
+    private static void encode(BasicPacket packet, ByteBuffer buffer) throws BufferTooSmallException {
+        packet.encode(buffer, ((Packet) packet).getChannel());
+        buffer.limit(buffer.capacity()); // encoding a packet sets the limit to its end
+    }
+
+    /** Decodes a wrapper from a buffer positioned at the start of data written by {@link #encode} */
+    static PacketWrapper decode(ByteBuffer buffer) {
+        long timestamp = buffer.getLong();
+        PacketWrapper wrapper = new PacketWrapper(buffer.getInt());
+        int resultPacketCount = buffer.getInt();
+        for (int i = 0; i < resultPacketCount; i++)
+            wrapper.resultPackets.add(PacketDecoder.decode(buffer));
+        int docsumCount = buffer.getInt();
+        for (int i = 0; i < docsumCount; i++) {
+            DocsumPacketKey packetKey = DocsumPacketKey.decode(buffer);
+            wrapper.packets.put(packetKey, PacketDecoder.decode(buffer));
+        }
+        wrapper.setTimestamp(timestamp);
+        return wrapper;
+    }
+
     /**
      * Straightforward shallow copy.
      */
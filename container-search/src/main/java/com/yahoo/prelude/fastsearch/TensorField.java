@@ -12,7 +12,9 @@ import java.util.Optional;
 
 /**
  * A tensor field. Tensors are encoded as a data field where the data (following the length)
- * is encoded in a tensor binary format defined by com.yahoo.tensor.serialization.TypedBinaryFormat
+ * is encoded in a tensor binary format defined by com.yahoo.tensor.serialization.TypedBinaryFormat.
+ * Dense tensors are decoded as views over the docsum data, such that their cells are only decoded
+ * when accessed, e.g when rendered.
  *
  * @author bratseth
  */
@@ -27,7 +29,7 @@ public class TensorField extends DocsumField implements VariableLengthField {
         int length = buffer.getInt();
         if (length == 0) return null;
         ByteBuffer contentBuffer = ByteBuffer.wrap(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
-        Tensor tensor = TypedBinaryFormat.decode(Optional.empty(), new GrowableByteBuffer(contentBuffer));
+        Tensor tensor = TypedBinaryFormat.decodeView(Optional.empty(), new GrowableByteBuffer(contentBuffer));
         buffer.position(buffer.position() + length);
         return tensor;
     }
@@ -61,7 +63,7 @@ public class TensorField extends DocsumField implements VariableLengthField {
     public Object convert(Inspector value) {
         byte[] content = value.asData(Value.empty().asData());
         if (content.length == 0) return null;
-        return TypedBinaryFormat.decode(Optional.empty(), GrowableByteBuffer.wrap(content));
+        return TypedBinaryFormat.decodeView(Optional.empty(), GrowableByteBuffer.wrap(content));
     }
 
 }
@@ -251,13 +251,24 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
 
         Result result = null;
         CacheKey cacheKey = null;
+        boolean startedRequest = false;
         if (cacheControl.useCache(query)) {
             cacheKey = new CacheKey(queryPacket);
             result = getCached(cacheKey, queryPacket.getQueryPacketData(), query);
+            if (result == null) {
+                startedRequest = cacheControl.startOrAwaitRequest(cacheKey, query);
+                if ( ! startedRequest) // an identical request has completed: Its result is usually cached now
+                    result = getCached(cacheKey, queryPacket.getQueryPacketData(), query);
+            }
         }
 
         if (result == null) {
-            result = doSearch2(query, queryPacket, cacheKey, execution);
+            try {
+                result = doSearch2(query, queryPacket, cacheKey, execution);
+            } finally {
+                if (startedRequest)
+                    cacheControl.requestCompleted(cacheKey);
+            }
             if (isLoggingFine())
                 getLogger().fine("Result NOT retrieved from cache");
 
@@ -64,6 +64,9 @@ public class RuleBase {
     /** Should we allow stemmed matches? */
     private boolean stemming=true;
 
+    /** Should we only evaluate the rules whose trigger terms are present in the query? */
+    private boolean indexRules=true;
+
     /** Creates an empty rule base. TODO: Disallow */
     public RuleBase() {
     }
@@ -108,6 +111,22 @@ public class RuleBase {
     /** Returns whether stemmed matches are allowed. True by default */
     public boolean getStemming() { return stemming; }
 
+    /**
+     * Set to false to evaluate all rules on every query, instead of only the rules having
+     * at least one of their trigger terms in the query. This does not change the outcome of evaluations.
+     * True by default.
+     */
+    public void setIndexRules(boolean indexRules) {
+        this.indexRules=indexRules;
+        if (indexRules)
+            analyzer.indexRules();
+        else
+            analyzer.clearIndex();
+    }
+
+    /** Returns whether rules are indexed by their trigger terms. True by default */
+    public boolean getIndexRules() { return indexRules; }
+
     /**
      * <p>Include another rule base into this. This <b>transfers ownership</b>
      * of the given rule base - it can not be subsequently used for any purpose
@@ -302,6 +321,8 @@ public class RuleBase {
     public void initialize() {
         inlineIncluded();
         makeReferences();
+        if (indexRules)
+            analyzer.indexRules();
     }
 
     /**
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 
 import com.yahoo.search.Query;
 import com.yahoo.prelude.semantics.RuleBase;
@@ -18,6 +19,8 @@ public class RuleBaseBenchmark {
 
     public void benchmark(String ruleBaseFile, String queryFile, int iterations)
             throws IOException, ParseException {
+        if (iterations < 1)
+            throw new IllegalArgumentException("Iterations must be at least 1, not " + iterations);
 
         String fsaFile = null;
         if(ruleBaseFile.endsWith(".sr")){
@@ -34,21 +37,51 @@ public class RuleBaseBenchmark {
         while((line=reader.readLine())!=null){
             queries.add(line);
         }
+
+        ruleBase.setIndexRules(false);
+        List<String> unindexedRewrites = new ArrayList<>();
+        long unindexedElapsed = run(ruleBase, queries, iterations, unindexedRewrites);
+
+        ruleBase.setIndexRules(true);
+        List<String> indexedRewrites = new ArrayList<>();
+        long indexedElapsed = run(ruleBase, queries, iterations, indexedRewrites);
+
+        int differences = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            if ( ! unindexedRewrites.get(i).equals(indexedRewrites.get(i))) {
+                System.out.println("DIFFERENCE: query=" + queries.get(i) +
+                                   "\n           unindexed=" + unindexedRewrites.get(i) +
+                                   "\n           indexed=" + indexedRewrites.get(i));
+                differences++;
+            }
+        }
+
+        System.out.print("BENCHMARK: rulebase=" + ruleBaseFile +
+                "\n           fsa=" + fsaFile +
+                "\n           queries=" + queryFile +
+                "\n           iterations=" + iterations +
+                "\n           elapsed=" + unindexedElapsed + "ms without rule index" +
+                "\n           elapsed=" + indexedElapsed + "ms with rule index" +
+                "\n           differences=" + differences + "\n");
+    }
+
+    /**
+     * Analyzes all the queries the given number of iterations and returns the elapsed time in milliseconds.
+     * The rewritten query trees of the last iteration are added to the given list.
+     */
+    private long run(RuleBase ruleBase, List<String> queries, int iterations, List<String> rewrites) {
         Date start = new Date();
         for (int i=0;i<iterations;i++){
             for (Iterator<String> iter = queries.iterator(); iter.hasNext(); ){
                 String queryString = iter.next();
                 Query query = new Query("?query="+queryString);
                 ruleBase.analyze(query,0);
+                if (i == iterations - 1)
+                    rewrites.add(query.getModel().getQueryTree().toString());
             }
         }
         Date end = new Date();
-        long elapsed = end.getTime()-start.getTime();
-        System.out.print("BENCHMARK: rulebase=" + ruleBaseFile +
-                "\n           fsa=" + fsaFile +
-                "\n           queries=" + queryFile +
-                "\n           iterations=" + iterations +
-                "\n           elapsed=" + elapsed + "ms\n");
+        return end.getTime()-start.getTime();
     }
 
 
@@ -7,7 +7,8 @@ import com.yahoo.prelude.semantics.RuleBase;
 import com.yahoo.prelude.semantics.RuleBaseException;
 import com.yahoo.prelude.semantics.rule.ProductionRule;
 
-import java.util.ListIterator;
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * Evaluates the rules of a rule base. This method is thread safe on analyze calls, but
@@ -19,10 +20,26 @@ public class RuleEngine {
 
     private RuleBase rules;
 
+    /** The index of the rules by trigger terms, or null to evaluate all rules on all queries */
+    private volatile RuleIndex index=null;
+
     public RuleEngine(RuleBase rules) {
         this.rules=rules;
     }
 
+    /**
+     * Indexes the rules of the rule base by their trigger terms, such that only the rules which
+     * may match a query are evaluated. Call this when all rules are added and references are made.
+     */
+    public void indexRules() {
+        index=new RuleIndex(rules.rules());
+    }
+
+    /** Removes the rule index, such that all rules are evaluated on all queries */
+    public void clearIndex() {
+        index=null;
+    }
+
     /**
      * Evaluates a rule base over a query
      *
@@ -32,19 +49,27 @@ public class RuleEngine {
      *         If there is an error, this query is destroyed (unusable)
      */
     public String evaluate(Query query,int traceLevel) {
-        // TODO: This is O(query size*rule base size). We'll eventually need to create indices
-        //       on rules to look up rule candidates per term to make it O(query size) instead
-        //       Probably create indices on the first term like Prolog implementations use to
-
         boolean matchedAnything=false;
         Evaluation evaluation=new Evaluation(query,traceLevel);
         evaluation.setStemming(rules.getStemming());
         evaluation.trace(2,"Evaluating query '" + evaluation.getQuery().getModel().getQueryTree().getRoot() + "':");
-        for (ListIterator<ProductionRule> i=rules.ruleIterator(); i.hasNext(); ) {
+
+        List<ProductionRule> ruleList=rules.rules();
+        RuleIndex index=this.index;
+        if (index!=null && index.ruleCount()!=ruleList.size()) // rules were added after indexing
+            index=null;
+        BitSet candidates=index==null ? null : index.candidates(evaluation.items(),evaluation.getStemming());
+        for (int i=0; i<ruleList.size(); i++) {
+            if (candidates!=null) {
+                i=candidates.nextSetBit(i);
+                if (i<0) break;
+            }
             evaluation.reset();
-            ProductionRule rule=i.next();
+            ProductionRule rule=ruleList.get(i);
             boolean matched=matchRuleAtAllStartPoints(evaluation,rule);
             matchedAnything|=matched;
+            if (matched && index!=null) // the query has changed, which may trigger other rules
+                candidates=index.candidates(evaluation.items(),evaluation.getStemming());
         }
 
         if (!matchedAnything) return null;
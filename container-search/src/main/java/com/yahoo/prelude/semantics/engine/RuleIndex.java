@@ -0,0 +1,83 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.semantics.engine;
+
+import com.yahoo.prelude.semantics.rule.ProductionRule;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the production rules of a rule base by their trigger terms - the terms of which at least one
+ * must be present in a query for the rule to match. This is used to look up the rules which may match a query
+ * such that the other rules need not be evaluated.
+ * Rules without trigger terms are candidates for every query.
+ * <p>
+ * This is immutable.
+ */
+class RuleIndex {
+
+    /** The number of rules indexed */
+    private final int ruleCount;
+
+    /** The positions of the rules triggered by each term, in increasing order */
+    private final Map<String, int[]> rulesByTerm;
+
+    /** The positions of the rules which have no trigger terms */
+    private final BitSet untriggeredRules;
+
+    /** Creates an index of the given rules, which must have had their references made */
+    RuleIndex(List<ProductionRule> rules) {
+        ruleCount = rules.size();
+        untriggeredRules = new BitSet(ruleCount);
+        Map<String, List<Integer>> positionsByTerm = new HashMap<>();
+        for (int position = 0; position < ruleCount; position++) {
+            Set<String> triggerTerms = rules.get(position).getCondition().triggerTerms();
+            if (triggerTerms == null) {
+                untriggeredRules.set(position);
+                continue;
+            }
+            for (String term : triggerTerms)
+                positionsByTerm.computeIfAbsent(term, t -> new ArrayList<>()).add(position);
+        }
+
+        rulesByTerm = new HashMap<>(positionsByTerm.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : positionsByTerm.entrySet())
+            rulesByTerm.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Returns the positions of the rules which may match a query containing the given items
+     *
+     * @param items the items of the query
+     * @param stemming whether rule terms are matched to query terms with stemming, see TermCondition
+     * @return a bit set where the bits of the rules which may match are set
+     */
+    BitSet candidates(List<FlattenedItem> items, boolean stemming) {
+        BitSet candidates = (BitSet)untriggeredRules.clone();
+        for (FlattenedItem item : items) {
+            String term = item.getItem().stringValue();
+            addRulesTriggeredBy(term, candidates);
+            if (stemming && term.length() >= 3) {
+                addRulesTriggeredBy(term + "s", candidates);
+                if (term.endsWith("s"))
+                    addRulesTriggeredBy(term.substring(0, term.length() - 1), candidates);
+            }
+        }
+        return candidates;
+    }
+
+    private void addRulesTriggeredBy(String term, BitSet candidates) {
+        int[] positions = rulesByTerm.get(term);
+        if (positions == null) return;
+        for (int position : positions)
+            candidates.set(position);
+    }
+
+    /** Returns the number of rules in this index */
+    int ruleCount() { return ruleCount; }
+
+}
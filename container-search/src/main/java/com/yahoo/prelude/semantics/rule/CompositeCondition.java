@@ -1,8 +1,10 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.prelude.semantics.rule;
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import com.yahoo.prelude.semantics.RuleBase;
 import com.yahoo.prelude.semantics.engine.RuleEvaluation;
@@ -89,6 +91,34 @@ public abstract class CompositeCondition extends Condition {
         }
     }
 
+    /**
+     * Returns the trigger terms of this when all subconditions must match:
+     * The smallest set of trigger terms of any subcondition, or null if no subcondition has trigger terms
+     */
+    protected final Set<String> triggerTermsOfAllSubConditions(Set<NamedCondition> visited) {
+        Set<String> smallest=null;
+        for (Iterator<Condition> i=conditionIterator(); i.hasNext(); ) {
+            Set<String> terms=i.next().triggerTerms(visited);
+            if (terms!=null && (smallest==null || terms.size()<smallest.size()))
+                smallest=terms;
+        }
+        return smallest;
+    }
+
+    /**
+     * Returns the trigger terms of this when any subcondition may match:
+     * The union of the trigger terms of all subconditions, or null if any subcondition has no trigger terms
+     */
+    protected final Set<String> triggerTermsOfAnySubCondition(Set<NamedCondition> visited) {
+        Set<String> union=new HashSet<>();
+        for (Iterator<Condition> i=conditionIterator(); i.hasNext(); ) {
+            Set<String> terms=i.next().triggerTerms(visited);
+            if (terms==null) return null;
+            union.addAll(terms);
+        }
+        return union;
+    }
+
     /** Whether this should be output with parentheses, default is parent!=null */
     protected boolean useParentheses() {
         return getParent()!=null;
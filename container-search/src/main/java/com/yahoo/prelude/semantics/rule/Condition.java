@@ -6,6 +6,9 @@ import com.yahoo.prelude.semantics.RuleBase;
 import com.yahoo.prelude.semantics.engine.FlattenedItem;
 import com.yahoo.prelude.semantics.engine.RuleEvaluation;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * Superclass of all kinds of conditions of production rules
  *
@@ -211,6 +214,23 @@ public abstract class Condition {
     /** Override if references needs to be set in this condition of its children */
     public void makeReferences(RuleBase rules) { }
 
+    /**
+     * Returns the terms of which at least one must be present in the query for this condition to match,
+     * or null if this may match queries containing none of a known set of terms.
+     * References must be made before this is called.
+     */
+    public final Set<String> triggerTerms() {
+        return triggerTerms(new HashSet<>());
+    }
+
+    /**
+     * Override to return the terms of which at least one must be present in the query for this to match.
+     * This default implementation returns null, meaning this may match any query.
+     *
+     * @param visited the named conditions being visited above this, to avoid infinite recursion
+     */
+    protected Set<String> triggerTerms(Set<NamedCondition> visited) { return null; }
+
     protected String getLabelString() {
         if (label==null) return "";
         return label + ":";
@@ -3,6 +3,8 @@ package com.yahoo.prelude.semantics.rule;
 
 import com.yahoo.prelude.semantics.engine.RuleEvaluation;
 
+import java.util.Set;
+
 /**
  * A condition which evaluates the <i>last included</i> version of
  * the named condition this is a premise of.
@@ -25,6 +27,12 @@ public class SuperCondition extends Condition {
         return condition.matches(e);
     }
 
+    @Override
+    protected Set<String> triggerTerms(Set<NamedCondition> visited) {
+        if (condition==null) return null;
+        return condition.triggerTerms(visited);
+    }
+
     public String toInnerString() {
         if (condition==null)
             return "@super";
@@ -5,6 +5,9 @@ import com.yahoo.prelude.query.TermItem;
 import com.yahoo.prelude.semantics.engine.NameSpace;
 import com.yahoo.prelude.semantics.engine.RuleEvaluation;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * A term in a rule
  *
@@ -85,6 +88,13 @@ public class TermCondition extends Condition {
         return false;
     }
 
+    /** Returns this term, which is the only term which may be matched by this unless it is in a name space */
+    @Override
+    protected Set<String> triggerTerms(Set<NamedCondition> visited) {
+        if (getNameSpace()!=null) return null;
+        return Collections.singleton(term);
+    }
+
     public String toInnerString() {
         return getLabelString() + term;
     }
@@ -0,0 +1,138 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import com.yahoo.search.Result;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of results by {@link ResultCacheKey}, bounded by time to live and the total number of hits cached.
+ * <p>
+ * The cache is divided into segments by key hash which are locked and evicted independently,
+ * each holding an equal share of the capacity and evicting the least recently used results when full.
+ * <p>
+ * This is thread safe.
+ */
+final class ResultCache {
+
+    private final Segment[] segments;
+    private final long timeToLiveMillis;
+
+    /**
+     * Creates a result cache
+     *
+     * @param maxSize the max total size of the entries of this, see {@link Entry#size}
+     * @param timeToLiveMillis the max age of the entries returned from this
+     * @param concurrency the number of independently locked segments of this
+     */
+    ResultCache(int maxSize, long timeToLiveMillis, int concurrency) {
+        if (concurrency < 1) throw new IllegalArgumentException("Concurrency must be positive, was " + concurrency);
+        this.timeToLiveMillis = timeToLiveMillis;
+        segments = new Segment[concurrency];
+        for (int i = 0; i < concurrency; i++)
+            segments[i] = new Segment(Math.max(1, maxSize / concurrency));
+    }
+
+    /** Returns the unexpired entry of the given key at the given time, or null if none */
+    Entry get(ResultCacheKey key, long nowMillis) {
+        return segmentOf(key).get(key, nowMillis - timeToLiveMillis);
+    }
+
+    /** Adds an entry to this, replacing any existing entry of the same key */
+    void put(ResultCacheKey key, Entry entry) {
+        segmentOf(key).put(key, entry);
+    }
+
+    /** Returns the number of entries in this */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            size += segment.entryCount();
+        return size;
+    }
+
+    private Segment segmentOf(ResultCacheKey key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[Math.floorMod(hash, segments.length)];
+    }
+
+    /** A cached result containing a window of hits starting at offset 0 */
+    static final class Entry {
+
+        private final Result result;
+        private final int window;
+        private final long createdMillis;
+        private final int size;
+
+        /**
+         * Creates an entry
+         *
+         * @param result the result to cache, which must not be modified after this is created
+         * @param window the number of hits requested for the result
+         * @param createdMillis the time the result was produced
+         */
+        Entry(Result result, int window, long createdMillis) {
+            this.result = result;
+            this.window = window;
+            this.createdMillis = createdMillis;
+            this.size = result.getConcreteHitCount() + 1;
+        }
+
+        /** Returns the cached result. This must not be modified. */
+        Result result() { return result; }
+
+        /** Returns whether this contains all the hits in the given window */
+        boolean covers(int offset, int hits) {
+            return offset + hits <= window || result.getTotalHitCount() <= window;
+        }
+
+        /** Returns the size of this with respect to the capacity of the cache */
+        int size() { return size; }
+
+    }
+
+    private static final class Segment {
+
+        private final Map<ResultCacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxSize;
+        private int size = 0;
+
+        Segment(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        synchronized Entry get(ResultCacheKey key, long oldestCreatedMillis) {
+            Entry entry = entries.get(key);
+            if (entry == null) return null;
+            if (entry.createdMillis < oldestCreatedMillis) {
+                entries.remove(key);
+                size -= entry.size();
+                return null;
+            }
+            return entry;
+        }
+
+        synchronized void put(ResultCacheKey key, Entry entry) {
+            if (entry.size() > maxSize) return;
+
+            Entry replaced = entries.put(key, entry);
+            if (replaced != null)
+                size -= replaced.size();
+            size += entry.size();
+
+            for (Iterator<Entry> i = entries.values().iterator(); size > maxSize && i.hasNext(); ) {
+                Entry eldest = i.next();
+                if (eldest == entry) continue;
+                i.remove();
+                size -= eldest.size();
+            }
+        }
+
+        synchronized int entryCount() { return entries.size(); }
+
+    }
+
+}
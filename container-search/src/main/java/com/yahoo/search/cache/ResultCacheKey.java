@@ -0,0 +1,54 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.query.Model;
+import com.yahoo.search.query.Presentation;
+import com.yahoo.search.query.Ranking;
+
+/**
+ * The key of a result in the result cache: The parts of a query which determines its result,
+ * except the offset and hits which are handled by caching a window of hits per key.
+ */
+final class ResultCacheKey {
+
+    private final Model model;
+    private final Ranking ranking;
+    private final Presentation presentation;
+    private final int hashCode;
+
+    /** Creates a key referencing the live objects of the given query, to be used for lookups only */
+    ResultCacheKey(Query query) {
+        this(query.getModel(), query.getRanking(), query.getPresentation());
+    }
+
+    private ResultCacheKey(Model model, Ranking ranking, Presentation presentation) {
+        this.model = model;
+        this.ranking = ranking;
+        this.presentation = presentation;
+        this.hashCode = model.hashCode() + 3 * ranking.hashCode() + 5 * presentation.hashCode();
+    }
+
+    /** Returns a key which is not changed when the query this was created from is, to be used for storing */
+    ResultCacheKey copy() {
+        return new ResultCacheKey((Model)model.clone(), (Ranking)ranking.clone(), (Presentation)presentation.clone());
+    }
+
+    @Override
+    public int hashCode() { return hashCode; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if ( ! (o instanceof ResultCacheKey)) return false;
+        ResultCacheKey other = (ResultCacheKey)o;
+        if (this.hashCode != other.hashCode) return false;
+        return this.model.equals(other.model) &&
+               this.ranking.equals(other.ranking) &&
+               this.presentation.equals(other.presentation);
+    }
+
+    @Override
+    public String toString() { return "result cache key for " + model.getQueryTree(); }
+
+}
@@ -0,0 +1,134 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import com.google.inject.Inject;
+import com.yahoo.metrics.simple.Counter;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.grouping.GroupingQueryParser;
+import com.yahoo.search.grouping.GroupingRequest;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+
+import java.time.Clock;
+import java.util.Iterator;
+
+/**
+ * A searcher which caches the filled results produced by the searchers following it, such that identical
+ * queries are answered without executing the rest of the chain. This works with any chain, including
+ * federating ones.
+ * <p>
+ * Results are cached by the model, ranking and presentation of the query. Each query is executed with a
+ * window of hits starting at offset 0 (see {@link ResultCacheConfig#window}), such that subsequent queries
+ * for any page of hits within that window can be served from the same cached result.
+ * Results are evicted when they are older than the configured time to live, and on a least recently used
+ * basis when the total number of cached hits exceeds the configured max size.
+ * <p>
+ * These results are not cached:
+ * <ul>
+ *     <li>Results of queries which sets noCache
+ *     <li>Results of queries containing grouping requests
+ *     <li>Results containing errors or having incomplete coverage
+ * </ul>
+ * <p>
+ * Metrics: This will emit the count metrics result_cache_hits and result_cache_misses,
+ * counting the queries which are and are not served from the cache.
+ */
+public class ResultCacheSearcher extends Searcher {
+
+    private static final String hitsMetricName = "result_cache_hits";
+    private static final String missesMetricName = "result_cache_misses";
+
+    /** The cached results, or null if caching is disabled */
+    private final ResultCache cache;
+
+    private final int window;
+
+    private final Clock clock;
+
+    private final Counter hitsCounter;
+    private final Counter missesCounter;
+
+    @Inject
+    public ResultCacheSearcher(ResultCacheConfig config, MetricReceiver metric) {
+        this(config, metric, Clock.systemUTC());
+    }
+
+    /** For testing - allows injection of a timer to avoid depending on the system clock */
+    public ResultCacheSearcher(ResultCacheConfig config, MetricReceiver metric, Clock clock) {
+        if (config.timeToLive() > 0)
+            cache = new ResultCache(config.maxSize(), (long)(config.timeToLive() * 1000), config.concurrency());
+        else
+            cache = null;
+        this.window = config.window();
+        this.clock = clock;
+        this.hitsCounter = metric.declareCounter(hitsMetricName);
+        this.missesCounter = metric.declareCounter(missesMetricName);
+    }
+
+    @Override
+    public Result search(Query query, Execution execution) {
+        if ( ! isCacheable(query)) return execution.search(query);
+
+        ResultCacheKey key = new ResultCacheKey(query);
+        ResultCache.Entry entry = cache.get(key, clock.millis());
+        if (entry != null && entry.covers(query.getOffset(), query.getHits())) {
+            hitsCounter.add(1);
+            query.trace("Result served from the result cache", false, 3);
+            return resultFrom(entry.result(), query, true);
+        }
+        missesCounter.add(1);
+
+        Query windowQuery = query.clone();
+        windowQuery.setOffset(0);
+        windowQuery.setHits(Math.max(window, query.getOffset() + query.getHits()));
+        ResultCacheKey storedKey = key.copy(); // before the chain gets to modify the query
+
+        Result windowResult = execution.search(windowQuery);
+        execution.fill(windowResult, query.getPresentation().getSummary());
+        if (isCacheable(windowResult))
+            cache.put(storedKey, new ResultCache.Entry(windowResult, windowQuery.getHits(), clock.millis()));
+        return resultFrom(windowResult, query, false);
+    }
+
+    private boolean isCacheable(Query query) {
+        if (cache == null) return false;
+        if (query.getNoCache()) return false;
+        if (query.properties().get(GroupingQueryParser.PARAM_REQUEST) != null) return false;
+        if ( ! GroupingRequest.getRequests(query).isEmpty()) return false;
+        return true;
+    }
+
+    private boolean isCacheable(Result result) {
+        if (result.hits().getError() != null) return false;
+        Coverage coverage = result.getCoverage(false);
+        if (coverage != null && ! coverage.getFull()) return false;
+        return result.isFilled(result.getQuery().getPresentation().getSummary());
+    }
+
+    /** Returns a copy of the given window result containing the hits requested by the given query */
+    private Result resultFrom(Result windowResult, Query query, boolean cached) {
+        Result result = windowResult.clone();
+        result.setQuery(query);
+        result.setCoverage(copyOf(windowResult.getCoverage(false)));
+        result.hits().trim(query.getOffset(), query.getHits());
+        if (cached) {
+            for (Iterator<Hit> i = result.hits().deepIterator(); i.hasNext(); )
+                i.next().setCached(true);
+            result.analyzeHits();
+        }
+        return result;
+    }
+
+    @SuppressWarnings("deprecation")
+    private Coverage copyOf(Coverage coverage) {
+        if (coverage == null) return null;
+        Coverage copy = new Coverage(0L, 0, true, 0);
+        copy.merge(coverage);
+        return copy;
+    }
+
+}
@@ -27,17 +27,26 @@ interface Client {
         private Optional<GetDocsumsResponse> response;
         private Optional<String> error;
 
+        /** The hits of the request this is a response to, or null if not known */
+        private final List<FastHit> hitsContext;
+
         public static GetDocsumsResponseOrError fromResponse(GetDocsumsResponse response) {
-            return new GetDocsumsResponseOrError(Optional.of(response), Optional.empty());
+            return new GetDocsumsResponseOrError(Optional.of(response), Optional.empty(), response.hitsContext());
         }
 
         public static GetDocsumsResponseOrError fromError(String error) {
-            return new GetDocsumsResponseOrError(Optional.empty(), Optional.of(error));
+            return fromError(error, null);
+        }
+
+        public static GetDocsumsResponseOrError fromError(String error, List<FastHit> hitsContext) {
+            return new GetDocsumsResponseOrError(Optional.empty(), Optional.of(error), hitsContext);
         }
 
-        private GetDocsumsResponseOrError(Optional<GetDocsumsResponse> response, Optional<String> error) {
+        private GetDocsumsResponseOrError(Optional<GetDocsumsResponse> response, Optional<String> error,
+                                          List<FastHit> hitsContext) {
             this.response = response;
             this.error = error;
+            this.hitsContext = hitsContext;
         }
 
         /** Returns the response, or empty if there is an error */
@@ -46,6 +55,9 @@ interface Client {
         /** Returns the error or empty if there is a response */
         public Optional<String> error() { return error; }
 
+        /** Returns the hits of the request this is a response to, or null if not known */
+        public List<FastHit> hitsContext() { return hitsContext; }
+
     }
 
     class GetDocsumsResponse {
@@ -7,6 +7,7 @@ import com.yahoo.collections.ListMap;
 import com.yahoo.component.AbstractComponent;
 import com.yahoo.compress.CompressionType;
 import com.yahoo.compress.Compressor;
+import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.container.handler.VipStatus;
 import com.yahoo.container.protect.Error;
 import com.yahoo.slime.ArrayTraverser;
@@ -18,6 +19,7 @@ import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.query.SessionId;
 import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.FieldIndex;
 import com.yahoo.search.result.Hit;
 import com.yahoo.data.access.Inspector;
 import com.yahoo.slime.BinaryFormat;
@@ -28,12 +30,25 @@ import com.yahoo.vespa.config.search.DispatchConfig;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -55,6 +70,28 @@ public class Dispatcher extends AbstractComponent {
     /** Connections to the search nodes this talks to, indexed by node id ("partid") */
     private final ImmutableMap<Integer, Client.NodeConnection> nodeConnections;
 
+    /**
+     * The ids of the nodes which are alone in their group, and which therefore have the entire corpus
+     * and can receive a duplicate of a getDocsums request to any other node, by the id of their group
+     */
+    private final ImmutableMap<Integer, Integer> hedgeTargets;
+
+    /** The search cluster nodes by node id, used to check that a node is working before hedging to it */
+    private final ImmutableMap<Integer, SearchCluster.Node> searchNodes;
+
+    /** The recent latencies of the getDocsums requests to each node, which decide when to hedge */
+    private final NodeLatencies latencies;
+
+    private final LongAdder docsumRequests = new LongAdder();
+    private final LongAdder hedgedRequests = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /** The max number of hits to request from a node in one getDocsums request */
+    private final int maxHitsPerRequest;
+
+    /** Decodes getDocsums responses into hits as they arrive */
+    private final ThreadPoolExecutor decoder = createDecoder();
+
     private final Compressor compressor = new Compressor();
 
     public Dispatcher(DispatchConfig dispatchConfig, FS4ResourcePool fs4ResourcePool,
@@ -65,36 +102,96 @@ public class Dispatcher extends AbstractComponent {
         // Create node rpc connections, indexed by the legacy "partid", which allows us to bridge
         // between fs4 calls (for search) and rpc calls (for summary fetch)
         ImmutableMap.Builder<Integer, Client.NodeConnection> nodeConnectionsBuilder = new ImmutableMap.Builder<>();
+        Map<Integer, Integer> groupsByNode = new HashMap<>();
+        ImmutableMap.Builder<Integer, SearchCluster.Node> searchNodesBuilder = new ImmutableMap.Builder<>();
         for (DispatchConfig.Node node : dispatchConfig.node()) {
             nodeConnectionsBuilder.put(node.key(), client.createConnection(node.host(), node.port()));
+            groupsByNode.put(node.key(), node.group());
+            for (SearchCluster.Node searchNode : searchCluster.nodesByHost().get(node.host()))
+                if (searchNode.fs4port() == node.fs4port())
+                    searchNodesBuilder.put(node.key(), searchNode);
         }
         nodeConnections = nodeConnectionsBuilder.build();
+        hedgeTargets = hedgeTargets(groupsByNode);
+        searchNodes = searchNodesBuilder.build();
+        latencies = new NodeLatencies(dispatchConfig.hedgingPercentile());
+        maxHitsPerRequest = Math.max(1, dispatchConfig.maxHitsPerSummaryRequest());
     }
 
     /** For testing */
     public Dispatcher(Map<Integer, Client.NodeConnection> nodeConnections, Client client) {
+        this(nodeConnections, Collections.emptyMap(), 0, Integer.MAX_VALUE, client);
+    }
+
+    /** For testing */
+    Dispatcher(Map<Integer, Client.NodeConnection> nodeConnections, Map<Integer, Integer> groupsByNode,
+               double hedgingPercentile, int maxHitsPerRequest, Client client) {
         this.searchCluster = null;
         this.nodeConnections = ImmutableMap.copyOf(nodeConnections);
+        this.hedgeTargets = hedgeTargets(groupsByNode);
+        this.searchNodes = ImmutableMap.of();
+        this.latencies = new NodeLatencies(hedgingPercentile);
+        this.maxHitsPerRequest = maxHitsPerRequest;
         this.client = client;
     }
-    
+
+    private static ThreadPoolExecutor createDecoder() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1L, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(1000),
+                                                             ThreadFactoryFactory.getDaemonThreadFactory("docsum-decoder"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ImmutableMap<Integer, Integer> hedgeTargets(Map<Integer, Integer> groupsByNode) {
+        Map<Integer, List<Integer>> nodesByGroup = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> nodeGroup : groupsByNode.entrySet())
+            nodesByGroup.computeIfAbsent(nodeGroup.getValue(), group -> new ArrayList<>()).add(nodeGroup.getKey());
+
+        ImmutableMap.Builder<Integer, Integer> hedgeTargets = new ImmutableMap.Builder<>();
+        for (Map.Entry<Integer, List<Integer>> group : nodesByGroup.entrySet()) {
+            if (group.getValue().size() == 1)
+                hedgeTargets.put(group.getKey(), group.getValue().get(0));
+        }
+        return hedgeTargets.build();
+    }
+
     /** Returns the search cluster this dispatches to */
     public SearchCluster searchCluster() { return searchCluster; }
 
+    /** Returns the number of getDocsums requests this has sent, not including hedged requests */
+    public long docsumRequests() { return docsumRequests.sum(); }
+
+    /** Returns the number of duplicate getDocsums requests this has sent to other nodes because a request was slow */
+    public long hedgedRequests() { return hedgedRequests.sum(); }
+
+    /** Returns the number of hedged requests which returned before the request they duplicated */
+    public long hedgeWins() { return hedgeWins.sum(); }
+
     /** Fills the given summary class by sending RPC requests to the right search nodes */
     public void fill(Result result, String summaryClass, CompressionType compression) {
+        GetDocsumsResponseReceiver responseReceiver = new GetDocsumsResponseReceiver(compressor, result, latencies, decoder);
         try {
             ListMap<Integer, FastHit> hitsByNode = hitsByNode(result);
 
-            GetDocsumsResponseReceiver responseReceiver = new GetDocsumsResponseReceiver(hitsByNode.size(), compressor, result);
             for (Map.Entry<Integer, List<FastHit>> nodeHits : hitsByNode.entrySet()) {
-                sendGetDocsumsRequest(nodeHits.getKey(), nodeHits.getValue(), summaryClass, compression, result, responseReceiver);
+                List<FastHit> hits = nodeHits.getValue();
+                for (int start = 0; start < hits.size(); start += maxHitsPerRequest) {
+                    List<FastHit> batch = hits.subList(start, Math.min(hits.size(), start + maxHitsPerRequest));
+                    sendGetDocsumsRequest(nodeHits.getKey(), batch, summaryClass, compression, result, responseReceiver);
+                }
             }
-            responseReceiver.processResponses(result.getQuery(), summaryClass);
+            responseReceiver.processResponses(result.getQuery(), summaryClass,
+                                              (nodeId, hits) -> hedge(nodeId, hits, summaryClass, compression,
+                                                                      result, responseReceiver));
         }
         catch (TimeoutException e) {
             result.hits().addError(ErrorMessage.createTimeout("Summary data is incomplete: " + e.getMessage()));
         }
+        finally {
+            hedgeWins.add(responseReceiver.hedgeWins());
+        }
     }
 
     /** Return a map of hits by their search node (partition) id */
@@ -121,6 +218,45 @@ public class Dispatcher extends AbstractComponent {
             return;
         }
 
+        responseReceiver.sending(nodeId, hits);
+        docsumRequests.increment();
+        sendGetDocsumsRequest(node, hits, summaryClass, compression, result, responseReceiver);
+    }
+
+    /**
+     * Sends a duplicate of the getDocsums request for the given hits of a node to a working node
+     * having the entire corpus in another group.
+     *
+     * @return whether a duplicate request was sent
+     */
+    private boolean hedge(int nodeId, List<FastHit> hits, String summaryClass, CompressionType compression,
+                          Result result, GetDocsumsResponseReceiver responseReceiver) {
+        List<Integer> candidates = new ArrayList<>(hedgeTargets.size());
+        for (int candidate : hedgeTargets.values()) {
+            if (candidate != nodeId && isWorking(candidate))
+                candidates.add(candidate);
+        }
+        if (candidates.isEmpty()) return false;
+
+        int targetId = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+        List<FastHit> hedgedHits = new ArrayList<>(hits); // a distinct context to tell the responses apart
+        responseReceiver.sendingHedge(targetId, hedgedHits, hits);
+        hedgedRequests.increment();
+        sendGetDocsumsRequest(nodeConnections.get(targetId), hedgedHits, summaryClass, compression, result, responseReceiver);
+        return true;
+    }
+
+    /** Returns whether the given node is up and in a group with sufficient coverage, as far as we know */
+    private boolean isWorking(int nodeId) {
+        SearchCluster.Node node = searchNodes.get(nodeId);
+        if (node == null) return searchCluster == null; // no monitoring when testing
+        if ( ! node.isWorking()) return false;
+        return searchCluster.groups().get(node.group()).hasSufficientCoverage();
+    }
+
+    private void sendGetDocsumsRequest(Client.NodeConnection node, List<FastHit> hits, String summaryClass,
+                                       CompressionType compression,
+                                       Result result, GetDocsumsResponseReceiver responseReceiver) {
         Query query = result.getQuery();
         String rankProfile = query.getRanking().getProfile();
         byte[] serializedSlime = BinaryFormat.encode(toSlime(rankProfile, summaryClass,
@@ -157,42 +293,115 @@ public class Dispatcher extends AbstractComponent {
     public void deconstruct() {
         for (Client.NodeConnection nodeConnection : nodeConnections.values())
             nodeConnection.close();
+        decoder.shutdown();
     }
 
-    /** Receiver of the responses to a set of getDocsums requests */
+    /**
+     * Receiver of the responses to a set of getDocsums requests.
+     * The first successful response for each batch of hits is decoded into the hits on the given decoder executor
+     * as soon as it arrives, such that responses are decoded concurrently with each other and with waiting for the
+     * remaining responses. Everything else happens in the dispatcher thread calling processResponses.
+     */
     public static class GetDocsumsResponseReceiver {
 
-        private final BlockingQueue<Client.GetDocsumsResponseOrError> responses;
+        private final BlockingQueue<Received> responses = new LinkedBlockingQueue<>();
         private final Compressor compressor;
         private final Result result;
+        private final NodeLatencies latencies;
+        private final Executor decoder;
+
+        /** The requests sent, by the identity of their hits context list. Accessed by the client threads. */
+        private final Map<List<FastHit>, Request> requests = Collections.synchronizedMap(new IdentityHashMap<>());
+
+        /** The batches of hits to fill, which may each be requested from more than one node if hedged */
+        private final List<Batch> batches = new ArrayList<>();
+
+        /** Held for reading while hits are filled, and for writing to stop any further filling when we are done */
+        private final ReadWriteLock fillLock = new ReentrantReadWriteLock();
+
+        /** Whether we are done processing responses, such that hits must no longer be filled. Guarded by fillLock. */
+        private boolean closed = false;
 
         /** Whether we have already logged/notified about an error - to avoid spamming */
         private boolean hasReportedError = false;
 
         /** The number of responses we should receive (and process) before this is complete */
-        private int outstandingResponses;
+        private int outstandingResponses = 0;
+
+        /** The number of hedged requests which completed their batch first */
+        private int hedgeWins = 0;
 
-        public GetDocsumsResponseReceiver(int requestCount, Compressor compressor, Result result) {
+        GetDocsumsResponseReceiver(Compressor compressor, Result result, NodeLatencies latencies, Executor decoder) {
             this.compressor = compressor;
-            responses = new LinkedBlockingQueue<>(requestCount);
-            outstandingResponses = requestCount;
             this.result = result;
+            this.latencies = latencies;
+            this.decoder = decoder;
+        }
+
+        /** Called from the dispatcher thread before a request for a batch of hits of a node is sent */
+        void sending(int nodeId, List<FastHit> hits) {
+            long now = System.nanoTime();
+            long percentileNanos = latencies.percentileNanos(nodeId);
+            Batch batch = new Batch(nodeId, hits, percentileNanos < 0 ? Long.MAX_VALUE : now + percentileNanos);
+            batches.add(batch);
+            requests.put(hits, new Request(batch, nodeId, now, false));
+            outstandingResponses++;
+        }
+
+        /** Called from the dispatcher thread before a duplicate of the request for the given hits is sent to another node */
+        void sendingHedge(int nodeId, List<FastHit> hedgedHits, List<FastHit> hits) {
+            Batch batch = requests.get(hits).batch;
+            requests.put(hedgedHits, new Request(batch, nodeId, System.nanoTime(), true));
+            batch.pendingRequests++;
         }
 
         /** Called by a thread belonging to the client when a valid response becomes available */
         public void receive(Client.GetDocsumsResponseOrError response) {
-            responses.add(response);
+            Request request = response.hitsContext() == null ? null : requests.get(response.hitsContext());
+            if (request == null || ! response.response().isPresent()) {
+                responses.add(new Received(response, request, false));
+                return;
+            }
+
+            latencies.record(request.nodeId, System.nanoTime() - request.sentNanos);
+            if ( ! request.batch.claim()) { // the loser of a hedged request
+                responses.add(new Received(response, request, false));
+                return;
+            }
+            Received received = new Received(response, request, true);
+            try {
+                decoder.execute(() -> {
+                    received.decode(this);
+                    responses.add(received);
+                });
+            }
+            catch (RejectedExecutionException e) { // decode in the dispatcher thread instead
+                responses.add(received);
+            }
         }
 
         private void throwTimeout() throws TimeoutException {
             throw new TimeoutException("Timed out waiting for summary data. " + outstandingResponses + " responses outstanding.");
         }
 
+        /** Returns the number of hedged requests which returned before the request they duplicated */
+        int hedgeWins() { return hedgeWins; }
+
         /**
          * Call this from the dispatcher thread to initiate and complete processing of responses.
          * This will block until all responses are available and processed, or to timeout.
          */
         public void processResponses(Query query, String summaryClass) throws TimeoutException {
+            processResponses(query, summaryClass, (nodeId, hits) -> false);
+        }
+
+        /**
+         * Call this from the dispatcher thread to initiate and complete processing of responses.
+         * This will block until all responses are available and processed, or to timeout.
+         * Requests which are outstanding for longer than the latency percentile of their node
+         * are passed to the given hedger once.
+         */
+        void processResponses(Query query, String summaryClass, Hedger hedger) throws TimeoutException {
             try {
                 int skippedHits = 0;
                 while (outstandingResponses > 0) {
@@ -200,11 +409,14 @@ public class Dispatcher extends AbstractComponent {
                     if (timeLeftMs <= 0) {
                         throwTimeout();
                     }
-                    Client.GetDocsumsResponseOrError response = responses.poll(timeLeftMs, TimeUnit.MILLISECONDS);
-                    if (response == null)
-                        throwTimeout();
+                    long waitNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(timeLeftMs), hedgeIfDue(hedger));
+                    Received response = responses.poll(waitNanos, TimeUnit.NANOSECONDS);
+                    if (response == null) {
+                        if (query.getTimeLeft() <= 0)
+                            throwTimeout();
+                        continue; // time to hedge
+                    }
                     skippedHits += processResponse(response);
-                    outstandingResponses--;
                 }
                 if (skippedHits != 0) {
                     result.hits().addError(com.yahoo.search.result.ErrorMessage.createEmptyDocsums("Missing hit summary data for summary " + summaryClass + " for " + skippedHits + " hits"));
@@ -213,50 +425,126 @@ public class Dispatcher extends AbstractComponent {
             catch (InterruptedException e) {
                 // TODO: Add error
             }
+            finally {
+                close();
+            }
+        }
+
+        /** Makes sure no decoder thread fills hits after this returns, as they are now owned by the caller again */
+        private void close() {
+            fillLock.writeLock().lock();
+            try {
+                closed = true;
+            }
+            finally {
+                fillLock.writeLock().unlock();
+            }
+        }
+
+        /** Hedges the batches which are due, and returns the nanoseconds until the next batch is due */
+        private long hedgeIfDue(Hedger hedger) {
+            long now = System.nanoTime();
+            long nextHedgeNanos = Long.MAX_VALUE;
+            for (Batch batch : batches) {
+                if (batch.completed || batch.hedged || batch.hedgeAtNanos == Long.MAX_VALUE) continue;
+                if (batch.hedgeAtNanos <= now) {
+                    batch.hedged = true;
+                    hedger.hedge(batch.nodeId, batch.hits);
+                }
+                else {
+                    nextHedgeNanos = Math.min(nextHedgeNanos, batch.hedgeAtNanos - now);
+                }
+            }
+            return nextHedgeNanos;
         }
 
-        private int processResponse(Client.GetDocsumsResponseOrError responseOrError) {
-            if (responseOrError.error().isPresent()) {
+        /** Processes a response and returns the number of hits it lacked summaries for */
+        private int processResponse(Received received) {
+            if (received.request == null) { // the request of this response is not known
+                outstandingResponses--;
+                return processResponseContent(received);
+            }
+
+            Batch batch = received.request.batch;
+            batch.pendingRequests--;
+            if ( ! received.claimed) {
+                if (received.response.response().isPresent()) return 0; // the loser of a hedged request
+                if (batch.pendingRequests > 0) return 0; // await the other request rather than failing
+                if ( ! batch.claim()) return 0; // the other request succeeded
+            }
+
+            batch.completed = true;
+            outstandingResponses--;
+            if (received.request.isHedge && received.response.response().isPresent())
+                hedgeWins++;
+            return processResponseContent(received);
+        }
+
+        private int processResponseContent(Received received) {
+            if (received.response.error().isPresent()) {
                 if (hasReportedError) return 0;
-                String error = responseOrError.error().get();
+                String error = received.response.error().get();
                 result.hits().addError(ErrorMessage.createBackendCommunicationError(error));
                 log.log(Level.WARNING, "Error fetching summary data: "+ error);
+                return 0;
             }
             else {
-                Client.GetDocsumsResponse response = responseOrError.response().get();
-                CompressionType compression = CompressionType.valueOf(response.compression());
-                byte[] slimeBytes = compressor.decompress(response.compressedSlimeBytes(), compression, response.uncompressedSize());
-                return fill(response.hitsContext(), slimeBytes);
+                if ( ! received.isDecoded())
+                    received.decode(this);
+                return received.complete(result);
             }
-            return 0;
         }
 
-        private void addErrors(com.yahoo.slime.Inspector errors) {
-            errors.traverse((ArrayTraverser) (int index, com.yahoo.slime.Inspector value) -> {
-                int errorCode = ("timeout".equalsIgnoreCase(value.field("type").asString()))
-                        ? Error.TIMEOUT.code
-                        : Error.UNSPECIFIED.code;
-                result.hits().addError(new ErrorMessage(errorCode,
-                        value.field("message").asString(), value.field("details").asString()));
-            });
-        }
-
-        private int fill(List<FastHit> hits, byte[] slimeBytes) {
+        /**
+         * Decodes a response and fills the hits it contains summaries for.
+         * This is called by a decoder thread, or the dispatcher thread if no decoder thread was available.
+         *
+         * @param errors the list to add any errors in the response to
+         * @return the number of hits the response lacked summaries for
+         */
+        private int decode(Client.GetDocsumsResponse response, List<ErrorMessage> errors) {
+            CompressionType compression = CompressionType.valueOf(response.compression());
+            byte[] slimeBytes = compressor.decompress(response.compressedSlimeBytes(), compression, response.uncompressedSize());
             com.yahoo.slime.Inspector root = BinaryFormat.decode(slimeBytes).get();
-            com.yahoo.slime.Inspector errors = root.field("errors");
-            boolean hasErrors = errors.valid() && (errors.entries() > 0);
+            com.yahoo.slime.Inspector errorsField = root.field("errors");
+            boolean hasErrors = errorsField.valid() && (errorsField.entries() > 0);
             if (hasErrors) {
-                addErrors(errors);
+                addErrors(errorsField, errors);
             }
 
             Inspector summaries = new SlimeAdapter(root.field("docsums"));
             if ( ! summaries.valid() && ! hasErrors)
                 throw new IllegalArgumentException("Expected a Slime root object containing a 'docsums' field");
+
+            fillLock.readLock().lock();
+            try {
+                if (closed) return 0;
+                return fill(response.hitsContext(), summaries);
+            }
+            finally {
+                fillLock.readLock().unlock();
+            }
+        }
+
+        private void addErrors(com.yahoo.slime.Inspector errorsField, List<ErrorMessage> errors) {
+            errorsField.traverse((ArrayTraverser) (int index, com.yahoo.slime.Inspector value) -> {
+                int errorCode = ("timeout".equalsIgnoreCase(value.field("type").asString()))
+                        ? Error.TIMEOUT.code
+                        : Error.UNSPECIFIED.code;
+                errors.add(new ErrorMessage(errorCode,
+                        value.field("message").asString(), value.field("details").asString()));
+            });
+        }
+
+        private int fill(List<FastHit> hits, Inspector summaries) {
             int skippedHits = 0;
+            FieldIndex fieldIndex = null; // the summaries in a response are of the same class, so they share one
             for (int i = 0; i < hits.size(); i++) {
                 Inspector summary = summaries.entry(i).field("docsum");
                 if (summary.fieldCount() != 0) {
-                    fill(hits.get(i), summary);
+                    if (fieldIndex == null)
+                        fieldIndex = fieldIndexOf(summary);
+                    fill(hits.get(i), summary, fieldIndex);
                 } else {
                     skippedHits++;
                 }
@@ -264,8 +552,14 @@ public class Dispatcher extends AbstractComponent {
             return skippedHits;
         }
 
-        private void fill(FastHit hit, Inspector summary) {
-            hit.reserve(summary.fieldCount());
+        private FieldIndex fieldIndexOf(Inspector summary) {
+            List<String> names = new ArrayList<>(summary.fieldCount());
+            summary.traverse((String name, Inspector value) -> names.add(name));
+            return new FieldIndex(names);
+        }
+
+        private void fill(FastHit hit, Inspector summary, FieldIndex fieldIndex) {
+            hit.reserve(fieldIndex);
             summary.traverse((String name, Inspector value) -> {
                 hit.setField(name, nativeTypeOf(value));
             });
@@ -285,6 +579,102 @@ public class Dispatcher extends AbstractComponent {
             }
         }
 
+        /** A response, and the outcome of decoding it if it is the successful response which claimed its batch */
+        private static class Received {
+
+            final Client.GetDocsumsResponseOrError response;
+
+            /** The request this responds to, or null if not known */
+            final Request request;
+
+            /** Whether this response claimed its batch, such that it should fill the hits of it */
+            final boolean claimed;
+
+            private final List<ErrorMessage> errors = new ArrayList<>();
+            private int skippedHits = 0;
+            private RuntimeException failure = null;
+            private volatile boolean decoded = false;
+
+            Received(Client.GetDocsumsResponseOrError response, Request request, boolean claimed) {
+                this.response = response;
+                this.request = request;
+                this.claimed = claimed;
+            }
+
+            void decode(GetDocsumsResponseReceiver receiver) {
+                try {
+                    skippedHits = receiver.decode(response.response().get(), errors);
+                }
+                catch (RuntimeException e) {
+                    failure = e;
+                }
+                decoded = true;
+            }
+
+            boolean isDecoded() { return decoded; }
+
+            /** Adds the outcome of decoding to the result in the dispatcher thread and returns the number of skipped hits */
+            int complete(Result result) {
+                for (ErrorMessage error : errors)
+                    result.hits().addError(error);
+                if (failure != null) throw failure;
+                return skippedHits;
+            }
+
+        }
+
+        /** A batch of hits to be filled from one node */
+        private static class Batch {
+
+            final int nodeId;
+            final List<FastHit> hits;
+
+            /** The time at which a duplicate request for these hits should be sent, or Long.MAX_VALUE to not hedge */
+            final long hedgeAtNanos;
+
+            /** Set by the first response to this which will be used */
+            private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+            int pendingRequests = 1;
+            boolean hedged = false;
+            boolean completed = false;
+
+            Batch(int nodeId, List<FastHit> hits, long hedgeAtNanos) {
+                this.nodeId = nodeId;
+                this.hits = hits;
+                this.hedgeAtNanos = hedgeAtNanos;
+            }
+
+            /** Returns true if the caller claimed this batch, false if it was already claimed */
+            boolean claim() { return claimed.compareAndSet(false, true); }
+
+        }
+
+        /** A request sent to a node for the hits of a batch */
+        private static class Request {
+
+            final Batch batch;
+            final int nodeId;
+            final long sentNanos;
+            final boolean isHedge;
+
+            Request(Batch batch, int nodeId, long sentNanos, boolean isHedge) {
+                this.batch = batch;
+                this.nodeId = nodeId;
+                this.sentNanos = sentNanos;
+                this.isHedge = isHedge;
+            }
+
+        }
+
+    }
+
+    /** Sends a duplicate of a slow getDocsums request to another node */
+    interface Hedger {
+
+        /** Requests the given hits of the given node from another node, and returns whether a request was sent */
+        boolean hedge(int nodeId, List<FastHit> hits);
+
     }
 
 }
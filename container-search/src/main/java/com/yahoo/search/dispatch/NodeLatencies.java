@@ -0,0 +1,90 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the latencies of the recent requests to each node, to tell when a request has been
+ * outstanding for so long that it should be hedged by sending a duplicate to another node.
+ * <p>
+ * This is thread safe.
+ */
+class NodeLatencies {
+
+    /** The number of recent latencies kept per node */
+    static final int historySize = 100;
+
+    /** The number of latencies we must have for a node before we make any claims about its percentile */
+    static final int minSamples = 20;
+
+    /** The number of new samples after which a cached percentile is recomputed */
+    private static final int samplesPerUpdate = 10;
+
+    private final double percentile;
+
+    private final ConcurrentHashMap<Integer, History> histories = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a latency tracker
+     *
+     * @param percentile the percentile (in the range 0-100) of the recent latencies to return,
+     *                   or 0 to never return any percentile, which disables hedging
+     */
+    NodeLatencies(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("The hedging percentile must be between 0 and 100, not " + percentile);
+        this.percentile = percentile;
+    }
+
+    /** Returns whether this may return percentiles */
+    boolean isEnabled() { return percentile > 0; }
+
+    /** Records the latency of a request to a node which returned successfully */
+    void record(int nodeId, long latencyNanos) {
+        if ( ! isEnabled()) return;
+        histories.computeIfAbsent(nodeId, id -> new History()).add(latencyNanos);
+    }
+
+    /**
+     * Returns the configured percentile of the recent latencies of the given node in nanoseconds,
+     * or -1 if this is disabled or there are too few recent latencies of this node
+     */
+    long percentileNanos(int nodeId) {
+        if ( ! isEnabled()) return -1;
+        History history = histories.get(nodeId);
+        if (history == null) return -1;
+        return history.percentile(percentile);
+    }
+
+    /** A ring buffer of the latest latencies of a node */
+    private static class History {
+
+        private final long[] latencies = new long[historySize];
+
+        /** The total number of latencies added to this */
+        private long count = 0;
+
+        private long cachedPercentile = -1;
+        private long countAtCachedPercentile = 0;
+
+        synchronized void add(long latencyNanos) {
+            latencies[(int)(count % historySize)] = latencyNanos;
+            count++;
+        }
+
+        synchronized long percentile(double percentile) {
+            if (count < minSamples) return -1;
+            if (cachedPercentile < 0 || count - countAtCachedPercentile >= samplesPerUpdate) {
+                long[] sorted = Arrays.copyOf(latencies, (int)Math.min(count, historySize));
+                Arrays.sort(sorted);
+                int rank = (int)Math.ceil(percentile / 100 * sorted.length) - 1;
+                cachedPercentile = sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+                countAtCachedPercentile = count;
+            }
+            return cachedPercentile;
+        }
+
+    }
+
+}
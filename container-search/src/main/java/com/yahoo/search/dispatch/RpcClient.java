@@ -101,7 +101,8 @@ class RpcClient implements Client {
         public void handleRequestDone(Request requestWithResponse) {
             if (requestWithResponse.isError()) {
                 handler.receive(GetDocsumsResponseOrError.fromError("Error response from " + node + ": " +
-                                                                    requestWithResponse.errorMessage()));
+                                                                    requestWithResponse.errorMessage(),
+                                                                    hitsContextOf(requestWithResponse)));
                 return;
             }
 
@@ -109,20 +110,26 @@ class RpcClient implements Client {
             if (returnValues.size() < 3) {
                 handler.receive(GetDocsumsResponseOrError.fromError("Invalid getDocsums response from " + node +
                                                                     ": Expected 3 return arguments, got " +
-                                                                    returnValues.size()));
+                                                                    returnValues.size(),
+                                                                    hitsContextOf(requestWithResponse)));
                 return;
             }
 
             byte compression = returnValues.get(0).asInt8();
             int uncompressedSize = returnValues.get(1).asInt32();
             byte[] compressedSlimeBytes = returnValues.get(2).asData();
-            List<FastHit> hits = (List<FastHit>) requestWithResponse.getContext();
+            List<FastHit> hits = hitsContextOf(requestWithResponse);
             handler.receive(GetDocsumsResponseOrError.fromResponse(new GetDocsumsResponse(compression,
                                                                                           uncompressedSize,
                                                                                           compressedSlimeBytes,
                                                                                           hits)));
         }
 
+        @SuppressWarnings("unchecked")
+        private List<FastHit> hitsContextOf(Request request) {
+            return (List<FastHit>) request.getContext();
+        }
+
     }
 
 }
@@ -44,6 +44,7 @@ import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -53,6 +54,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -91,13 +93,16 @@ public class FederationSearcher extends ForkingSearcher {
     private final boolean strictSearchchain;
     private final TargetSelector<?> targetSelector;
 
+    /** The permits to execute the search chains which have a limit on concurrent executions, by chain id */
+    private final Map<ComponentId, Semaphore> executionPermits;
+
     private final Clock clock = Clock.systemUTC();
 
     @Inject
     public FederationSearcher(FederationConfig config, StrictContractsConfig strict,
                               ComponentRegistry<TargetSelector> targetSelectors) {
         this(createResolver(config), strict.searchchains(), strict.propagateSourceProperties(),
-             resolveSelector(config.targetSelector(), targetSelectors));
+             resolveSelector(config.targetSelector(), targetSelectors), createExecutionPermits(config));
     }
 
     private static TargetSelector resolveSelector(String selectorId, 
@@ -109,17 +114,30 @@ public class FederationSearcher extends ForkingSearcher {
 
     // for testing
     public FederationSearcher(ComponentId id, SearchChainResolver searchChainResolver) {
-        this(searchChainResolver, false, PropagateSourceProperties.ALL, null);
+        this(searchChainResolver, false, PropagateSourceProperties.ALL, null, Collections.emptyMap());
     }
 
     private FederationSearcher(SearchChainResolver searchChainResolver, boolean strictSearchchain,
                                PropagateSourceProperties.Enum propagateSourceProperties,
-                               TargetSelector targetSelector) {
+                               TargetSelector targetSelector, Map<ComponentId, Semaphore> executionPermits) {
         this.searchChainResolver = searchChainResolver;
         sourceRefResolver = new SourceRefResolver(searchChainResolver);
         this.strictSearchchain = strictSearchchain;
         this.propagateSourceProperties = propagateSourceProperties;
         this.targetSelector = targetSelector;
+        this.executionPermits = executionPermits;
+    }
+
+    private static Map<ComponentId, Semaphore> createExecutionPermits(FederationConfig config) {
+        Map<ComponentId, Semaphore> executionPermits = new HashMap<>();
+        for (FederationConfig.Target target : config.target()) {
+            for (FederationConfig.Target.SearchChain searchChain : target.searchChain()) {
+                if (searchChain.maxConcurrentExecutions() > 0)
+                    executionPermits.putIfAbsent(ComponentId.fromString(searchChain.searchChainId()),
+                                                 new Semaphore(searchChain.maxConcurrentExecutions()));
+            }
+        }
+        return executionPermits;
     }
 
     private static SearchChainResolver createResolver(FederationConfig config) {
@@ -254,7 +272,9 @@ public class FederationSearcher extends ForkingSearcher {
         if (timeout <= 0)
             return new FutureResult(() -> new Result(query, ErrorMessage.createTimeout("Timed out before federation")), execution, query);
         Query clonedQuery = cloneFederationQuery(query, window, timeout, target);
-        return new AsyncExecution(target.getChain(), execution).search(clonedQuery);
+        AsyncExecution asyncExecution = new AsyncExecution(target.getChain(), execution);
+        asyncExecution.setPermits(executionPermits.get(target.getId()));
+        return asyncExecution.search(clonedQuery);
     }
 
     private Query cloneFederationQuery(Query query, Window window, long timeout, Target target) {
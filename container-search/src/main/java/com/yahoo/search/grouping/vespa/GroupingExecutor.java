@@ -2,6 +2,7 @@
 package com.yahoo.search.grouping.vespa;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -36,6 +37,10 @@ import com.yahoo.vespa.objects.ObjectPredicate;
  * Executes the {@link GroupingRequest grouping requests} set up by other searchers. This does the necessary
  * transformation from the abstract request to Vespa grouping expressions (using {@link RequestBuilder}), and the
  * corresponding transformation of results (using {@link ResultBuilder}).
+ * <p>
+ * The result of each request is transformed as soon as the last pass it takes part in has been merged, and the
+ * corresponding {@link Grouping} objects are released at that point. The total number of groups a query may produce
+ * can be bounded by the "grouping.maxGroups" query property, see {@link #PARAM_MAX_GROUPS}.
  *
  * @author Simon Thoresen
  */
@@ -46,6 +51,14 @@ import com.yahoo.vespa.objects.ObjectPredicate;
 public class GroupingExecutor extends Searcher {
 
     public final static String COMPONENT_NAME = "GroupingExecutor";
+
+    /**
+     * The max number of groups the grouping requests of a query may produce in total. If a pass produces more than
+     * this, no further passes are performed, and an error is returned instead of the groups. A negative value (the
+     * default) means no limit.
+     */
+    public final static CompoundName PARAM_MAX_GROUPS = new CompoundName("grouping.maxGroups");
+
     private final static CompoundName PROP_GROUPINGLIST = newCompoundName("GroupingList");
     private final static Logger log = Logger.getLogger(GroupingExecutor.class.getName());
 
@@ -90,15 +103,13 @@ public class GroupingExecutor extends Searcher {
             return execution.search(query);
         }
 
-        // Perform the necessary passes to execute grouping.
-        Result result = performSearch(query, execution, groupingMap);
-
-        // Convert Vespa style results to hits.
+        // Perform the necessary passes to execute grouping, converting Vespa style results to hits as they complete.
         HitConverter hitConverter = new HitConverter(this, query);
+        Result result = performSearch(query, execution, groupingMap, requestContextList, hitConverter);
         for (RequestContext context : requestContextList) {
-            RootGroup group = convertResult(context, groupingMap, hitConverter);
-            context.request.setResultGroup(group);
-            result.hits().add(group);
+            if (context.resultGroup == null) continue; // the max number of groups was exceeded
+            context.request.setResultGroup(context.resultGroup);
+            result.hits().add(context.resultGroup);
         }
         return result;
     }
@@ -171,12 +182,30 @@ public class GroupingExecutor extends Searcher {
             grp.setId(grpId);
             map.put(grpId, grp);
             ctx.idList.add(grpId);
+            ctx.lastPass = Math.max(ctx.lastPass, lastPassOf(grp));
         }
         return ctx;
     }
 
     /**
-     * Converts the results of the given request context into a single {@link Group}.
+     * Converts the results of all the given request contexts which have not yet been converted.
+     *
+     * @param requestContextList The contexts that identify the results to convert.
+     * @param groupingMap        The map of all {@link Grouping} objects available.
+     * @param hitConverter       The converter to use for {@link Hit} conversion.
+     */
+    private void convertResults(List<RequestContext> requestContextList, Map<Integer, Grouping> groupingMap,
+                                HitConverter hitConverter) {
+        for (RequestContext context : requestContextList) {
+            if (context.resultGroup == null) {
+                context.resultGroup = convertResult(context, groupingMap, hitConverter);
+            }
+        }
+    }
+
+    /**
+     * Converts the results of the given request context into a single {@link Group}, and removes the {@link Grouping}
+     * objects of the request from the grouping map, as they are not needed after this.
      *
      * @param requestContext   The context that identifies the results to convert.
      * @param groupingMap  The map of all {@link Grouping} objects available.
@@ -190,7 +219,11 @@ public class GroupingExecutor extends Searcher {
         builder.setTransform(requestContext.transform);
         builder.setRequestId(requestContext.request.getRequestId());
         for (Integer grpId : requestContext.idList) {
-            builder.addGroupingResult(groupingMap.get(grpId));
+            Grouping grouping = groupingMap.remove(grpId);
+            if (log.isLoggable(LogLevel.DEBUG)) {
+                log.log(LogLevel.DEBUG, "Result Grouping(" + grouping.getId() + "): " + grouping);
+            }
+            builder.addGroupingResult(grouping);
         }
         builder.build();
         return builder.getRoot();
@@ -199,21 +232,25 @@ public class GroupingExecutor extends Searcher {
     /**
      * Performs the actual search passes to complete all the given {@link Grouping} requests. This method uses the
      * grouping map argument as both an input and an output variable, as the contained {@link Grouping} objects are
-     * updates as results arrive from the back end.
+     * updates as results arrive from the back end. The result of each request is converted as soon as its last pass
+     * has been merged, and its {@link Grouping} objects are then removed from the map.
      *
-     * @param query       The query to execute.
-     * @param execution   The execution context used to run the queries.
-     * @param groupingMap The map of grouping requests to perform.
+     * @param query              The query to execute.
+     * @param execution          The execution context used to run the queries.
+     * @param groupingMap        The map of grouping requests to perform.
+     * @param requestContextList The contexts of the requests to convert the results of.
+     * @param hitConverter       The converter to use for {@link Hit} conversion.
      * @return The search result to pass back from this searcher.
      */
-    private Result performSearch(Query query, Execution execution, Map<Integer, Grouping> groupingMap) {
+    private Result performSearch(Query query, Execution execution, Map<Integer, Grouping> groupingMap,
+                                 List<RequestContext> requestContextList, HitConverter hitConverter) {
         // Determine how many passes to perform.
         int lastPass = 0;
-        for (Grouping grouping : groupingMap.values()) {
-            if ( ! grouping.useSinglePass()) {
-                lastPass = Math.max(lastPass, grouping.getLevels().size());
-            }
+        for (RequestContext context : requestContextList) {
+            lastPass = Math.max(lastPass, context.lastPass);
         }
+        int maxGroups = query.properties().getInteger(PARAM_MAX_GROUPS, -1);
+        int convertedGroups = 0;
 
         // Perform multi-pass query to complete all grouping requests.
         Item origRoot = query.getModel().getQueryTree().getRoot();
@@ -258,9 +295,11 @@ public class GroupingExecutor extends Searcher {
                 if (firstPass) {
                     if (passResult.hits().getErrorHit().errors().size() > prePassErrors ||
                         passResult.hits().getErrorHit().errors().size() == 0) {
+                        convertResults(requestContextList, groupingMap, hitConverter);
                         return passResult;
                     }
                 } else {
+                    convertResults(requestContextList, groupingMap, hitConverter);
                     return passResult;
                 }
             }
@@ -269,15 +308,62 @@ public class GroupingExecutor extends Searcher {
             if (firstPass) {
                 ret = passResult;
             }
-        }
-        if (log.isLoggable(LogLevel.DEBUG)) {
-            for (Grouping grouping : groupingMap.values()) {
-                log.log(LogLevel.DEBUG, "Result Grouping(" + grouping.getId() + "): " + grouping);
+            if (maxGroups >= 0) {
+                int numGroups = convertedGroups + countGroups(groupingMap.values());
+                if (numGroups > maxGroups) {
+                    groupingMap.clear();
+                    for (RequestContext context : requestContextList) {
+                        context.resultGroup = null;
+                    }
+                    ret.hits().addError(ErrorMessage.createInvalidQueryParameter(
+                            "Grouping produced " + numGroups + " groups in pass " + pass + ", but the max " +
+                            "number of groups allowed is " + maxGroups + " (set by '" + PARAM_MAX_GROUPS + "')."));
+                    return ret;
+                }
+            }
+            for (RequestContext context : requestContextList) {
+                if (context.lastPass == pass) {
+                    if (maxGroups >= 0) {
+                        convertedGroups += countGroups(context.idList, groupingMap);
+                    }
+                    context.resultGroup = convertResult(context, groupingMap, hitConverter);
+                }
             }
         }
         return ret;
     }
 
+    /** Returns the last pass the given grouping takes part in */
+    private static int lastPassOf(Grouping grouping) {
+        return grouping.useSinglePass() ? 0 : grouping.getLevels().size();
+    }
+
+    /** Returns the number of groups below the roots of the given groupings */
+    private static int countGroups(Collection<Grouping> groupings) {
+        int count = 0;
+        for (Grouping grouping : groupings) {
+            count += countChildGroups(grouping.getRoot());
+        }
+        return count;
+    }
+
+    /** Returns the number of groups below the roots of the groupings having the given ids */
+    private static int countGroups(List<Integer> idList, Map<Integer, Grouping> groupingMap) {
+        int count = 0;
+        for (Integer grpId : idList) {
+            count += countChildGroups(groupingMap.get(grpId).getRoot());
+        }
+        return count;
+    }
+
+    private static int countChildGroups(com.yahoo.searchlib.aggregation.Group group) {
+        int count = group.getChildren().size();
+        for (com.yahoo.searchlib.aggregation.Group child : group.getChildren()) {
+            count += countChildGroups(child);
+        }
+        return count;
+    }
+
     /**
      * Merges the content of result into state. This needs to be done in order to conserve the context objects contained
      * in the state as they are not part of the serialized object representation.
@@ -416,6 +502,8 @@ public class GroupingExecutor extends Searcher {
         final List<Integer> idList = new LinkedList<>();
         final GroupingRequest request;
         final GroupingTransform transform;
+        int lastPass = 0;
+        RootGroup resultGroup = null;
 
         RequestContext(GroupingRequest request, GroupingTransform transform) {
             this.request = request;
@@ -39,6 +39,8 @@ import com.yahoo.search.Result;
 import com.yahoo.search.Searcher;
 import com.yahoo.search.config.IndexInfoConfig;
 import com.yahoo.search.debug.DebugRpcAdaptor;
+import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.parser.ParsedQueryCache;
 import com.yahoo.search.query.profile.QueryProfileRegistry;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfileRegistry;
@@ -62,6 +64,7 @@ import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -107,6 +110,10 @@ public class SearchHandler extends LoggingRequestHandler {
 
     private final Linguistics linguistics;
 
+    /** Parsed query trees by the inputs to parsing, shared by all queries handled by this */
+    private final ParsedQueryCache<QueryTree> parsedQueryCache = new ParsedQueryCache<>(ParsedQueryCache.defaultMaxSize,
+                                                                                        QueryTree::clone);
+
     private final CompiledQueryProfileRegistry queryProfileRegistry;
     
     /** If present, responses from this will set the HTTP response header with this key to the host name of this */
@@ -151,7 +158,8 @@ public class SearchHandler extends LoggingRequestHandler {
         specialTokens = new SpecialTokenRegistry(specialtokens);
         rendererRegistry = new RendererRegistry(renderers.allComponents());
         QueryProfileRegistry queryProfileRegistry = QueryProfileConfigurer.createFromConfig(queryProfileConfig);
-        this.queryProfileRegistry = queryProfileRegistry.compile();
+        this.queryProfileRegistry = queryProfileRegistry.compile(
+                clusters.com().yahoo().search().query().profile().compiled().CompiledQueryProfile().maxvaluetables());
 
         this.linguistics = linguistics;
         this.maxThreads = examineExecutor(executor);
@@ -161,6 +169,8 @@ public class SearchHandler extends LoggingRequestHandler {
                                               .setLogMean(true).setLogMin(true)
                                               .setNameExtension(true)
                                               .setCallback(new MeanConnections()));
+        registerCountMetric("parsed_query_cache.hits", parsedQueryCache::hits, statistics);
+        registerCountMetric("parsed_query_cache.misses", parsedQueryCache::misses, statistics);
         
         this.hostResponseHeaderKey = containerHttpConfig.hostResponseHeaderKey().equals("") ?
                                      Optional.empty() : Optional.of( containerHttpConfig.hostResponseHeaderKey());
@@ -220,6 +230,12 @@ public class SearchHandler extends LoggingRequestHandler {
         searchChainRegistry.freeze();
     }
 
+    /** Logs the cumulative count given by the supplier each time the statistics are logged */
+    private static void registerCountMetric(String name, LongSupplier count, Statistics statistics) {
+        new Value(name, statistics, new Value.Parameters().setNameExtension(false).setLogRaw(true)
+                                                          .setCallback((handle, firstTime) -> ((Value)handle).put(count.getAsLong())));
+    }
+
     private static int examineExecutor(Executor executor) {
         if (executor instanceof ThreadPoolExecutor) {
             return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
@@ -379,8 +395,9 @@ public class SearchHandler extends LoggingRequestHandler {
         if (query.getPresentation().getSummary() == null && renderer instanceof com.yahoo.search.rendering.Renderer)
             query.getPresentation().setSummary(((com.yahoo.search.rendering.Renderer) renderer).getDefaultSummaryClass());
 
-        Execution execution = new Execution(searchChain,
-                                            new Execution.Context(registry, indexFacts, specialTokens, rendererRegistry, linguistics));
+        Execution.Context context = new Execution.Context(registry, indexFacts, specialTokens, rendererRegistry, linguistics);
+        context.setParsedQueryCache(parsedQueryCache);
+        Execution execution = new Execution(searchChain, context);
         query.getModel().setExecution(execution);
         execution.trace().setForceTimestamps(query.properties().getBoolean(FORCE_TIMESTAMPS, false));
         if (query.properties().getBoolean(DETAILED_TIMING_LOGGING, false)) {
@@ -11,6 +11,7 @@ import com.yahoo.prelude.query.textualrepresentation.TextualQueryRepresentation;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.Query;
 import com.yahoo.search.query.parser.Parsable;
+import com.yahoo.search.query.parser.ParsedQueryCache;
 import com.yahoo.search.query.parser.Parser;
 import com.yahoo.search.query.parser.ParserEnvironment;
 import com.yahoo.search.query.parser.ParserFactory;
@@ -255,8 +256,20 @@ public class Model implements Cloneable {
      */
     public QueryTree getQueryTree() {
         if (queryTree == null) {
-            Parser parser = ParserFactory.newInstance(type, ParserEnvironment.fromExecutionContext(execution.context()));
-            queryTree = parser.parse(Parsable.fromQueryModel(this));
+            ParserEnvironment environment = ParserEnvironment.fromExecutionContext(execution.context());
+            Parsable parsable = Parsable.fromQueryModel(this);
+            ParsedQueryCache<QueryTree> cache = execution.context().getParsedQueryCache();
+            // YQL may refer to other query properties, so we cannot know the key of it
+            ParsedQueryCache.Key key = cache == null || type == Query.Type.YQL ? null
+                                       : ParsedQueryCache.keyOf(type, parsable, execution.context(), encoding);
+            if (key != null)
+                queryTree = cache.get(key);
+            if (queryTree == null) {
+                Parser parser = ParserFactory.newInstance(type, environment);
+                queryTree = parser.parse(parsable);
+                if (key != null)
+                    cache.put(key, queryTree);
+            }
             if (parent.getTraceLevel() >= 2) {
                 parent.trace("Query parsed to: " + parent.yqlRepresentation(), 2);
             }
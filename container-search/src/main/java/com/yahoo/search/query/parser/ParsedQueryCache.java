@@ -0,0 +1,171 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.parser;
+
+import com.google.common.annotations.Beta;
+import com.yahoo.search.Query;
+import com.yahoo.search.searchchain.Execution;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * A bounded cache of the outcome of parsing queries, which lets repeated queries skip parsing.
+ * Values are copied both when they are added and when they are returned, so callers may modify them freely.
+ * <p>
+ * The cache is divided into segments by key hash which are locked independently,
+ * each evicting its least recently used values when full. Small caches use a single segment,
+ * such that they evict exactly the least recently used value.
+ * <p>
+ * This is thread safe.
+ *
+ * @param <VALUE> the type of the cached parsing outcome
+ */
+@Beta
+public final class ParsedQueryCache<VALUE> {
+
+    /** The default max number of values in a cache */
+    public static final int defaultMaxSize = 10000;
+
+    /** The max number of segments of a cache */
+    private static final int concurrency = 16;
+
+    /** The min number of values in each segment of a cache having multiple segments */
+    private static final int minSegmentSize = 64;
+
+    private final Segment<VALUE>[] segments;
+    private final UnaryOperator<VALUE> copier;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache
+     *
+     * @param maxSize the max number of values kept in this
+     * @param copier a function returning a deep copy of a value
+     */
+    @SuppressWarnings("unchecked")
+    public ParsedQueryCache(int maxSize, UnaryOperator<VALUE> copier) {
+        this.copier = copier;
+        int segmentCount = Math.max(1, Math.min(concurrency, maxSize / minSegmentSize));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment<>(Math.max(1, maxSize / segmentCount));
+    }
+
+    /** Returns a copy of the value cached for the given key, or null if none */
+    public VALUE get(Key key) {
+        VALUE value = segmentOf(key).get(key);
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copier.apply(value);
+    }
+
+    /** Adds a copy of the given value to this, replacing any existing value of the same key */
+    public void put(Key key, VALUE value) {
+        segmentOf(key).put(key, copier.apply(value));
+    }
+
+    /** Returns the number of lookups which found a value since this was created */
+    public long hits() { return hits.sum(); }
+
+    /** Returns the number of lookups which did not find a value since this was created */
+    public long misses() { return misses.sum(); }
+
+    /** Returns the number of values in this */
+    public int size() {
+        int size = 0;
+        for (Segment<VALUE> segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    private Segment<VALUE> segmentOf(Key key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[Math.floorMod(hash, segments.length)];
+    }
+
+    /**
+     * Returns the key of parsing the given input as the given type with the parser environment of the given context.
+     *
+     * @param type the query type to parse as
+     * @param parsable the input to the parser
+     * @param context the context the parser environment is created from (see
+     *                {@link ParserEnvironment#fromExecutionContext}). The components of this which decide the parser
+     *                environment are compared by identity, where a missing component (meaning a default is used)
+     *                is equal to any other missing component
+     * @param other any other values which affect the outcome of parsing, compared by equality
+     */
+    public static Key keyOf(Query.Type type, Parsable parsable, Execution.Context context, Object ... other) {
+        return new Key(new Object[] { type, parsable.getQuery(), parsable.getFilter(), parsable.getDefaultIndexName(),
+                                      parsable.getLanguage(), parsable.getExplicitLanguage(),
+                                      parsable.getSources(), parsable.getRestrict(), Arrays.asList(other) },
+                       context == null ? new Object[3]
+                                       : new Object[] { context.getIndexFacts(), context.getLinguistics(),
+                                                        context.getTokenRegistry() });
+    }
+
+    /** The inputs to parsing a query, which determine the outcome */
+    public static final class Key {
+
+        private final Object[] values;
+        private final Object[] components;
+        private final int hashCode;
+
+        private Key(Object[] values, Object[] components) {
+            this.values = values;
+            this.components = components;
+            int hashCode = Arrays.hashCode(values);
+            for (Object component : components)
+                hashCode = 31 * hashCode + System.identityHashCode(component);
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key)o;
+            if (this.hashCode != other.hashCode) return false;
+            for (int i = 0; i < components.length; i++)
+                if (this.components[i] != other.components[i]) return false;
+            for (int i = 0; i < values.length; i++)
+                if ( ! Objects.equals(this.values[i], other.values[i])) return false;
+            return true;
+        }
+
+    }
+
+    private static final class Segment<VALUE> {
+
+        private final Map<Key, VALUE> values;
+
+        Segment(int maxSize) {
+            values = new LinkedHashMap<Key, VALUE>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, VALUE> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized VALUE get(Key key) { return values.get(key); }
+
+        synchronized void put(Key key, VALUE value) { values.put(key, value); }
+
+        synchronized int size() { return values.size(); }
+
+    }
+
+}
@@ -24,14 +24,28 @@ public class QueryProfileCompiler {
     private static final Logger log = Logger.getLogger(QueryProfileCompiler.class.getName());
 
     public static CompiledQueryProfileRegistry compile(QueryProfileRegistry input) {
+        return compile(input, CompiledQueryProfile.defaultMaxValueTables);
+    }
+
+    /**
+     * Compiles all the profiles of the given registry.
+     *
+     * @param maxValueTables the max number of contexts for which each compiled profile keeps a table of
+     *                       its values resolved in that context, or 0 to always resolve values from the entries
+     */
+    public static CompiledQueryProfileRegistry compile(QueryProfileRegistry input, int maxValueTables) {
         CompiledQueryProfileRegistry output = new CompiledQueryProfileRegistry(input.getTypeRegistry());
         for (QueryProfile inputProfile : input.allComponents()) {
-            output.register(compile(inputProfile, output));
+            output.register(compile(inputProfile, output, maxValueTables));
         }
         return output;
     }
 
     public static CompiledQueryProfile compile(QueryProfile in, CompiledQueryProfileRegistry registry) {
+        return compile(in, registry, CompiledQueryProfile.defaultMaxValueTables);
+    }
+
+    public static CompiledQueryProfile compile(QueryProfile in, CompiledQueryProfileRegistry registry, int maxValueTables) {
         DimensionalMap.Builder<CompoundName, Object> values = new DimensionalMap.Builder<>();
         DimensionalMap.Builder<CompoundName, QueryProfileType> types = new DimensionalMap.Builder<>();
         DimensionalMap.Builder<CompoundName, Object> references = new DimensionalMap.Builder<>();
@@ -59,7 +73,7 @@ public class QueryProfileCompiler {
 
         return new CompiledQueryProfile(in.getId(), in.getType(),
                                         values.build(), types.build(), references.build(), unoverridables.build(),
-                                        registry);
+                                        registry, maxValueTables);
     }
 
     /**
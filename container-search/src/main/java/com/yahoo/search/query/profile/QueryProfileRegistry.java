@@ -87,4 +87,14 @@ public class QueryProfileRegistry extends ComponentRegistry<QueryProfile> {
 
     public CompiledQueryProfileRegistry compile() { return QueryProfileCompiler.compile(this); }
 
+    /**
+     * Compiles the query profiles of this.
+     *
+     * @param maxValueTables the max number of contexts for which each compiled profile keeps a table of
+     *                       its values resolved in that context, or 0 to always resolve values from the entries
+     */
+    public CompiledQueryProfileRegistry compile(int maxValueTables) {
+        return QueryProfileCompiler.compile(this, maxValueTables);
+    }
+
 }
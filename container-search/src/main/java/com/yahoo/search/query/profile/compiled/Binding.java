@@ -7,6 +7,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * An immutable binding of a set of dimensions to values.
@@ -78,6 +79,11 @@ public class Binding implements Comparable<Binding> {
     /** Returns true only if this binding is null (contains no values for its dimensions (if any) */
     public boolean isNull() { return dimensions.length == 0; }
 
+    /** Adds the dimensions which have values in this to the given set */
+    void addDimensionsTo(Set<String> dimensions) {
+        Collections.addAll(dimensions, this.dimensions);
+    }
+
     @Override
     public String toString() {
         StringBuilder b = new StringBuilder("Binding[");
@@ -9,9 +9,13 @@ import com.yahoo.search.query.profile.QueryProfileProperties;
 import com.yahoo.search.query.profile.SubstituteString;
 import com.yahoo.search.query.profile.types.QueryProfileType;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,6 +45,28 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
     /** Values which are not overridable in this. Used as a set. */
     private final DimensionalMap<CompoundName, Object> unoverridables;
 
+    /** The default max number of contexts to keep resolved value tables for */
+    public static final int defaultMaxValueTables = 100;
+
+    /** The dimensions which may decide the values of this */
+    private final String[] dimensions;
+
+    /** The max number of value tables to keep, or 0 to resolve all values from the entries */
+    private final int maxValueTables;
+
+    /** All values of this resolved in a context, by the values of the dimensions of this in the context */
+    private final ConcurrentHashMap<List<String>, ValueTable> valueTables = new ConcurrentHashMap<>();
+
+    /**
+     * The contexts seen once which have no value table. A table is only built for a context the second time
+     * it is seen, such that contexts which are used once do not pay for resolving all the values of this.
+     * Used as a set.
+     */
+    private final ConcurrentHashMap<List<String>, Boolean> contextsSeenOnce = new ConcurrentHashMap<>();
+
+    /** All values of this, if they are kept in a table and do not depend on the context, null otherwise */
+    private final ValueTable contextFreeValueTable;
+
     /**
      * Creates a new query profile from an id.
      */
@@ -50,7 +76,25 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
                                 DimensionalMap<CompoundName, Object> references,
                                 DimensionalMap<CompoundName, Object> unoverridables,
                                 CompiledQueryProfileRegistry registry) {
+        this(id, type, entries, types, references, unoverridables, registry, defaultMaxValueTables);
+    }
+
+    /**
+     * Creates a new query profile from an id.
+     *
+     * @param maxValueTables the max number of contexts for which to keep a table of all the values
+     *                       of this resolved in that context, or 0 to always resolve values from the entries
+     */
+    public CompiledQueryProfile(ComponentId id, QueryProfileType type,
+                                DimensionalMap<CompoundName, Object> entries,
+                                DimensionalMap<CompoundName, QueryProfileType> types,
+                                DimensionalMap<CompoundName, Object> references,
+                                DimensionalMap<CompoundName, Object> unoverridables,
+                                CompiledQueryProfileRegistry registry,
+                                int maxValueTables) {
         super(id);
+        if (maxValueTables < 0)
+            throw new IllegalArgumentException("maxValueTables cannot be negative, was " + maxValueTables);
         this.registry = registry;
         if (type != null)
             type.freeze();
@@ -59,6 +103,10 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         this.types = types;
         this.references = references;
         this.unoverridables = unoverridables;
+        this.dimensions = entries.dimensions().toArray(new String[0]);
+        this.maxValueTables = maxValueTables;
+        this.contextFreeValueTable = maxValueTables > 0 && dimensions.length == 0 ? resolveValues(Collections.emptyMap())
+                                                                                  : null;
         if ( ! id.isAnonymous())
             validateName(id.getName());
     }
@@ -153,9 +201,70 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return get(new CompoundName(name), context, substitution);
     }
     public final Object get(CompoundName name, Map<String, String> context, Properties substitution) {
+        ValueTable table = valueTable(context);
+        if (table != null)
+            return substitute(table.get(name), context, substitution);
         return substitute(entries.get(name, context), context, substitution);
     }
 
+    /** Returns the number of contexts for which a table of all the values of this is currently kept */
+    public int valueTableCount() {
+        return contextFreeValueTable != null ? 1 : valueTables.size();
+    }
+
+    /**
+     * Returns the table of all the values of this resolved in the given context,
+     * or null if values should be resolved from the entries in this context
+     */
+    private ValueTable valueTable(Map<String, String> context) {
+        if (maxValueTables == 0) return null;
+        if (contextFreeValueTable != null) return contextFreeValueTable;
+        if (context == null)
+            context = Collections.emptyMap();
+        String[] dimensionValues = new String[dimensions.length];
+        for (int i = 0; i < dimensions.length; i++)
+            dimensionValues[i] = context.get(dimensions[i]);
+        List<String> key = Arrays.asList(dimensionValues);
+
+        ValueTable table = valueTables.get(key);
+        if (table != null) return table;
+
+        if (contextsSeenOnce.remove(key) == null) { // first time seen
+            if (contextsSeenOnce.size() >= maxValueTables * 10) // bound memory use when most contexts are unique
+                contextsSeenOnce.clear();
+            contextsSeenOnce.put(key, Boolean.TRUE);
+            return null;
+        }
+
+        table = resolveValues(context);
+        if (valueTables.size() >= maxValueTables)
+            evictRandomValueTable();
+        valueTables.put(key, table);
+        return table;
+    }
+
+    private void evictRandomValueTable() {
+        int size = valueTables.size();
+        if (size == 0) return;
+        int skip = ThreadLocalRandom.current().nextInt(size);
+        for (List<String> key : valueTables.keySet()) {
+            if (skip-- == 0) {
+                valueTables.remove(key);
+                return;
+            }
+        }
+    }
+
+    private ValueTable resolveValues(Map<String, String> context) {
+        Map<CompoundName, Object> values = new HashMap<>();
+        for (Map.Entry<CompoundName, DimensionalValue<Object>> entry : entries.entrySet()) {
+            Object value = entry.getValue().get(context);
+            if (value != null)
+                values.put(entry.getKey(), value);
+        }
+        return new ValueTable(values);
+    }
+
     private Object substitute(Object value, Map<String,String> context, Properties substitution) {
         if (value == null) return value;
         if (substitution == null) return value;
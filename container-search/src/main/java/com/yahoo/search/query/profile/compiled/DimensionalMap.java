@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableMap;
 import com.yahoo.search.query.profile.DimensionBinding;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,6 +37,14 @@ public class DimensionalMap<KEY, VALUE> {
         return values.entrySet();
     }
 
+    /** Returns the dimensions which may decide the values returned from this */
+    Set<String> dimensions() {
+        Set<String> dimensions = new LinkedHashSet<>();
+        for (DimensionalValue<VALUE> value : values.values())
+            value.addDimensionsTo(dimensions);
+        return dimensions;
+    }
+
     /** Returns true if this is empty for all contexts. */
     public boolean isEmpty() {
         return values.isEmpty();
@@ -48,6 +48,12 @@ public class DimensionalValue<VALUE> {
 
     public boolean isEmpty() { return values.isEmpty(); }
 
+    /** Adds the dimensions which may decide the value returned from this to the given set */
+    void addDimensionsTo(Set<String> dimensions) {
+        for (Value<VALUE> value : values)
+            value.binding().addDimensionsTo(dimensions);
+    }
+
     @Override
     public String toString() {
         return values.toString();
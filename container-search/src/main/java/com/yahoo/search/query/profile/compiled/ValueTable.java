@@ -0,0 +1,79 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+
+import java.util.Map;
+
+/**
+ * The values of a query profile resolved in one context, as a flat open addressing hash table.
+ * The hash function is chosen to place every key in its own slot where possible,
+ * such that a lookup is a single array access.
+ * <p>
+ * This is immutable.
+ */
+final class ValueTable {
+
+    /** The hash multipliers to try, in order, when looking for one which places every key in its own slot */
+    private static final int[] multipliers = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F,
+                                               0x165667B1, 0xFD7046C5, 0xB55A4F09, 0x7FEB352D };
+
+    private final CompoundName[] keys;
+    private final Object[] values;
+    private final int multiplier;
+    private final int shift;
+
+    /** Creates a table of the given values, which must not be null */
+    ValueTable(Map<CompoundName, Object> entries) {
+        int bits = 1;
+        while ((1 << bits) < entries.size() * 2)
+            bits++;
+        int multiplier = multipliers[0];
+        found:
+        for (int extraBits = 0; extraBits <= 1; extraBits++) { // try tables of size 2n and 4n
+            for (int candidate : multipliers) {
+                if (isCollisionFree(entries, candidate, 32 - bits - extraBits)) {
+                    multiplier = candidate;
+                    bits += extraBits;
+                    break found;
+                }
+            }
+        }
+
+        this.multiplier = multiplier;
+        this.shift = 32 - bits;
+        this.keys = new CompoundName[1 << bits];
+        this.values = new Object[1 << bits];
+        for (Map.Entry<CompoundName, Object> entry : entries.entrySet()) {
+            int slot = slotOf(entry.getKey(), multiplier, shift);
+            while (keys[slot] != null)
+                slot = (slot + 1) & (keys.length - 1);
+            keys[slot] = entry.getKey();
+            values[slot] = entry.getValue();
+        }
+    }
+
+    /** Returns the value of the given key, or null if none */
+    Object get(CompoundName key) {
+        for (int slot = slotOf(key, multiplier, shift); ; slot = (slot + 1) & (keys.length - 1)) {
+            CompoundName candidate = keys[slot];
+            if (candidate == null) return null;
+            if (candidate == key || candidate.equals(key)) return values[slot];
+        }
+    }
+
+    private static boolean isCollisionFree(Map<CompoundName, Object> entries, int multiplier, int shift) {
+        boolean[] used = new boolean[1 << (32 - shift)];
+        for (CompoundName key : entries.keySet()) {
+            int slot = slotOf(key, multiplier, shift);
+            if (used[slot]) return false;
+            used[slot] = true;
+        }
+        return true;
+    }
+
+    private static int slotOf(CompoundName key, int multiplier, int shift) {
+        return (key.hashCode() * multiplier) >>> shift;
+    }
+
+}
@@ -17,7 +17,7 @@ public class SubProperties extends com.yahoo.search.query.Properties {
     final private Properties parent;
 
     public SubProperties(String pathPrefix, Properties properties) {
-        this(new CompoundName(pathPrefix),properties);
+        this(CompoundName.from(pathPrefix),properties);
     }
 
     public SubProperties(CompoundName pathPrefix, Properties properties) {
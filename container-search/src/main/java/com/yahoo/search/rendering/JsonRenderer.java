@@ -8,8 +8,10 @@ import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.yahoo.data.JsonProducer;
+import com.yahoo.data.access.ArrayTraverser;
 import com.yahoo.data.access.Inspectable;
-import com.yahoo.data.access.simple.JsonRender;
+import com.yahoo.data.access.Inspector;
+import com.yahoo.data.access.ObjectTraverser;
 import com.yahoo.document.datatypes.FieldValue;
 import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.TensorFieldValue;
@@ -39,6 +41,7 @@ import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.HitGroup;
 import com.yahoo.search.result.NanNumber;
+import com.yahoo.search.result.StructuredData;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.yolean.trace.TraceNode;
 import com.yahoo.yolean.trace.TraceVisitor;
@@ -128,6 +131,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     private static final String TYPES = "types";
     private static final String GROUPING_VALUE = "value";
     private static final String VESPA_HIDDEN_FIELD_PREFIX = "$";
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
 
     private final JsonFactory generatorFactory;
 
@@ -136,6 +140,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     private boolean debugRendering;
     private LongSupplier timeSource;
     private OutputStream stream;
+    private InspectorRenderer inspectorRenderer;
 
     private class TraceRenderer extends TraceVisitor {
         private final long basetime;
@@ -275,6 +280,85 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
     }
 
+    private class InspectorRenderer implements ArrayTraverser, ObjectTraverser {
+
+        void render(Inspector value) throws IOException {
+            switch (value.type()) {
+                case EMPTY: generator.writeNull(); break;
+                case BOOL: generator.writeBoolean(value.asBool()); break;
+                case LONG: generator.writeNumber(value.asLong()); break;
+                case DOUBLE: renderDouble(value.asDouble()); break;
+                case STRING: renderString(value.asUtf8()); break;
+                case DATA: renderData(value.asData()); break;
+                case ARRAY:
+                    generator.writeStartArray();
+                    value.traverse((ArrayTraverser) this);
+                    generator.writeEndArray();
+                    break;
+                case OBJECT:
+                    generator.writeStartObject();
+                    value.traverse((ObjectTraverser) this);
+                    generator.writeEndObject();
+                    break;
+            }
+        }
+
+        @Override
+        public void entry(int index, Inspector value) {
+            try {
+                render(value);
+            } catch (IOException e) {
+                throw new InspectorRenderWrapper(e);
+            }
+        }
+
+        @Override
+        public void field(String name, Inspector value) {
+            try {
+                generator.writeFieldName(name);
+                render(value);
+            } catch (IOException e) {
+                throw new InspectorRenderWrapper(e);
+            }
+        }
+
+        private void renderDouble(double value) throws IOException {
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                generator.writeNull();
+            else
+                generator.writeNumber(value);
+        }
+
+        private void renderString(byte[] utf8) throws IOException {
+            generator.writeUTF8String(utf8, 0, utf8.length);
+        }
+
+        private void renderData(byte[] data) throws IOException {
+            char[] hex = new char[2 + data.length * 2];
+            hex[0] = '0';
+            hex[1] = 'x';
+            for (int i = 0; i < data.length; i++) {
+                hex[2 + i * 2] = HEX_DIGITS[(data[i] >> 4) & 0xf];
+                hex[3 + i * 2] = HEX_DIGITS[data[i] & 0xf];
+            }
+            generator.writeString(hex, 0, hex.length);
+        }
+
+    }
+
+    private static final class InspectorRenderWrapper extends RuntimeException {
+
+        /**
+         * Should never be serialized, but this is still needed.
+         */
+        private static final long serialVersionUID = 2L;
+
+        InspectorRenderWrapper(IOException wrapped) {
+            super(wrapped);
+        }
+
+    }
+
     public JsonRenderer() {
         this(null);
     }
@@ -308,6 +392,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         debugRendering = false;
         timeSource = System::currentTimeMillis;
         stream = null;
+        inspectorRenderer = null;
     }
 
     @Override
@@ -647,12 +732,12 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             generator.writeTree((TreeNode) field);
         } else if (field instanceof Tensor) {
             renderTensor(Optional.of((Tensor)field));
+        } else if (field instanceof StructuredData) {
+            renderInspector(((StructuredData) field).inspect());
         } else if (field instanceof JsonProducer) {
             generator.writeRawValue(((JsonProducer) field).toJson());
         } else if (field instanceof Inspectable) {
-            StringBuilder intermediate = new StringBuilder();
-            JsonRender.render((Inspectable) field, intermediate, true);
-            generator.writeRawValue(intermediate.toString());
+            renderInspector(((Inspectable) field).inspect());
         } else if (field instanceof StringFieldValue) {
             // This needs special casing as JsonWriter hides empty strings now
             generator.writeString(((StringFieldValue)field).getString());
@@ -675,6 +760,21 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         }
     }
 
+    /**
+     * Renders structured data by traversing it directly into the generator. This renders the same JSON as
+     * {@link com.yahoo.data.access.simple.JsonRender}, but strings are written from their UTF-8 bytes
+     * without creating intermediate strings for either the values or the rendered JSON.
+     */
+    private void renderInspector(Inspector value) throws IOException {
+        if (inspectorRenderer == null)
+            inspectorRenderer = new InspectorRenderer();
+        try {
+            inspectorRenderer.render(value);
+        } catch (InspectorRenderWrapper e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
     private void renderNumberField(Number field) throws IOException {
         if (field instanceof Integer) {
             generator.writeNumber(field.intValue());
@@ -0,0 +1,46 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.result;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable index of a set of field names which are set in many hits, such as the fields of a
+ * document summary class. Hits which are given an index (see {@link Hit#reserve(FieldIndex)}) store the
+ * values of these fields in an array by their position in the index, rather than in a map entry each.
+ * Instances should be shared by all the hits having these fields.
+ * <p>
+ * This is thread safe.
+ */
+public final class FieldIndex {
+
+    private final String[] names;
+    private final Map<String, Integer> positions;
+
+    /** Creates an index of the given distinct field names, in the order they will be iterated over in hits */
+    public FieldIndex(Collection<String> names) {
+        this.names = names.toArray(new String[names.size()]);
+        this.positions = new HashMap<>(this.names.length * 2);
+        for (int i = 0; i < this.names.length; i++) {
+            if (positions.put(this.names[i], i) != null)
+                throw new IllegalArgumentException("Duplicate field name '" + this.names[i] + "' in " + names);
+        }
+    }
+
+    /** Returns the position of the given field name in this, or -1 if it is not present */
+    int positionOf(Object name) {
+        Integer position = positions.get(name);
+        return position == null ? -1 : position;
+    }
+
+    /** Returns the name at the given position */
+    String name(int position) { return names[position]; }
+
+    /** Returns the number of field names in this */
+    public int size() { return names.length; }
+
+    @Override
+    public String toString() { return "field index of " + String.join(", ", names); }
+
+}
@@ -411,6 +411,24 @@ public class Hit extends ListenableFreezableClass implements Data, Comparable<Hi
         getFieldMap(minSize);
     }
 
+    /**
+     * Makes this store the values of the fields in the given index in an array rather than in map entries.
+     * This saves space and allocation when many hits have the same fields, such as the fields of a summary class.
+     * Fields not in the index can still be set as usual, and fields are still iterated in insertion order.
+     * This has no effect if this already uses a field index.
+     *
+     * @param index the index of the fields to store in an array, which should be shared by all hits having these fields
+     */
+    public void reserve(FieldIndex index) {
+        if (fields instanceof IndexedFieldMap) return;
+
+        IndexedFieldMap indexedFields = new IndexedFieldMap(index);
+        if (fields != null)
+            indexedFields.putAll(fields);
+        fields = indexedFields;
+        unmodifiableFieldMap = null;
+    }
+
     /**
      * Fields
      * 
@@ -622,7 +640,10 @@ public class Hit extends ListenableFreezableClass implements Data, Comparable<Hi
     public Hit clone() {
         Hit hit = (Hit) super.clone();
 
-        hit.fields = fields != null ? new LinkedHashMap<>(fields) : null;
+        if (fields instanceof IndexedFieldMap)
+            hit.fields = ((IndexedFieldMap) fields).copy();
+        else
+            hit.fields = fields != null ? new LinkedHashMap<>(fields) : null;
         hit.unmodifiableFieldMap = null;
         hit.types = new LinkedHashSet<>(types);
         if (filled != null) {
@@ -0,0 +1,278 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.result;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A map of hit fields which stores the values of the fields in a shared {@link FieldIndex} in an array,
+ * and any other fields in a map which is created on demand.
+ * <p>
+ * Iteration is in insertion order, as with a {@link LinkedHashMap}.
+ */
+final class IndexedFieldMap extends AbstractMap<String, Object> {
+
+    /** Marks null values, as null array elements means the field is not set */
+    private static final Object nullValue = new Object();
+
+    /** Marks a field in the insertion order which is not in the index */
+    private static final int other = -1;
+
+    private final FieldIndex index;
+
+    /** The values of the indexed fields by position, null for fields which are not set */
+    private final Object[] values;
+
+    /** The number of indexed fields which are set */
+    private int indexedSize = 0;
+
+    /** Fields which are not in the index, or null if none have been set */
+    private Map<String, Object> others = null;
+
+    /**
+     * The fields of this in insertion order: The position of indexed fields, and {@link #other} for
+     * fields which are not indexed. The n'th other marker is the n'th entry in the others map.
+     */
+    private int[] order;
+
+    /** The number of fields in order */
+    private int orderSize = 0;
+
+    private Set<Entry<String, Object>> entrySet = null;
+
+    IndexedFieldMap(FieldIndex index) {
+        this.index = index;
+        this.values = new Object[index.size()];
+        this.order = new int[Math.max(4, index.size())];
+    }
+
+    private IndexedFieldMap(IndexedFieldMap other) {
+        this.index = other.index;
+        this.values = Arrays.copyOf(other.values, other.values.length);
+        this.indexedSize = other.indexedSize;
+        this.others = other.others == null ? null : new LinkedHashMap<>(other.others);
+        this.order = Arrays.copyOf(other.order, other.order.length);
+        this.orderSize = other.orderSize;
+    }
+
+    /** Returns a copy of this which can be modified independently */
+    IndexedFieldMap copy() { return new IndexedFieldMap(this); }
+
+    @Override
+    public int size() {
+        return indexedSize + (others == null ? 0 : others.size());
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int position = index.positionOf(key);
+        if (position >= 0) return values[position] != null;
+        return others != null && others.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        int position = index.positionOf(key);
+        if (position >= 0) return fromStored(values[position]);
+        return others == null ? null : others.get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int position = index.positionOf(key);
+        if (position >= 0) {
+            Object previous = values[position];
+            if (previous == null) {
+                indexedSize++;
+                addToOrder(position);
+            }
+            values[position] = value == null ? nullValue : value;
+            return fromStored(previous);
+        }
+        if (others == null)
+            others = new LinkedHashMap<>();
+        int othersSize = others.size();
+        Object previous = others.put(key, value);
+        if (others.size() > othersSize)
+            addToOrder(other);
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int position = index.positionOf(key);
+        if (position >= 0) {
+            if (values[position] == null) return null;
+            removeFromOrder(slotOf(position, 0));
+            return removeAt(position);
+        }
+        if (others == null || ! others.containsKey(key)) return null;
+        removeFromOrder(slotOf(other, ordinalOf(key)));
+        return others.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        indexedSize = 0;
+        others = null;
+        orderSize = 0;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null)
+            entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    private Object removeAt(int position) {
+        Object previous = values[position];
+        if (previous != null) {
+            values[position] = null;
+            indexedSize--;
+        }
+        return fromStored(previous);
+    }
+
+    private void addToOrder(int field) {
+        if (orderSize == order.length)
+            order = Arrays.copyOf(order, order.length * 2);
+        order[orderSize++] = field;
+    }
+
+    private void removeFromOrder(int slot) {
+        System.arraycopy(order, slot + 1, order, slot, orderSize - slot - 1);
+        orderSize--;
+    }
+
+    /** Returns the slot in order holding the given field, skipping the given number of earlier occurrences */
+    private int slotOf(int field, int skip) {
+        for (int slot = 0; slot < orderSize; slot++) {
+            if (order[slot] == field && skip-- == 0) return slot;
+        }
+        throw new IllegalStateException("Field " + field + " is missing from the field order");
+    }
+
+    /** Returns the position of the given key in the iteration order of others */
+    private int ordinalOf(Object key) {
+        int ordinal = 0;
+        for (String otherKey : others.keySet()) {
+            if (otherKey.equals(key)) return ordinal;
+            ordinal++;
+        }
+        throw new IllegalStateException("'" + key + "' is not set");
+    }
+
+    private static Object fromStored(Object value) {
+        return value == nullValue ? null : value;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() { return new EntryIterator(); }
+
+        @Override
+        public int size() { return IndexedFieldMap.this.size(); }
+
+        @Override
+        public void clear() { IndexedFieldMap.this.clear(); }
+
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        /** The next slot in order to return */
+        private int nextSlot = 0;
+
+        /** The slot of the last entry returned, or -1 if it has been removed or none has been returned */
+        private int lastSlot = -1;
+
+        private Iterator<Entry<String, Object>> othersIterator = null;
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < orderSize;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if ( ! hasNext()) throw new NoSuchElementException();
+            lastSlot = nextSlot++;
+            int field = order[lastSlot];
+            if (field == other)
+                return othersIterator().next();
+            return new IndexedEntry(field);
+        }
+
+        @Override
+        public void remove() {
+            if (lastSlot < 0) throw new IllegalStateException();
+            int field = order[lastSlot];
+            if (field == other)
+                othersIterator().remove();
+            else
+                removeAt(field);
+            removeFromOrder(lastSlot);
+            nextSlot = lastSlot;
+            lastSlot = -1;
+        }
+
+        private Iterator<Entry<String, Object>> othersIterator() {
+            if (othersIterator == null)
+                othersIterator = others == null ? Collections.emptyIterator() : others.entrySet().iterator();
+            return othersIterator;
+        }
+
+    }
+
+    private final class IndexedEntry implements Entry<String, Object> {
+
+        private final int position;
+
+        IndexedEntry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public String getKey() { return index.name(position); }
+
+        @Override
+        public Object getValue() { return fromStored(values[position]); }
+
+        @Override
+        public Object setValue(Object value) {
+            Object previous = values[position];
+            if (previous == null) throw new IllegalStateException("Field '" + getKey() + "' has been removed");
+            values[position] = value == null ? nullValue : value;
+            return fromStored(previous);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if ( ! (o instanceof Entry)) return false;
+            Entry<?, ?> other = (Entry<?, ?>)o;
+            return getKey().equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() { return getKey() + "=" + getValue(); }
+
+    }
+
+}
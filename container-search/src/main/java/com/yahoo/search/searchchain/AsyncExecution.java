@@ -6,11 +6,15 @@ import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.Searcher;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.yolean.Exceptions;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Provides asynchronous execution of searchchains.
@@ -34,6 +38,19 @@ import java.util.concurrent.*;
  * </pre>
  *
  * <p>
+ * {@link #searchAsync} returns a {@link CompletableFuture} instead. If the next searcher is a
+ * {@link NonBlockingSearcher} it is invoked directly such that no thread is held while waiting
+ * for its result, and in any case continuations of the returned future are run on a small, bounded
+ * pool of threads.
+ * </p>
+ *
+ * <p>
+ * The number of executions which may be in progress at any time can be limited by {@link #setPermits},
+ * for example to limit the concurrent executions of a chain by using the same permits for all its executions.
+ * This is unlimited by default.
+ * </p>
+ *
+ * <p>
  * Note that the query is not a thread safe object and cannot be shared between
  * multiple concurrent executions - a clone() must be made, or a new query
  * created for each AsyncExecution instance.
@@ -44,10 +61,15 @@ import java.util.concurrent.*;
  */
 public class AsyncExecution {
 
+    private static final Logger log = Logger.getLogger(AsyncExecution.class.getName());
+
     private static final ThreadFactory threadFactory = ThreadFactoryFactory.getThreadFactory("search");
 
     private static final Executor executorMain = createExecutor();
 
+    /** Runs continuations of the futures returned from searchAsync, never blocking */
+    private static final Executor completionExecutor = createCompletionExecutor();
+
     private static Executor createExecutor() {
         ThreadPoolExecutor executor = new ThreadPoolExecutor(100, Integer.MAX_VALUE, 1L, TimeUnit.SECONDS,
                                                             new SynchronousQueue<>(false), threadFactory);
@@ -58,9 +80,21 @@ public class AsyncExecution {
         return executor;
     }
 
+    private static Executor createCompletionExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1L, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(),
+                                                             ThreadFactoryFactory.getDaemonThreadFactory("search-completion"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /** The execution this executes */
     private final Execution execution;
 
+    /** The permits to start executions of this, or null if they are not limited */
+    private volatile Semaphore permits = null;
+
     /**
      * Creates an async execution.
      *
@@ -109,6 +143,19 @@ public class AsyncExecution {
         this.execution = new Execution(chain, context);
     }
 
+    /**
+     * Limits the executions of this to those which can acquire a permit from the given semaphore.
+     * An execution which cannot acquire a permit completes immediately with a result containing an error.
+     * Use the same permits for all the async executions of a chain to limit the number of executions
+     * of that chain which may be in progress at any time. By default executions are not limited.
+     * This must be set before any execution is started.
+     *
+     * @param permits the permits each search must acquire, or null to not limit searches
+     */
+    public void setPermits(Semaphore permits) {
+        this.permits = permits;
+    }
+
     /**
      * Does an async search, note that the query argument cannot simultaneously
      * be used to execute any other searches, a clone() must be made of the
@@ -118,9 +165,47 @@ public class AsyncExecution {
      * @see com.yahoo.search.searchchain.Execution
      */
     public FutureResult search(Query query) {
+        if (permits != null || execution.nextIsNonBlocking())
+            return new FutureResult(searchAsync(query), execution, query);
         return getFutureResult(() -> execution.search(query), query);
     }
 
+    /**
+     * Does an async search without holding a thread while waiting for the result if the next searcher is a
+     * {@link NonBlockingSearcher}. Otherwise the rest of the chain is executed in a separate thread.
+     * The returned future always completes normally, with a result containing an error if the execution failed.
+     * Continuations added to it are run on a small shared pool of threads, so they must not block.
+     * <p>
+     * As with {@link #search}, the query cannot simultaneously be used to execute any other searches.
+     */
+    public CompletableFuture<Result> searchAsync(Query query) {
+        Semaphore permits = this.permits;
+        if (permits != null && ! permits.tryAcquire())
+            return CompletableFuture.completedFuture(new Result(query, createTooManyExecutionsError()));
+
+        CompletableFuture<Result> future;
+        try {
+            if (execution.nextIsNonBlocking())
+                future = execution.searchNonBlocking(query);
+            else
+                future = CompletableFuture.supplyAsync(() -> execution.search(query), getExecutor());
+        }
+        catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return future.handleAsync((result, exception) -> {
+            if (permits != null)
+                permits.release();
+            if (exception == null) return result;
+            Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+            log.log(Level.WARNING, "Exception on executing " + execution + " for " + query, cause);
+            return new Result(query, ErrorMessage.createErrorInPluginSearcher("Error in '" + execution + "': " +
+                                                                              Exceptions.toMessageString(cause),
+                                                                              cause));
+        }, completionExecutor);
+    }
+
     public FutureResult searchAndFill(Query query) {
         return getFutureResult(() -> {
             Result result = execution.search(query);
@@ -165,6 +250,11 @@ public class AsyncExecution {
         return future;
     }
 
+    private ErrorMessage createTooManyExecutionsError() {
+        return ErrorMessage.createUnspecifiedError("Could not execute '" + execution + "': " +
+                                                   "Too many executions are in progress");
+    }
+
     /*
      * Waits for all futures until the given timeout. If a FutureResult isn't
      * done when the timeout expires, it will be cancelled, and it will return a
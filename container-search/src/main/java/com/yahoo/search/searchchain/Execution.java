@@ -16,9 +16,12 @@ import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.Searcher;
 import com.yahoo.search.cluster.PingableSearcher;
+import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.parser.ParsedQueryCache;
 import com.yahoo.search.rendering.RendererRegistry;
 import com.yahoo.search.statistics.TimeTracker;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 /**
@@ -94,6 +97,11 @@ public class Execution extends com.yahoo.processing.execution.Execution {
          */
         private Linguistics linguistics = null;
 
+        /**
+         * The cache of parsed query trees, or null if parsed queries should not be cached.
+         */
+        private ParsedQueryCache<QueryTree> parsedQueryCache = null;
+
         /** Always set if this context belongs to an execution, never set if it does not. */
         private final Execution owner;
 
@@ -191,6 +199,9 @@ public class Execution extends com.yahoo.processing.execution.Execution {
             if (linguistics == null) {
                 linguistics = sourceContext.linguistics;
             }
+            if (parsedQueryCache == null) {
+                parsedQueryCache = sourceContext.parsedQueryCache;
+            }
         }
 
         /**
@@ -206,6 +217,7 @@ public class Execution extends com.yahoo.processing.execution.Execution {
             detailedDiagnostics = other.detailedDiagnostics;
             breakdown = other.breakdown;
             linguistics = other.linguistics;
+            parsedQueryCache = other.parsedQueryCache;
         }
 
         public boolean equals(Context other) {
@@ -217,7 +229,8 @@ public class Execution extends com.yahoo.processing.execution.Execution {
                     && other.searchChainRegistry == searchChainRegistry
                     && other.detailedDiagnostics == detailedDiagnostics
                     && other.breakdown == breakdown
-                    && other.linguistics == linguistics;
+                    && other.linguistics == linguistics
+                    && other.parsedQueryCache == parsedQueryCache;
         }
 
         @Override
@@ -225,7 +238,7 @@ public class Execution extends com.yahoo.processing.execution.Execution {
             return java.util.Objects.hash(indexFacts,
                                           rendererRegistry, tokenRegistry, searchChainRegistry,
                                           detailedDiagnostics, breakdown,
-                                          linguistics);
+                                          linguistics, parsedQueryCache);
         }
 
         @Override
@@ -374,6 +387,16 @@ public class Execution extends com.yahoo.processing.execution.Execution {
             this.linguistics = linguistics;
         }
 
+        /** Returns the cache of parsed query trees to use, or null if parsed queries should not be cached */
+        public ParsedQueryCache<QueryTree> getParsedQueryCache() {
+            return parsedQueryCache;
+        }
+
+        /** Sets the cache of parsed query trees to use, or null to not cache parsed queries */
+        public void setParsedQueryCache(ParsedQueryCache<QueryTree> parsedQueryCache) {
+            this.parsedQueryCache = parsedQueryCache;
+        }
+
         /** Creates a child trace if this has an owner, or a root trace otherwise */
         private Trace createChildTrace() {
             return owner!=null ? owner.trace().createChild() : Trace.createRoot(0);
@@ -510,6 +533,38 @@ public class Execution extends com.yahoo.processing.execution.Execution {
         return (Result)super.process(query);
     }
 
+    /** Returns whether the next searcher of this can search without blocking, see {@link NonBlockingSearcher} */
+    boolean nextIsNonBlocking() {
+        return next() instanceof NonBlockingSearcher;
+    }
+
+    /**
+     * Calls searchAsync on the next searcher in this chain, which must be a {@link NonBlockingSearcher}.
+     * This execution must not be used for other purposes until the returned future is complete.
+     */
+    CompletableFuture<Result> searchNonBlocking(Query query) {
+        timer.sampleSearch(nextIndex(), context.getDetailedDiagnostics());
+        query.getModel().setExecution(this);
+        trace().setTraceLevel(query.getTraceLevel());
+
+        Processor searcher = next();
+        CompletableFuture<Result> future;
+        try {
+            nextProcessor();
+            onInvoking(query, searcher);
+            future = ((NonBlockingSearcher)searcher).searchAsync(query, this);
+            if (future == null)
+                throw new NullPointerException(searcher + " returned null, not a future result");
+        }
+        catch (RuntimeException e) {
+            previousProcessor();
+            onReturning(query, searcher, null);
+            throw e;
+        }
+        previousProcessor();
+        return future.whenComplete((result, exception) -> onReturning(query, searcher, result));
+    }
+
     @Override
     protected void onInvoking(Request request, Processor processor) {
         super.onInvoking(request,processor);
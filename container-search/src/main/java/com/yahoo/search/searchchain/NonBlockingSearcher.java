@@ -0,0 +1,34 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchchain;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implemented by searchers which can produce a result without blocking the calling thread while
+ * waiting for a remote resource, such as federation providers using an asynchronous client.
+ * <p>
+ * When such a searcher is the next searcher of an {@link AsyncExecution} it is invoked in the
+ * calling thread through this method, and no thread is held while the result is pending.
+ * Continuations of the returned future are run on a small shared pool of threads, so they must not block.
+ * <p>
+ * Implementations should also implement {@link com.yahoo.search.Searcher#search} such that they can be
+ * used in synchronous executions, e.g by returning <code>searchAsync(query, execution).join()</code>.
+ *
+ * @see AsyncExecution#searchAsync
+ */
+public interface NonBlockingSearcher {
+
+    /**
+     * Starts the search for the given query and returns a future which completes with the result.
+     * This must not block the calling thread.
+     * <p>
+     * The given execution may be used to invoke the rest of the chain before this returns, but not after.
+     * To continue the chain when the result is available, create a new Execution from the given one
+     * before returning.
+     */
+    CompletableFuture<Result> searchAsync(Query query, Execution execution);
+
+}
@@ -2,13 +2,18 @@
 package com.yahoo.search.yql;
 
 import com.google.common.annotations.Beta;
+import com.google.inject.Inject;
+import com.yahoo.metrics.simple.Counter;
+import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.Searcher;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.grouping.GroupingRequest;
 import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.Sorting;
 import com.yahoo.search.query.parser.Parsable;
+import com.yahoo.search.query.parser.ParsedQueryCache;
 import com.yahoo.search.query.parser.ParserEnvironment;
 import com.yahoo.search.query.parser.ParserFactory;
 import com.yahoo.search.result.ErrorMessage;
@@ -18,6 +23,15 @@ import com.yahoo.yolean.chain.After;
 import com.yahoo.yolean.chain.Before;
 import com.yahoo.yolean.chain.Provides;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * Minimal combinator for YQL+ syntax and heuristically parsed user queries.
  *
@@ -36,7 +50,25 @@ public class MinimalQueryInserter extends Searcher {
     private static final CompoundName MAX_HITS = new CompoundName("maxHits");
     private static final CompoundName MAX_OFFSET = new CompoundName("maxOffset");
 
+    /** Matches the references to query properties in YQL, which are replaced by the property values when parsing */
+    private static final Pattern propertyReference = Pattern.compile("@\\s*([A-Za-z_][A-Za-z0-9_:]*)");
+
+    private static final String USER_QUERY = "userquery";
+
+    /** The outcome of parsing YQL statements without grouping, by the inputs to parsing */
+    private final ParsedQueryCache<ParsedYql> cache = new ParsedQueryCache<>(ParsedQueryCache.defaultMaxSize,
+                                                                            ParsedYql::copy);
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
     public MinimalQueryInserter() {
+        this(MetricReceiver.nullImplementation);
+    }
+
+    @Inject
+    public MinimalQueryInserter(MetricReceiver metric) {
+        cacheHits = metric.declareCounter("yql_cache_hits");
+        cacheMisses = metric.declareCounter("yql_cache_misses");
     }
 
     @Override
@@ -44,57 +76,118 @@ public class MinimalQueryInserter extends Searcher {
         if (query.properties().get(YQL) == null) {
             return execution.search(query);
         }
+        String yql = query.properties().getString(YQL);
         ParserEnvironment env = ParserEnvironment.fromExecutionContext(execution.context());
-        YqlParser parser = (YqlParser) ParserFactory.newInstance(Query.Type.YQL, env);
-        parser.setQueryParser(false);
-        parser.setUserQuery(query);
-        QueryTree newTree;
-        try {
-            newTree = parser.parse(Parsable.fromQueryModel(query.getModel())
-                                           .setQuery(query.properties().getString(YQL)));
-        } catch (RuntimeException e) {
-            return new Result(query, ErrorMessage.createInvalidQueryParameter(
-                              "Could not instantiate query from YQL", e));
+        Parsable parsable = Parsable.fromQueryModel(query.getModel()).setQuery(yql);
+        ParsedQueryCache.Key key = cacheKeyOf(yql, parsable, execution.context(), query);
+        ParsedYql parsed = key == null ? null : cache.get(key);
+        if (key != null)
+            (parsed != null ? cacheHits : cacheMisses).add();
+        List<VespaGroupingStep> groupingSteps = Collections.emptyList();
+        if (parsed == null) {
+            YqlParser parser = (YqlParser) ParserFactory.newInstance(Query.Type.YQL, env);
+            parser.setQueryParser(false);
+            parser.setUserQuery(query);
+            try {
+                parsed = new ParsedYql(parser.parse(parsable), parser.getYqlSummaryFields(), parser.getYqlSources(),
+                                       parser.getOffset(), parser.getHits(), parser.getTimeout(), parser.getSorting());
+            } catch (RuntimeException e) {
+                return new Result(query, ErrorMessage.createInvalidQueryParameter(
+                                  "Could not instantiate query from YQL", e));
+            }
+            groupingSteps = parser.getGroupingSteps();
+            if (key != null && groupingSteps.isEmpty())
+                cache.put(key, parsed);
         }
-        if (parser.getOffset() != null) {
+        if (parsed.offset != null) {
             int maxHits = query.properties().getInteger(MAX_HITS);
             int maxOffset = query.properties().getInteger(MAX_OFFSET);
-            if (parser.getOffset() > maxOffset) {
-                return new Result(query, ErrorMessage.createInvalidQueryParameter("Requested offset " + parser.getOffset()
+            if (parsed.offset > maxOffset) {
+                return new Result(query, ErrorMessage.createInvalidQueryParameter("Requested offset " + parsed.offset
                                                                                   + ", but the max offset allowed is " + 
                                                                                   maxOffset + "."));
             }
-            if (parser.getHits() > maxHits) {
-                return new Result(query, ErrorMessage.createInvalidQueryParameter("Requested " + parser.getHits()
+            if (parsed.hits > maxHits) {
+                return new Result(query, ErrorMessage.createInvalidQueryParameter("Requested " + parsed.hits
                                                                                   + " hits returned, but max hits allowed is " 
                                                                                   + maxHits + "."));
 
             }
         }
-        query.getModel().getQueryTree().setRoot(newTree.getRoot());
-        query.getPresentation().getSummaryFields().addAll(parser.getYqlSummaryFields());
-        for (VespaGroupingStep step : parser.getGroupingSteps()) {
+        query.getModel().getQueryTree().setRoot(parsed.tree.getRoot());
+        query.getPresentation().getSummaryFields().addAll(parsed.summaryFields);
+        for (VespaGroupingStep step : groupingSteps) {
             GroupingRequest.newInstance(query)
                            .setRootOperation(step.getOperation())
                            .continuations().addAll(step.continuations());
         }
-        if (parser.getYqlSources().size() == 0) {
+        if (parsed.sources.size() == 0) {
             query.getModel().getSources().clear();
         } else {
-            query.getModel().getSources().addAll(parser.getYqlSources());
+            query.getModel().getSources().addAll(parsed.sources);
         }
-        if (parser.getOffset() != null) {
-            query.setOffset(parser.getOffset());
-            query.setHits(parser.getHits());
+        if (parsed.offset != null) {
+            query.setOffset(parsed.offset);
+            query.setHits(parsed.hits);
         }
-        if (parser.getTimeout() != null) {
-            query.setTimeout(parser.getTimeout().longValue());
+        if (parsed.timeout != null) {
+            query.setTimeout(parsed.timeout.longValue());
         }
-        if (parser.getSorting() != null) {
-            query.getRanking().setSorting(parser.getSorting());
+        if (parsed.sorting != null) {
+            query.getRanking().setSorting(parsed.sorting);
         }
         query.trace("YQL+ query parsed", true, 2);
         return execution.search(query);
     }
 
+    /** Returns the cache of parsed YQL statements of this. For testing */
+    ParsedQueryCache<?> cache() { return cache; }
+
+    /**
+     * Returns the key of parsing the given YQL, which includes the values of the query properties it refers to,
+     * or null if it cannot be cached because it includes the user query, which is parsed (and cached) separately.
+     */
+    private ParsedQueryCache.Key cacheKeyOf(String yql, Parsable parsable, Execution.Context context, Query query) {
+        if (yql.toLowerCase(Locale.ENGLISH).contains(USER_QUERY)) return null;
+        List<String> propertyValues = new ArrayList<>();
+        Matcher matcher = propertyReference.matcher(yql);
+        while (matcher.find()) {
+            propertyValues.add(matcher.group(1));
+            propertyValues.add(query.properties().getString(matcher.group(1)));
+        }
+        // the language of the user query tree and the encoding may decide the language of user input
+        return ParsedQueryCache.keyOf(Query.Type.YQL, parsable, context, propertyValues,
+                                      query.getModel().getQueryString(), query.getModel().getEncoding());
+    }
+
+    /** The outcome of parsing a YQL statement */
+    private static final class ParsedYql {
+
+        final QueryTree tree;
+        final Set<String> summaryFields;
+        final Set<String> sources;
+        final Integer offset;
+        final Integer hits;
+        final Integer timeout;
+        final Sorting sorting;
+
+        ParsedYql(QueryTree tree, Set<String> summaryFields, Set<String> sources,
+                  Integer offset, Integer hits, Integer timeout, Sorting sorting) {
+            this.tree = tree;
+            this.summaryFields = summaryFields;
+            this.sources = sources;
+            this.offset = offset;
+            this.hits = hits;
+            this.timeout = timeout;
+            this.sorting = sorting;
+        }
+
+        /** Returns a deep copy of this */
+        ParsedYql copy() {
+            return new ParsedYql(tree.clone(), new LinkedHashSet<>(summaryFields), new LinkedHashSet<>(sources),
+                                 offset, hits, timeout, sorting == null ? null : sorting.clone());
+        }
+
+    }
+
 }
@@ -10,6 +10,9 @@ import com.yahoo.search.Result;
 import com.yahoo.search.searchchain.Execution;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -129,4 +132,102 @@ public class HasherTestCase {
         assertTrue(hasher.select(0).isLocalDispatching());
     }
 
+    @Test
+    public void testPreferLeastOutstandingRequests() {
+        Hasher hasher = new Hasher();
+        VespaBackEndSearcher v0 = new MockBackend();
+        VespaBackEndSearcher v1 = new MockBackend();
+        hasher.add(v0);
+        hasher.add(v1);
+
+        hasher.started(v0);
+        hasher.started(v0);
+        for (int i = 0; i < 10; i++)
+            assertSame(v1, hasher.select(0));
+
+        hasher.completed(v0, -1);
+        hasher.completed(v0, -1);
+        VespaBackEndSearcher first = hasher.select(0);
+        assertTrue(first != hasher.select(0)); // round robin again
+    }
+
+    @Test
+    public void testPreferLowLatency() {
+        Hasher hasher = new Hasher();
+        VespaBackEndSearcher v0 = new MockBackend();
+        VespaBackEndSearcher v1 = new MockBackend();
+        hasher.add(v0);
+        hasher.add(v1);
+
+        hasher.started(v0);
+        hasher.completed(v0, 100_000_000);
+        hasher.started(v1);
+        hasher.completed(v1, 1_000_000);
+        for (int i = 0; i < 10; i++)
+            assertSame(v1, hasher.select(0));
+
+        // A slow node is preferred once the fast one has sufficiently many requests in flight
+        for (int i = 0; i < 100; i++)
+            hasher.started(v1);
+        assertSame(v0, hasher.select(0));
+    }
+
+
+    @Test
+    public void testSlowNodeSpreadsItsTrafficOverTheOthers() {
+        Hasher hasher = new Hasher();
+        VespaBackEndSearcher[] nodes = new VespaBackEndSearcher[4];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new MockBackend();
+            hasher.add(nodes[i]);
+            hasher.started(nodes[i]);
+            hasher.completed(nodes[i], i == 0 ? 100_000_000 : 1_000_000);
+        }
+
+        Map<VespaBackEndSearcher, Integer> selections = new HashMap<>();
+        for (int i = 0; i < 3000; i++)
+            selections.merge(hasher.select(0), 1, Integer::sum);
+        assertNull(selections.get(nodes[0]));
+        for (int i = 1; i < nodes.length; i++)
+            assertTrue("Node " + i + " receives a fair share of traffic: " + selections.get(nodes[i]),
+                       selections.get(nodes[i]) > 800);
+    }
+
+    @Test
+    public void testFailingNodeIsAvoided() {
+        Hasher hasher = new Hasher();
+        VespaBackEndSearcher v0 = new MockBackend();
+        VespaBackEndSearcher v1 = new MockBackend();
+        VespaBackEndSearcher v2 = new MockBackend();
+        hasher.add(v0);
+        hasher.add(v1);
+        hasher.add(v2);
+
+        hasher.started(v1);
+        hasher.completed(v1, 1_000_000);
+        hasher.started(v2);
+        hasher.completed(v2, 2_000_000);
+        // v0 has only failed with an error other than a timeout, so it has no measured latency
+        hasher.started(v0);
+        hasher.failed(v0);
+        for (int i = 0; i < 10; i++)
+            assertTrue(v0 != hasher.select(0));
+    }
+
+    @Test
+    public void testNodesWithoutLatencyDataAreAssumedToHaveTheMeanLatency() {
+        Hasher hasher = new Hasher();
+        VespaBackEndSearcher v0 = new MockBackend();
+        VespaBackEndSearcher v1 = new MockBackend();
+        hasher.add(v0);
+        hasher.add(v1);
+
+        hasher.started(v1);
+        hasher.completed(v1, 1_000_000);
+        // v0 has no latency data but one more request in flight, so v1 should be preferred
+        hasher.started(v0);
+        for (int i = 0; i < 10; i++)
+            assertSame(v1, hasher.select(0));
+    }
+
 }
@@ -0,0 +1,64 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.fastsearch;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests coalescing of identical backend requests
+ */
+public class InFlightRequestsTestCase {
+
+    @Test
+    public void testIdenticalRequestsWaitForTheFirst() throws Exception {
+        InFlightRequests requests = new InFlightRequests();
+        assertTrue(requests.startOrAwait("a", 1000));
+        assertTrue(requests.startOrAwait("b", 1000));
+        assertEquals(2, requests.size());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<Boolean> waiter = executor.submit(() -> {
+                started.countDown();
+                return requests.startOrAwait("a", 60000);
+            });
+            started.await();
+            Thread.sleep(10);
+            assertFalse(waiter.isDone());
+
+            requests.completed("a");
+            assertFalse(waiter.get(60, TimeUnit.SECONDS));
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertEquals(1, requests.size());
+        assertEquals(1, requests.coalesced());
+
+        // A new request may be started once the previous has completed
+        assertTrue(requests.startOrAwait("a", 1000));
+        requests.completed("a");
+        requests.completed("b");
+        assertEquals(0, requests.size());
+    }
+
+    @Test
+    public void testWaitingTimesOut() {
+        InFlightRequests requests = new InFlightRequests();
+        assertTrue(requests.startOrAwait("a", 1000));
+        assertFalse(requests.startOrAwait("a", 1));
+        assertFalse(requests.startOrAwait("a", -1));
+        assertEquals(2, requests.coalesced());
+    }
+
+}
@@ -1,10 +1,13 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.prelude.fastsearch.test;
 
+import com.yahoo.document.GlobalId;
 import com.yahoo.fs4.BasicPacket;
 import com.yahoo.fs4.BufferTooSmallException;
+import com.yahoo.fs4.DocumentInfo;
 import com.yahoo.fs4.PacketDecoder;
 import com.yahoo.fs4.QueryPacket;
+import com.yahoo.fs4.QueryResultPacket;
 import com.yahoo.search.Query;
 import com.yahoo.prelude.fastsearch.CacheKey;
 import com.yahoo.prelude.fastsearch.PacketCache;
@@ -12,10 +15,17 @@ import com.yahoo.prelude.fastsearch.PacketWrapper;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests the packet cache. Also tested in FastSearcherTestCase.
@@ -161,6 +171,166 @@ public class PacketCacheTestCase {
         assertNotNull(cache.get(key2));
     }
 
+    @Test
+    public void testCounts() throws BufferTooSmallException {
+        // room for two entries
+        PacketCache cache = new PacketCache(0, length * 3 - 1, 1e64);
+        cache.setMaxCacheItemPercentage(50);
+
+        cache.put(key1, createCacheEntry());
+        cache.put(key2, createCacheEntry());
+        assertNotNull(cache.get(key1));
+        assertNotNull(cache.get(key2));
+        cache.put(key3, createCacheEntry());
+        assertNull(cache.get(key1));
+        assertNull(cache.get(key4));
+
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        PacketCache cache = new PacketCache(64, 0, 1e64, 8);
+        int threadCount = 8;
+        int keysPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Integer>> hitCounts = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                int thread = t;
+                hitCounts.add(executor.submit(() -> {
+                    int hits = 0;
+                    for (int i = 0; i < keysPerThread; i++) {
+                        CacheKey key = new CacheKey(QueryPacket.create(new Query("/?query=thread" + thread + "key" + i)));
+                        cache.put(key, createCacheEntry(key));
+                        if (cache.get(key) != null)
+                            hits++;
+                    }
+                    return hits;
+                }));
+            }
+            for (Future<Integer> hitCount : hitCounts)
+                assertEquals(keysPerThread, (int)hitCount.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertEquals(threadCount * keysPerThread, cache.size());
+        assertEquals(threadCount * keysPerThread, cache.hits());
+        assertEquals(0, cache.misses());
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    public void testOffHeapEntriesAreEncodedAndDecoded() {
+        PacketCache cache = new PacketCache(8L << 30, 1e64, 8, true); // larger than possible on the heap
+        assertEquals(8L << 30, cache.getByteCapacity());
+
+        PacketWrapper entry = createOffHeapCacheEntry(0, 2, 10000);
+        cache.put(key1, entry, 1000);
+        PacketWrapper cached = cache.get(key1, 2000);
+        assertNotNull(cached);
+        assertNotSame(entry, cached);
+        assertEquals(entry.getPacketsSize(), cached.getPacketsSize());
+
+        QueryResultPacket result = cached.getFirstResultPacket();
+        assertEquals(1000, result.getTimestamp());
+        assertEquals(7, result.getTotalDocumentCount());
+        assertEquals(3, result.getNodesQueried());
+        assertEquals(2, result.getNodesReplied());
+        assertEquals(300, result.getActiveDocs());
+        assertEquals(2, result.getDocumentCount());
+        for (int i = 0; i < 2; i++) {
+            DocumentInfo expected = entry.getFirstResultPacket().getDocuments().get(i);
+            DocumentInfo actual = result.getDocuments().get(i);
+            assertEquals(expected.getGlobalId(), actual.getGlobalId());
+            assertEquals(expected.getMetric(), actual.getMetric(), 0);
+            assertEquals(expected.getPartId(), actual.getPartId());
+            assertEquals(expected.getDistributionKey(), actual.getDistributionKey());
+        }
+        assertEquals(2, cached.getNumPackets());
+    }
+
+    @Test
+    public void testOffHeapEviction() {
+        PacketCache cache = new PacketCache(1 << 20, 1e64, 1, true);
+        cache.setMaxCacheItemPercentage(50);
+
+        for (int i = 0; i < 1000; i++) {
+            CacheKey key = new CacheKey(QueryPacket.create(new Query("/?query=key" + i)));
+            cache.put(key, createOffHeapCacheEntry(i, 1, 5000));
+            assertNotNull(cache.get(key));
+            assertTrue(cache.totalPacketSize() <= cache.getByteCapacity());
+        }
+        assertEquals(1000 - cache.size(), cache.evictions());
+        assertNull(cache.get(new CacheKey(QueryPacket.create(new Query("/?query=key0")))));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.totalPacketSize());
+    }
+
+    @Test
+    public void testOffHeapEntryAging() {
+        PacketCache cache = new PacketCache(1 << 20, 5 * 3600, 1, true);
+        cache.put(key1, createOffHeapCacheEntry(0, 1, 100), System.currentTimeMillis() - 10 * 3600 * 1000);
+        cache.put(key2, createOffHeapCacheEntry(0, 1, 100), System.currentTimeMillis());
+        assertNull(cache.get(key1));
+        assertNotNull(cache.get(key2));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Creates an entry containing a query result packet of the current format with the given number of
+     * documents, and a docsum packet of the given size for each document
+     */
+    private PacketWrapper createOffHeapCacheEntry(int seed, int documents, int docsumSize) {
+        ByteBuffer result = ByteBuffer.allocate(1024);
+        result.putInt(0); // length, set below
+        result.putInt(217);
+        result.putInt(1); // channel
+        result.putInt(QueryResultPacket.QRF_MLD | QueryResultPacket.QRF_COVERAGE_NODES);
+        result.putInt(0); // offset
+        result.putInt(documents);
+        result.putLong(7); // total document count
+        result.putDouble(10.0); // max rank
+        result.putInt(0); // docstamp
+        result.putShort((short)3); // nodes queried
+        result.putShort((short)2); // nodes replied
+        result.putLong(300); // coverage docs
+        result.putLong(300); // active docs
+        result.putLong(0); // soon active docs
+        result.putInt(0); // degraded reason
+        for (int i = 0; i < documents; i++) {
+            result.put(globalId(seed + i));
+            result.putDouble(10.0 - i);
+            result.putInt(i); // part id
+            result.putInt(i + 1); // distribution key
+        }
+        result.putInt(0, result.position() - 4);
+        result.flip();
+
+        BasicPacket[] packets = new BasicPacket[documents + 1];
+        packets[0] = PacketDecoder.decode(result);
+        for (int i = 0; i < documents; i++) {
+            ByteBuffer docsum = ByteBuffer.allocate(12 + GlobalId.LENGTH + docsumSize);
+            docsum.putInt(docsum.capacity() - 4);
+            docsum.putInt(205);
+            docsum.putInt(1); // channel
+            docsum.put(globalId(seed + i));
+            docsum.put(new byte[docsumSize]);
+            docsum.flip();
+            packets[i + 1] = PacketDecoder.decode(docsum);
+        }
+        return new PacketWrapper(null, packets);
+    }
+
+    private byte[] globalId(int seed) {
+        return ByteBuffer.allocate(GlobalId.LENGTH).putInt(seed).putInt(seed).putInt(seed).array();
+    }
+
     private PacketWrapper createCacheEntry() throws BufferTooSmallException {
         return createCacheEntry(null);
     }
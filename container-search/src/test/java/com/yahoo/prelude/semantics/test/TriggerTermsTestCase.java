@@ -0,0 +1,62 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.semantics.test;
+
+import com.yahoo.prelude.semantics.RuleBase;
+import com.yahoo.search.Query;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Tests indexing rules by the terms which may trigger them
+ *
+ * @author bratseth
+ */
+public class TriggerTermsTestCase extends junit.framework.TestCase {
+
+    private static final String rules =
+            "[brand] -> brand:[brand];\n" +
+            "[brand] :- sony, dell;\n" +
+            "lotr -> lord of the rings;\n" +
+            "rings +> jewelry;\n" +
+            "[listing] [preposition] [place] -> listing:[listing] place:[place];\n" +
+            "[listing] :- restaurant, shop, cafe;\n" +
+            "[preposition] :- in, at, near;\n" +
+            "[place] :- geary street, paris;\n";
+
+    public TriggerTermsTestCase(String name) {
+        super(name);
+    }
+
+    public void testTriggerTerms() throws Exception {
+        RuleBase ruleBase = RuleBase.createFromString("test", rules, null);
+        assertEquals(new HashSet<>(Arrays.asList("sony", "dell")),
+                     ruleBase.rules().get(0).getCondition().triggerTerms());
+        assertEquals(new HashSet<>(Arrays.asList("lotr")),
+                     ruleBase.rules().get(1).getCondition().triggerTerms());
+        assertEquals(new HashSet<>(Arrays.asList("geary", "paris")),
+                     ruleBase.rules().get(3).getCondition().triggerTerms());
+    }
+
+    public void testIndexingDoesNotChangeRewrites() throws Exception {
+        RuleBase ruleBase = RuleBase.createFromString("test", rules, null);
+        for (String queryString : new String[] { "sony", "lotr", "shop in paris", "cafes near geary street", "nothing" }) {
+            ruleBase.setIndexRules(false);
+            String unindexed = analyze(ruleBase, queryString);
+            ruleBase.setIndexRules(true);
+            assertEquals(unindexed, analyze(ruleBase, queryString));
+        }
+    }
+
+    public void testRulesAreTriggeredByTermsProducedByEarlierRules() throws Exception {
+        RuleBase ruleBase = RuleBase.createFromString("test", rules, null);
+        assertTrue(analyze(ruleBase, "lotr").contains("jewelry"));
+    }
+
+    private String analyze(RuleBase ruleBase, String queryString) {
+        Query query = new Query("?query=" + queryString.replace(" ", "%20"));
+        ruleBase.analyze(query, 0);
+        return query.getModel().getQueryTree().getRoot().toString();
+    }
+
+}
@@ -0,0 +1,223 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import com.yahoo.component.chain.Chain;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.metrics.simple.Point;
+import com.yahoo.metrics.simple.UntypedMetric;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bratseth
+ */
+public class ResultCacheSearcherTestCase {
+
+    private final ManualClock clock = new ManualClock();
+    private final MetricReceiver.MockReceiver metric = new MetricReceiver.MockReceiver();
+    private final BackendSearcher backend = new BackendSearcher(250);
+
+    @Test
+    public void testIdenticalQueriesAreServedFromCache() {
+        Chain<Searcher> chain = createChain(60);
+
+        Result first = search(chain, "?query=foo&hits=10");
+        assertEquals(1, backend.searches);
+        assertHits(0, 10, first);
+        assertFalse(first.isCached());
+
+        Result second = search(chain, "?query=foo&hits=10");
+        assertEquals(1, backend.searches);
+        assertHits(0, 10, second);
+        assertTrue(second.isCached());
+        assertEquals(250, second.getTotalHitCount());
+
+        search(chain, "?query=bar&hits=10");
+        assertEquals("Another query is not served from the cache", 2, backend.searches);
+
+        search(chain, "?query=foo&hits=10&ranking=other");
+        assertEquals("Another rank profile is not served from the cache", 3, backend.searches);
+
+        assertEquals(1, count("result_cache_hits"));
+        assertEquals(3, count("result_cache_misses"));
+    }
+
+    @Test
+    public void testPagesWithinTheWindowAreServedFromCache() {
+        Chain<Searcher> chain = createChain(60);
+
+        search(chain, "?query=foo&hits=10");
+        assertEquals(1, backend.searches);
+
+        Result page = search(chain, "?query=foo&hits=10&offset=20");
+        assertEquals(1, backend.searches);
+        assertHits(20, 10, page);
+
+        Result lastPage = search(chain, "?query=foo&hits=10&offset=90");
+        assertEquals(1, backend.searches);
+        assertHits(90, 10, lastPage);
+
+        Result beyondWindow = search(chain, "?query=foo&hits=10&offset=95");
+        assertEquals(2, backend.searches);
+        assertHits(95, 10, beyondWindow);
+
+        Result withinLargerWindow = search(chain, "?query=foo&hits=15&offset=90");
+        assertEquals("The larger window requested replaced the cached result", 2, backend.searches);
+        assertHits(90, 15, withinLargerWindow);
+    }
+
+    @Test
+    public void testAllHitsAreServedFromCacheWhenTheWindowContainsAll() {
+        backend.totalHits = 15;
+        Chain<Searcher> chain = createChain(60);
+
+        search(chain, "?query=foo&hits=10");
+        Result page = search(chain, "?query=foo&hits=10&offset=200");
+        assertEquals(1, backend.searches);
+        assertEquals(0, page.getConcreteHitCount());
+    }
+
+    @Test
+    public void testExpiredResultsAreNotServed() {
+        Chain<Searcher> chain = createChain(60);
+
+        search(chain, "?query=foo");
+        clock.advance(Duration.ofSeconds(59));
+        search(chain, "?query=foo");
+        assertEquals(1, backend.searches);
+
+        clock.advance(Duration.ofSeconds(2));
+        search(chain, "?query=foo");
+        assertEquals(2, backend.searches);
+    }
+
+    @Test
+    public void testUncacheableQueriesAndResults() {
+        Chain<Searcher> chain = createChain(60);
+
+        search(chain, "?query=foo&nocache=true");
+        search(chain, "?query=foo&nocache=true");
+        assertEquals(2, backend.searches);
+
+        search(chain, "?query=foo&select=all(group(a)each(output(count())))");
+        search(chain, "?query=foo&select=all(group(a)each(output(count())))");
+        assertEquals(4, backend.searches);
+
+        backend.error = true;
+        search(chain, "?query=foo");
+        search(chain, "?query=foo");
+        assertEquals(6, backend.searches);
+    }
+
+    @Test
+    public void testCacheIsDisabledWithoutTimeToLive() {
+        Chain<Searcher> chain = createChain(0);
+        search(chain, "?query=foo");
+        search(chain, "?query=foo");
+        assertEquals(2, backend.searches);
+    }
+
+    @Test
+    public void testCachedResultsAreNotModifiedByCallers() {
+        Chain<Searcher> chain = createChain(60);
+
+        Result first = search(chain, "?query=foo&hits=10");
+        first.hits().get(0).setField("modified", true);
+        first.hits().remove(1);
+
+        Result second = search(chain, "?query=foo&hits=10");
+        assertEquals(1, backend.searches);
+        assertHits(0, 10, second);
+        assertEquals(null, second.hits().get(0).getField("modified"));
+    }
+
+    @Test
+    public void testSizeBoundedEviction() {
+        Chain<Searcher> chain = createChain(60, 250); // room for two results of 101 "hits" in one segment
+
+        search(chain, "?query=a");
+        search(chain, "?query=b");
+        search(chain, "?query=a"); // makes b the least recently used
+        search(chain, "?query=c");
+        assertEquals(3, backend.searches);
+
+        search(chain, "?query=a");
+        assertEquals(3, backend.searches);
+        search(chain, "?query=b");
+        assertEquals(4, backend.searches);
+    }
+
+    private Chain<Searcher> createChain(double timeToLive) {
+        return createChain(timeToLive, 100000);
+    }
+
+    private Chain<Searcher> createChain(double timeToLive, int maxSize) {
+        ResultCacheConfig.Builder config = new ResultCacheConfig.Builder();
+        config.timeToLive(timeToLive);
+        config.maxSize(maxSize);
+        config.window(100);
+        config.concurrency(1);
+        return new Chain<>(new ResultCacheSearcher(new ResultCacheConfig(config), metric, clock), backend);
+    }
+
+    private Result search(Chain<Searcher> chain, String request) {
+        Query query = new Query(request);
+        Execution execution = new Execution(chain, Execution.Context.createContextStub());
+        Result result = execution.search(query);
+        execution.fill(result);
+        return result;
+    }
+
+    private void assertHits(int offset, int hits, Result result) {
+        assertEquals(hits, result.getConcreteHitCount());
+        for (int i = 0; i < hits; i++)
+            assertEquals("hit:" + (offset + i), result.hits().get(i).getId().toString());
+    }
+
+    private long count(String metricName) {
+        long count = 0;
+        for (Map.Entry<Point, UntypedMetric> entry : metric.getSnapshot().getValuesForMetric(metricName))
+            count += entry.getValue().getCount();
+        return count;
+    }
+
+    /** Returns a given number of hits in total, ordered by descending relevance */
+    private static class BackendSearcher extends Searcher {
+
+        int searches = 0;
+        int totalHits;
+        boolean error = false;
+
+        BackendSearcher(int totalHits) {
+            this.totalHits = totalHits;
+        }
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            searches++;
+            if (error)
+                return new Result(query, ErrorMessage.createBackendCommunicationError("Failed"));
+
+            Result result = new Result(query);
+            result.setTotalHitCount(totalHits);
+            for (int i = query.getOffset(); i < Math.min(totalHits, query.getOffset() + query.getHits()); i++)
+                result.hits().add(new Hit("hit:" + i, 1.0 / (i + 1)));
+            return result;
+        }
+
+    }
+
+}
@@ -10,6 +10,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -113,6 +114,92 @@ public class FillTestCase {
         assertEquals("Malfunctioning", result.hits().getError().getDetailedMessage());
     }
 
+    @Test
+    public void testFillingInBatches() {
+        Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
+        nodes.put(0, client.createConnection("host0", 123));
+        nodes.put(1, client.createConnection("host1", 123));
+        Dispatcher dispatcher = new Dispatcher(nodes, Collections.emptyMap(), 0, 2, client);
+
+        Query query = new Query();
+        Result result = new Result(query);
+        for (int i = 0; i < 5; i++) {
+            result.hits().add(createHit(0, i));
+            client.setDocsumReponse("host0", i, "summaryClass1", map("field1", "s.0." + i, "field2", i));
+        }
+        result.hits().add(createHit(1, 5));
+        client.setDocsumReponse("host1", 5, "summaryClass1", map("field1", "s.1.5", "field2", 5));
+        dispatcher.fill(result, "summaryClass1", CompressionType.valueOf("LZ4"));
+
+        assertEquals(4, dispatcher.docsumRequests());
+        assertNull(result.hits().getError());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("s.0." + i, result.hits().get("hit:" + i).getField("field1").toString());
+            assertEquals((long)i, result.hits().get("hit:" + i).getField("field2"));
+        }
+        assertEquals("s.1.5", result.hits().get("hit:5").getField("field1").toString());
+    }
+
+    @Test
+    public void testHedgingSlowNodeToAnotherGroup() {
+        Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
+        nodes.put(0, client.createConnection("host0", 123));
+        nodes.put(1, client.createConnection("host1", 123));
+        Map<Integer, Integer> groups = new HashMap<>();
+        groups.put(0, 0);
+        groups.put(1, 1);
+        Dispatcher dispatcher = new Dispatcher(nodes, groups, 95.0, Integer.MAX_VALUE, client);
+
+        client.setDocsumReponse("host0", 0, "summaryClass1", map("field1", "s.0.0", "field2", 0));
+        client.setDocsumReponse("host1", 0, "summaryClass1", map("field1", "s.1.0", "field2", 0));
+        for (int i = 0; i < NodeLatencies.minSamples; i++) {
+            Result result = new Result(new Query());
+            result.hits().add(createHit(0, 0));
+            dispatcher.fill(result, "summaryClass1", CompressionType.valueOf("LZ4"));
+            assertEquals("s.0.0", result.hits().get("hit:0").getField("field1").toString());
+        }
+        assertEquals(NodeLatencies.minSamples, dispatcher.docsumRequests());
+        assertEquals(0, dispatcher.hedgedRequests());
+
+        client.setUnresponsive("host0", true);
+        Result result = new Result(new Query());
+        result.hits().add(createHit(0, 0));
+        dispatcher.fill(result, "summaryClass1", CompressionType.valueOf("LZ4"));
+        assertNull(result.hits().getError());
+        assertEquals("s.1.0", result.hits().get("hit:0").getField("field1").toString());
+        assertEquals(NodeLatencies.minSamples + 1, dispatcher.docsumRequests());
+        assertEquals(1, dispatcher.hedgedRequests());
+        assertEquals(1, dispatcher.hedgeWins());
+    }
+
+    @Test
+    public void testNoHedgingWithinGroup() {
+        Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
+        nodes.put(0, client.createConnection("host0", 123));
+        nodes.put(1, client.createConnection("host1", 123));
+        Map<Integer, Integer> groups = new HashMap<>();
+        groups.put(0, 0);
+        groups.put(1, 0);
+        Dispatcher dispatcher = new Dispatcher(nodes, groups, 95.0, Integer.MAX_VALUE, client);
+
+        client.setDocsumReponse("host0", 0, "summaryClass1", map("field1", "s.0.0", "field2", 0));
+        for (int i = 0; i < NodeLatencies.minSamples; i++) {
+            Result result = new Result(new Query());
+            result.hits().add(createHit(0, 0));
+            dispatcher.fill(result, "summaryClass1", CompressionType.valueOf("LZ4"));
+        }
+
+        client.setUnresponsive("host0", true);
+        Query query = new Query();
+        query.setTimeout(100);
+        Result result = new Result(query);
+        result.hits().add(createHit(0, 0));
+        dispatcher.fill(result, "summaryClass1", CompressionType.valueOf("LZ4"));
+        assertEquals(0, dispatcher.hedgedRequests());
+        assertEquals("Summary data is incomplete: Timed out waiting for summary data. 1 responses outstanding.",
+                     result.hits().getError().getDetailedMessage());
+    }
+
     private FastHit createHit(int sourceNodeId, int hitId) {
         FastHit hit = new FastHit("hit:" + hitId, 1.0);
         hit.setPartId(sourceNodeId, 0);
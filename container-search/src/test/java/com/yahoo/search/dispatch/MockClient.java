@@ -14,8 +14,10 @@ import com.yahoo.slime.Slime;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author bratseth
@@ -24,11 +26,20 @@ public class MockClient implements Client {
 
     private final Map<DocsumKey, Map<String, Object>> docsums = new HashMap<>();
     private final Compressor compressor = new Compressor();
+    private final Set<String> unresponsiveNodes = new HashSet<>();
     private boolean malfunctioning = false;
 
     /** Set to true to cause this to produce an error instead of a regular response */
     public void setMalfunctioning(boolean malfunctioning) { this.malfunctioning = malfunctioning; }
 
+    /** Set to true to cause this to never respond to requests to the given node */
+    public void setUnresponsive(String nodeId, boolean unresponsive) {
+        if (unresponsive)
+            unresponsiveNodes.add(nodeId);
+        else
+            unresponsiveNodes.remove(nodeId);
+    }
+
     @Override
     public NodeConnection createConnection(String hostname, int port) {
         return new MockNodeConnection(hostname, port);
@@ -39,9 +50,10 @@ public class MockClient implements Client {
                            int uncompressedSize, byte[] compressedSlime, Dispatcher.GetDocsumsResponseReceiver responseReceiver,
                            double timeoutSeconds) {
         if (malfunctioning) {
-            responseReceiver.receive(GetDocsumsResponseOrError.fromError("Malfunctioning"));
+            responseReceiver.receive(GetDocsumsResponseOrError.fromError("Malfunctioning", hitsContext));
             return;
         }
+        if (unresponsiveNodes.contains(node.toString())) return;
 
         Inspector request = BinaryFormat.decode(compressor.decompress(compressedSlime, compression, uncompressedSize)).get();
         String docsumClass = request.field("class").asString();
@@ -30,6 +30,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 import static com.yahoo.search.federation.StrictContractsConfig.PropagateSourceProperties;
@@ -77,11 +82,16 @@ public class FederationSearcherTestCase {
     }
 
     private void addChained(final Searcher searcher, final String sourceName) {
+        addChained(searcher, sourceName, 0);
+    }
+
+    private void addChained(Searcher searcher, String sourceName, int maxConcurrentExecutions) {
         builder.target(new FederationConfig.Target.Builder().
                 id(sourceName).
                 searchChain(new FederationConfig.Target.SearchChain.Builder().
                         searchChainId(sourceName).
                         timeoutMillis(10000).
+                        maxConcurrentExecutions(maxConcurrentExecutions).
                         useByDefault(true))
         );
         chainRegistry.register(new ComponentId(sourceName),
@@ -127,6 +137,46 @@ public class FederationSearcherTestCase {
         assertEquals("source:mySource2", result.hits().get(1).getId().stringValue());
     }
 
+    @Test
+    public void testConcurrentExecutionsOfASourceCanBeLimited() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        addChained(new Searcher() {
+            @Override
+            public Result search(Query query, Execution execution) {
+                started.countDown();
+                try {
+                    release.await(60, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return execution.search(query);
+            }
+        }, SOURCE1, 1);
+        addChained(new MockSearcher(), SOURCE2);
+        Chain<Searcher> mainChain = new Chain<>("default", createFederationSearcher());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Result> first = executor.submit(() -> new Execution(mainChain, Execution.Context.createContextStub(chainRegistry, null))
+                                                                 .search(new Query("?query=test&timeout=60s")));
+            assertTrue(started.await(60, TimeUnit.SECONDS));
+
+            Result second = new Execution(mainChain, Execution.Context.createContextStub(chainRegistry, null))
+                                    .search(new Query("?query=test&timeout=60s"));
+            assertNotNull(((HitGroup)second.hits().get("source:" + SOURCE1)).getError());
+            assertNull(((HitGroup)second.hits().get("source:" + SOURCE2)).getError());
+
+            release.countDown();
+            assertNull(((HitGroup)first.get(60, TimeUnit.SECONDS).hits().get("source:" + SOURCE1)).getError());
+        }
+        finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testTraceTwoSources() {
         Chain<Searcher> mainChain = twoTracingSources(false);
@@ -483,6 +483,40 @@ public class GroupingExecutorTestCase {
         assertTrue(qm.hitsByQuery.containsKey(queryB));
     }
 
+    @Test
+    public void requireThatMaxGroupsIsEnforced() {
+        Query query = new Query("?query=dummy&grouping.maxGroups=1");
+        GroupingRequest req = GroupingRequest.newInstance(query);
+        req.setRootOperation(GroupingOperation.fromString("all(group(foo) each(output(count())))"));
+
+        PassCounter cnt = new PassCounter();
+        Result res = newExecution(new GroupingExecutor(), cnt,
+                                  new ResultProvider(Arrays.asList(
+                                          new GroupingListHit(Arrays.asList(newTwoGroupGrouping()), null),
+                                          new GroupingListHit(Arrays.asList(newTwoGroupGrouping()), null)))).search(query);
+        assertEquals(1, cnt.numPasses);
+        assertNotNull(res.hits().getError());
+        assertEquals(Error.INVALID_QUERY_PARAMETER.code, res.hits().getError().getCode());
+        assertNull(req.getResultGroup(res));
+    }
+
+    @Test
+    public void requireThatGroupsWithinMaxGroupsAreReturned() {
+        Query query = new Query("?query=dummy&grouping.maxGroups=2");
+        GroupingRequest req = GroupingRequest.newInstance(query);
+        req.setRootOperation(GroupingOperation.fromString("all(group(foo) each(output(count())))"));
+
+        PassCounter cnt = new PassCounter();
+        Result res = newExecution(new GroupingExecutor(), cnt,
+                                  new ResultProvider(Arrays.asList(
+                                          new GroupingListHit(Arrays.asList(newTwoGroupGrouping()), null),
+                                          new GroupingListHit(Arrays.asList(newTwoGroupGrouping()), null)))).search(query);
+        assertEquals(2, cnt.numPasses);
+        assertNull(res.hits().getError());
+        GroupList groupList = (GroupList)req.getResultGroup(res).get(0);
+        assertEquals(2, groupList.size());
+    }
+
     /**
      * Tests the internal rewriting of rank properties which happens in the query.prepare() call
      * (triggered by the exc.search call in the below).
@@ -565,6 +599,18 @@ public class GroupingExecutorTestCase {
                              Execution.Context.createContextStub());
     }
 
+    private static Grouping newTwoGroupGrouping() {
+        Grouping grp = new Grouping(0);
+        grp.setRoot(new com.yahoo.searchlib.aggregation.Group()
+                    .addChild(new com.yahoo.searchlib.aggregation.Group()
+                                      .setId(new StringResultNode("foo"))
+                                      .addAggregationResult(new CountAggregationResult(1)))
+                    .addChild(new com.yahoo.searchlib.aggregation.Group()
+                                      .setId(new StringResultNode("bar"))
+                                      .addAggregationResult(new CountAggregationResult(2))));
+        return grp;
+    }
+
     private List<Grouping> execute(String groupingExpression) {
         Query query = newQuery();
         GroupingRequest req = GroupingRequest.newInstance(query);
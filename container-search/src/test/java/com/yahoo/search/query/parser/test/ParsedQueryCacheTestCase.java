@@ -0,0 +1,92 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.parser.test;
+
+import com.yahoo.prelude.IndexFacts;
+import com.yahoo.prelude.query.AndItem;
+import com.yahoo.prelude.query.WordItem;
+import com.yahoo.search.Query;
+import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.parser.Parsable;
+import com.yahoo.search.query.parser.ParsedQueryCache;
+import com.yahoo.search.searchchain.Execution;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bratseth
+ */
+public class ParsedQueryCacheTestCase {
+
+    private final Execution.Context context = Execution.Context.createContextStub();
+
+    @Test
+    public void testLeastRecentlyUsedValuesAreEvicted() {
+        ParsedQueryCache<QueryTree> cache = new ParsedQueryCache<>(2, QueryTree::clone);
+        cache.put(keyOf("a"), treeOf("a"));
+        cache.put(keyOf("b"), treeOf("b"));
+        assertNotNull(cache.get(keyOf("a"))); // b is now the least recently used
+        cache.put(keyOf("c"), treeOf("c"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(keyOf("a")));
+        assertNull(cache.get(keyOf("b")));
+        assertNotNull(cache.get(keyOf("c")));
+        assertEquals(3, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        ParsedQueryCache<QueryTree> cache = new ParsedQueryCache<>(1000, QueryTree::clone);
+        for (int i = 0; i < 5000; i++)
+            cache.put(keyOf("term" + i), treeOf("term" + i));
+        assertTrue(cache.size() <= 1000);
+        assertTrue(cache.size() > 900);
+    }
+
+    @Test
+    public void testReturnedValuesAreCopies() {
+        ParsedQueryCache<QueryTree> cache = new ParsedQueryCache<>(10, QueryTree::clone);
+        QueryTree added = treeOf("a");
+        cache.put(keyOf("a"), added);
+        ((AndItem)added.getRoot()).addItem(new WordItem("modifiedAfterAdding"));
+
+        QueryTree returned = cache.get(keyOf("a"));
+        assertEquals("AND a", returned.toString());
+        ((AndItem)returned.getRoot()).addItem(new WordItem("modifiedAfterReturning"));
+
+        QueryTree returnedAgain = cache.get(keyOf("a"));
+        assertNotSame(returned, returnedAgain);
+        assertEquals("AND a", returnedAgain.toString());
+    }
+
+    @Test
+    public void testKeysDependOnParsingInput() {
+        ParsedQueryCache<QueryTree> cache = new ParsedQueryCache<>(10, QueryTree::clone);
+        cache.put(keyOf("a"), treeOf("a"));
+        assertNull(cache.get(ParsedQueryCache.keyOf(Query.Type.ALL, new Parsable().setQuery("a"), context)));
+        assertNull(cache.get(ParsedQueryCache.keyOf(Query.Type.ANY, new Parsable().setQuery("a").setFilter("+b"),
+                                                    context)));
+        assertNull(cache.get(ParsedQueryCache.keyOf(Query.Type.ANY, new Parsable().setQuery("a"),
+                                                    Execution.Context.createContextStub(new IndexFacts()))));
+        assertNotNull(cache.get(keyOf("a")));
+        assertNotNull(cache.get(ParsedQueryCache.keyOf(Query.Type.ANY, new Parsable().setQuery("a"),
+                                                       Execution.Context.createContextStub())));
+    }
+
+    private ParsedQueryCache.Key keyOf(String query) {
+        return ParsedQueryCache.keyOf(Query.Type.ANY, new Parsable().setQuery(query), context);
+    }
+
+    private static QueryTree treeOf(String word) {
+        AndItem root = new AndItem();
+        root.addItem(new WordItem(word));
+        return new QueryTree(root);
+    }
+
+}
@@ -7,6 +7,7 @@ import com.yahoo.search.Query;
 import com.yahoo.search.query.Properties;
 import com.yahoo.search.query.profile.BackedOverridableQueryProfile;
 import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileCompiler;
 import com.yahoo.search.query.profile.QueryProfileProperties;
 import com.yahoo.search.query.profile.QueryProfileRegistry;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
@@ -77,6 +78,58 @@ public class QueryProfileVariantsTestCase extends junit.framework.TestCase {
         assertEquals("a.b.x2",cprofile.get("a.b", toMap("x=x2")));
     }
 
+    public void testMoreContextsThanCachedValueTables() {
+        QueryProfile profile=new QueryProfile("test");
+        profile.setDimensions(new String[] {"x"});
+        profile.set("a","a.deflt", (QueryProfileRegistry)null);
+        int contexts = CompiledQueryProfile.defaultMaxValueTables * 2;
+        for (int i = 0; i < contexts; i++)
+            profile.set("a","a.x" + i,new String[] {"x" + i}, null);
+
+        CompiledQueryProfile cprofile = profile.compile(null);
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < contexts; i++)
+                assertEquals("a.x" + i, cprofile.get("a", toMap("x=x" + i)));
+            assertEquals("a.deflt", cprofile.get("a", toMap("x=unknown")));
+            assertEquals("a.deflt", cprofile.get("a"));
+            assertNull(cprofile.get("b", toMap("x=x1")));
+        }
+        assertEquals(CompiledQueryProfile.defaultMaxValueTables, cprofile.valueTableCount());
+    }
+
+    public void testValueTablesAreOnlyBuiltForRepeatedContexts() {
+        QueryProfile profile=new QueryProfile("test");
+        profile.setDimensions(new String[] {"x"});
+        profile.set("a","a.deflt", (QueryProfileRegistry)null);
+        profile.set("a","a.x1",new String[] {"x1"}, null);
+
+        CompiledQueryProfile cprofile = profile.compile(null);
+
+        assertEquals("a.x1", cprofile.get("a", toMap("x=x1")));
+        assertEquals(0, cprofile.valueTableCount());
+        assertEquals("a.x1", cprofile.get("a", toMap("x=x1")));
+        assertEquals(1, cprofile.valueTableCount());
+        for (int i = 0; i < 50; i++)
+            assertEquals("a.deflt", cprofile.get("a", toMap("x=once" + i)));
+        assertEquals(1, cprofile.valueTableCount());
+    }
+
+    public void testValueTablesCanBeTurnedOff() {
+        QueryProfile profile=new QueryProfile("test");
+        profile.setDimensions(new String[] {"x"});
+        profile.set("a","a.deflt", (QueryProfileRegistry)null);
+        profile.set("a","a.x1",new String[] {"x1"}, null);
+
+        CompiledQueryProfile cprofile = QueryProfileCompiler.compile(profile, null, 0);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("a.x1", cprofile.get("a", toMap("x=x1")));
+            assertEquals("a.deflt", cprofile.get("a"));
+        }
+        assertEquals(0, cprofile.valueTableCount());
+    }
+
     public void testVariantsOfExplicitCompound() {
         QueryProfile a1=new QueryProfile("a1");
         a1.set("b","a.b", (QueryProfileRegistry)null);
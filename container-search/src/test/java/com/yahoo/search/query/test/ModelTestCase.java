@@ -3,7 +3,12 @@ package com.yahoo.search.query.test;
 
 import com.yahoo.prelude.query.Item;
 import com.yahoo.search.Query;
+import com.yahoo.prelude.query.CompositeItem;
+import com.yahoo.prelude.query.WordItem;
 import com.yahoo.search.query.Model;
+import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.parser.ParsedQueryCache;
+import com.yahoo.search.searchchain.Execution;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
@@ -71,6 +76,31 @@ public class ModelTestCase extends junit.framework.TestCase {
         }
     }
 
+    public void testParsedQueriesAreCached() {
+        ParsedQueryCache<QueryTree> cache = new ParsedQueryCache<>(100, QueryTree::clone);
+        Execution.Context context = Execution.Context.createContextStub();
+        context.setParsedQueryCache(cache);
+
+        Query first = new Query("?query=a%20b&type=all");
+        first.getModel().setExecution(new Execution(context));
+        assertEquals("AND a b", first.getModel().getQueryTree().toString());
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+        ((CompositeItem)first.getModel().getQueryTree().getRoot()).addItem(new WordItem("modified"));
+
+        Query second = new Query("?query=a%20b&type=all");
+        second.getModel().setExecution(new Execution(context));
+        assertEquals("AND a b", second.getModel().getQueryTree().toString());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+
+        Query third = new Query("?query=a%20b&type=any");
+        third.getModel().setExecution(new Execution(context));
+        assertEquals("OR a b", third.getModel().getQueryTree().toString());
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
     public void testSearchPath() {
         assertEquals("c6/r8",new Query("?query=test1&model.searchPath=c6/r8").getModel().getSearchPath());
         assertEquals("c6/r8",new Query("?query=test1&searchpath=c6/r8").getModel().getSearchPath());
@@ -957,6 +957,63 @@ public class JsonRendererTestCase {
         assertEqualJson(expected, summary);
     }
 
+    @Test
+    public void testStructuredDataIsRenderedFromInspector() throws InterruptedException, ExecutionException, IOException {
+        String expected = "{\n"
+                + "    \"root\": {\n"
+                + "        \"children\": [\n"
+                + "            {\n"
+                + "                \"fields\": {\n"
+                + "                    \"structured\": {\n"
+                + "                        \"string\": \"\\\"quoted\\\" bl\u00e5b\u00e6r\",\n"
+                + "                        \"long\": -7,\n"
+                + "                        \"double\": 0.5,\n"
+                + "                        \"nan\": null,\n"
+                + "                        \"bool\": true,\n"
+                + "                        \"nix\": null,\n"
+                + "                        \"data\": \"0x01AB\",\n"
+                + "                        \"array\": [ 1, { \"inner\": [] }, \"last\" ]\n"
+                + "                    },\n"
+                + "                    \"inspector\": [ \"one\", \"two\" ]\n"
+                + "                },\n"
+                + "                \"id\": \"structured\",\n"
+                + "                \"relevance\": 1.0\n"
+                + "            }\n"
+                + "        ],\n"
+                + "        \"fields\": {\n"
+                + "            \"totalCount\": 0\n"
+                + "        },\n"
+                + "        \"id\": \"toplevel\",\n"
+                + "        \"relevance\": 1.0\n"
+                + "    }\n"
+                + "}\n";
+        Slime slime = new Slime();
+        Cursor c = slime.setObject();
+        c.setString("string", "\"quoted\" bl\u00e5b\u00e6r");
+        c.setLong("long", -7);
+        c.setDouble("double", 0.5);
+        c.setDouble("nan", Double.NaN);
+        c.setBool("bool", true);
+        c.setNix("nix");
+        c.setData("data", new byte[] { 0x01, (byte)0xab });
+        Cursor array = c.setArray("array");
+        array.addLong(1);
+        array.addObject().setArray("inner");
+        array.addString("last");
+        Slime arraySlime = new Slime();
+        Cursor strings = arraySlime.setArray();
+        strings.addString("one");
+        strings.addString("two");
+
+        Result r = newEmptyResult();
+        Hit h = new Hit("structured");
+        h.setField("structured", new StructuredData(new SlimeAdapter(slime.get())));
+        h.setField("inspector", new SlimeAdapter(arraySlime.get()));
+        r.hits().add(h);
+        String summary = render(r);
+        assertEqualJson(expected, summary);
+    }
+
     @Test
     public final void testFieldValueInHit() throws IOException, InterruptedException, ExecutionException, JSONException {
         String expected = "{\n"
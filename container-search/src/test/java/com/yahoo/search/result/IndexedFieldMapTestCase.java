@@ -0,0 +1,154 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.result;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bratseth
+ */
+public class IndexedFieldMapTestCase {
+
+    private final FieldIndex index = new FieldIndex(Arrays.asList("a", "b", "c"));
+
+    @Test
+    public void testMapSemantics() {
+        IndexedFieldMap map = new IndexedFieldMap(index);
+        Map<String, Object> expected = new LinkedHashMap<>();
+        assertEquals(expected, map);
+
+        put("b", 2, map, expected);
+        put("other", "x", map, expected);
+        put("a", 1, map, expected);
+        put("nullValued", null, map, expected);
+        put("c", null, map, expected);
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(5, map.size());
+        assertTrue(map.containsKey("c"));
+        assertNull(map.get("c"));
+        assertFalse(map.containsKey("d"));
+
+        assertEquals("[b, other, a, nullValued, c]", map.keySet().toString());
+
+        assertEquals(2, map.put("b", 3));
+        expected.put("b", 3);
+        assertEquals(expected, map);
+
+        assertEquals(3, map.remove("b"));
+        expected.remove("b");
+        assertNull(map.remove("b"));
+        assertEquals("x", map.remove("other"));
+        expected.remove("other");
+        assertEquals(expected, map);
+        assertEquals(3, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("a"));
+    }
+
+    @Test
+    public void testIteratorModifications() {
+        IndexedFieldMap map = new IndexedFieldMap(index);
+        map.put("a", 1);
+        map.put("c", 3);
+        map.put("other", 4);
+
+        for (Iterator<Map.Entry<String, Object>> i = map.entrySet().iterator(); i.hasNext(); ) {
+            Map.Entry<String, Object> entry = i.next();
+            if (entry.getKey().equals("c") || entry.getKey().equals("other"))
+                i.remove();
+            else
+                entry.setValue(10);
+        }
+        assertEquals(1, map.size());
+        assertEquals(10, map.get("a"));
+
+        map.keySet().remove("a");
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testIterationIsInInsertionOrder() {
+        IndexedFieldMap map = new IndexedFieldMap(index);
+        Map<String, Object> expected = new LinkedHashMap<>();
+        put("c", 1, map, expected);
+        put("x", 2, map, expected);
+        put("a", 3, map, expected);
+        put("y", 4, map, expected);
+        put("b", 5, map, expected);
+        put("z", 6, map, expected);
+        assertEquals(expected.keySet().toString(), map.keySet().toString());
+
+        put("c", 7, map, expected); // Updating does not change the order
+        put("y", 8, map, expected);
+        assertEquals(expected.entrySet().toString(), map.entrySet().toString());
+
+        assertEquals(expected.remove("x"), map.remove("x"));
+        assertEquals(expected.remove("a"), map.remove("a"));
+        put("x", 9, map, expected);
+        put("a", 10, map, expected);
+        assertEquals("[c, y, b, z, x, a]", map.keySet().toString());
+        assertEquals(expected.entrySet().toString(), map.entrySet().toString());
+
+        for (Iterator<String> i = map.keySet().iterator(); i.hasNext(); ) {
+            String key = i.next();
+            if (key.equals("y") || key.equals("b"))
+                i.remove();
+        }
+        expected.remove("y");
+        expected.remove("b");
+        put("b", 11, map, expected);
+        put("y", 12, map, expected);
+        assertEquals("[c, z, x, a, b, y]", map.keySet().toString());
+        assertEquals(expected.entrySet().toString(), map.copy().entrySet().toString());
+    }
+
+    @Test
+    public void testCopiesAreIndependent() {
+        IndexedFieldMap map = new IndexedFieldMap(index);
+        map.put("a", 1);
+        map.put("other", 2);
+        IndexedFieldMap copy = map.copy();
+        copy.put("a", 3);
+        copy.put("other", 4);
+        copy.put("b", 5);
+        assertEquals(1, map.get("a"));
+        assertEquals(2, map.get("other"));
+        assertEquals(2, map.size());
+        assertEquals(3, copy.size());
+    }
+
+    @Test
+    public void testHitFieldsWithIndex() {
+        Hit hit = new Hit("test");
+        hit.setField("before", 0);
+        hit.reserve(index);
+        hit.setField("a", 1);
+        hit.setField("other", 2);
+        assertEquals(0, hit.getField("before"));
+        assertEquals(1, hit.getField("a"));
+        assertEquals("[before, a, other]", hit.fieldKeys().toString());
+        assertEquals(3, hit.fields().size());
+
+        Hit clone = hit.clone();
+        clone.removeField("a");
+        assertEquals(1, hit.getField("a"));
+        assertNull(clone.getField("a"));
+    }
+
+    private void put(String key, Object value, Map<String, Object> map, Map<String, Object> expected) {
+        assertEquals(expected.put(key, value), map.put(key, value));
+    }
+
+}
@@ -10,10 +10,14 @@ import com.yahoo.search.result.Hit;
 import com.yahoo.search.searchchain.AsyncExecution;
 import com.yahoo.search.searchchain.Execution;
 import com.yahoo.search.searchchain.FutureResult;
+import com.yahoo.search.searchchain.NonBlockingSearcher;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -153,4 +157,116 @@ public class AsyncExecutionTestCase extends junit.framework.TestCase {
         future.get(1, TimeUnit.MILLISECONDS);
     }
 
+    public void testNonBlockingSearcher() throws Exception {
+        PendingSearcher pending = new PendingSearcher();
+        Chain<Searcher> chain = new Chain<>(new ComponentId("nonBlocking"), pending);
+
+        CompletableFuture<Result> future = new AsyncExecution(new Execution(chain, Execution.Context.createContextStub()))
+                                                   .searchAsync(new Query("?query=test"));
+        assertEquals("Invoked in the calling thread", Thread.currentThread(), pending.invokingThread);
+        assertFalse(future.isDone());
+
+        pending.complete();
+        Result result = future.get(60, TimeUnit.SECONDS);
+        assertNull(result.hits().getError());
+        assertEquals("pending", result.hits().get(0).getId().toString());
+
+        FutureResult futureResult = new AsyncExecution(new Execution(chain, Execution.Context.createContextStub()))
+                                            .search(new Query("?query=test"));
+        assertFalse(futureResult.isDone());
+        pending.complete();
+        assertEquals("pending", futureResult.get(60, TimeUnit.SECONDS).hits().get(0).getId().toString());
+    }
+
+    public void testBlockingSearcherThroughSearchAsync() throws Exception {
+        Chain<Searcher> chain = new Chain<>(new ComponentId("blocking"), new ResultProducingSearcher());
+        Result result = new AsyncExecution(chain, Execution.Context.createContextStub())
+                                .searchAsync(new Query("?query=test"))
+                                .get(60, TimeUnit.SECONDS);
+        assertEquals("hello", result.hits().get(0).getField("test"));
+    }
+
+    public void testFailingSearcherThroughSearchAsync() throws Exception {
+        Chain<Searcher> chain = new Chain<>(new ComponentId("failing"), new Searcher() {
+            @Override
+            public Result search(Query query, Execution execution) {
+                throw new IllegalStateException("Failed");
+            }
+        });
+        Result result = new AsyncExecution(chain, Execution.Context.createContextStub())
+                                .searchAsync(new Query("?query=test"))
+                                .get(60, TimeUnit.SECONDS);
+        assertNotNull(result.hits().getError());
+    }
+
+    public void testConcurrentExecutionsOfAChainCanBeLimited() throws Exception {
+        PendingSearcher pending = new PendingSearcher();
+        Chain<Searcher> chain = new Chain<>(new ComponentId("limited"), pending);
+        Semaphore chainPermits = new Semaphore(3);
+        List<CompletableFuture<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            futures.add(limitedExecution(chain, chainPermits).searchAsync(new Query()));
+
+        Result rejected = limitedExecution(chain, chainPermits).searchAsync(new Query()).get(60, TimeUnit.SECONDS);
+        assertNotNull(rejected.hits().getError());
+        assertNotNull(limitedExecution(chain, chainPermits).search(new Query()).get().hits().getError());
+        assertEquals(3, pending.futures.size());
+
+        pending.complete();
+        for (CompletableFuture<Result> future : futures)
+            assertNull(future.get(60, TimeUnit.SECONDS).hits().getError());
+
+        CompletableFuture<Result> accepted = limitedExecution(chain, chainPermits).searchAsync(new Query());
+        pending.complete();
+        assertNull(accepted.get(60, TimeUnit.SECONDS).hits().getError());
+    }
+
+    private AsyncExecution limitedExecution(Chain<Searcher> chain, Semaphore permits) {
+        AsyncExecution execution = new AsyncExecution(chain, Execution.Context.createContextStub());
+        execution.setPermits(permits);
+        return execution;
+    }
+
+    public void testConcurrentExecutionsAreNotLimitedByDefault() throws Exception {
+        PendingSearcher pending = new PendingSearcher();
+        Chain<Searcher> chain = new Chain<>(new ComponentId("unlimited"), pending);
+        AsyncExecution execution = new AsyncExecution(chain, Execution.Context.createContextStub());
+        List<CompletableFuture<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            futures.add(execution.searchAsync(new Query()));
+        pending.complete();
+        for (CompletableFuture<Result> future : futures)
+            assertNull(future.get(60, TimeUnit.SECONDS).hits().getError());
+    }
+
+    /** Returns futures which are completed when complete() is called */
+    private static class PendingSearcher extends Searcher implements NonBlockingSearcher {
+
+        final List<CompletableFuture<Result>> futures = new CopyOnWriteArrayList<>();
+        volatile Thread invokingThread = null;
+
+        @Override
+        public CompletableFuture<Result> searchAsync(Query query, Execution execution) {
+            invokingThread = Thread.currentThread();
+            CompletableFuture<Result> future = new CompletableFuture<>();
+            futures.add(future);
+            return future;
+        }
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            return searchAsync(query, execution).join();
+        }
+
+        void complete() {
+            for (CompletableFuture<Result> future : futures) {
+                Result result = new Result(new Query());
+                result.hits().add(new Hit("pending"));
+                future.complete(result);
+            }
+            futures.clear();
+        }
+
+    }
+
 }
@@ -5,6 +5,8 @@ import static org.junit.Assert.*;
 
 import com.yahoo.language.Language;
 import com.yahoo.language.simple.SimpleLinguistics;
+import com.yahoo.prelude.query.CompositeItem;
+import com.yahoo.prelude.query.WordItem;
 import com.yahoo.search.grouping.GroupingRequest;
 
 import org.apache.http.client.utils.URIBuilder;
@@ -170,6 +172,31 @@ public class MinimalQueryInserterTestCase {
         assertEquals("AND title:madonna " + japaneseWord, query.getModel().getQueryTree().toString());
     }
 
+    @Test
+    public void testRepeatedYqlIsParsedFromCache() {
+        MinimalQueryInserter inserter = new MinimalQueryInserter();
+        Chain<Searcher> chain = new Chain<>(inserter);
+        String yql = "select%20ignoredfield%20from%20ignoredsource%20where%20title%20contains%20%22madonna%22%20and%20userInput(@userString)%3B";
+        Query first = new Query("search/?userString=first&yql=" + yql);
+        new Execution(chain, context).search(first);
+        assertEquals("AND title:madonna default:first", first.getModel().getQueryTree().toString());
+        assertEquals(0, inserter.cache().hits());
+        assertEquals(1, inserter.cache().misses());
+        ((CompositeItem)first.getModel().getQueryTree().getRoot()).addItem(new WordItem("modified"));
+
+        Query second = new Query("search/?userString=first&yql=" + yql);
+        new Execution(chain, context).search(second);
+        assertEquals("AND title:madonna default:first", second.getModel().getQueryTree().toString());
+        assertEquals(1, inserter.cache().hits());
+        assertEquals(1, inserter.cache().misses());
+
+        Query third = new Query("search/?userString=third&yql=" + yql);
+        new Execution(chain, context).search(third);
+        assertEquals("AND title:madonna default:third", third.getModel().getQueryTree().toString());
+        assertEquals(1, inserter.cache().hits());
+        assertEquals(2, inserter.cache().misses());
+    }
+
     @Test
     public void testUserQueryFailsWithoutArgument() {
         Query query = new Query("search/?query=easilyRecognizedString&yql=select%20ignoredfield%20from%20ignoredsource%20where%20title%20contains%20%22madonna%22%20and%20userQuery()%3B");
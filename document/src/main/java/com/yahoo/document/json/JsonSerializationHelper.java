@@ -90,7 +90,8 @@ public class JsonSerializationHelper {
 
     private static void serializeTensorCells(JsonGenerator generator, Tensor tensor) throws IOException {
         generator.writeArrayFieldStart(TensorReader.TENSOR_CELLS);
-        for (Map.Entry<TensorAddress, Double> cell : tensor.cells().entrySet()) {
+        for (Iterator<Tensor.Cell> i = tensor.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell cell = i.next();
             generator.writeStartObject();
             serializeTensorAddress(generator, cell.getKey(), tensor.type());
             generator.writeNumberField(TensorReader.TENSOR_VALUE, cell.getValue());
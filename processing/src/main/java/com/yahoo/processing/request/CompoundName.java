@@ -6,6 +6,7 @@ import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.yahoo.text.Lowercase.toLowerCase;
 
@@ -14,6 +15,8 @@ import static com.yahoo.text.Lowercase.toLowerCase;
  * where there can be any number of such compounds, including one or zero.
  * <p>
  * Using CompoundName is generally substantially faster than using strings.
+ * Use {@link #from} to get a shared instance of names from code, configuration or query profiles
+ * which are used repeatedly.
  *
  * @author bratseth
  */
@@ -33,6 +36,15 @@ public final class CompoundName {
     /** This name with the first component removed */
     private final CompoundName rest;
 
+    /** The prefixes of this by their number of components, created when requested */
+    private volatile CompoundName[] prefixes = null;
+
+    /** The max number of names kept in the intern table */
+    private static final int maxInterned = 10000;
+
+    /** Shared instances of names, by their string representation */
+    private static final ConcurrentHashMap<String, CompoundName> interned = new ConcurrentHashMap<>();
+
     /** The empty compound */
     public static final CompoundName empty = new CompoundName("");
 
@@ -45,6 +57,26 @@ public final class CompoundName {
         this(name, parse(name));
     }
 
+    /**
+     * Returns a compound name from a string which may contain dot-separated components.
+     * This returns a shared instance, which has its hash code and lower-cased name
+     * already computed, unless the global table of shared instances is full.
+     * <p>
+     * Shared instances are never released, so this should only be used for names from code, configuration
+     * or query profiles, never for names received in requests.
+     *
+     * @throws NullPointerException if name is null
+     */
+    public static CompoundName from(String name) {
+        CompoundName compound = interned.get(name);
+        if (compound != null) return compound;
+
+        compound = new CompoundName(name);
+        if (interned.size() >= maxInterned) return compound;
+        CompoundName existing = interned.putIfAbsent(name, compound);
+        return existing != null ? existing : compound;
+    }
+
     /** Constructs this from an array of name components which are assumed not to contain dots */
     public static CompoundName fromComponents(String ... components) {
         return new CompoundName(Arrays.asList(components));
@@ -78,6 +110,9 @@ public final class CompoundName {
                         : size == 1 ? empty : this; // size==0 -> this needed during construction of empty
     }
 
+    /** Returns the number of shared instances. For testing */
+    static int sharedInstanceCount() { return interned.size(); }
+
     private static List<String> parse(String s) {
         ArrayList<String> l = new ArrayList<>();
         int p = 0;
@@ -170,7 +205,16 @@ public final class CompoundName {
         if (compounds.size() < n)
             throw new IllegalArgumentException("Asked for the first " + n + " components but '" +
                                                this + "' only have " + compounds.size() + " components.");
-        return new CompoundName(compounds.subList(0, n));
+        if (n == compounds.size()) return this;
+        if (n == 0) return empty;
+
+        CompoundName[] prefixes = this.prefixes;
+        if (prefixes == null)
+            this.prefixes = prefixes = new CompoundName[compounds.size()];
+        CompoundName prefix = prefixes[n];
+        if (prefix == null)
+            prefixes[n] = prefix = new CompoundName(compounds.subList(0, n));
+        return prefix;
     }
 
     /**
@@ -47,6 +47,38 @@ public class CompoundNameTestCase {
         assertEquals(NAME.substring(NAME.indexOf('.') + 1), cn.rest().toString());
     }
 
+    @Test
+    public final void testFirstN() {
+        CompoundName name = new CompoundName("a.b.c");
+        assertEquals("", name.first(0).toString());
+        assertEquals("a", name.first(1).toString());
+        assertEquals("a.b", name.first(2).toString());
+        assertEquals("a.b.c", name.first(3).toString());
+        assertSame(name.first(2), name.first(2));
+    }
+
+    @Test
+    public final void testFromReturnsSharedInstances() {
+        CompoundName name = CompoundName.from(NAME);
+        assertSame(name, CompoundName.from(NAME));
+        assertEquals(cn, name);
+        assertEquals(cn.hashCode(), name.hashCode());
+    }
+
+    @Test
+    public final void testOnlyFromCreatesSharedInstances() {
+        int sharedInstances = CompoundName.sharedInstanceCount();
+        CompoundName name = new CompoundName("not.shared.name");
+        name.rest();
+        name.rest(2);
+        name.first(2);
+        name.append("suffix");
+        assertEquals(sharedInstances, CompoundName.sharedInstanceCount());
+
+        CompoundName.from("shared.name");
+        assertEquals(sharedInstances + 1, CompoundName.sharedInstanceCount());
+    }
+
     @Test
     public final void testRestN() {
         assertEquals("a.b.c.d.e", new CompoundName("a.b.c.d.e").rest(0).toString());
@@ -4,6 +4,7 @@ package com.yahoo.searchlib.rankingexpression.evaluation;
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestOptimizer;
 import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.tensoroptimization.TensorOptimizer;
 
 /**
  * This class will perform various optimizations on the ranking expressions. Clients using optimized expressions
@@ -35,12 +36,16 @@ public class ExpressionOptimizer {
 
     private GBDTForestOptimizer gbdtForestOptimizer = new GBDTForestOptimizer();
 
+    private TensorOptimizer tensorOptimizer = new TensorOptimizer();
+
     /** Gets an optimizer instance used by this by class name, or null if the optimizer is not known */
     public Optimizer getOptimizer(Class<?> clazz) {
         if (clazz == gbdtOptimizer.getClass())
             return gbdtOptimizer;
         if (clazz == gbdtForestOptimizer.getClass())
             return gbdtForestOptimizer;
+        if (clazz == tensorOptimizer.getClass())
+            return tensorOptimizer;
         return null;
     }
 
@@ -49,6 +54,7 @@ public class ExpressionOptimizer {
         // Note: Order of optimizations matter
         gbdtOptimizer.optimize(expression, arrayContext, report);
         gbdtForestOptimizer.optimize(expression, arrayContext, report);
+        tensorOptimizer.optimize(expression, arrayContext, report);
         return report;
     }
 
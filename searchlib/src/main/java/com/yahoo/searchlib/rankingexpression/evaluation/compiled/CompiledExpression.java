@@ -0,0 +1,149 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compiled;
+
+import com.yahoo.searchlib.rankingexpression.evaluation.AbstractArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.TruthOperator;
+
+/**
+ * A ranking expression compiled to a program of instructions operating on a stack of doubles.
+ * Instances are created by {@link ExpressionCompiler}, and evaluated using the array context
+ * which was used to compile it, or clones of that context.
+ * <p>
+ * Instances may be reused indefinitely for evaluations of a single
+ * ranking expression, in a single thread at the time. Use clone() to get an instance for another thread.
+ */
+public final class CompiledExpression implements Cloneable {
+
+    // The program is a sequence of instructions, each consisting of an opcode followed by
+    // zero or one operand, depending on the opcode:
+
+    /** Push constants[operand] */
+    static final int CONSTANT = 0;
+    /** Push context.getDouble(operand) */
+    static final int VARIABLE = 1;
+    /** Pop y, pop x, push x op y */
+    static final int OR = 2, AND = 3, ADD = 4, SUBTRACT = 5, MULTIPLY = 6, DIVIDE = 7, MODULO = 8, POWER = 9;
+    /** Pop y, pop x, push 1 if x op y is true and 0 otherwise */
+    static final int SMALLER = 10, SMALLER_EQUAL = 11, EQUAL = 12, APPROX_EQUAL = 13,
+                     LARGER = 14, LARGER_EQUAL = 15, NOT_EQUAL = 16;
+    /** Pop x, push -x */
+    static final int NEGATE = 17;
+    /** Pop x, push 1 if x is false (0) and 0 otherwise */
+    static final int NOT = 18;
+    /** Pop x, push functions[operand].evaluate(x, 0) */
+    static final int FUNCTION1 = 19;
+    /** Pop y, pop x, push functions[operand].evaluate(x, y) */
+    static final int FUNCTION2 = 20;
+    /** Pop operand set values, pop x, push 1 if x is equal to any of the set values and 0 otherwise */
+    static final int IN = 21;
+    /** Pop x, jump to the absolute position operand if x is false (0) */
+    static final int JUMP_IF_FALSE = 22;
+    /** Jump to the absolute position operand */
+    static final int JUMP = 23;
+    /** Push the value of the GBDT tree trees[operand] */
+    static final int TREE = 24;
+    /** Push the value of the GBDT forest trees[operand] */
+    static final int FOREST = 25;
+
+    private static final Function[] functions = Function.values();
+
+    private final int[] program;
+    private final double[] constants;
+    private final double[][] trees;
+
+    /** The stack used during evaluation: Never allocated during evaluation */
+    private double[] stack;
+
+    CompiledExpression(int[] program, double[] constants, double[][] trees, int maxStackSize) {
+        this.program = program;
+        this.constants = constants;
+        this.trees = trees;
+        this.stack = new double[maxStackSize];
+    }
+
+    /**
+     * Evaluates this with the values bound in the given context
+     *
+     * @param context the context used to compile this or a clone of it
+     * @return the value of this expression
+     */
+    public double evaluate(AbstractArrayContext context) {
+        final int[] program = this.program;
+        final double[] stack = this.stack;
+        int sp = 0; // the position of the next free stack slot
+        int pc = 0;
+        while (pc < program.length) {
+            switch (program[pc++]) {
+                case CONSTANT: stack[sp++] = constants[program[pc++]]; break;
+                case VARIABLE: stack[sp++] = context.getDouble(program[pc++]); break;
+                case OR: sp--; stack[sp - 1] = stack[sp - 1] != 0 || stack[sp] != 0 ? 1 : 0; break;
+                case AND: sp--; stack[sp - 1] = stack[sp - 1] != 0 && stack[sp] != 0 ? 1 : 0; break;
+                case ADD: sp--; stack[sp - 1] += stack[sp]; break;
+                case SUBTRACT: sp--; stack[sp - 1] -= stack[sp]; break;
+                case MULTIPLY: sp--; stack[sp - 1] *= stack[sp]; break;
+                case DIVIDE: sp--; stack[sp - 1] /= stack[sp]; break;
+                case MODULO: sp--; stack[sp - 1] %= stack[sp]; break;
+                case POWER: sp--; stack[sp - 1] = Math.pow(stack[sp - 1], stack[sp]); break;
+                case SMALLER: sp--; stack[sp - 1] = stack[sp - 1] < stack[sp] ? 1 : 0; break;
+                case SMALLER_EQUAL: sp--; stack[sp - 1] = stack[sp - 1] <= stack[sp] ? 1 : 0; break;
+                case EQUAL: sp--; stack[sp - 1] = stack[sp - 1] == stack[sp] ? 1 : 0; break;
+                case APPROX_EQUAL: sp--; stack[sp - 1] = TruthOperator.APPROX_EQUAL.evaluate(stack[sp - 1], stack[sp]) ? 1 : 0; break;
+                case LARGER: sp--; stack[sp - 1] = stack[sp - 1] > stack[sp] ? 1 : 0; break;
+                case LARGER_EQUAL: sp--; stack[sp - 1] = stack[sp - 1] >= stack[sp] ? 1 : 0; break;
+                case NOT_EQUAL: sp--; stack[sp - 1] = stack[sp - 1] != stack[sp] ? 1 : 0; break;
+                case NEGATE: stack[sp - 1] = -stack[sp - 1]; break;
+                case NOT: stack[sp - 1] = stack[sp - 1] == 0 ? 1 : 0; break;
+                case FUNCTION1: stack[sp - 1] = functions[program[pc++]].evaluate(stack[sp - 1], 0); break;
+                case FUNCTION2: sp--; stack[sp - 1] = functions[program[pc++]].evaluate(stack[sp - 1], stack[sp]); break;
+                case IN:
+                    int setSize = program[pc++];
+                    sp -= setSize;
+                    double testValue = stack[sp - 1];
+                    boolean contained = false;
+                    for (int i = sp; i < sp + setSize && ! contained; i++)
+                        contained = testValue == stack[i];
+                    stack[sp - 1] = contained ? 1 : 0;
+                    break;
+                case JUMP_IF_FALSE:
+                    if (stack[--sp] == 0)
+                        pc = program[pc];
+                    else
+                        pc++;
+                    break;
+                case JUMP: pc = program[pc]; break;
+                case TREE: stack[sp++] = GBDTNode.evaluate(trees[program[pc++]], 0, context); break;
+                case FOREST: stack[sp++] = GBDTForestNode.evaluate(trees[program[pc++]], context); break;
+                default: throw new IllegalStateException("Unknown opcode " + program[pc - 1] + " at " + (pc - 1));
+            }
+        }
+        return stack[0];
+    }
+
+    /** Returns the number of ints in the program of this */
+    public int programSize() { return program.length; }
+
+    /**
+     * Creates a clone of this suitable for evaluating the same expression in a different thread
+     * (i.e, sharing the program but having a separate stack).
+     */
+    @Override
+    public CompiledExpression clone() {
+        try {
+            CompiledExpression clone = (CompiledExpression)super.clone();
+            clone.stack = new double[stack.length];
+            return clone;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new RuntimeException("Programming error");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "compiled expression of " + program.length + " instructions and operands";
+    }
+
+}
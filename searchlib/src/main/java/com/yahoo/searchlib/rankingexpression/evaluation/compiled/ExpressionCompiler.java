@@ -0,0 +1,250 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compiled;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.AbstractArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
+import com.yahoo.searchlib.rankingexpression.rule.ComparisonNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.yahoo.searchlib.rankingexpression.evaluation.compiled.CompiledExpression.*;
+
+/**
+ * Compiles ranking expressions which produces a double from double variables into programs
+ * which can be evaluated much faster than by traversing the expression tree.
+ * Compilation is typically done after the expression is optimized by the
+ * {@link com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer},
+ * using a {@link com.yahoo.searchlib.rankingexpression.evaluation.DoubleOnlyArrayContext}
+ * created for the expression.
+ * <p>
+ * Values which are not doubles are evaluated as doubles in compiled expressions:
+ * Booleans are 1 or 0, and strings are the hash values which are used for them by the array contexts.
+ */
+public class ExpressionCompiler {
+
+    /**
+     * Compiles an expression for evaluation with the given context or its clones
+     *
+     * @param expression the expression to compile
+     * @param context a fast lookup context created from the given expression, which determines the
+     *                index of each variable referenced in the expression
+     * @return the compiled expression
+     * @throws UnsupportedOperationException if the expression contains something which cannot be compiled,
+     *         such as tensors or features having arguments
+     */
+    public CompiledExpression compile(RankingExpression expression, AbstractArrayContext context) {
+        Program program = new Program(context);
+        program.add(expression.getRoot());
+        return program.build();
+    }
+
+    /** A program under construction */
+    private static class Program {
+
+        private final AbstractArrayContext context;
+
+        private int[] instructions = new int[16];
+        private int size = 0;
+        private final List<Double> constants = new ArrayList<>();
+        private final List<double[]> trees = new ArrayList<>();
+
+        private int stackSize = 0;
+        private int maxStackSize = 0;
+
+        Program(AbstractArrayContext context) {
+            this.context = context;
+        }
+
+        void add(ExpressionNode node) {
+            if (node instanceof ConstantNode)
+                addConstant((ConstantNode)node);
+            else if (node instanceof ReferenceNode)
+                addReference((ReferenceNode)node);
+            else if (node instanceof EmbracedNode)
+                add(((EmbracedNode)node).getValue());
+            else if (node instanceof NegativeNode)
+                addUnary(((NegativeNode)node).getValue(), NEGATE);
+            else if (node instanceof NotNode)
+                addUnary(((NotNode)node).getValue(), NOT);
+            else if (node instanceof ArithmeticNode)
+                addArithmetic((ArithmeticNode)node);
+            else if (node instanceof ComparisonNode)
+                addComparison((ComparisonNode)node);
+            else if (node instanceof SetMembershipNode)
+                addSetMembership((SetMembershipNode)node);
+            else if (node instanceof FunctionNode)
+                addFunction((FunctionNode)node);
+            else if (node instanceof IfNode)
+                addIf((IfNode)node);
+            else if (node instanceof GBDTNode)
+                addTree(TREE, ((GBDTNode)node).values());
+            else if (node instanceof GBDTForestNode)
+                addTree(FOREST, ((GBDTForestNode)node).values());
+            else
+                throw new UnsupportedOperationException("Cannot compile '" + node + "': " +
+                                                        node.getClass().getSimpleName() + " is not supported");
+        }
+
+        private void addConstant(ConstantNode node) {
+            Value value = node.getValue();
+            if ( ! value.hasDouble())
+                throw new UnsupportedOperationException("Cannot compile '" + node + "': Only double constants are supported");
+            emit(CONSTANT, constants.size(), 1);
+            constants.add(value.asDouble());
+        }
+
+        private void addReference(ReferenceNode node) {
+            if ( ! node.getArguments().isEmpty())
+                throw new UnsupportedOperationException("Cannot compile '" + node + "': Features having arguments are not supported");
+            if ( ! context.names().contains(node.toString()))
+                throw new IllegalArgumentException("Cannot compile '" + node + "': Not present in " + context);
+            emit(VARIABLE, context.getIndex(node.toString()), 1);
+        }
+
+        private void addUnary(ExpressionNode argument, int opcode) {
+            add(argument);
+            emit(opcode, 0);
+        }
+
+        /** Adds arithmetic operations in the same order as they are applied in ArithmeticNode.evaluate */
+        private void addArithmetic(ArithmeticNode node) {
+            Iterator<ExpressionNode> child = node.children().iterator();
+            Deque<ArithmeticOperator> operators = new ArrayDeque<>();
+            add(child.next());
+            for (Iterator<ArithmeticOperator> it = node.operators().iterator(); it.hasNext() && child.hasNext(); ) {
+                ArithmeticOperator operator = it.next();
+                while ( ! operators.isEmpty() && operators.peek().hasPrecedenceOver(operator))
+                    emit(opcodeOf(operators.pop()), -1);
+                operators.push(operator);
+                add(child.next());
+            }
+            while ( ! operators.isEmpty())
+                emit(opcodeOf(operators.pop()), -1);
+        }
+
+        private int opcodeOf(ArithmeticOperator operator) {
+            switch (operator) {
+                case OR: return OR;
+                case AND: return AND;
+                case PLUS: return ADD;
+                case MINUS: return SUBTRACT;
+                case MULTIPLY: return MULTIPLY;
+                case DIVIDE: return DIVIDE;
+                case MODULO: return MODULO;
+                case POWER: return POWER;
+                default: throw new UnsupportedOperationException("Cannot compile arithmetic operator " + operator);
+            }
+        }
+
+        private void addComparison(ComparisonNode node) {
+            add(node.getLeftCondition());
+            add(node.getRightCondition());
+            switch (node.getOperator()) {
+                case SMALLER: emit(SMALLER, -1); break;
+                case SMALLEREQUAL: emit(SMALLER_EQUAL, -1); break;
+                case EQUAL: emit(EQUAL, -1); break;
+                case APPROX_EQUAL: emit(APPROX_EQUAL, -1); break;
+                case LARGER: emit(LARGER, -1); break;
+                case LARGEREQUAL: emit(LARGER_EQUAL, -1); break;
+                case NOTEQUAL: emit(NOT_EQUAL, -1); break;
+                default: throw new UnsupportedOperationException("Cannot compile truth operator " + node.getOperator());
+            }
+        }
+
+        private void addSetMembership(SetMembershipNode node) {
+            add(node.getTestValue());
+            for (ExpressionNode setValue : node.getSetValues())
+                add(setValue);
+            emit(IN, node.getSetValues().size(), - node.getSetValues().size());
+        }
+
+        private void addFunction(FunctionNode node) {
+            List<ExpressionNode> arguments = node.children();
+            if (arguments.size() == 1) {
+                add(arguments.get(0));
+                emit(FUNCTION1, node.getFunction().ordinal(), 0);
+            }
+            else if (arguments.size() == 2) {
+                add(arguments.get(0));
+                add(arguments.get(1));
+                emit(FUNCTION2, node.getFunction().ordinal(), -1);
+            }
+            else {
+                throw new UnsupportedOperationException("Cannot compile '" + node + "': Expected 1 or 2 arguments");
+            }
+        }
+
+        private void addIf(IfNode node) {
+            add(node.getCondition());
+            int jumpToFalse = emit(JUMP_IF_FALSE, 0, -1);
+            add(node.getTrueExpression());
+            int jumpToEnd = emit(JUMP, 0, 0);
+            stackSize--; // only one of the branches is evaluated
+            instructions[jumpToFalse] = size;
+            add(node.getFalseExpression());
+            instructions[jumpToEnd] = size;
+        }
+
+        private void addTree(int opcode, double[] values) {
+            emit(opcode, trees.size(), 1);
+            trees.add(values);
+        }
+
+        /** Adds an instruction without an operand */
+        private void emit(int opcode, int stackChange) {
+            ensureCapacity(1);
+            instructions[size++] = opcode;
+            changeStackSize(stackChange);
+        }
+
+        /** Adds an instruction with an operand and returns the position of the operand */
+        private int emit(int opcode, int operand, int stackChange) {
+            ensureCapacity(2);
+            instructions[size++] = opcode;
+            instructions[size++] = operand;
+            changeStackSize(stackChange);
+            return size - 1;
+        }
+
+        private void changeStackSize(int change) {
+            stackSize += change;
+            maxStackSize = Math.max(maxStackSize, stackSize);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > instructions.length)
+                instructions = Arrays.copyOf(instructions, instructions.length * 2);
+        }
+
+        CompiledExpression build() {
+            double[] constantArray = new double[constants.size()];
+            for (int i = 0; i < constantArray.length; i++)
+                constantArray[i] = constants.get(i);
+            return new CompiledExpression(Arrays.copyOf(instructions, size),
+                                          constantArray,
+                                          trees.toArray(new double[trees.size()][]),
+                                          Math.max(1, maxStackSize));
+        }
+
+    }
+
+}
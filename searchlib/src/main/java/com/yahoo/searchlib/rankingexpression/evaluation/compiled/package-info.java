@@ -0,0 +1,8 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+/**
+ * Compilation of ranking expressions to compact programs which are evaluated without traversing the expression tree
+ */
+@ExportPackage
+package com.yahoo.searchlib.rankingexpression.evaluation.compiled;
+
+import com.yahoo.osgi.annotation.ExportPackage;
@@ -11,6 +11,7 @@ import com.yahoo.searchlib.rankingexpression.rule.SerializationContext;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.TypeContext;
 
+import java.util.Arrays;
 import java.util.Deque;
 
 /**
@@ -29,16 +30,73 @@ public class GBDTForestNode extends ExpressionNode {
     @Override
     public final TensorType type(TypeContext<Reference> context) { return TensorType.empty; }
 
+    /** Returns a direct reference to the values of this. The returned array must not be modified. */
+    public final double[] values() { return values; }
+
     @Override
     public final Value evaluate(Context context) {
+        return new DoubleValue(evaluate(values, context));
+    }
+
+    public static double evaluate(double[] values, Context context) {
+        GBDTNode.FeatureAccessor features = context::getDouble;
         int pc = 0;
         double treeSum = 0;
         while (pc < values.length) {
             int nextTree = (int)values[pc++];
-            treeSum += GBDTNode.evaluate(values, pc, context);
+            treeSum += GBDTNode.evaluate(values, pc, features);
+            pc += nextTree;
+        }
+        return treeSum;
+    }
+
+    /**
+     * Evaluates this forest over a batch of feature vectors.
+     * This is faster per vector than evaluating each vector separately, as each tree is evaluated
+     * for all the vectors before moving on to the next, and the features are read directly from an array.
+     *
+     * @param features the feature values, stored column-major: The value of the variable having index v in the
+     *                 context used to optimize this, in vector i, must be at <code>features[v * vectorCount + i]</code>
+     * @param vectorCount the number of feature vectors in the batch
+     * @param result the array to which the value of each vector is written, having at least vectorCount elements
+     */
+    public final void evaluate(double[] features, int vectorCount, double[] result) {
+        evaluate(values, features, vectorCount, result);
+    }
+
+    /** Evaluates the given forest values over a batch of feature vectors. See {@link #evaluate(double[], int, double[])} */
+    public static void evaluate(double[] values, double[] features, int vectorCount, double[] result) {
+        if (result.length < vectorCount)
+            throw new IllegalArgumentException("The result array must have room for " + vectorCount +
+                                               " values but has length " + result.length);
+        Arrays.fill(result, 0, vectorCount, 0.0);
+        ColumnMajorFeatures vectorFeatures = new ColumnMajorFeatures(features, vectorCount);
+        int pc = 0;
+        while (pc < values.length) {
+            int nextTree = (int)values[pc++];
+            for (vectorFeatures.vector = 0; vectorFeatures.vector < vectorCount; vectorFeatures.vector++)
+                result[vectorFeatures.vector] += GBDTNode.evaluate(values, pc, vectorFeatures);
             pc += nextTree;
         }
-        return new DoubleValue(treeSum);
+    }
+
+    /** Reads the features of the current vector from a batch of feature vectors stored column-major */
+    private static final class ColumnMajorFeatures implements GBDTNode.FeatureAccessor {
+
+        private final double[] features;
+        private final int vectorCount;
+
+        /** The vector to read features of */
+        int vector = 0;
+
+        ColumnMajorFeatures(double[] features, int vectorCount) {
+            this.features = features;
+            this.vectorCount = vectorCount;
+        }
+
+        @Override
+        public double get(int index) { return features[index * vectorCount + vector]; }
+
     }
 
     /** Returns (optimized sum of condition trees) */
@@ -60,6 +60,14 @@ public final class GBDTNode extends ExpressionNode {
     }
 
     public static double evaluate(double[] values, int startOffset, Context context) {
+        return evaluate(values, startOffset, context::getDouble);
+    }
+
+    /**
+     * Evaluates the tree starting at the given offset in the given values, reading the value of each
+     * variable from the given features.
+     */
+    public static double evaluate(double[] values, int startOffset, FeatureAccessor features) {
         int pc = startOffset;
         while (true) {
             double nextValue = values[pc++];
@@ -67,13 +75,13 @@ public final class GBDTNode extends ExpressionNode {
                 int offset = (int)nextValue - MAX_LEAF_VALUE;
                 boolean comparisonIsTrue = false;
                 if (offset < MAX_VARIABLES) {
-                    comparisonIsTrue = context.getDouble(offset)<values[pc++];
+                    comparisonIsTrue = features.get(offset)<values[pc++];
                 }
                 else if (offset < MAX_VARIABLES*2) {
-                    comparisonIsTrue = context.getDouble(offset-MAX_VARIABLES)==values[pc++];
+                    comparisonIsTrue = features.get(offset-MAX_VARIABLES)==values[pc++];
                 }
                 else { // offset<MAX_VARIABLES*3
-                    double testValue = context.getDouble(offset-MAX_VARIABLES*2);
+                    double testValue = features.get(offset-MAX_VARIABLES*2);
                     int setValuesLeft = (int)values[pc++];
                     while (setValuesLeft > 0) { // test each value in the set
                         setValuesLeft--;
@@ -101,4 +109,12 @@ public final class GBDTNode extends ExpressionNode {
     public String toString(SerializationContext context, Deque<String> path, CompositeNode parent) {
         return "(optimized condition tree)";
     }
+
+    /** Provides the value of a variable by its index in the context used to optimize a tree */
+    @FunctionalInterface
+    public interface FeatureAccessor {
+
+        double get(int index);
+
+    }
 }
@@ -0,0 +1,70 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.tensoroptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.AbstractArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.Optimizer;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
+import com.yahoo.tensor.functions.TensorFunction;
+import com.yahoo.tensor.functions.TensorFunctionOptimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optimizes the tensor functions of an expression by rewriting them using {@link TensorFunctionOptimizer},
+ * e.g replacing reduces of joins (such as dot products and matrix multiplications) by single pass functions.
+ * The tensor function arguments of tensor functions are unwrapped first such that
+ * nested functions are visible to the tensor function optimizer.
+ */
+public class TensorOptimizer extends Optimizer {
+
+    private final TensorFunctionOptimizer tensorFunctionOptimizer = new TensorFunctionOptimizer();
+
+    /**
+     * Optimizes the tensor functions of this expression
+     *
+     * @param expression the expression to destructively optimize
+     * @param context    a fast lookup context created from the given expression
+     * @param report     the optimization report to which actions of this is logged
+     */
+    @Override
+    public void optimize(RankingExpression expression, AbstractArrayContext context, OptimizationReport report) {
+        if ( ! isEnabled()) return;
+
+        expression.setRoot(optimize(expression.getRoot()));
+        report.note("Tensor function optimization done");
+    }
+
+    private ExpressionNode optimize(ExpressionNode node) {
+        if (node instanceof TensorFunctionNode)
+            return new TensorFunctionNode(tensorFunctionOptimizer.optimize(unwrap(((TensorFunctionNode)node).function())));
+        if ( ! (node instanceof CompositeNode)) return node;
+
+        CompositeNode composite = (CompositeNode)node;
+        List<ExpressionNode> newChildren = new ArrayList<>();
+        for (ExpressionNode child : composite.children())
+            newChildren.add(optimize(child));
+        return composite.setChildren(newChildren);
+    }
+
+    /** Returns the given function with all arguments which are tensor function nodes replaced by their functions */
+    private TensorFunction unwrap(TensorFunction function) {
+        if (function instanceof TensorFunctionNode.TensorFunctionExpressionNode) {
+            ExpressionNode expression = optimize(((TensorFunctionNode.TensorFunctionExpressionNode)function).expression());
+            if (expression instanceof TensorFunctionNode)
+                return ((TensorFunctionNode)expression).function();
+            return TensorFunctionNode.wrapArgument(expression);
+        }
+        List<TensorFunction> arguments = function.arguments();
+        if (arguments.isEmpty()) return function;
+        List<TensorFunction> unwrappedArguments = new ArrayList<>();
+        for (TensorFunction argument : arguments)
+            unwrappedArguments.add(unwrap(argument));
+        return function.withArguments(unwrappedArguments);
+    }
+
+}
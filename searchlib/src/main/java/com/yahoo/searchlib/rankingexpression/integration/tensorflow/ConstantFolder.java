@@ -0,0 +1,107 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.integration.tensorflow;
+
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.functions.ConstantTensor;
+import com.yahoo.tensor.functions.Diag;
+import com.yahoo.tensor.functions.Generate;
+import com.yahoo.tensor.functions.Range;
+import com.yahoo.tensor.functions.TensorFunction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Replaces subtrees of imported tensor functions which only depend on constants by the constant they evaluate to,
+ * such that these are computed once at import time instead of on every evaluation.
+ * Scalar results are inlined in the function, while tensors are added as constants to the model.
+ * <p>
+ * Folded values are cached by the subtree producing them, so a subtree which occurs multiple times in
+ * the functions of a model is only evaluated once, and becomes a single constant.
+ * Instances are used for importing a single model.
+ */
+class ConstantFolder {
+
+    private final TensorFlowModel model;
+
+    /** The folded replacements of the constant subtrees folded by this, by the string form of the subtree */
+    private final Map<String, TensorFunction> folded = new HashMap<>();
+
+    private int constantCount = 0;
+
+    ConstantFolder(TensorFlowModel model) {
+        this.model = model;
+    }
+
+    /** Returns the given function with all constant subtrees replaced by their values */
+    TensorFunction fold(TensorFunction function) {
+        if (function instanceof TensorFunctionNode.TensorFunctionExpressionNode) return function;
+        List<TensorFunction> arguments = function.arguments();
+        if (arguments.isEmpty()) return function;
+
+        List<TensorFunction> foldedArguments = new ArrayList<>(arguments.size());
+        boolean changed = false;
+        boolean constant = true;
+        for (TensorFunction argument : arguments) {
+            TensorFunction foldedArgument = fold(argument);
+            foldedArguments.add(foldedArgument);
+            changed |= foldedArgument != argument;
+            constant &= isConstant(foldedArgument);
+        }
+        TensorFunction result = changed ? function.withArguments(foldedArguments) : function;
+        return constant ? foldedValueOf(result) : result;
+    }
+
+    private TensorFunction foldedValueOf(TensorFunction function) {
+        return folded.computeIfAbsent(function.toString(), key -> evaluateToConstant(function));
+    }
+
+    private TensorFunction evaluateToConstant(TensorFunction function) {
+        Tensor value = function.evaluate(constantsContext());
+        if (value.type().rank() == 0)
+            return new TensorFunctionNode.TensorFunctionExpressionNode(new ConstantNode(new DoubleValue(value.asDouble())));
+
+        String name = model.name() + "_folded_" + constantCount++;
+        if (value.size() <= 1)
+            model.smallConstant(name, value);
+        else
+            model.largeConstant(name, value);
+        return new TensorFunctionNode.TensorFunctionExpressionNode(new ReferenceNode(Reference.simple("constant", name)));
+    }
+
+    private MapContext constantsContext() {
+        MapContext context = new MapContext();
+        model.smallConstants().forEach((name, tensor) -> context.put("constant(" + name + ")", new TensorValue(tensor)));
+        model.largeConstants().forEach((name, tensor) -> context.put("constant(" + name + ")", new TensorValue(tensor)));
+        return context;
+    }
+
+    /** Returns whether the given function is a constant value which does not need to be folded */
+    private boolean isConstant(TensorFunction function) {
+        if (function instanceof ConstantTensor || function instanceof Generate ||
+            function instanceof Range || function instanceof Diag)
+            return true;
+        if ( ! (function instanceof TensorFunctionNode.TensorFunctionExpressionNode)) return false;
+
+        ExpressionNode expression = ((TensorFunctionNode.TensorFunctionExpressionNode)function).expression();
+        if (expression instanceof ConstantNode) return true;
+        if ( ! (expression instanceof ReferenceNode)) return false;
+        Reference reference = ((ReferenceNode)expression).reference();
+        if ( ! reference.name().equals("constant")) return false;
+        Optional<String> constantName = reference.simpleArgument();
+        return constantName.isPresent() &&
+               (model.smallConstants().containsKey(constantName.get()) || model.largeConstants().containsKey(constantName.get()));
+    }
+
+}
@@ -79,7 +79,8 @@ public class TensorFlowImporter {
     /**
      * Imports the TensorFlow graph by first importing the tensor types, then
      * finding a suitable set of dimensions names for each
-     * placeholder/constant/variable, then importing the expressions.
+     * placeholder/constant/variable, then importing the expressions,
+     * where subexpressions depending only on constants are folded into constants.
      */
     private static TensorFlowModel importGraph(String modelName, MetaGraphDef graph, SavedModelBundle bundle) {
         TensorFlowModel model = new TensorFlowModel(modelName);
@@ -88,7 +89,7 @@ public class TensorFlowImporter {
         importSignatures(graph, model);
         importNodes(graph, model, index);
         findDimensionNames(model, index);
-        importExpressions(model, index, bundle);
+        importExpressions(model, index, bundle, new ConstantFolder(model));
 
         reportWarnings(model, index);
         logVariableTypes(index);
@@ -210,11 +211,12 @@ public class TensorFlowImporter {
         }
     }
 
-    private static void importExpressions(TensorFlowModel model, OperationIndex index, SavedModelBundle bundle) {
+    private static void importExpressions(TensorFlowModel model, OperationIndex index, SavedModelBundle bundle,
+                                          ConstantFolder constantFolder) {
         for (TensorFlowModel.Signature signature : model.signatures().values()) {
             for (String outputName : signature.outputs().values()) {
                 try {
-                    Optional<TensorFunction> function = importExpression(index.get(outputName), model, bundle);
+                    Optional<TensorFunction> function = importExpression(index.get(outputName), model, bundle, constantFolder);
                     if (!function.isPresent()) {
                         signature.skippedOutput(outputName, "No valid output function could be found.");
                     }
@@ -226,7 +228,8 @@ public class TensorFlowImporter {
         }
     }
 
-    private static Optional<TensorFunction> importExpression(TensorFlowOperation operation, TensorFlowModel model, SavedModelBundle bundle) {
+    private static Optional<TensorFunction> importExpression(TensorFlowOperation operation, TensorFlowModel model,
+                                                             SavedModelBundle bundle, ConstantFolder constantFolder) {
         if (!operation.type().isPresent()) {
             return Optional.empty();
         }
@@ -234,22 +237,23 @@ public class TensorFlowImporter {
             return importConstant(model, operation, bundle);
         }
 
-        importInputExpressions(operation, model, bundle);
-        importRankingExpression(model, operation);
+        importInputExpressions(operation, model, bundle, constantFolder);
+        importRankingExpression(model, operation, constantFolder);
         importInputExpression(model, operation);
-        importMacroExpression(model, operation);
+        importMacroExpression(model, operation, constantFolder);
 
         return operation.function();
     }
 
     private static void importInputExpressions(TensorFlowOperation operation, TensorFlowModel model,
-                                               SavedModelBundle bundle) {
-        operation.inputs().forEach(input -> importExpression(input, model, bundle));
+                                               SavedModelBundle bundle, ConstantFolder constantFolder) {
+        operation.inputs().forEach(input -> importExpression(input, model, bundle, constantFolder));
     }
 
-    private static void importMacroExpression(TensorFlowModel model, TensorFlowOperation operation) {
+    private static void importMacroExpression(TensorFlowModel model, TensorFlowOperation operation,
+                                              ConstantFolder constantFolder) {
         if (operation.macro().isPresent()) {
-            TensorFunction function = operation.macro().get();
+            TensorFunction function = constantFolder.fold(operation.macro().get());
             try {
                 model.macro(operation.macroName(), new RankingExpression(operation.macroName(), function.toString()));
             }
@@ -298,7 +302,8 @@ public class TensorFlowImporter {
         return importedTensors.get(0);
     }
 
-    private static void importRankingExpression(TensorFlowModel model, TensorFlowOperation operation) {
+    private static void importRankingExpression(TensorFlowModel model, TensorFlowOperation operation,
+                                                ConstantFolder constantFolder) {
         if (operation.function().isPresent()) {
             String name = operation.node().getName();
             if (!model.expressions().containsKey(operation.node().getName())) {
@@ -314,6 +319,7 @@ public class TensorFlowImporter {
                         function = new Rename(function, renameFrom, renameTo);
                     }
                 }
+                function = constantFolder.fold(function);
 
                 try {
                     // We add all intermediate nodes imported as separate expressions. Only
@@ -89,6 +89,9 @@ public class TensorFunctionNode extends CompositeNode {
             this.expression = expression;
         }
 
+        /** Returns the expression producing the tensor of this */
+        public ExpressionNode expression() { return expression; }
+
         @Override
         public List<TensorFunction> arguments() {
             if (expression instanceof CompositeNode)
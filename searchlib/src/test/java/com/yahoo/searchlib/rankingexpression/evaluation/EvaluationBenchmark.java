@@ -3,6 +3,9 @@ package com.yahoo.searchlib.rankingexpression.evaluation;
 
 import com.yahoo.io.IOUtils;
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.compiled.CompiledExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.compiled.ExpressionCompiler;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
 import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestOptimizer;
 import com.yahoo.searchlib.rankingexpression.parser.ParseException;
 
@@ -10,6 +13,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Two small benchmarks of ranking expression evaluation
@@ -152,6 +156,87 @@ public class EvaluationBenchmark {
         double forestTotal=benchmark(forestOptimized,forestContext,iterations,"Forest optimized");
         assertEqualish(total,forestTotal);
         System.out.println("-----------------------------------------------------------------------------------------------------");
+
+        // Forest optimized, batch evaluated...................
+        double batchTotal = benchmarkBatch((GBDTForestNode)forestOptimized.getRoot(), forestContext, iterations, "Forest optimized, batches of 250");
+        assertEqualish(total, batchTotal);
+        System.out.println("-----------------------------------------------------------------------------------------------------");
+
+        // Forest optimized and compiled...................
+        System.out.print("Compiling ... ");
+        CompiledExpression compiled = new ExpressionCompiler().compile(forestOptimized, forestContext);
+        System.out.println("done: " + compiled);
+        double compiledTotal = benchmarkCompiled(compiled, forestContext, iterations, "Forest optimized and compiled");
+        assertEqualish(total, compiledTotal);
+        System.out.println("-----------------------------------------------------------------------------------------------------");
+    }
+
+    private double benchmarkBatch(GBDTForestNode forest, AbstractArrayContext context, int iterations, String description) {
+        oul("Running '" + description + "':");
+        out("   Warming up ...");
+        double total=0;
+        total+=benchmarkBatchIterations(forest, context, iterations/5, 250);
+        oul("done");
+
+        out("   Running " + iterations + " of '" + description + "' ...");
+        long tStartTime=System.nanoTime();
+        total+=benchmarkBatchIterations(forest, context, iterations, 250);
+        long totalTime=System.nanoTime()-tStartTime;
+        oul("done");
+        oul("   Total time running '" + description + "': " + totalTime/1000000 + " ms (" + totalTime/iterations + " nanoseconds/expression)");
+        return total;
+    }
+
+    private double benchmarkBatchIterations(GBDTForestNode forest, AbstractArrayContext context, int iterations, int batchSize) {
+        // Lay out the same values as benchmarkIterations column-major, a batch at the time.
+        // For simplicity, iterations must be a multiple of batchSize
+        int ratioIndex = context.getIndex("LW_NEWS_SEARCHES_RATIO");
+        int usersIndex = context.getIndex("NEWS_USERS");
+        double[] features = new double[context.size() * batchSize];
+        for (int variable = 0; variable < context.size(); variable++)
+            Arrays.fill(features, variable * batchSize, (variable + 1) * batchSize, context.getDouble(variable));
+        double[] result = new double[batchSize];
+        double total=0;
+        for (int start=0; start<iterations; start+=batchSize) {
+            for (int vector=0; vector<batchSize; vector++) {
+                int i = start + vector;
+                features[ratioIndex * batchSize + vector] = (double)i;
+                features[usersIndex * batchSize + vector] = (double)i/1000*1000;
+            }
+            forest.evaluate(features, batchSize, result);
+            for (int vector=0; vector<batchSize; vector++)
+                total+=result[vector];
+        }
+        return total;
+    }
+
+    private double benchmarkCompiled(CompiledExpression expression, AbstractArrayContext context, int iterations, String description) {
+        oul("Running '" + description + "':");
+        out("   Warming up ...");
+        double total=0;
+        total+=benchmarkCompiledIterations(expression, context, iterations/5);
+        oul("done");
+
+        out("   Running " + iterations + " of '" + description + "' ...");
+        long tStartTime=System.currentTimeMillis();
+        total+=benchmarkCompiledIterations(expression, context, iterations);
+        long totalTime=System.currentTimeMillis()-tStartTime;
+        oul("done");
+        oul("   Total time running '" + description + "': " + totalTime + " ms (" + totalTime*1000/iterations + " microseconds/expression)");
+        return total;
+    }
+
+    private double benchmarkCompiledIterations(CompiledExpression expressionPrototype, AbstractArrayContext contextPrototype, int iterations) {
+        double total=0;
+        CompiledExpression expression = expressionPrototype.clone();
+        AbstractArrayContext context = contextPrototype.clone();
+        for (int i=0; i<iterations; i++) {
+            context.put("LW_NEWS_SEARCHES_RATIO",(double)i);
+            context.put("NEWS_USERS",(double)i/1000*1000);
+            context.put("catid",100300102);
+            total+=expression.evaluate(context);
+        }
+        return total;
     }
 
     private double benchmark(RankingExpression gbdt, Context context, int iterations, String description) {
@@ -0,0 +1,119 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compiled;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleOnlyArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that compiled expressions produce the same values as the interpreted expressions
+ */
+public class CompiledExpressionTestCase {
+
+    private static final double[][] bindings = { { 0, 0 }, { 1, 2 }, { 2, 1 }, { -3.5, 7 }, { 17, 17 }, { 100, 0.25 } };
+
+    @Test
+    public void testArithmetic() throws ParseException {
+        assertCompiled("1 + 2 * 3");
+        assertCompiled("10 - 2 - 3");
+        assertCompiled("100 / 5 / 2");
+        assertCompiled("2 ^ 3 ^ 2");
+        assertCompiled("a - b + a * b / 2 - 7 % 3");
+        assertCompiled("a * b + a - b * 2 ^ a - b / (a + 100)");
+        assertCompiled("(a + b) * (a - b)");
+        assertCompiled("-a + -(b * 2)");
+        assertCompiled("a && b || !a");
+        assertCompiled("a || b && 0");
+    }
+
+    @Test
+    public void testConditionsAndComparisons() throws ParseException {
+        assertCompiled("if (a < b, a, b)");
+        assertCompiled("if (a <= b, 1, if (a == b, 2, if (a >= 17, 3, 4)))");
+        assertCompiled("if (a > 1 && b != 1, a ~= b, a * 2)");
+        assertCompiled("10 * if (a > 35, if (a > b, if (a >= 670, 4, 8), if (a > 8000, 5, 3)), if (a == 478, 90, 91))");
+        assertCompiled("if (a in [1, 2, 17], b, 0) + if (b in [2], 1, 0)");
+    }
+
+    @Test
+    public void testFunctions() throws ParseException {
+        assertCompiled("max(a, b) + min(a, b) * exp(b / 10)");
+        assertCompiled("sqrt(fabs(a)) + pow(b, 2) + atan2(a, b)");
+        assertCompiled("sigmoid(a) + relu(b - 1) + floor(a * 1.5)");
+    }
+
+    @Test
+    public void testGBDT() throws ParseException {
+        String gbdt = "if (a < 1.5, if (b < 0.5, 0.1, 0.2), if (a in [2, 3], 0.3, 0.4)) + " +
+                      "if (b < 1.0, 0.5, if (a == 17, 0.6, 0.7)) + " +
+                      "if (b < 7, 0.8, 0.9)";
+        assertCompiled(gbdt);
+        assertOptimizedCompiled(gbdt);
+    }
+
+    @Test
+    public void testClone() throws ParseException {
+        RankingExpression expression = new RankingExpression("a * 2 + b");
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(expression);
+        CompiledExpression compiled = new ExpressionCompiler().compile(expression, context);
+        CompiledExpression clone = compiled.clone();
+        DoubleOnlyArrayContext otherContext = context.clone();
+        context.put("a", 1.0);
+        context.put("b", 2.0);
+        otherContext.put("a", 3.0);
+        otherContext.put("b", 4.0);
+        assertEquals(4.0, compiled.evaluate(context), 0.0);
+        assertEquals(10.0, clone.evaluate(otherContext), 0.0);
+    }
+
+    @Test
+    public void testUnsupportedExpressions() throws ParseException {
+        assertNotCompilable("a + reduce(tensor0, sum)");
+        assertNotCompilable("attribute(foo) + 1");
+    }
+
+    private void assertCompiled(String expressionString) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(expression, true);
+        assertSameValues(expression, new ExpressionCompiler().compile(expression, context), context);
+    }
+
+    private void assertOptimizedCompiled(String expressionString) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(expression, true);
+        OptimizationReport report = new ExpressionOptimizer().optimize(expression, context);
+        assertEquals(3, report.getMetric("Optimized GDBT trees"));
+        assertEquals(1, report.getMetric("Number of forests"));
+        assertSameValues(new RankingExpression(expressionString), new ExpressionCompiler().compile(expression, context), context);
+    }
+
+    private void assertSameValues(RankingExpression expression, CompiledExpression compiled, DoubleOnlyArrayContext context) {
+        for (double[] binding : bindings) {
+            MapContext mapContext = new MapContext();
+            mapContext.put("a", binding[0]);
+            mapContext.put("b", binding[1]);
+            context.put("a", binding[0]);
+            context.put("b", binding[1]);
+            assertEquals(expression + " with a=" + binding[0] + ", b=" + binding[1],
+                         expression.evaluate(mapContext).asDouble(), compiled.evaluate(context), 0.000001);
+        }
+    }
+
+    private void assertNotCompilable(String expressionString) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        try {
+            new ExpressionCompiler().compile(expression, new DoubleOnlyArrayContext(expression, true));
+            fail("Expected exception compiling " + expressionString);
+        }
+        catch (UnsupportedOperationException expected) {
+        }
+    }
+
+}
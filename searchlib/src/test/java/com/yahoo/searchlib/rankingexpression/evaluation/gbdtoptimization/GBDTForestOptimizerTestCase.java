@@ -102,6 +102,44 @@ public class GBDTForestOptimizerTestCase extends junit.framework.TestCase {
         assertEqualish(result3, oResult3);
     }
 
+    public void testBatchEvaluation() throws ParseException {
+        String gbdtString =
+                "if (LW_NEWS_SEARCHES_RATIO < 1.72971, 0.0697159, if (LW_USERS < 0.10496, if (SEARCHES < 0.0329127, 0.151257, 0.117501), if (SUGG_OVERLAP < 18.5, 0.0897622, 0.0756903))) + \n" +
+                "if (LW_NEWS_SEARCHES_RATIO < 1.73156, if (NEWS_USERS < 0.0737993, -0.00481646, 0.00110018), if (LW_USERS < 0.0844616, 0.0488919, if (SUGG_OVERLAP in [17, 32, 40], 0.0136917, 9.85328E-4))) + \n" +
+                "if (LW_NEWS_SEARCHES_RATIO < 1.72995, if (NEWS_USERS < 0.0737993, -0.00407515, 0.00139088), if (LW_USERS == 0.05, 0.0439466, if (LW_USERS < 0.325818, 0.0187156, 0.00236949)))";
+        RankingExpression gbdt = new RankingExpression(gbdtString);
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(gbdt);
+        new ExpressionOptimizer().optimize(gbdt, context);
+        assertTrue(gbdt.getRoot() instanceof GBDTForestNode);
+        GBDTForestNode forest = (GBDTForestNode)gbdt.getRoot();
+
+        int vectorCount = 7;
+        double[] features = new double[context.size() * vectorCount];
+        double[] expected = new double[vectorCount];
+        for (int vector = 0; vector < vectorCount; vector++) {
+            for (String name : context.names()) {
+                int index = context.getIndex(name);
+                double value = name.equals("SUGG_OVERLAP") ? 17 + vector * 4 : vector * 0.05 + index * 0.3;
+                context.put(index, value);
+                features[index * vectorCount + vector] = value;
+            }
+            expected[vector] = gbdt.evaluate(context).asDouble();
+        }
+
+        double[] result = new double[vectorCount + 1];
+        forest.evaluate(features, vectorCount, result);
+        for (int vector = 0; vector < vectorCount; vector++)
+            assertEquals(expected[vector], result[vector]);
+        assertEquals(0.0, result[vectorCount]);
+
+        try {
+            forest.evaluate(features, vectorCount, new double[vectorCount - 1]);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+        }
+    }
+
     private void assertEqualish(double a, double b) {
         assertTrue("Almost equal to " + a + ": " + b, Math.abs(a - b) < ((a + b) / 100000000));
     }
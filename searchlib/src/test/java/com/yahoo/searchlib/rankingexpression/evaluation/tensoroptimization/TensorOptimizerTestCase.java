@@ -0,0 +1,67 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.tensoroptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTOptimizer;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.functions.ReduceJoin;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that tensor functions are optimized and evaluate to the same result as before optimization
+ */
+public class TensorOptimizerTestCase {
+
+    @Test
+    public void testDotProductOptimization() throws ParseException {
+        assertFused("reduce(join(a, b, f(x,y)(x * y)), sum)",
+                        "tensor(x[3]):{{x:0}:1,{x:1}:2,{x:2}:3}",
+                        "tensor(x[3]):{{x:0}:4,{x:1}:5,{x:2}:6}");
+    }
+
+    @Test
+    public void testMatmulOptimization() throws ParseException {
+        assertFused("reduce(join(a, b, f(x,y)(x * y)), sum, x)",
+                        "tensor(i[2],x[3]):{{i:0,x:0}:1,{i:0,x:1}:2,{i:0,x:2}:3,{i:1,x:0}:4,{i:1,x:1}:5,{i:1,x:2}:6}",
+                        "tensor(x[3],y[2]):{{x:0,y:0}:7,{x:0,y:1}:8,{x:1,y:0}:9,{x:1,y:1}:10,{x:2,y:0}:11,{x:2,y:1}:12}");
+    }
+
+    @Test
+    public void testNestedOptimization() throws ParseException {
+        RankingExpression expression = assertOptimized("1 + sum(map(reduce(join(a, b, f(x,y)(x * y)), sum, x), f(x)(x * 2)))",
+                                                       "tensor(x[2]):{{x:0}:1,{x:1}:2}",
+                                                       "tensor(x[2]):{{x:0}:3,{x:1}:4}");
+        assertTrue(expression.getRoot().toString().startsWith("1 + reduce(map(reduce(join(a, b"));
+    }
+
+    private RankingExpression assertOptimized(String expressionString, String a, String b) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(expression);
+        context.put("a", new TensorValue(Tensor.from(a)));
+        context.put("b", new TensorValue(Tensor.from(b)));
+        Tensor expected = expression.evaluate(context).asTensor();
+
+        ExpressionOptimizer optimizer = new ExpressionOptimizer();
+        optimizer.getOptimizer(GBDTOptimizer.class).setEnabled(false);
+        optimizer.getOptimizer(GBDTForestOptimizer.class).setEnabled(false);
+        optimizer.optimize(expression, context);
+        assertEquals(expected, expression.evaluate(context).asTensor());
+        assertEquals(new RankingExpression(expressionString).toString(), expression.toString());
+        return expression;
+    }
+
+    private void assertFused(String expressionString, String a, String b) throws ParseException {
+        RankingExpression expression = assertOptimized(expressionString, a, b);
+        assertTrue(((TensorFunctionNode)expression.getRoot()).function() instanceof ReduceJoin);
+    }
+
+}
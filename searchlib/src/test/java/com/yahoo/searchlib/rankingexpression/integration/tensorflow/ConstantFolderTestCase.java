@@ -0,0 +1,69 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.integration.tensorflow;
+
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.Rename;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests folding of the constant subtrees of imported tensor functions
+ */
+public class ConstantFolderTestCase {
+
+    private final TensorType inputType = TensorType.fromSpec("tensor(d0[2])");
+
+    @Test
+    public void testScalarsAreInlined() {
+        TensorFlowModel model = modelWithConstant();
+        TensorFunction function = new Join(new VariableTensor("input", inputType),
+                                           new Reduce(constant("test_c"), Reduce.Aggregator.sum, "d1"),
+                                           ScalarFunctions.multiply());
+        assertEquals("join(input, 6.0, f(a,b)(a * b))", new ConstantFolder(model).fold(function).toString());
+        assertEquals(1, model.largeConstants().size() + model.smallConstants().size());
+    }
+
+    @Test
+    public void testTensorsAreAddedAsConstants() {
+        TensorFlowModel model = modelWithConstant();
+        TensorFunction renamed = new Rename(constant("test_c"), "d1", "d0");
+        TensorFunction function = new Join(new Join(new VariableTensor("input", inputType), renamed, ScalarFunctions.add()),
+                                           new Rename(constant("test_c"), "d1", "d0"),
+                                           ScalarFunctions.multiply());
+        assertEquals("join(join(input, constant(test_folded_0), f(a,b)(a + b)), constant(test_folded_0), f(a,b)(a * b))",
+                     new ConstantFolder(model).fold(function).toString());
+        assertEquals(Tensor.from("tensor(d0[3]):{{d0:0}:1,{d0:1}:2,{d0:2}:3}"), model.largeConstants().get("test_folded_0"));
+        assertEquals(2, model.largeConstants().size());
+    }
+
+    @Test
+    public void testNonConstantFunctionsAreUnchanged() {
+        TensorFlowModel model = modelWithConstant();
+        TensorFunction function = new Join(new VariableTensor("input", inputType), constant("test_c"), ScalarFunctions.add());
+        assertSame(function, new ConstantFolder(model).fold(function));
+        TensorFunction unknown = new Reduce(constant("test_unknown"), Reduce.Aggregator.sum);
+        assertSame(unknown, new ConstantFolder(model).fold(unknown));
+    }
+
+    private TensorFlowModel modelWithConstant() {
+        TensorFlowModel model = new TensorFlowModel("test");
+        model.largeConstant("test_c", Tensor.from("tensor(d1[3]):{{d1:0}:1,{d1:1}:2,{d1:2}:3}"));
+        return model;
+    }
+
+    private TensorFunction constant(String name) {
+        return new TensorFunctionNode.TensorFunctionExpressionNode(new ReferenceNode(Reference.simple("constant", name)));
+    }
+
+}
@@ -0,0 +1,50 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.benchmark;
+
+import com.yahoo.tensor.Tensor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the concat tensor function on dense tensors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConcatBenchmark {
+
+    private Tensor vectorA, vectorB;
+    private Tensor matrixA, matrixB;
+
+    @Setup
+    public void setup() {
+        Tensors tensors = new Tensors();
+        vectorA = tensors.denseVector("x", 256);
+        vectorB = tensors.denseVector("x", 256);
+        matrixA = tensors.denseMatrix("i", 16, "x", 256);
+        matrixB = tensors.denseMatrix("i", 16, "x", 256);
+    }
+
+    @Benchmark
+    public Tensor denseVectorConcat() { return vectorA.concat(vectorB, "x"); }
+
+    @Benchmark
+    public Tensor denseMatrixConcatInner() { return matrixA.concat(matrixB, "x"); }
+
+    @Benchmark
+    public Tensor denseMatrixConcatOuter() { return matrixA.concat(matrixB, "i"); }
+
+}
@@ -0,0 +1,79 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.benchmark;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the join tensor function, and of join followed by reduce (dot product),
+ * over dense, sparse and mixed tensors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JoinBenchmark {
+
+    private final TensorFunction join = new Join(new VariableTensor("a"), new VariableTensor("b"),
+                                                 ScalarFunctions.multiply());
+    private final TensorFunction dotProduct = new Reduce(join, Reduce.Aggregator.sum);
+
+    private MapEvaluationContext denseVectors;
+    private MapEvaluationContext denseMatrixAndVector;
+    private MapEvaluationContext sparseVectors;
+    private MapEvaluationContext mixedAndDenseVector;
+
+    @Setup
+    public void setup() {
+        Tensors tensors = new Tensors();
+        denseVectors = context(tensors.denseVector("x", 256), tensors.denseVector("x", 256));
+        denseMatrixAndVector = context(tensors.denseMatrix("i", 64, "x", 256), tensors.denseVector("x", 256));
+        sparseVectors = context(tensors.sparseVector("x", 10000), tensors.sparseVector("x", 10000));
+        mixedAndDenseVector = context(tensors.mixed("key", 16, "x", 256), tensors.denseVector("x", 256));
+    }
+
+    private MapEvaluationContext context(Tensor a, Tensor b) {
+        MapEvaluationContext context = new MapEvaluationContext();
+        context.put("a", a);
+        context.put("b", b);
+        return context;
+    }
+
+    @Benchmark
+    public Tensor denseVectorJoin() { return join.evaluate(denseVectors); }
+
+    @Benchmark
+    public Tensor denseVectorDotProduct() { return dotProduct.evaluate(denseVectors); }
+
+    @Benchmark
+    public Tensor denseBroadcastJoin() { return join.evaluate(denseMatrixAndVector); }
+
+    @Benchmark
+    public Tensor sparseVectorJoin() { return join.evaluate(sparseVectors); }
+
+    @Benchmark
+    public Tensor sparseVectorDotProduct() { return dotProduct.evaluate(sparseVectors); }
+
+    @Benchmark
+    public Tensor mixedBroadcastJoin() { return join.evaluate(mixedAndDenseVector); }
+
+}
@@ -0,0 +1,61 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.benchmark;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import com.yahoo.tensor.functions.Matmul;
+import com.yahoo.tensor.functions.TensorFunction;
+import com.yahoo.tensor.functions.XwPlusB;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the matmul and xw_plus_b composite tensor functions on dense tensors,
+ * evaluated through their primitive form as done in ranking expressions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MatmulBenchmark {
+
+    private final TensorFunction vectorMatmul = new Matmul(new VariableTensor("x"), new VariableTensor("w"), "d").toPrimitive();
+    private final TensorFunction matrixMatmul = new Matmul(new VariableTensor("m"), new VariableTensor("w"), "d").toPrimitive();
+    private final TensorFunction xwPlusB = new XwPlusB(new VariableTensor("x"), new VariableTensor("w"),
+                                                       new VariableTensor("b"), "d").toPrimitive();
+
+    private MapEvaluationContext context;
+
+    @Setup
+    public void setup() {
+        Tensors tensors = new Tensors();
+        context = new MapEvaluationContext();
+        context.put("x", tensors.denseVector("d", 256));
+        context.put("m", tensors.denseMatrix("i", 8, "d", 256));
+        context.put("w", tensors.denseMatrix("d", 256, "h", 64));
+        context.put("b", tensors.denseVector("h", 64));
+    }
+
+    @Benchmark
+    public Tensor vectorMatrixMatmul() { return vectorMatmul.evaluate(context); }
+
+    @Benchmark
+    public Tensor matrixMatrixMatmul() { return matrixMatmul.evaluate(context); }
+
+    @Benchmark
+    public Tensor vectorXwPlusB() { return xwPlusB.evaluate(context); }
+
+}
@@ -0,0 +1,62 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.benchmark;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.functions.Reduce;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the reduce tensor function over dense, sparse and mixed tensors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ReduceBenchmark {
+
+    private Tensor denseVector;
+    private Tensor denseMatrix;
+    private Tensor sparseVector;
+    private Tensor mixed;
+
+    @Setup
+    public void setup() {
+        Tensors tensors = new Tensors();
+        denseVector = tensors.denseVector("x", 256);
+        denseMatrix = tensors.denseMatrix("i", 256, "x", 256);
+        sparseVector = tensors.sparseVector("x", 10000);
+        mixed = tensors.mixed("key", 16, "x", 256);
+    }
+
+    @Benchmark
+    public Tensor denseVectorSum() { return denseVector.reduce(Reduce.Aggregator.sum); }
+
+    @Benchmark
+    public Tensor denseMatrixSumAll() { return denseMatrix.reduce(Reduce.Aggregator.sum); }
+
+    @Benchmark
+    public Tensor denseMatrixSumInner() { return denseMatrix.reduce(Reduce.Aggregator.sum, "x"); }
+
+    @Benchmark
+    public Tensor denseMatrixMaxOuter() { return denseMatrix.reduce(Reduce.Aggregator.max, "i"); }
+
+    @Benchmark
+    public Tensor sparseVectorSum() { return sparseVector.reduce(Reduce.Aggregator.sum); }
+
+    @Benchmark
+    public Tensor mixedSumIndexed() { return mixed.reduce(Reduce.Aggregator.sum, "x"); }
+
+}
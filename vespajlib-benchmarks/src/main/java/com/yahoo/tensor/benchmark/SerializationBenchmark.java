@@ -0,0 +1,77 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.benchmark;
+
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of encoding and decoding dense, sparse and mixed tensors with {@link TypedBinaryFormat}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializationBenchmark {
+
+    private Tensor dense, sparse, mixed;
+    private byte[] denseData, sparseData, mixedData;
+
+    @Setup
+    public void setup() {
+        Tensors tensors = new Tensors();
+        dense = tensors.denseMatrix("i", 16, "x", 256);
+        sparse = tensors.sparseVector("x", 10000);
+        mixed = tensors.mixed("key", 16, "x", 256);
+        denseData = TypedBinaryFormat.encode(dense);
+        sparseData = TypedBinaryFormat.encode(sparse);
+        mixedData = TypedBinaryFormat.encode(mixed);
+    }
+
+    @Benchmark
+    public byte[] encodeDense() { return TypedBinaryFormat.encode(dense); }
+
+    @Benchmark
+    public Tensor decodeDense() { return decode(denseData); }
+
+    @Benchmark
+    public Tensor roundTripDense() { return decode(TypedBinaryFormat.encode(dense)); }
+
+    @Benchmark
+    public byte[] encodeSparse() { return TypedBinaryFormat.encode(sparse); }
+
+    @Benchmark
+    public Tensor decodeSparse() { return decode(sparseData); }
+
+    @Benchmark
+    public Tensor roundTripSparse() { return decode(TypedBinaryFormat.encode(sparse)); }
+
+    @Benchmark
+    public byte[] encodeMixed() { return TypedBinaryFormat.encode(mixed); }
+
+    @Benchmark
+    public Tensor decodeMixed() { return decode(mixedData); }
+
+    @Benchmark
+    public Tensor roundTripMixed() { return decode(TypedBinaryFormat.encode(mixed)); }
+
+    private Tensor decode(byte[] data) {
+        return TypedBinaryFormat.decode(Optional.empty(), GrowableByteBuffer.wrap(data));
+    }
+
+}
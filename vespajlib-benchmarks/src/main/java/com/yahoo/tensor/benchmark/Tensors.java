@@ -0,0 +1,59 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.benchmark;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.Random;
+
+/**
+ * Factory of randomly filled tensors of the shapes used in the benchmarks.
+ * A fixed seed is used so that all benchmark runs see the same data.
+ */
+class Tensors {
+
+    private final Random random = new Random(17);
+
+    /** Returns a dense vector of type tensor(dimension[size]) */
+    Tensor denseVector(String dimension, int size) {
+        TensorType type = new TensorType.Builder().indexed(dimension, size).build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int i = 0; i < size; i++)
+            builder.cell(random.nextDouble(), i);
+        return builder.build();
+    }
+
+    /** Returns a dense matrix of type tensor(dimension1[size1],dimension2[size2]) */
+    Tensor denseMatrix(String dimension1, int size1, String dimension2, int size2) {
+        TensorType type = new TensorType.Builder().indexed(dimension1, size1).indexed(dimension2, size2).build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int i = 0; i < size1; i++)
+            for (int j = 0; j < size2; j++)
+                builder.cell().label(dimension1, i).label(dimension2, j).value(random.nextDouble());
+        return builder.build();
+    }
+
+    /**
+     * Returns a sparse vector of type tensor(dimension{}) with the given number of cells,
+     * where labels are drawn from a space twice that size, such that about half the cells of two
+     * sparse vectors of the same size will match when joined.
+     */
+    Tensor sparseVector(String dimension, int cells) {
+        TensorType type = new TensorType.Builder().mapped(dimension).build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int i = 0; i < cells; i++)
+            builder.cell().label(dimension, String.valueOf(i * 2 + random.nextInt(2))).value(random.nextDouble());
+        return builder.build();
+    }
+
+    /** Returns a mixed tensor of type tensor(mappedDimension{},indexedDimension[size]) */
+    Tensor mixed(String mappedDimension, int labels, String indexedDimension, int size) {
+        TensorType type = new TensorType.Builder().mapped(mappedDimension).indexed(indexedDimension, size).build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int i = 0; i < labels; i++)
+            for (int j = 0; j < size; j++)
+                builder.cell().label(mappedDimension, "label" + i).label(indexedDimension, j).value(random.nextDouble());
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,6 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+/**
+ * JMH microbenchmarks of tensor functions and tensor serialization.
+ * Run {@link com.yahoo.tensor.benchmark.BenchmarkRunner} to execute them with allocation profiling.
+ */
+package com.yahoo.tensor.benchmark;
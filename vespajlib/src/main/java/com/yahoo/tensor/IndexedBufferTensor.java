@@ -0,0 +1,76 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only indexed tensor which is a view over cell values serialized in a byte buffer,
+ * in the order of the direct indexes of this tensor. Cell values are decoded when they are accessed,
+ * so tensors which are only iterated over once (e.g when rendered) are never materialized.
+ * <p>
+ * The cells may be stored as doubles or floats independently of the value type of this tensor.
+ * The buffer must not be changed while this is in use. It is read by absolute positions only,
+ * so instances are thread safe.
+ */
+public class IndexedBufferTensor extends IndexedTensor {
+
+    private final ByteBuffer cells;
+    private final TensorType.Value cellType;
+    private final long size;
+
+    /**
+     * Creates a tensor view over the given cell values
+     *
+     * @param type the type of this tensor
+     * @param dimensionSizes the sizes of the dimensions of this tensor
+     * @param cells a buffer containing the serialized cell values of this, starting at position 0,
+     *              using the byte order of the buffer. This buffer is owned by this after this call
+     * @param cellType the type of the values stored in the buffer
+     * @throws IllegalArgumentException if the buffer does not contain the number of cells given by the sizes
+     */
+    public IndexedBufferTensor(TensorType type, DimensionSizes dimensionSizes, ByteBuffer cells, TensorType.Value cellType) {
+        super(type, dimensionSizes);
+        this.size = dimensionSizes.totalSize();
+        if (cells.limit() < size * bytesPerCell(cellType))
+            throw new IllegalArgumentException("A buffer of " + cells.limit() + " bytes cannot hold the " + size +
+                                               " " + cellType + " cells of a " + type);
+        this.cells = cells;
+        this.cellType = cellType;
+    }
+
+    @Override
+    public long size() { return size; }
+
+    @Override
+    public double getByDirectIndex(long index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " is outside a tensor of size " + size);
+        if (cellType == TensorType.Value.FLOAT)
+            return cells.getFloat((int)index * 4);
+        else
+            return cells.getDouble((int)index * 8);
+    }
+
+    /** Returns the same hash code as the array backed tensors holding the same values */
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        if (type().valueType() == TensorType.Value.FLOAT) {
+            for (long i = 0; i < size; i++)
+                hashCode = 31 * hashCode + Float.floatToIntBits((float)getByDirectIndex(i));
+        }
+        else {
+            for (long i = 0; i < size; i++) {
+                long bits = Double.doubleToLongBits(getByDirectIndex(i));
+                hashCode = 31 * hashCode + (int)(bits ^ (bits >>> 32));
+            }
+        }
+        return hashCode;
+    }
+
+    /** Returns the number of bytes used to store a cell of the given type */
+    public static int bytesPerCell(TensorType.Value cellType) {
+        return cellType == TensorType.Value.FLOAT ? 4 : 8;
+    }
+
+}
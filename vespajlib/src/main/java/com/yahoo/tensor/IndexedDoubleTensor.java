@@ -0,0 +1,53 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.util.Arrays;
+
+/**
+ * An indexed tensor implementation holding values as doubles
+ */
+class IndexedDoubleTensor extends IndexedTensor {
+
+    private final double[] values;
+
+    IndexedDoubleTensor(TensorType type, DimensionSizes dimensionSizes, double[] values) {
+        super(type, dimensionSizes);
+        this.values = values;
+    }
+
+    @Override
+    public long size() {
+        return values.length;
+    }
+
+    @Override
+    public double getByDirectIndex(long index) { return values[(int)index]; }
+
+    @Override
+    public int hashCode() { return Arrays.hashCode(values); }
+
+    /** A bound builder which can create the double array directly */
+    static class BoundDoubleBuilder extends BoundBuilder {
+
+        private double[] values;
+
+        BoundDoubleBuilder(TensorType type, DimensionSizes sizes) {
+            super(type, sizes);
+            values = new double[(int)sizes.totalSize()];
+        }
+
+        @Override
+        public void cellByDirectIndex(long index, double value) {
+            values[(int)index] = value;
+        }
+
+        @Override
+        IndexedTensor build(DimensionSizes sizes) {
+            IndexedTensor tensor = new IndexedDoubleTensor(type, sizes, values);
+            values = null; // prevent further modification
+            return tensor;
+        }
+
+    }
+
+}
@@ -0,0 +1,54 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.util.Arrays;
+
+/**
+ * An indexed tensor implementation holding values as floats, used for tensors having the float value type.
+ * Values are converted to float when set, and widened to double when read.
+ */
+class IndexedFloatTensor extends IndexedTensor {
+
+    private final float[] values;
+
+    IndexedFloatTensor(TensorType type, DimensionSizes dimensionSizes, float[] values) {
+        super(type, dimensionSizes);
+        this.values = values;
+    }
+
+    @Override
+    public long size() {
+        return values.length;
+    }
+
+    @Override
+    public double getByDirectIndex(long index) { return values[(int)index]; }
+
+    @Override
+    public int hashCode() { return Arrays.hashCode(values); }
+
+    /** A bound builder which can create the float array directly */
+    static class BoundFloatBuilder extends BoundBuilder {
+
+        private float[] values;
+
+        BoundFloatBuilder(TensorType type, DimensionSizes sizes) {
+            super(type, sizes);
+            values = new float[(int)sizes.totalSize()];
+        }
+
+        @Override
+        public void cellByDirectIndex(long index, double value) {
+            values[(int)index] = (float)value;
+        }
+
+        @Override
+        IndexedTensor build(DimensionSizes sizes) {
+            IndexedTensor tensor = new IndexedFloatTensor(type, sizes, values);
+            values = null; // prevent further modification
+            return tensor;
+        }
+
+    }
+
+}
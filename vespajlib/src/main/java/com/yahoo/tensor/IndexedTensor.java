@@ -15,11 +15,12 @@ import java.util.Optional;
 import java.util.Set;
 
 /**
- * An indexed (dense) tensor backed by a double array.
+ * An indexed (dense) tensor backed by an array of cell values,
+ * which is an array of doubles or floats depending on the value type of the tensor type.
  *
  * @author bratseth
  */
-public class IndexedTensor implements Tensor {
+public abstract class IndexedTensor implements Tensor {
 
     /** The prescribed and possibly abstract type this is an instance of */
     private final TensorType type;
@@ -27,17 +28,20 @@ public class IndexedTensor implements Tensor {
     /** The sizes of the dimensions of this in the order of the dimensions of the type */
     private final DimensionSizes dimensionSizes;
 
-    private final double[] values;
-
-    private IndexedTensor(TensorType type, DimensionSizes dimensionSizes, double[] values) {
+    IndexedTensor(TensorType type, DimensionSizes dimensionSizes) {
         this.type = type;
         this.dimensionSizes = dimensionSizes;
-        this.values = values;
     }
 
-    @Override
-    public long size() {
-        return values.length;
+    /** Creates an indexed tensor holding the given values, stored as floats if the type has float values */
+    static IndexedTensor create(TensorType type, DimensionSizes dimensionSizes, double[] values) {
+        if (type.valueType() == TensorType.Value.FLOAT) {
+            float[] floatValues = new float[values.length];
+            for (int i = 0; i < values.length; i++)
+                floatValues[i] = (float)values[i];
+            return new IndexedFloatTensor(type, dimensionSizes, floatValues);
+        }
+        return new IndexedDoubleTensor(type, dimensionSizes, values);
     }
 
     /**
@@ -101,7 +105,7 @@ public class IndexedTensor implements Tensor {
      * @throws IndexOutOfBoundsException if any of the indexes are out of bound or a wrong number of indexes are given
      */
     public double get(long ... indexes) {
-        return values[(int)toValueIndex(indexes, dimensionSizes)];
+        return getByDirectIndex(toValueIndex(indexes, dimensionSizes));
     }
 
     /** Returns the value at this address, or NaN if there is no value at this address */
@@ -109,14 +113,19 @@ public class IndexedTensor implements Tensor {
     public double get(TensorAddress address) {
         // optimize for fast lookup within bounds:
         try {
-            return values[(int)toValueIndex(address, dimensionSizes)];
+            return getByDirectIndex(toValueIndex(address, dimensionSizes));
         }
         catch (IndexOutOfBoundsException e) {
             return Double.NaN;
         }
     }
 
-    private double get(long valueIndex) { return values[(int)valueIndex]; }
+    /**
+     * Returns the value at the given index in the internal layout of cells of this.
+     * This requires knowledge of the internal layout of cells in this implementation, and should therefore
+     * probably not be used (but when it can be used it is fast).
+     */
+    public abstract double getByDirectIndex(long index);
 
     private static long toValueIndex(long[] indexes, DimensionSizes sizes) {
         if (indexes.length == 1) return indexes[0]; // for speed
@@ -162,20 +171,17 @@ public class IndexedTensor implements Tensor {
     @Override
     public Map<TensorAddress, Double> cells() {
         if (dimensionSizes.dimensions() == 0)
-            return Collections.singletonMap(TensorAddress.of(), values[0]);
+            return Collections.singletonMap(TensorAddress.of(), getByDirectIndex(0));
 
         ImmutableMap.Builder<TensorAddress, Double> builder = new ImmutableMap.Builder<>();
-        Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, values.length);
-        for (long i = 0; i < values.length; i++) {
+        Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, size());
+        for (long i = 0; i < size(); i++) {
             indexes.next();
-            builder.put(indexes.toAddress(), values[(int)i]);
+            builder.put(indexes.toAddress(), getByDirectIndex(i));
         }
         return builder.build();
     }
 
-    @Override
-    public int hashCode() { return Arrays.hashCode(values); }
-
     @Override
     public String toString() { return Tensor.toStandardString(this); }
 
@@ -195,7 +201,7 @@ public class IndexedTensor implements Tensor {
 
         public static Builder of(TensorType type) {
             if (type.dimensions().stream().allMatch(d -> d instanceof TensorType.IndexedBoundDimension))
-                return new BoundBuilder(type);
+                return BoundBuilder.create(type, BoundBuilder.dimensionSizesOf(type));
             else
                 return new UnboundBuilder(type);
         }
@@ -218,7 +224,7 @@ public class IndexedTensor implements Tensor {
                                                        " but cannot be larger than " + size.get() + " in " + type);
             }
 
-            return new BoundBuilder(type, sizes);
+            return BoundBuilder.create(type, sizes);
         }
 
         public abstract Builder cell(double value, long ... indexes);
@@ -231,14 +237,16 @@ public class IndexedTensor implements Tensor {
 
     }
 
-    /** A bound builder can create the double array directly */
-    public static class BoundBuilder extends Builder {
+    /** A bound builder can create the value array directly */
+    public abstract static class BoundBuilder extends Builder {
 
         private DimensionSizes sizes;
-        private double[] values;
 
-        private BoundBuilder(TensorType type) {
-            this(type, dimensionSizesOf(type));
+        private static BoundBuilder create(TensorType type, DimensionSizes sizes) {
+            if (type.valueType() == TensorType.Value.FLOAT)
+                return new IndexedFloatTensor.BoundFloatBuilder(type, sizes);
+            else
+                return new IndexedDoubleTensor.BoundDoubleBuilder(type, sizes);
         }
 
         static DimensionSizes dimensionSizesOf(TensorType type) {
@@ -248,17 +256,16 @@ public class IndexedTensor implements Tensor {
             return b.build();
         }
 
-        private BoundBuilder(TensorType type, DimensionSizes sizes) {
+        BoundBuilder(TensorType type, DimensionSizes sizes) {
             super(type);
             if ( sizes.dimensions() != type.dimensions().size())
                 throw new IllegalArgumentException("Must have a dimension size entry for each dimension in " + type);
             this.sizes = sizes;
-            values = new double[(int)sizes.totalSize()];
         }
 
         @Override
         public BoundBuilder cell(double value, long ... indexes) {
-            values[(int)toValueIndex(indexes, sizes)] = value;
+            cellByDirectIndex(toValueIndex(indexes, sizes), value);
             return this;
         }
 
@@ -269,24 +276,25 @@ public class IndexedTensor implements Tensor {
 
         @Override
         public Builder cell(TensorAddress address, double value) {
-            values[(int)toValueIndex(address, sizes)] = value;
+            cellByDirectIndex(toValueIndex(address, sizes), value);
             return this;
         }
 
         @Override
         public IndexedTensor build() {
-            IndexedTensor tensor = new IndexedTensor(type, sizes, values);
-            // prevent further modification
-            sizes = null;
-            values = null;
+            IndexedTensor tensor = build(sizes);
+            sizes = null; // prevent further modification
             return tensor;
         }
 
+        /** Creates the tensor from the values set in this, and releases the values held by this */
+        abstract IndexedTensor build(DimensionSizes sizes);
+
         @Override
         public Builder cell(Cell cell, double value) {
             long directIndex = cell.getDirectIndex();
             if (directIndex >= 0) // optimization
-                values[(int)directIndex] = value;
+                cellByDirectIndex(directIndex, value);
             else
                 super.cell(cell, value);
             return this;
@@ -297,9 +305,7 @@ public class IndexedTensor implements Tensor {
          * This requires knowledge of the internal layout of cells in this implementation, and should therefore
          * probably not be used (but when it can be used it is fast).
          */
-        public void cellByDirectIndex(long index, double value) {
-            values[(int)index] = value;
-        }
+        public abstract void cellByDirectIndex(long index, double value);
 
     }
 
@@ -321,12 +327,12 @@ public class IndexedTensor implements Tensor {
             if (firstDimension == null) throw new IllegalArgumentException("Tensor of type " + type() + " has no values");
 
             if (type.dimensions().isEmpty()) // single number
-                return new IndexedTensor(type, new DimensionSizes.Builder(type.dimensions().size()).build(), new double[] {(Double) firstDimension.get(0) });
+                return create(type, new DimensionSizes.Builder(type.dimensions().size()).build(), new double[] {(Double) firstDimension.get(0) });
 
             DimensionSizes dimensionSizes = findDimensionSizes(firstDimension);
             double[] values = new double[(int)dimensionSizes.totalSize()];
             fillValues(0, 0, firstDimension, dimensionSizes, values);
-            return new IndexedTensor(type, dimensionSizes, values);
+            return create(type, dimensionSizes, values);
         }
 
         private DimensionSizes findDimensionSizes(List<Object> firstDimension) {
@@ -433,7 +439,7 @@ public class IndexedTensor implements Tensor {
     private final class CellIterator implements Iterator<Cell> {
 
         private long count = 0;
-        private final Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, values.length);
+        private final Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, size());
         private final LazyCell reusedCell = new LazyCell(indexes, Double.NaN);
 
         @Override
@@ -446,7 +452,7 @@ public class IndexedTensor implements Tensor {
             if ( ! hasNext()) throw new NoSuchElementException("No cell at " + indexes);
             count++;
             indexes.next();
-            reusedCell.value = get(indexes.toSourceValueIndex());
+            reusedCell.value = getByDirectIndex(indexes.toSourceValueIndex());
             return reusedCell;
         }
 
@@ -458,17 +464,13 @@ public class IndexedTensor implements Tensor {
 
         @Override
         public boolean hasNext() {
-            return count < values.length;
+            return count < size();
         }
 
         @Override
         public Double next() {
-            try {
-                return values[(int)count++];
-            }
-            catch (IndexOutOfBoundsException e) {
-                throw new NoSuchElementException("No element at position " + count);
-            }
+            if ( ! hasNext()) throw new NoSuchElementException("No element at position " + count);
+            return getByDirectIndex(count++);
         }
 
     }
@@ -585,7 +587,7 @@ public class IndexedTensor implements Tensor {
             if ( ! hasNext()) throw new NoSuchElementException("No cell at " + indexes);
             count++;
             indexes.next();
-            reusedCell.value = get(indexes.toSourceValueIndex());
+            reusedCell.value = getByDirectIndex(indexes.toSourceValueIndex());
             return reusedCell;
         }
 
@@ -0,0 +1,81 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A dictionary of the labels of mapped tensor dimensions. This assigns each distinct label a small integer id
+ * such that sparse tensor addresses can be stored, hashed and compared as primitives.
+ * <p>
+ * Each index of sparse addresses has its own dictionary (see {@link SparseAddressIndex}), so the labels are
+ * released with the tensors using them. Ids are only comparable between addresses having the same dictionary.
+ * A dictionary is frozen when the tensor using it is built, after which it is never modified and can be shared
+ * by other indexes, such as the index of a tensor built from the cells of another.
+ * <p>
+ * This is not thread safe while being built, but is safe for concurrent reads once frozen.
+ */
+final class Labels {
+
+    private final Map<String, Integer> ids;
+
+    /** The labels by id */
+    private String[] labels;
+
+    private int size = 0;
+
+    private boolean frozen = false;
+
+    Labels() {
+        this.ids = new HashMap<>();
+        this.labels = new String[16];
+    }
+
+    private Labels(Labels other) {
+        this.ids = new HashMap<>(other.ids);
+        this.labels = Arrays.copyOf(other.labels, other.labels.length);
+        this.size = other.size;
+    }
+
+    /** Returns a copy of this which can be modified independently */
+    Labels copy() { return new Labels(this); }
+
+    /** Makes this unmodifiable */
+    void freeze() { frozen = true; }
+
+    boolean isFrozen() { return frozen; }
+
+    /**
+     * Returns the id of the given label, assigning it a new id if it is not already present
+     *
+     * @throws IllegalStateException if a new id must be assigned and this is frozen
+     */
+    int id(String label) {
+        Integer id = ids.get(label);
+        if (id != null) return id;
+        if (frozen)
+            throw new IllegalStateException("Cannot add label '" + label + "' to a frozen label dictionary");
+
+        if (size == labels.length)
+            labels = Arrays.copyOf(labels, size * 2);
+        labels[size] = label;
+        ids.put(label, size);
+        return size++;
+    }
+
+    /** Returns the id of the given label, or -1 if it has not been assigned an id */
+    int idIfPresent(String label) {
+        Integer id = ids.get(label);
+        return id == null ? -1 : id;
+    }
+
+    /** Returns the number of labels in this, which are the ids from 0 up to (not including) this */
+    int size() { return size; }
+
+    /** Returns the label having the given id, which must have been returned from id(label) */
+    String label(int id) {
+        return labels[id];
+    }
+
+}
@@ -3,11 +3,14 @@ package com.yahoo.tensor;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
- * A sparse implementation of a tensor backed by a Map of cells to values.
+ * A sparse implementation of a tensor backed by an index of cell addresses and an array of values.
+ * Addresses are stored as primitives holding the ids of interned labels where possible (see {@link SparseAddressIndex}).
  *
  * @author bratseth
  */
@@ -15,34 +18,60 @@ public class MappedTensor implements Tensor {
 
     private final TensorType type;
 
-    private final ImmutableMap<TensorAddress, Double> cells;
+    /** The addresses of the cells of this */
+    private final SparseAddressIndex index;
+
+    /** The cell values of this, by the ordinal of their address in the index */
+    private final double[] values;
+
+    /** The cells of this as a map, created when first requested */
+    private volatile Map<TensorAddress, Double> cells = null;
 
     /** Creates a sparse tensor. The cell addresses must match the type. */
-    private MappedTensor(TensorType type, Map<TensorAddress, Double> cells) {
+    private MappedTensor(TensorType type, SparseAddressIndex index, double[] values) {
         this.type = type;
-        this.cells = ImmutableMap.copyOf(cells);
+        this.index = index;
+        this.values = values;
     }
 
     @Override
     public TensorType type() { return type; }
 
     @Override
-    public long size() { return cells.size(); }
+    public long size() { return values.length; }
 
     @Override
-    public double get(TensorAddress address) { return cells.getOrDefault(address, Double.NaN); }
+    public double get(TensorAddress address) {
+        int ordinal = index.indexOf(address);
+        return ordinal < 0 ? Double.NaN : values[ordinal];
+    }
 
     @Override
-    public Iterator<Cell> cellIterator() { return new CellIteratorAdaptor(cells.entrySet().iterator()); }
+    public Iterator<Cell> cellIterator() { return new CellIterator(); }
 
     @Override
-    public Iterator<Double> valueIterator() { return cells.values().iterator(); }
+    public Iterator<Double> valueIterator() { return new ValueIterator(); }
 
     @Override
-    public Map<TensorAddress, Double> cells() { return cells; }
+    public Map<TensorAddress, Double> cells() {
+        Map<TensorAddress, Double> cells = this.cells;
+        if (cells == null) {
+            ImmutableMap.Builder<TensorAddress, Double> builder = new ImmutableMap.Builder<>();
+            for (int i = 0; i < values.length; i++)
+                builder.put(index.address(i), values[i]);
+            this.cells = cells = builder.build();
+        }
+        return cells;
+    }
 
+    /** Returns the same hash code as the map returned from cells() */
     @Override
-    public int hashCode() { return cells.hashCode(); }
+    public int hashCode() {
+        int hashCode = 0;
+        for (int i = 0; i < values.length; i++)
+            hashCode += index.address(i).hashCode() ^ Double.hashCode(values[i]);
+        return hashCode;
+    }
 
     @Override
     public String toString() { return Tensor.toStandardString(this); }
@@ -56,12 +85,17 @@ public class MappedTensor implements Tensor {
     public static class Builder implements Tensor.Builder {
 
         private final TensorType type;
-        private final ImmutableMap.Builder<TensorAddress, Double> cells = new ImmutableMap.Builder<>();
+        private SparseAddressIndex index;
+        private double[] values = new double[16];
+
+        /** Whether the current index is used by a built tensor, such that it must be copied before modification */
+        private boolean indexIsShared = false;
 
         public static Builder of(TensorType type) { return new Builder(type); }
 
         private Builder(TensorType type) {
             this.type = type;
+            this.index = new SparseAddressIndex(type.dimensions().size());
         }
 
         public CellBuilder cell() {
@@ -73,38 +107,59 @@ public class MappedTensor implements Tensor {
 
         @Override
         public Builder cell(TensorAddress address, double value) {
-            cells.put(address, value);
+            if (indexIsShared) {
+                index = index.copy();
+                indexIsShared = false;
+            }
+            int ordinal = index.add(address);
+            if (ordinal == values.length)
+                values = Arrays.copyOf(values, values.length * 2);
+            values[ordinal] = value;
             return this;
         }
 
         @Override
         public Builder cell(double value, long... labels) {
-            cells.put(TensorAddress.of(labels), value);
-            return this;
+            return cell(TensorAddress.of(labels), value);
         }
 
         @Override
         public MappedTensor build() {
-            return new MappedTensor(type, cells.build());
+            indexIsShared = true;
+            index.freeze();
+            return new MappedTensor(type, index, Arrays.copyOf(values, index.size()));
         }
 
     }
 
-    private static class CellIteratorAdaptor implements Iterator<Cell> {
+    private final class CellIterator implements Iterator<Cell> {
 
-        private final Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator;
+        private int ordinal = 0;
 
-        private CellIteratorAdaptor(Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator) {
-            this.adaptedIterator = adaptedIterator;
+        @Override
+        public boolean hasNext() { return ordinal < values.length; }
+
+        @Override
+        public Cell next() {
+            if ( ! hasNext()) throw new NoSuchElementException("No cell at position " + ordinal);
+            Cell cell = new Cell(index.address(ordinal), values[ordinal]);
+            ordinal++;
+            return cell;
         }
 
+    }
+
+    private final class ValueIterator implements Iterator<Double> {
+
+        private int ordinal = 0;
+
         @Override
-        public boolean hasNext() { return adaptedIterator.hasNext(); }
+        public boolean hasNext() { return ordinal < values.length; }
 
         @Override
-        public Cell next() {
-            Map.Entry<TensorAddress, Double> entry = adaptedIterator.next();
-            return new Cell(entry.getKey(), entry.getValue());
+        public Double next() {
+            if ( ! hasNext()) throw new NoSuchElementException("No value at position " + ordinal);
+            return values[ordinal++];
         }
 
     }
@@ -2,13 +2,14 @@
 
 package com.yahoo.tensor;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 /**
@@ -27,15 +28,15 @@ public class MixedTensor implements Tensor {
     /** The dimension specification for this tensor */
     private final TensorType type;
 
-    /** The list of cells in the tensor */
-    private final ImmutableList<Cell> cells;
+    /** The cell values of this, ordered by dense subspace, in the order of the sparse addresses in the index */
+    private final double[] values;
 
-    /** An index structure over the cell list */
+    /** An index structure over the cell values */
     private final Index index;
 
-    private MixedTensor(TensorType type, ImmutableList<Cell> cells, Index index) {
+    private MixedTensor(TensorType type, double[] values, Index index) {
         this.type = type;
-        this.cells = ImmutableList.copyOf(cells);
+        this.values = values;
         this.index = index;
     }
 
@@ -45,17 +46,15 @@ public class MixedTensor implements Tensor {
 
     /** Returns the size of the tensor measured in number of cells */
     @Override
-    public long size() { return cells.size(); }
+    public long size() { return values.length; }
 
     /** Returns the value at the given address */
     @Override
     public double get(TensorAddress address) {
         long cellIndex = index.indexOf(address);
-        Cell cell = cells.get((int)cellIndex);
-        if (!address.equals(cell.getKey())) {
+        if (cellIndex >= values.length)
             throw new IllegalStateException("Unable to find correct cell by direct index.");
-        }
-        return cell.getValue();
+        return values[(int)cellIndex];
     }
 
     /**
@@ -67,7 +66,20 @@ public class MixedTensor implements Tensor {
      */
     @Override
     public Iterator<Cell> cellIterator() {
-        return cells.iterator();
+        return new Iterator<Cell>() {
+            int cellIndex = 0;
+            @Override
+            public boolean hasNext() {
+                return cellIndex < values.length;
+            }
+            @Override
+            public Cell next() {
+                if ( ! hasNext()) throw new NoSuchElementException("No cell at position " + cellIndex);
+                Cell cell = new Cell(index.addressOf(cellIndex), values[cellIndex]);
+                cellIndex++;
+                return cell;
+            }
+        };
     }
 
     /**
@@ -77,14 +89,15 @@ public class MixedTensor implements Tensor {
     @Override
     public Iterator<Double> valueIterator() {
         return new Iterator<Double>() {
-            Iterator<Cell> cellIterator = cellIterator();
+            int cellIndex = 0;
             @Override
             public boolean hasNext() {
-                return cellIterator.hasNext();
+                return cellIndex < values.length;
             }
             @Override
             public Double next() {
-                return cellIterator.next().getValue();
+                if ( ! hasNext()) throw new NoSuchElementException("No value at position " + cellIndex);
+                return values[cellIndex++];
             }
         };
     }
@@ -92,14 +105,21 @@ public class MixedTensor implements Tensor {
     @Override
     public Map<TensorAddress, Double> cells() {
         ImmutableMap.Builder<TensorAddress, Double> builder = new ImmutableMap.Builder<>();
-        for (Cell cell : cells) {
+        for (Iterator<Cell> i = cellIterator(); i.hasNext(); ) {
+            Cell cell = i.next();
             builder.put(cell.getKey(), cell.getValue());
         }
         return builder.build();
     }
 
+    /** Returns the same hash code as a list of the cells of this */
     @Override
-    public int hashCode() { return cells.hashCode(); }
+    public int hashCode() {
+        int hashCode = 1;
+        for (Iterator<Cell> i = cellIterator(); i.hasNext(); )
+            hashCode = 31 * hashCode + i.next().hashCode();
+        return hashCode;
+    }
 
     @Override
     public String toString() { return Tensor.toStandardString(this); }
@@ -158,6 +178,11 @@ public class MixedTensor implements Tensor {
         @Override
         public abstract MixedTensor build();
 
+        /** Returns the given value as it is stored in a tensor of the type of this */
+        double toCellValue(double value) {
+            return type.valueType() == TensorType.Value.FLOAT ? (float)value : value;
+        }
+
     }
 
 
@@ -166,61 +191,62 @@ public class MixedTensor implements Tensor {
      */
     public static class BoundBuilder extends Builder {
 
-        /** For each sparse partial address, hold a dense subspace */
-        final private Map<TensorAddress, double[]> denseSubspaceMap = new HashMap<>();
-        final private Index.Builder indexBuilder;
-        final private Index index;
+        /** The dense subspaces of this, by the ordinal of their sparse address in the index */
+        private final List<double[]> denseSubspaces = new ArrayList<>();
+        private Index index;
+
+        /** Whether the current index is used by a built tensor, such that it must be copied before modification */
+        private boolean indexIsShared = false;
 
         private BoundBuilder(TensorType type) {
             super(type);
-            indexBuilder = new Index.Builder(type);
-            index = indexBuilder.index();
+            index = new Index(type);
         }
 
         public long denseSubspaceSize() {
             return index.denseSubspaceSize();
         }
 
-        private double[] denseSubspace(TensorAddress sparsePartial) {
-            if (!denseSubspaceMap.containsKey(sparsePartial)) {
-                denseSubspaceMap.put(sparsePartial, new double[(int)denseSubspaceSize()]);
+        /** Returns the dense subspace having the given ordinal in the sparse index, creating it if necessary */
+        private double[] denseSubspace(int sparseOrdinal) {
+            if (sparseOrdinal == denseSubspaces.size())
+                denseSubspaces.add(new double[(int)denseSubspaceSize()]);
+            return denseSubspaces.get(sparseOrdinal);
+        }
+
+        private Index modifiableIndex() {
+            if (indexIsShared) {
+                index = index.copy();
+                indexIsShared = false;
             }
-            return denseSubspaceMap.get(sparsePartial);
+            return index;
         }
 
         @Override
         public Tensor.Builder cell(TensorAddress address, double value) {
-            TensorAddress sparsePart = index.sparsePartialAddress(address);
+            int sparseOrdinal = modifiableIndex().addSparsePartialAddressOf(address);
             long denseOffset = index.denseOffset(address);
-            double[] denseSubspace = denseSubspace(sparsePart);
-            denseSubspace[(int)denseOffset] = value;
+            double[] denseSubspace = denseSubspace(sparseOrdinal);
+            denseSubspace[(int)denseOffset] = toCellValue(value);
             return this;
         }
 
         public Tensor.Builder block(TensorAddress sparsePart, double[] values) {
-            double[] denseSubspace = denseSubspace(sparsePart);
-            System.arraycopy(values, 0, denseSubspace, 0, (int)denseSubspaceSize());
+            double[] denseSubspace = denseSubspace(modifiableIndex().addSparseAddress(sparsePart));
+            for (int i = 0; i < denseSubspace.length; i++)
+                denseSubspace[i] = toCellValue(values[i]);
             return this;
         }
 
         @Override
         public MixedTensor build() {
-            long count = 0;
-            ImmutableList.Builder<Cell> builder = new ImmutableList.Builder<>();
-
-            for (Map.Entry<TensorAddress, double[]> entry : denseSubspaceMap.entrySet()) {
-                TensorAddress sparsePart = entry.getKey();
-                indexBuilder.put(sparsePart, count);
-
-                double[] denseSubspace = entry.getValue();
-                for (long offset = 0; offset < denseSubspace.length; ++offset) {
-                    TensorAddress cellAddress = index.addressOf(sparsePart, offset);
-                    double value = denseSubspace[(int)offset];
-                    builder.add(new Cell(cellAddress, value));
-                    count++;
-                }
-            }
-            return new MixedTensor(type, builder.build(), indexBuilder.build());
+            int denseSubspaceSize = (int)denseSubspaceSize();
+            double[] values = new double[denseSubspaces.size() * denseSubspaceSize];
+            for (int i = 0; i < denseSubspaces.size(); i++)
+                System.arraycopy(denseSubspaces.get(i), 0, values, i * denseSubspaceSize, denseSubspaceSize);
+            indexIsShared = true;
+            index.freeze();
+            return new MixedTensor(type, values, index);
         }
 
     }
@@ -272,7 +298,7 @@ public class MixedTensor implements Tensor {
         }
 
         public TensorType createBoundType() {
-            TensorType.Builder typeBuilder = new TensorType.Builder();
+            TensorType.Builder typeBuilder = new TensorType.Builder(type.valueType());
             for (int i = 0; i < type.dimensions().size(); ++i) {
                 TensorType.Dimension dimension = type.dimensions().get(i);
                 if (!dimension.isIndexed()) {
@@ -288,8 +314,8 @@ public class MixedTensor implements Tensor {
     }
 
     /**
-     * An immutable index into a list of cells.
-     * Contains additional information required
+     * An index into the list of cell values of a tensor, mapping the sparse partial addresses
+     * to the start of their dense subspace. Contains additional information required
      * for handling mixed tensor addresses.
      * Assumes indexed dimensions are bound.
      */
@@ -301,49 +327,62 @@ public class MixedTensor implements Tensor {
         private final List<TensorType.Dimension> mappedDimensions;
         private final List<TensorType.Dimension> indexedDimensions;
 
-        private ImmutableMap<TensorAddress, Long> sparseMap;
+        /** The indexes of the mapped dimensions in the type */
+        private final int[] mappedDimensionIndexes;
+
+        /** The distinct sparse partial addresses, in the order of their dense subspaces */
+        private final SparseAddressIndex sparseIndex;
+
         private long denseSubspaceSize = -1;
 
         private Index(TensorType type) {
+            this(type, null);
+        }
+
+        private Index(TensorType type, SparseAddressIndex sparseIndex) {
             this.type = type;
             this.mappedDimensions = type.dimensions().stream().filter(d -> !d.isIndexed()).collect(Collectors.toList());
             this.indexedDimensions = type.dimensions().stream().filter(d -> d.isIndexed()).collect(Collectors.toList());
             this.sparseType = createPartialType(mappedDimensions);
             this.denseType = createPartialType(indexedDimensions);
+            this.mappedDimensionIndexes = new int[mappedDimensions.size()];
+            for (int i = 0; i < mappedDimensions.size(); i++)
+                mappedDimensionIndexes[i] = type.indexOfDimension(mappedDimensions.get(i).name()).get();
+            this.sparseIndex = sparseIndex != null ? sparseIndex : new SparseAddressIndex(mappedDimensions.size());
+        }
+
+        /** Returns a copy of this which can be modified independently */
+        Index copy() {
+            return new Index(type, sparseIndex.copy());
         }
 
+        /** Marks the label dictionary of this as no longer modified */
+        void freeze() { sparseIndex.freeze(); }
+
         public long indexOf(TensorAddress address) {
-            TensorAddress sparsePart = sparsePartialAddress(address);
-            if ( ! sparseMap.containsKey(sparsePart)) {
+            if (type.dimensions().size() != address.size()) {
+                throw new IllegalArgumentException("Tensor type and address are not of same size.");
+            }
+            int sparseOrdinal = sparseIndex.indexOf(address, mappedDimensionIndexes);
+            if (sparseOrdinal < 0) {
                 throw new IllegalArgumentException("Address not found");
             }
-            long base = sparseMap.get(sparsePart);
+            long base = sparseOrdinal * denseSubspaceSize();
             long offset = denseOffset(address);
             return base + offset;
         }
 
-        public static class Builder {
-
-            private final Index index;
-            private final ImmutableMap.Builder<TensorAddress, Long> builder;
-
-            public Builder(TensorType type) {
-                index = new Index(type);
-                builder = new ImmutableMap.Builder<>();
-            }
-
-            public void put(TensorAddress address, long index) {
-                builder.put(address, index);
-            }
-
-            public Index build() {
-                index.sparseMap = builder.build();
-                return index;
+        /** Adds the sparse part of the given full address to this if not present, and returns its ordinal */
+        int addSparsePartialAddressOf(TensorAddress address) {
+            if (type.dimensions().size() != address.size()) {
+                throw new IllegalArgumentException("Tensor type and address are not of same size.");
             }
+            return sparseIndex.add(address, mappedDimensionIndexes);
+        }
 
-            public Index index() {
-                return index;
-            }
+        /** Adds the given sparse address to this if not present, and returns its ordinal */
+        int addSparseAddress(TensorAddress sparseAddress) {
+            return sparseIndex.add(sparseAddress);
         }
 
         public long denseSubspaceSize() {
@@ -360,20 +399,6 @@ public class MixedTensor implements Tensor {
             return denseSubspaceSize;
         }
 
-        private TensorAddress sparsePartialAddress(TensorAddress address) {
-            if (type.dimensions().size() != address.size()) {
-                throw new IllegalArgumentException("Tensor type and address are not of same size.");
-            }
-            TensorAddress.Builder builder = new TensorAddress.Builder(sparseType);
-            for (int i = 0; i < type.dimensions().size(); ++i) {
-                TensorType.Dimension dimension = type.dimensions().get(i);
-                if (!dimension.isIndexed()) {
-                    builder.add(dimension.name(), address.label(i));
-                }
-            }
-            return builder.build();
-        }
-
         private long denseOffset(TensorAddress address) {
             long innerSize = 1;
             long offset = 0;
@@ -410,6 +435,14 @@ public class MixedTensor implements Tensor {
             return TensorAddress.of(labels);
         }
 
+        /** Returns the address of the cell at the given index in the list of cell values */
+        private TensorAddress addressOf(long cellIndex) {
+            long denseSubspaceSize = denseSubspaceSize();
+            if (indexedDimensions.isEmpty()) return sparseIndex.address((int)cellIndex);
+            if (mappedDimensions.isEmpty()) return denseOffsetToAddress(cellIndex);
+            return addressOf(sparseIndex.address((int)(cellIndex / denseSubspaceSize)), cellIndex % denseSubspaceSize);
+        }
+
         private TensorAddress addressOf(TensorAddress sparsePart, long denseOffset) {
             TensorAddress densePart = denseOffsetToAddress(denseOffset);
             String[] labels = new String[type.dimensions().size()];
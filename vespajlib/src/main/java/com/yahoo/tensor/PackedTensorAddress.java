@@ -0,0 +1,122 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.util.Arrays;
+
+/**
+ * An address of mapped dimensions stored as the ids of its labels in a label dictionary (see {@link Labels})
+ * packed into a single long. The ids are stored in order, using the same number of bits for each label in the
+ * lower 63 bits of the long, such that keys are never negative.
+ */
+final class PackedTensorAddress extends TensorAddress {
+
+    private final Labels labels;
+    private final int size;
+    private final long key;
+
+    PackedTensorAddress(Labels labels, int size, long key) {
+        this.labels = labels;
+        this.size = size;
+        this.key = key;
+    }
+
+    /** Returns the dictionary of the label ids of this */
+    Labels labels() { return labels; }
+
+    /** Returns the key of this, which is unique for the addresses of a given size and label dictionary */
+    long key() { return key; }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public String label(int i) {
+        if (i < 0 || i >= size)
+            throw new IllegalArgumentException("No label at position " + i + " in " + this);
+        return labels.label(labelId(i));
+    }
+
+    /** Returns the id of the label at position i */
+    int labelId(int i) { return labelId(key, i, size); }
+
+    @Override
+    public long numericLabel(int i) {
+        try {
+            return Long.parseLong(label(i));
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a long label in " + this + " at position " + i);
+        }
+    }
+
+    @Override
+    public TensorAddress withLabel(int index, long label) {
+        String[] labels = labelStrings();
+        labels[index] = String.valueOf(label);
+        return TensorAddress.of(labels);
+    }
+
+    @Override
+    public TensorAddress partialCopy(int[] indexes) {
+        long partialKey = 0;
+        for (int index : indexes) {
+            int id = labelId(index);
+            if ( ! fits(id, indexes.length)) return super.partialCopy(indexes);
+            partialKey = add(partialKey, id, indexes.length);
+        }
+        return new PackedTensorAddress(labels, indexes.length, partialKey);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof PackedTensorAddress) {
+            PackedTensorAddress other = (PackedTensorAddress)o;
+            if (other.size != this.size) return false;
+            if (other.labels == this.labels) return other.key == this.key;
+            // Labels are usually added to one dictionary from addresses of another, so they are mostly the same
+            // string instances and are compared by identity
+            for (int i = 0; i < size; i++)
+                if ( ! this.labels.label(this.labelId(i)).equals(other.labels.label(other.labelId(i))))
+                    return false;
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() { return super.hashCode(); } // must be equal to that of other addresses with the same labels
+
+    @Override
+    public String toString() {
+        return Arrays.toString(labelStrings());
+    }
+
+    private String[] labelStrings() {
+        String[] labels = new String[size];
+        for (int i = 0; i < size; i++)
+            labels[i] = label(i);
+        return labels;
+    }
+
+    /** Returns the number of bits used to store each label id in an address of the given size */
+    static int bitsPerLabel(int size) {
+        return size == 0 ? 0 : 63 / size;
+    }
+
+    /** Returns whether the given label id can be stored in an address of the given size */
+    static boolean fits(int id, int size) {
+        return bitsPerLabel(size) >= 32 || id < (1L << bitsPerLabel(size));
+    }
+
+    /** Returns the given partial key with the given label id added as the next label */
+    static long add(long key, int id, int size) {
+        return (key << bitsPerLabel(size)) | id;
+    }
+
+    /** Returns the id of the label at position i in the given key of an address of the given size */
+    static int labelId(long key, int i, int size) {
+        int bits = bitsPerLabel(size);
+        return (int)((key >>> (bits * (size - 1 - i))) & ((1L << bits) - 1));
+    }
+
+}
@@ -0,0 +1,279 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the distinct addresses in some mapped dimensions, which assigns each address an ordinal
+ * in the order they are added.
+ * <p>
+ * Addresses are stored as primitive keys packing the ids their labels have in the label dictionary of this index
+ * (see {@link PackedTensorAddress}) in an open addressing hash table, which avoids allocating an object per address,
+ * and hashing label strings when looking up packed addresses: Ids of addresses packed with the dictionary of another
+ * index are translated to the ids of this once per distinct label (see {@link LabelTranslation}). If an address with
+ * too many labels to be packed is added (which depends only on the number of dimensions and distinct labels in this),
+ * this falls back to storing addresses in a hash map.
+ * <p>
+ * This is not thread safe while being built, but is safe for concurrent reads once built.
+ */
+final class SparseAddressIndex {
+
+    private static final int initialCapacity = 16;
+
+    /** The number of dimensions of the addresses in this */
+    private final int dimensions;
+
+    /** The dictionary of the label ids in the keys of this. This is copied before modification if frozen. */
+    private Labels labels;
+
+    /** The packed keys of the addresses in this, by ordinal */
+    private long[] keys;
+
+    /** The hash table over keys: Each slot is 0 if empty or the ordinal of a key plus one */
+    private int[] slots;
+
+    private int size = 0;
+
+    /** The ordinals of the addresses of this if they cannot be packed, null if they are packed */
+    private Map<TensorAddress, Integer> ordinals = null;
+
+    /** The addresses of this by ordinal if they cannot be packed, null if they are packed */
+    private List<TensorAddress> addresses = null;
+
+    /** The translation from the ids of the last other dictionary seen in a packed address, or null if none */
+    private volatile LabelTranslation translation = null;
+
+    SparseAddressIndex(int dimensions) {
+        this.dimensions = dimensions;
+        this.labels = new Labels();
+        this.keys = new long[initialCapacity];
+        this.slots = new int[initialCapacity * 2];
+    }
+
+    private SparseAddressIndex(SparseAddressIndex other) {
+        this.dimensions = other.dimensions;
+        this.size = other.size;
+        if (other.ordinals == null) {
+            this.labels = other.labels.isFrozen() ? other.labels : other.labels.copy();
+            this.keys = Arrays.copyOf(other.keys, other.keys.length);
+            this.slots = Arrays.copyOf(other.slots, other.slots.length);
+        }
+        else {
+            this.labels = other.labels; // no longer modified
+            this.ordinals = new HashMap<>(other.ordinals);
+            this.addresses = new ArrayList<>(other.addresses);
+        }
+    }
+
+    /** Returns a copy of this which can be modified independently */
+    SparseAddressIndex copy() { return new SparseAddressIndex(this); }
+
+    /** Marks the label dictionary of this as no longer modified, such that other indexes can share it */
+    void freeze() { labels.freeze(); }
+
+    /** Returns the number of addresses in this */
+    int size() { return size; }
+
+    /** Adds the given address to this if it is not already present, and returns its ordinal */
+    int add(TensorAddress address) { return add(address, null); }
+
+    /**
+     * Adds the given address to this if it is not already present, and returns its ordinal
+     *
+     * @param address the address containing the labels to add
+     * @param labelIndexes the indexes in the given address of the labels of the dimensions of this,
+     *                     or null if the address contains exactly the dimensions of this
+     */
+    int add(TensorAddress address, int[] labelIndexes) {
+        if (ordinals == null) {
+            if (size == 0 && labels.size() == 0 && address instanceof PackedTensorAddress &&
+                ((PackedTensorAddress)address).labels().isFrozen())
+                labels = ((PackedTensorAddress)address).labels(); // use the dictionary of the tensor we get cells from
+            long key = pack(address, labelIndexes, true);
+            if (key >= 0) return add(key);
+            unpack();
+        }
+        TensorAddress partialAddress = partialAddress(address, labelIndexes);
+        Integer ordinal = ordinals.get(partialAddress);
+        if (ordinal != null) return ordinal;
+        ordinals.put(partialAddress, size);
+        addresses.add(partialAddress);
+        return size++;
+    }
+
+    /** Returns the ordinal of the given address, or -1 if it is not present in this */
+    int indexOf(TensorAddress address) { return indexOf(address, null); }
+
+    /**
+     * Returns the ordinal of an address, or -1 if it is not present in this
+     *
+     * @param address the address containing the labels to look up
+     * @param labelIndexes the indexes in the given address of the labels of the dimensions of this,
+     *                     or null if the address contains exactly the dimensions of this
+     */
+    int indexOf(TensorAddress address, int[] labelIndexes) {
+        if (labelIndexes == null && address.size() != dimensions) return -1;
+        if (ordinals != null)
+            return ordinals.getOrDefault(partialAddress(address, labelIndexes), -1);
+
+        long key = pack(address, labelIndexes, false);
+        if (key < 0) return -1; // contains labels which are not present in this
+        for (int slot = slotOf(key, slots.length); ; slot = (slot + 1) & (slots.length - 1)) {
+            if (slots[slot] == 0) return -1;
+            if (keys[slots[slot] - 1] == key) return slots[slot] - 1;
+        }
+    }
+
+    /** Returns the address having the given ordinal in this */
+    TensorAddress address(int ordinal) {
+        if (ordinals != null) return addresses.get(ordinal);
+        return new PackedTensorAddress(labels, dimensions, keys[ordinal]);
+    }
+
+    private int add(long key) {
+        int slot = slotOf(key, slots.length);
+        for (; slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+            if (keys[slots[slot] - 1] == key) return slots[slot] - 1;
+        }
+
+        if (size == keys.length)
+            keys = Arrays.copyOf(keys, size * 2);
+        keys[size] = key;
+        slots[slot] = size + 1;
+        size++;
+        if (size * 2 > slots.length)
+            rehash(slots.length * 2);
+        return size - 1;
+    }
+
+    private void rehash(int slotCount) {
+        slots = new int[slotCount];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            int slot = slotOf(keys[ordinal], slotCount);
+            while (slots[slot] != 0)
+                slot = (slot + 1) & (slotCount - 1);
+            slots[slot] = ordinal + 1;
+        }
+    }
+
+    /** Switches to storing addresses in a map */
+    private void unpack() {
+        Map<TensorAddress, Integer> ordinals = new HashMap<>();
+        List<TensorAddress> addresses = new ArrayList<>(size);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            TensorAddress address = address(ordinal);
+            ordinals.put(address, ordinal);
+            addresses.add(address);
+        }
+        this.ordinals = ordinals;
+        this.addresses = addresses;
+        keys = null;
+        slots = null;
+    }
+
+    /**
+     * Returns the key of the given address, or -1 if it cannot be packed
+     *
+     * @param intern whether labels without ids should be assigned an id, or make this return -1
+     */
+    private long pack(TensorAddress address, int[] labelIndexes, boolean intern) {
+        if (labelIndexes == null && address.size() != dimensions)
+            throw new IllegalArgumentException(address + " does not have " + dimensions + " labels");
+        PackedTensorAddress packed = address instanceof PackedTensorAddress ? (PackedTensorAddress)address : null;
+        LabelTranslation translation = null;
+        if (packed != null && packed.labels() != labels)
+            translation = translationFrom(packed.labels());
+        long key = 0;
+        for (int i = 0; i < dimensions; i++) {
+            int labelIndex = labelIndexes == null ? i : labelIndexes[i];
+            int id;
+            if (packed != null && packed.labels() == labels) {
+                id = packed.labelId(labelIndex);
+            }
+            else if (packed != null) {
+                id = translation.id(packed.labelId(labelIndex), labels);
+                if (id < 0 && intern)
+                    id = intern(packed.label(labelIndex));
+            }
+            else {
+                id = intern ? intern(address.label(labelIndex)) : labels.idIfPresent(address.label(labelIndex));
+            }
+            if (id < 0 || ! PackedTensorAddress.fits(id, dimensions)) return -1;
+            key = PackedTensorAddress.add(key, id, dimensions);
+        }
+        return key;
+    }
+
+    /** Returns the id of the given label, assigning it an id in the dictionary of this if necessary */
+    private int intern(String label) {
+        if (labels.isFrozen()) {
+            int id = labels.idIfPresent(label);
+            if (id >= 0) return id;
+            labels = labels.copy();
+        }
+        return labels.id(label);
+    }
+
+    private LabelTranslation translationFrom(Labels other) {
+        LabelTranslation translation = this.translation;
+        if (translation == null || ! translation.translates(other))
+            this.translation = translation = new LabelTranslation(other);
+        return translation;
+    }
+
+    private TensorAddress partialAddress(TensorAddress address, int[] labelIndexes) {
+        if (labelIndexes == null) return address;
+        return address.partialCopy(labelIndexes);
+    }
+
+    private static int slotOf(long key, int slotCount) {
+        return (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & (slotCount - 1);
+    }
+
+    /**
+     * Translates the label ids of another dictionary to the ids of the dictionary of this index,
+     * hashing the label string of each id at most once, rather than once per address.
+     * Translations are added concurrently by readers, which is safe as they are idempotent single int writes.
+     */
+    private static final class LabelTranslation {
+
+        private final Labels from;
+
+        /**
+         * The translated ids by id in the other dictionary: 0 if not yet translated, the id plus one if present,
+         * and minus one minus the size of this dictionary when the label was found to be absent in it
+         */
+        private volatile int[] ids;
+
+        LabelTranslation(Labels from) {
+            this.from = from;
+            this.ids = new int[Math.max(16, from.size())];
+        }
+
+        boolean translates(Labels labels) { return labels == from; }
+
+        /**
+         * Returns the id in the given dictionary of the label having the given id in the dictionary translated from,
+         * or -1 if it is not present
+         */
+        int id(int fromId, Labels to) {
+            int[] ids = this.ids;
+            if (fromId >= ids.length)
+                this.ids = ids = Arrays.copyOf(ids, Math.max(fromId + 1, ids.length * 2));
+
+            int translated = ids[fromId];
+            if (translated > 0) return translated - 1;
+            if (translated < 0 && -translated - 1 == to.size()) return -1; // still absent
+
+            int id = to.idIfPresent(from.label(fromId));
+            ids[fromId] = id >= 0 ? id + 1 : -to.size() - 1;
+            return id;
+        }
+
+    }
+
+}
@@ -41,6 +41,18 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
 
     public abstract TensorAddress withLabel(int labelIndex, long label);
 
+    /**
+     * Returns an address containing the labels of this at the given indexes, in the order given.
+     *
+     * @throws IllegalArgumentException if there is no label at some of these indexes
+     */
+    public TensorAddress partialCopy(int[] indexes) {
+        String[] labels = new String[indexes.length];
+        for (int i = 0; i < indexes.length; i++)
+            labels[i] = label(indexes[i]);
+        return TensorAddress.of(labels);
+    }
+
     public final boolean isEmpty() { return size() == 0; }
 
     @Override
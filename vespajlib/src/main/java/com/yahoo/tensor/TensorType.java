@@ -15,7 +15,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
- * A tensor type with its dimensions. This is immutable.
+ * A tensor type with its dimensions and cell value type. This is immutable.
  * <p>
  * A dimension can be indexed (bound or unbound) or mapped.
  *
@@ -24,13 +24,47 @@ import java.util.stream.Collectors;
  */
 public class TensorType {
 
+    /** The permissible cell value types. Default is double. */
+    public enum Value {
+
+        // Types added must also be added to serialization and to largestOf below
+        DOUBLE("double"), FLOAT("float");
+
+        private final String id;
+
+        Value(String id) { this.id = id; }
+
+        public String id() { return id; }
+
+        /** Returns the value type which can hold the values of both the given types without loss */
+        public static Value largestOf(Value value1, Value value2) {
+            if (value1 == DOUBLE || value2 == DOUBLE) return DOUBLE;
+            return FLOAT;
+        }
+
+        @Override
+        public String toString() { return id; }
+
+        public static Value fromId(String valueTypeString) {
+            for (Value value : Value.values())
+                if (value.id.equals(valueTypeString))
+                    return value;
+            throw new IllegalArgumentException("Value type must be either 'double' or 'float'" +
+                                               " but was '" + valueTypeString + "'");
+        }
+
+    }
+
     /** The empty tensor type - which is the same as a double */
-    public static final TensorType empty = new TensorType(Collections.emptyList());
+    public static final TensorType empty = new TensorType(Value.DOUBLE, Collections.emptyList());
+
+    private final Value valueType;
 
     /** Sorted list of the dimensions of this */
     private final ImmutableList<Dimension> dimensions;
 
-    private TensorType(Collection<Dimension> dimensions) {
+    private TensorType(Value valueType, Collection<Dimension> dimensions) {
+        this.valueType = valueType;
         List<Dimension> dimensionList = new ArrayList<>(dimensions);
         Collections.sort(dimensionList);
         this.dimensions = ImmutableList.copyOf(dimensionList);
@@ -46,11 +80,17 @@ public class TensorType {
      *     <li><code>dimension-name{}</code> - a mapped dimension
      * </ul>
      * Example: <code>tensor(x[10],y[20])</code> (a matrix)
+     * <p>
+     * The cell value type may be given as <code>tensor&lt;float&gt;(dimension1, ...)</code>.
+     * If it is not given the cell value type is double.
      */
     public static TensorType fromSpec(String specString) {
         return TensorTypeParser.fromSpec(specString);
     }
 
+    /** Returns the type of the cell values of this */
+    public Value valueType() { return valueType; }
+
     /** Returns the number of dimensions of this: dimensions().size() */
     public int rank() { return dimensions.size(); }
 
@@ -85,6 +125,7 @@ public class TensorType {
     /**
      * Returns whether this type can be assigned to the given type,
      * i.e if the given type is a generalization of this type.
+     * The cell value types are not considered, as cell values are converted to the value type assigned to.
      */
     public boolean isAssignableTo(TensorType generalization) {
         return isConvertibleOrAssignableTo(generalization, false);
@@ -123,14 +164,16 @@ public class TensorType {
 
     @Override
     public String toString() {
-        return "tensor(" + dimensions.stream().map(Dimension::toString).collect(Collectors.joining(",")) + ")";
+        return "tensor" + (valueType == Value.DOUBLE ? "" : "<" + valueType.id() + ">") +
+               "(" + dimensions.stream().map(Dimension::toString).collect(Collectors.joining(",")) + ")";
     }
 
     @Override
     public boolean equals(Object other) {
         if (this == other) return true;
         if (other == null || getClass() != other.getClass()) return false;
-        return dimensions.equals(((TensorType)other).dimensions);
+        TensorType otherType = (TensorType)other;
+        return valueType == otherType.valueType && dimensions.equals(otherType.dimensions);
     }
 
     /** Returns whether the given type has the same dimension names as this */
@@ -151,7 +194,7 @@ public class TensorType {
         if (this.equals(other)) return Optional.of(this); // shortcut
         if (this.dimensions.size() != other.dimensions.size()) return Optional.empty();
 
-        Builder b = new Builder();
+        Builder b = new Builder(Value.largestOf(this.valueType, other.valueType));
         for (int i = 0; i < dimensions.size(); i++) {
             Dimension thisDim = this.dimensions().get(i);
             Dimension otherDim = other.dimensions().get(i);
@@ -184,7 +227,7 @@ public class TensorType {
 
     @Override
     public int hashCode() {
-        return dimensions.hashCode();
+        return 31 * dimensions.hashCode() + valueType.hashCode();
     }
 
     /**
@@ -364,26 +407,47 @@ public class TensorType {
 
         private final Map<String, Dimension> dimensions = new LinkedHashMap<>();
 
-        /** Creates an empty builder */
+        private Value valueType = Value.DOUBLE;
+
+        /** Creates an empty builder with cells of type double */
         public Builder() {
         }
 
+        /** Creates an empty builder with cells of the given type */
+        public Builder(Value valueType) {
+            this.valueType = valueType;
+        }
+
         /**
          * Creates a builder containing a combination of the dimensions of the given types
          *
          * If the same dimension is indexed with different size restrictions the largest size will be used.
          * If it is size restricted in one argument but not the other it will not be size restricted.
          * If it is indexed in one and mapped in the other it will become mapped.
+         *
+         * The value type will be the largest of the value types of the given types, or double if no types are given.
          */
         public Builder(TensorType ... types) {
-            for (TensorType type : types)
+            if (types.length > 0)
+                valueType = types[0].valueType();
+            for (TensorType type : types) {
+                valueType = Value.largestOf(valueType, type.valueType());
                 addDimensionsOf(type);
+            }
         }
 
         /**
-         * Creates a builder from the given dimensions.
+         * Creates a builder from the given dimensions, having cells of type double.
          */
         public Builder(Iterable<Dimension> dimensions) {
+            this(Value.DOUBLE, dimensions);
+        }
+
+        /**
+         * Creates a builder from the given value type and dimensions.
+         */
+        public Builder(Value valueType, Iterable<Dimension> dimensions) {
+            this.valueType = valueType;
             for (TensorType.Dimension dimension : dimensions) {
                 dimension(dimension);
             }
@@ -413,6 +477,12 @@ public class TensorType {
             }
         }
 
+        /** Sets the type of the cell values of the type built by this */
+        public Builder valueType(Value valueType) {
+            this.valueType = valueType;
+            return this;
+        }
+
         /** Returns the current number of dimensions in this */
         public int rank() { return dimensions.size(); }
 
@@ -482,7 +552,7 @@ public class TensorType {
         }
 
         public TensorType build() {
-            return new TensorType(dimensions.values());
+            return new TensorType(valueType, dimensions.values());
         }
 
     }
@@ -14,22 +14,29 @@ import java.util.regex.Pattern;
  */
 public class TensorTypeParser {
 
-    private final static String START_STRING = "tensor(";
+    private final static String START_STRING = "tensor";
     private final static String END_STRING = ")";
 
     private static final Pattern indexedPattern = Pattern.compile("(\\w+)\\[(\\d*)\\]");
     private static final Pattern mappedPattern = Pattern.compile("(\\w+)\\{\\}");
+    private static final Pattern valueTypePattern = Pattern.compile("<(\\w+)>\\(");
 
     public static TensorType fromSpec(String specString) {
-        return new TensorType.Builder(dimensionsFromSpec(specString)).build();
+        return new TensorType.Builder(valueTypeFromSpec(specString), dimensionsFromSpec(specString)).build();
+    }
+
+    /** Returns the value type given in a spec on the form tensor&lt;value-type&gt;(...), or double if not given */
+    public static TensorType.Value valueTypeFromSpec(String specString) {
+        validateSpec(specString);
+        Matcher matcher = valueTypePattern.matcher(specString);
+        if ( ! matcher.region(START_STRING.length(), specString.length()).lookingAt())
+            return TensorType.Value.DOUBLE;
+        return TensorType.Value.fromId(matcher.group(1));
     }
 
     public static List<TensorType.Dimension> dimensionsFromSpec(String specString) {
-        if ( ! specString.startsWith(START_STRING) || !specString.endsWith(END_STRING)) {
-            throw new IllegalArgumentException("Tensor type spec must start with '" + START_STRING + "'" +
-                                               " and end with '" + END_STRING + "', but was '" + specString + "'");
-        }
-        String dimensionsSpec = specString.substring(START_STRING.length(), specString.length() - END_STRING.length());
+        validateSpec(specString);
+        String dimensionsSpec = specString.substring(specString.indexOf('(') + 1, specString.length() - END_STRING.length());
         if (dimensionsSpec.isEmpty()) return Collections.emptyList();
 
         List<TensorType.Dimension> dimensions = new ArrayList<>();
@@ -44,6 +51,14 @@ public class TensorTypeParser {
         return dimensions;
     }
 
+    private static void validateSpec(String specString) {
+        if ( ! (specString.startsWith(START_STRING + "(") || specString.startsWith(START_STRING + "<")) ||
+             ! specString.endsWith(END_STRING)) {
+            throw new IllegalArgumentException("Tensor type spec must start with '" + START_STRING + "('" +
+                                               " and end with '" + END_STRING + "', but was '" + specString + "'");
+        }
+    }
+
     private static boolean tryParseIndexedDimension(String element, List<TensorType.Dimension> dimensions) {
         Matcher matcher = indexedPattern.matcher(element);
         if (matcher.matches()) {
@@ -5,6 +5,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
 import java.util.HashMap;
+import java.util.Optional;
 
 /**
  * @author bratseth
@@ -13,8 +14,13 @@ public class MapEvaluationContext implements EvaluationContext<TypeContext.Name>
 
     private final java.util.Map<String, Tensor> bindings = new HashMap<>();
 
+    private Optional<Parallelism> parallelism = Optional.empty();
+
     public void put(String name, Tensor tensor) { bindings.put(name, tensor); }
 
+    /** Sets the parallelism to use when evaluating in this context, or null to evaluate in the calling thread */
+    public void setParallelism(Parallelism parallelism) { this.parallelism = Optional.ofNullable(parallelism); }
+
     @Override
     public TensorType getType(String name) {
         return getType(new Name(name));
@@ -30,4 +36,7 @@ public class MapEvaluationContext implements EvaluationContext<TypeContext.Name>
     @Override
     public Tensor getTensor(String name) { return bindings.get(name); }
 
+    @Override
+    public Optional<Parallelism> parallelism() { return parallelism; }
+
 }
@@ -0,0 +1,140 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.evaluation;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Settings for evaluating tensor functions over large dense tensors in parallel.
+ * Parallel evaluation is opt-in: It is used when {@link EvaluationContext#parallelism()} returns an instance of this.
+ * <p>
+ * Iteration over the cells of a dense tensor is split into chunks of consecutive cells in the standard cell order,
+ * i.e over the outermost dimension first, which are evaluated as fork-join tasks in the pool of this.
+ * The chunks only depend on the number of cells, not on the pool, so results are deterministic:
+ * Joins and reduces which keep some dimensions produce exactly the same values as sequential evaluation.
+ * Reduces over all dimensions aggregate each chunk separately and then combine these partial values in chunk
+ * order, so sums and averages over large tensors are reproducible but may differ in the last bits from
+ * the values produced by sequential evaluation.
+ */
+public class Parallelism {
+
+    /** The default minimum number of cells a function must iterate over to be evaluated in parallel */
+    public static final long defaultMinCellCount = 1024 * 1024;
+
+    /** The number of cells evaluated in each task */
+    private static final long chunkCellCount = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final long minCellCount;
+
+    /** Creates parallelism settings using the given pool for functions over at least defaultMinCellCount cells */
+    public Parallelism(ForkJoinPool pool) {
+        this(pool, defaultMinCellCount);
+    }
+
+    /**
+     * Creates parallelism settings
+     *
+     * @param pool the pool to run evaluation tasks in
+     * @param minCellCount the minimum number of cells a function must iterate over to be evaluated in parallel
+     */
+    public Parallelism(ForkJoinPool pool, long minCellCount) {
+        Objects.requireNonNull(pool, "The pool cannot be null");
+        if (minCellCount < 1)
+            throw new IllegalArgumentException("The min cell count must be positive, but was " + minCellCount);
+        this.pool = pool;
+        this.minCellCount = minCellCount;
+    }
+
+    public ForkJoinPool pool() { return pool; }
+
+    public long minCellCount() { return minCellCount; }
+
+    /** Returns whether a function iterating over the given number of cells should be evaluated in parallel */
+    public boolean isParallel(long cellCount) {
+        return cellCount >= minCellCount;
+    }
+
+    /**
+     * Returns the number of chunks forEachChunk will split the given items into
+     *
+     * @param itemCount the number of items to iterate over
+     * @param cellsPerItem the number of cells iterated over for each item
+     */
+    public int chunkCount(long itemCount, long cellsPerItem) {
+        long itemsPerChunk = itemsPerChunk(cellsPerItem);
+        return (int)((itemCount + itemsPerChunk - 1) / itemsPerChunk);
+    }
+
+    /**
+     * Evaluates chunks of the items [0, itemCount) in parallel, and returns when all chunks are evaluated.
+     *
+     * @param itemCount the number of items to iterate over
+     * @param cellsPerItem the number of cells iterated over for each item, which determines the number of items
+     *                     in each chunk
+     * @param evaluator the evaluator to invoke for each chunk
+     */
+    public void forEachChunk(long itemCount, long cellsPerItem, ChunkEvaluator evaluator) {
+        int chunkCount = chunkCount(itemCount, cellsPerItem);
+        if (chunkCount == 0) return;
+        pool.invoke(new ChunkTask(0, chunkCount, itemsPerChunk(cellsPerItem), itemCount, evaluator));
+    }
+
+    private long itemsPerChunk(long cellsPerItem) {
+        return Math.max(1, chunkCellCount / Math.max(1, cellsPerItem));
+    }
+
+    @Override
+    public String toString() {
+        return "parallelism using " + pool + " for at least " + minCellCount + " cells";
+    }
+
+    /** Evaluates one chunk of items */
+    @FunctionalInterface
+    public interface ChunkEvaluator {
+
+        /**
+         * Evaluates a chunk
+         *
+         * @param chunk the number of this chunk, starting from 0 and increasing with the item range
+         * @param start the first item in this chunk, inclusive
+         * @param end the last item of this chunk, exclusive
+         */
+        void evaluate(int chunk, long start, long end);
+
+    }
+
+    /** Evaluates a range of chunks by splitting it in two until it contains a single chunk */
+    private static class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int fromChunk, toChunk;
+        private final long itemsPerChunk, itemCount;
+        private final ChunkEvaluator evaluator;
+
+        ChunkTask(int fromChunk, int toChunk, long itemsPerChunk, long itemCount, ChunkEvaluator evaluator) {
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.itemsPerChunk = itemsPerChunk;
+            this.itemCount = itemCount;
+            this.evaluator = evaluator;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                long start = fromChunk * itemsPerChunk;
+                evaluator.evaluate(fromChunk, start, Math.min(start + itemsPerChunk, itemCount));
+            }
+            else {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(fromChunk, middle, itemsPerChunk, itemCount, evaluator),
+                          new ChunkTask(middle, toChunk, itemsPerChunk, itemCount, evaluator));
+            }
+        }
+
+    }
+
+}
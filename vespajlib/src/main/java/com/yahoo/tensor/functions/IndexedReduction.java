@@ -0,0 +1,242 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.Parallelism;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * A reduce of a dense tensor, or of the join of two dense tensors, which is evaluated by iterating over
+ * the cells of the result, and for each aggregating the argument values over the reduced dimensions,
+ * locating argument cells by the stride of each dimension in each argument. This does not create the joined tensor.
+ */
+final class IndexedReduction {
+
+    private final IndexedTensor a, b;
+    private final DoubleBinaryOperator combinator;
+    private final Reduce.Aggregator aggregator;
+    private final TensorType resultType;
+    private final DimensionSizes resultSizes;
+
+    /** The layout of the kept and reduced dimensions. These are copied before being iterated */
+    private final Strides kept, reduced;
+
+    private IndexedReduction(IndexedTensor a, IndexedTensor b, DoubleBinaryOperator combinator,
+                             Reduce.Aggregator aggregator, TensorType resultType, DimensionSizes resultSizes,
+                             Strides kept, Strides reduced) {
+        this.a = a;
+        this.b = b;
+        this.combinator = combinator;
+        this.aggregator = aggregator;
+        this.resultType = resultType;
+        this.resultSizes = resultSizes;
+        this.kept = kept;
+        this.reduced = reduced;
+    }
+
+    /**
+     * Returns a reduction of a single tensor
+     *
+     * @return the reduction, or empty if this tensor is not suitable for reduction by this
+     */
+    static Optional<IndexedReduction> of(IndexedTensor a, Reduce.Aggregator aggregator, List<String> dimensions) {
+        return of(a, null, null, aggregator, dimensions);
+    }
+
+    /**
+     * Returns a reduction of the join of two tensors
+     *
+     * @param b the second argument to join with a, or null to reduce a alone
+     * @param combinator the join function, or null to reduce a alone
+     * @return the reduction, or empty if these tensors are not suitable for reduction by this
+     */
+    static Optional<IndexedReduction> of(IndexedTensor a, IndexedTensor b, DoubleBinaryOperator combinator,
+                                         Reduce.Aggregator aggregator, List<String> dimensions) {
+        TensorType joinedType = b == null ? a.type() : Join.outputType(a.type(), b.type());
+        if ( ! joinedType.dimensionNames().containsAll(dimensions)) return Optional.empty(); // let reduce fail
+
+        int dimensionCount = joinedType.dimensions().size();
+        int keptCount = 0;
+        for (TensorType.Dimension dimension : joinedType.dimensions())
+            if ( ! isReduced(dimension.name(), dimensions)) keptCount++;
+        Strides kept = new Strides(keptCount);
+        Strides reduced = new Strides(dimensionCount - keptCount);
+        DimensionSizes.Builder resultSizes = new DimensionSizes.Builder(keptCount);
+        for (TensorType.Dimension dimension : joinedType.dimensions()) {
+            int aIndex = a.type().indexOfDimension(dimension.name()).orElse(-1);
+            int bIndex = b == null ? -1 : b.type().indexOfDimension(dimension.name()).orElse(-1);
+            long size = Math.min(aIndex < 0 ? Long.MAX_VALUE : a.dimensionSizes().size(aIndex),
+                                 bIndex < 0 ? Long.MAX_VALUE : b.dimensionSizes().size(bIndex));
+            if (size == 0) return Optional.empty(); // empty: Leave special casing to the unfused functions
+            long aStride = aIndex < 0 ? 0 : productOfSizesAfter(aIndex, a.dimensionSizes());
+            long bStride = bIndex < 0 ? 0 : productOfSizesAfter(bIndex, b.dimensionSizes());
+            if (isReduced(dimension.name(), dimensions)) {
+                reduced.add(size, aStride, bStride);
+            }
+            else {
+                resultSizes.set(kept.count(), size);
+                kept.add(size, aStride, bStride);
+            }
+        }
+
+        TensorType resultType = keptCount == 0 ? TensorType.empty : Reduce.outputType(joinedType, dimensions);
+        return Optional.of(new IndexedReduction(a, b, combinator, aggregator, resultType, resultSizes.build(), kept, reduced));
+    }
+
+    /** Returns the number of argument cell pairs this iterates over */
+    long cellCount() {
+        return kept.totalSize() * reduced.totalSize();
+    }
+
+    /** Evaluates this, in parallel if parallelism is present and applies to the number of cells of this */
+    Tensor evaluate(Optional<Parallelism> parallelism) {
+        long resultSize = kept.totalSize();
+        long reducedSize = reduced.totalSize();
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(resultType, resultSizes);
+        if ( ! parallelism.isPresent() || ! parallelism.get().isParallel(cellCount()))
+            reduceCells(0, resultSize, builder);
+        else if (resultSize > 1)
+            parallelism.get().forEachChunk(resultSize, reducedSize, (chunk, start, end) -> reduceCells(start, end, builder));
+        else
+            builder.cellByDirectIndex(0, reduceAllInChunks(parallelism.get()));
+        return builder.build();
+    }
+
+    /** Aggregates the values of the result cells having direct indexes in [start, end) */
+    private void reduceCells(long start, long end, IndexedTensor.BoundBuilder builder) {
+        Strides kept = new Strides(this.kept);
+        Strides reduced = new Strides(this.reduced);
+        kept.seek(start);
+        long reducedSize = reduced.totalSize();
+        Reduce.ValueAggregator valueAggregator = Reduce.ValueAggregator.ofType(aggregator);
+        for (long resultIndex = start; resultIndex < end; resultIndex++) {
+            valueAggregator.reset();
+            for (long i = 0; i < reducedSize; i++) {
+                valueAggregator.aggregate(value(kept.aOffset + reduced.aOffset, kept.bOffset + reduced.bOffset));
+                reduced.next();
+            }
+            builder.cellByDirectIndex(resultIndex, valueAggregator.aggregatedValue());
+            kept.next();
+        }
+    }
+
+    /**
+     * Aggregates all cells into a single value by aggregating chunks of cells in parallel
+     * and then combining the aggregated values of the chunks in order
+     */
+    private double reduceAllInChunks(Parallelism parallelism) {
+        long size = reduced.totalSize();
+        Reduce.Aggregator chunkAggregator = aggregator == Reduce.Aggregator.avg ? Reduce.Aggregator.sum : aggregator;
+        double[] chunkValues = new double[parallelism.chunkCount(size, 1)];
+        parallelism.forEachChunk(size, 1, (chunk, start, end) -> {
+            Strides reduced = new Strides(this.reduced);
+            reduced.seek(start);
+            Reduce.ValueAggregator valueAggregator = Reduce.ValueAggregator.ofType(chunkAggregator);
+            for (long i = start; i < end; i++) {
+                valueAggregator.aggregate(value(reduced.aOffset, reduced.bOffset));
+                reduced.next();
+            }
+            chunkValues[chunk] = valueAggregator.aggregatedValue();
+        });
+
+        // Counts are combined by summing, other aggregators are combined by themselves
+        Reduce.ValueAggregator combined = Reduce.ValueAggregator.ofType(chunkAggregator == Reduce.Aggregator.count
+                                                                        ? Reduce.Aggregator.sum : chunkAggregator);
+        for (double chunkValue : chunkValues)
+            combined.aggregate(chunkValue);
+        return aggregator == Reduce.Aggregator.avg ? combined.aggregatedValue() / size : combined.aggregatedValue();
+    }
+
+    private double value(long aIndex, long bIndex) {
+        if (b == null) return a.getByDirectIndex(aIndex);
+        return combinator.applyAsDouble(a.getByDirectIndex(aIndex), b.getByDirectIndex(bIndex));
+    }
+
+    private static boolean isReduced(String dimension, List<String> dimensions) {
+        return dimensions.isEmpty() || dimensions.contains(dimension);
+    }
+
+    private static long productOfSizesAfter(int index, DimensionSizes sizes) {
+        long product = 1;
+        for (int i = index + 1; i < sizes.dimensions(); i++)
+            product *= sizes.size(i);
+        return product;
+    }
+
+    /**
+     * Iterates over a set of dimensions in standard cell order (the last dimension fastest),
+     * maintaining the corresponding direct offset into each of the two arguments.
+     * When the entire space has been iterated over this is back at the start position.
+     */
+    private static final class Strides {
+
+        private final long[] sizes, aStrides, bStrides, indexes;
+        private int count = 0;
+
+        long aOffset = 0, bOffset = 0;
+
+        Strides(int dimensions) {
+            sizes = new long[dimensions];
+            aStrides = new long[dimensions];
+            bStrides = new long[dimensions];
+            indexes = new long[dimensions];
+        }
+
+        /** Creates an instance iterating over the same dimensions as the given, at the start position */
+        Strides(Strides layout) {
+            sizes = layout.sizes;
+            aStrides = layout.aStrides;
+            bStrides = layout.bStrides;
+            indexes = new long[layout.indexes.length];
+            count = layout.count;
+        }
+
+        void add(long size, long aStride, long bStride) {
+            sizes[count] = size;
+            aStrides[count] = aStride;
+            bStrides[count] = bStride;
+            count++;
+        }
+
+        int count() { return count; }
+
+        long totalSize() {
+            long totalSize = 1;
+            for (long size : sizes)
+                totalSize *= size;
+            return totalSize;
+        }
+
+        /** Moves to the cell at the given position in the standard cell order */
+        void seek(long position) {
+            aOffset = 0;
+            bOffset = 0;
+            for (int i = count - 1; i >= 0; i--) {
+                indexes[i] = position % sizes[i];
+                position /= sizes[i];
+                aOffset += indexes[i] * aStrides[i];
+                bOffset += indexes[i] * bStrides[i];
+            }
+        }
+
+        /** Advances the offsets to the next cell */
+        void next() {
+            for (int i = count - 1; i >= 0; i--) {
+                aOffset += aStrides[i];
+                bOffset += bStrides[i];
+                if (++indexes[i] < sizes[i]) return;
+                aOffset -= aStrides[i] * sizes[i]; // carry over
+                bOffset -= bStrides[i] * sizes[i];
+                indexes[i] = 0;
+            }
+        }
+
+    }
+
+}
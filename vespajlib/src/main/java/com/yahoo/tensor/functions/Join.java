@@ -10,6 +10,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.Parallelism;
 import com.yahoo.tensor.evaluation.TypeContext;
 
 import java.util.ArrayList;
@@ -82,16 +83,17 @@ public class Join extends PrimitiveTensorFunction {
         Tensor a = argumentA.evaluate(context);
         Tensor b = argumentB.evaluate(context);
         TensorType joinedType = new TensorType.Builder(a.type(), b.type()).build();
+        Optional<Parallelism> parallelism = context.parallelism();
 
         // Choose join algorithm
         if (hasSingleIndexedDimension(a) && hasSingleIndexedDimension(b) && a.type().dimensions().get(0).name().equals(b.type().dimensions().get(0).name()))
-            return indexedVectorJoin((IndexedTensor)a, (IndexedTensor)b, joinedType);
+            return indexedVectorJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, parallelism);
         else if (joinedType.dimensions().size() == a.type().dimensions().size() && joinedType.dimensions().size() == b.type().dimensions().size())
-            return singleSpaceJoin(a, b, joinedType);
+            return singleSpaceJoin(a, b, joinedType, parallelism);
         else if (a.type().dimensions().containsAll(b.type().dimensions()))
-            return subspaceJoin(b, a, joinedType, true);
+            return subspaceJoin(b, a, joinedType, true, parallelism);
         else if (b.type().dimensions().containsAll(a.type().dimensions()))
-            return subspaceJoin(a, b, joinedType, false);
+            return subspaceJoin(a, b, joinedType, false, parallelism);
         else
             return generalJoin(a, b, joinedType);
     }
@@ -100,18 +102,19 @@ public class Join extends PrimitiveTensorFunction {
         return tensor.type().dimensions().size() == 1 && tensor.type().dimensions().get(0).isIndexed();
     }
 
-    private Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type) {
+    private Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type, Optional<Parallelism> parallelism) {
         long joinedRank = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
-        Iterator<Double> aIterator = a.valueIterator();
-        Iterator<Double> bIterator = b.valueIterator();
-        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
-        for (int i = 0; i < joinedRank; i++)
-            builder.cell(combinator.applyAsDouble(aIterator.next(), bIterator.next()), i);
+        IndexedTensor.BoundBuilder builder = boundBuilder(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
+        forEachChunk(joinedRank, parallelism, (chunk, start, end) -> joinByDirectIndex(a, b, start, end, builder));
         return builder.build();
     }
 
     /** When both tensors have the same dimensions, at most one cell matches a cell in the other tensor */
-    private Tensor singleSpaceJoin(Tensor a, Tensor b, TensorType joinedType) {
+    private Tensor singleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, Optional<Parallelism> parallelism) {
+        if (a instanceof IndexedTensor && b instanceof IndexedTensor &&
+            ((IndexedTensor)a).dimensionSizes().equals(((IndexedTensor)b).dimensionSizes()))
+            return indexedSameShapeJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, parallelism);
+
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
         for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); ) {
             Map.Entry<TensorAddress, Double> aCell = i.next();
@@ -122,18 +125,49 @@ public class Join extends PrimitiveTensorFunction {
         return builder.build();
     }
 
+    /** Joins two dense tensors having the same dimensions and sizes, where cells are at the same direct index in both */
+    private Tensor indexedSameShapeJoin(IndexedTensor a, IndexedTensor b, TensorType joinedType,
+                                        Optional<Parallelism> parallelism) {
+        IndexedTensor.BoundBuilder builder = boundBuilder(joinedType, a.dimensionSizes());
+        forEachChunk(a.size(), parallelism, (chunk, start, end) -> joinByDirectIndex(a, b, start, end, builder));
+        return builder.build();
+    }
+
+    /** Joins the cells having direct indexes in [start, end) in both a and b into the same index of the builder */
+    private void joinByDirectIndex(IndexedTensor a, IndexedTensor b, long start, long end, IndexedTensor.BoundBuilder builder) {
+        for (long i = start; i < end; i++)
+            builder.cellByDirectIndex(i, combinator.applyAsDouble(a.getByDirectIndex(i), b.getByDirectIndex(i)));
+    }
+
+    /**
+     * Evaluates the given number of cells in chunks, which are evaluated in parallel if parallelism applies
+     * to this number of cells, and in this thread (as a single chunk) otherwise.
+     * Chunk evaluators must only write to separate cells of a bound builder.
+     */
+    private void forEachChunk(long cellCount, Optional<Parallelism> parallelism, Parallelism.ChunkEvaluator evaluator) {
+        if (parallelism.isPresent() && parallelism.get().isParallel(cellCount))
+            parallelism.get().forEachChunk(cellCount, 1, evaluator);
+        else
+            evaluator.evaluate(0, 0, cellCount);
+    }
+
     /** Join a tensor into a superspace */
-    private Tensor subspaceJoin(Tensor subspace, Tensor superspace, TensorType joinedType, boolean reversedArgumentOrder) {
+    private Tensor subspaceJoin(Tensor subspace, Tensor superspace, TensorType joinedType, boolean reversedArgumentOrder,
+                                Optional<Parallelism> parallelism) {
         if (subspace instanceof IndexedTensor && superspace instanceof IndexedTensor)
-            return indexedSubspaceJoin((IndexedTensor) subspace, (IndexedTensor) superspace, joinedType, reversedArgumentOrder);
+            return indexedSubspaceJoin((IndexedTensor) subspace, (IndexedTensor) superspace, joinedType, reversedArgumentOrder, parallelism);
         else
             return generalSubspaceJoin(subspace, superspace, joinedType, reversedArgumentOrder);
     }
 
-    private Tensor indexedSubspaceJoin(IndexedTensor subspace, IndexedTensor superspace, TensorType joinedType, boolean reversedArgumentOrder) {
+    private Tensor indexedSubspaceJoin(IndexedTensor subspace, IndexedTensor superspace, TensorType joinedType, boolean reversedArgumentOrder,
+                                       Optional<Parallelism> parallelism) {
         if (subspace.size() == 0 || superspace.size() == 0) // special case empty here to avoid doing it when finding sizes
             return Tensor.Builder.of(joinedType, new DimensionSizes.Builder(joinedType.dimensions().size()).build()).build();
 
+        if (isContiguousSubspace(subspace, superspace))
+            return indexedBroadcastJoin(subspace, superspace, joinedType, reversedArgumentOrder, parallelism);
+
         DimensionSizes joinedSizes = joinedSize(joinedType, subspace, superspace);
 
         IndexedTensor.Builder builder = (IndexedTensor.Builder)Tensor.Builder.of(joinedType, joinedSizes);
@@ -152,6 +186,67 @@ public class Join extends PrimitiveTensorFunction {
         return builder.build();
     }
 
+    /**
+     * Returns whether the dimensions of the given subspace are a contiguous run of the dimensions of the
+     * given superspace, having the same sizes in both. In that case each subspace cell is joined with
+     * a contiguous block of superspace cells, which can be found by direct index arithmetic.
+     */
+    private boolean isContiguousSubspace(IndexedTensor subspace, IndexedTensor superspace) {
+        List<TensorType.Dimension> subDimensions = subspace.type().dimensions();
+        List<TensorType.Dimension> superDimensions = superspace.type().dimensions();
+        if (subDimensions.isEmpty()) return true;
+        int start = superspace.type().indexOfDimension(subDimensions.get(0).name()).orElse(-1);
+        if (start < 0 || start + subDimensions.size() > superDimensions.size()) return false;
+        for (int i = 0; i < subDimensions.size(); i++) {
+            if ( ! superDimensions.get(start + i).name().equals(subDimensions.get(i).name())) return false;
+            if (superspace.dimensionSizes().size(start + i) != subspace.dimensionSizes().size(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Joins a contiguous subspace (see isContiguousSubspace) into a dense superspace without
+     * creating any addresses, by iterating the superspace as blocks of the subspace, where each cell
+     * of the subspace is repeated for the number of superspace cells in the dimensions after it.
+     */
+    private Tensor indexedBroadcastJoin(IndexedTensor subspace, IndexedTensor superspace, TensorType joinedType,
+                                        boolean reversedArgumentOrder, Optional<Parallelism> parallelism) {
+        List<TensorType.Dimension> subDimensions = subspace.type().dimensions();
+        int innerStart = subDimensions.isEmpty()
+                         ? 0
+                         : superspace.type().indexOfDimension(subDimensions.get(subDimensions.size() - 1).name()).get() + 1;
+        long innerSize = 1;
+        for (int i = innerStart; i < superspace.type().dimensions().size(); i++)
+            innerSize *= superspace.dimensionSizes().size(i);
+        long subspaceSize = subspace.size();
+        long blockSize = innerSize;
+
+        IndexedTensor.BoundBuilder builder = boundBuilder(joinedType, superspace.dimensionSizes());
+        forEachChunk(superspace.size(), parallelism, (chunk, start, end) -> {
+            long subIndex = (start / blockSize) % subspaceSize;
+            long inner = start % blockSize;
+            double subspaceValue = subspace.getByDirectIndex(subIndex);
+            for (long superIndex = start; superIndex < end; superIndex++) {
+                double superspaceValue = superspace.getByDirectIndex(superIndex);
+                builder.cellByDirectIndex(superIndex,
+                                          reversedArgumentOrder ? combinator.applyAsDouble(superspaceValue, subspaceValue)
+                                                                : combinator.applyAsDouble(subspaceValue, superspaceValue));
+                if (++inner == blockSize) { // move to the next subspace cell
+                    inner = 0;
+                    if (++subIndex == subspaceSize)
+                        subIndex = 0;
+                    if (superIndex + 1 < end)
+                        subspaceValue = subspace.getByDirectIndex(subIndex);
+                }
+            }
+        });
+        return builder.build();
+    }
+
+    private IndexedTensor.BoundBuilder boundBuilder(TensorType type, DimensionSizes sizes) {
+        return (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(type, sizes); // always a bound builder when given sizes
+    }
+
     private void joinSubspaces(Iterator<Double> subspace, long subspaceSize,
                                Iterator<Tensor.Cell> superspace, long superspaceSize,
                                boolean reversedArgumentOrder, IndexedTensor.Builder builder) {
@@ -209,10 +304,7 @@ public class Join extends PrimitiveTensorFunction {
     }
 
     private TensorAddress mapAddressToSubspace(TensorAddress superAddress, int[] subspaceIndexes) {
-        String[] subspaceLabels = new String[subspaceIndexes.length];
-        for (int i = 0; i < subspaceIndexes.length; i++)
-            subspaceLabels[i] = superAddress.label(subspaceIndexes[i]);
-        return TensorAddress.of(subspaceLabels);
+        return superAddress.partialCopy(subspaceIndexes);
     }
 
     /** Slow join which works for any two tensors */
@@ -403,13 +495,7 @@ public class Join extends PrimitiveTensorFunction {
     }
 
     private TensorAddress partialCommonAddress(Tensor.Cell cell, int[] indexMap) {
-        TensorAddress address = cell.getKey();
-        String[] labels = new String[indexMap.length];
-        for (int i = 0; i < labels.length; ++i) {
-            labels[i] = address.label(indexMap[i]);
-        }
-        return TensorAddress.of(labels);
-
+        return cell.getKey().partialCopy(indexMap);
     }
 
 }
@@ -16,6 +16,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -61,7 +62,7 @@ public class Reduce extends PrimitiveTensorFunction {
     }
 
     public static TensorType outputType(TensorType inputType, List<String> reduceDimensions) {
-        TensorType.Builder b = new TensorType.Builder();
+        TensorType.Builder b = new TensorType.Builder(inputType.valueType());
         for (TensorType.Dimension dimension : inputType.dimensions()) {
             if ( ! reduceDimensions.contains(dimension.name()))
                 b.dimension(dimension);
@@ -71,6 +72,11 @@ public class Reduce extends PrimitiveTensorFunction {
 
     public TensorFunction argument() { return argument; }
 
+    public Aggregator aggregator() { return aggregator; }
+
+    /** Returns the dimensions reduced by this, or an empty list if all dimensions are reduced */
+    public List<String> dimensions() { return dimensions; }
+
     @Override
     public List<TensorFunction> arguments() { return Collections.singletonList(argument); }
 
@@ -105,7 +111,7 @@ public class Reduce extends PrimitiveTensorFunction {
 
     private TensorType type(TensorType argumentType) {
         if (dimensions.isEmpty()) return TensorType.empty; // means reduce all
-        TensorType.Builder builder = new TensorType.Builder();
+        TensorType.Builder builder = new TensorType.Builder(argumentType.valueType());
         for (TensorType.Dimension dimension : argumentType.dimensions())
             if ( ! dimensions.contains(dimension.name())) // keep
                 builder.dimension(dimension);
@@ -119,6 +125,13 @@ public class Reduce extends PrimitiveTensorFunction {
             throw new IllegalArgumentException("Cannot reduce " + argument + " over dimensions " +
                                                dimensions + ": Not all those dimensions are present in this tensor");
 
+        // Special case: Large dense tensor which should be reduced in parallel
+        if (argument instanceof IndexedTensor && context.parallelism().isPresent()
+            && context.parallelism().get().isParallel(argument.size())) {
+            Optional<IndexedReduction> reduction = IndexedReduction.of((IndexedTensor)argument, aggregator, dimensions);
+            if (reduction.isPresent()) return reduction.get().evaluate(context.parallelism());
+        }
+
         // Special case: Reduce all
         if (dimensions.isEmpty() || dimensions.size() == argument.type().dimensions().size())
             if (argument.type().dimensions().size() == 1 && argument instanceof IndexedTensor)
@@ -170,9 +183,9 @@ public class Reduce extends PrimitiveTensorFunction {
         return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
     }
 
-    private static abstract class ValueAggregator {
+    static abstract class ValueAggregator {
 
-        private static ValueAggregator ofType(Aggregator aggregator) {
+        static ValueAggregator ofType(Aggregator aggregator) {
             switch (aggregator) {
                 case avg : return new AvgAggregator();
                 case count : return new CountAggregator();
@@ -191,6 +204,9 @@ public class Reduce extends PrimitiveTensorFunction {
         /** Returns the value aggregated by this */
         public abstract double aggregatedValue();
 
+        /** Resets this to the state it had before any values were aggregated, such that it can be reused */
+        public abstract void reset();
+
     }
 
     private static class AvgAggregator extends ValueAggregator {
@@ -209,6 +225,12 @@ public class Reduce extends PrimitiveTensorFunction {
             return valueSum / valueCount;
         }
 
+        @Override
+        public void reset() {
+            valueCount = 0;
+            valueSum = 0.0;
+        }
+
     }
 
     private static class CountAggregator extends ValueAggregator {
@@ -225,6 +247,11 @@ public class Reduce extends PrimitiveTensorFunction {
             return valueCount;
         }
 
+        @Override
+        public void reset() {
+            valueCount = 0;
+        }
+
     }
 
     private static class ProdAggregator extends ValueAggregator {
@@ -241,6 +268,11 @@ public class Reduce extends PrimitiveTensorFunction {
             return valueProd;
         }
 
+        @Override
+        public void reset() {
+            valueProd = 1.0;
+        }
+
     }
 
     private static class SumAggregator extends ValueAggregator {
@@ -257,6 +289,11 @@ public class Reduce extends PrimitiveTensorFunction {
             return valueSum;
         }
 
+        @Override
+        public void reset() {
+            valueSum = 0.0;
+        }
+
     }
 
     private static class MaxAggregator extends ValueAggregator {
@@ -274,6 +311,11 @@ public class Reduce extends PrimitiveTensorFunction {
             return maxValue;
         }
 
+        @Override
+        public void reset() {
+            maxValue = Double.MIN_VALUE;
+        }
+
     }
 
     private static class MinAggregator extends ValueAggregator {
@@ -291,6 +333,11 @@ public class Reduce extends PrimitiveTensorFunction {
             return minValue;
         }
 
+        @Override
+        public void reset() {
+            minValue = Double.MAX_VALUE;
+        }
+
     }
 
 }
@@ -0,0 +1,79 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.google.common.collect.ImmutableList;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.TypeContext;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * A reduce of a join: This is the same as reduce(join(argumentA, argumentB, combinator), aggregator, dimensions),
+ * which covers e.g dot products and matrix multiplication, but when both arguments are indexed tensors this
+ * is evaluated in a single pass without creating the joined tensor (see {@link IndexedReduction}).
+ * Instances are created by {@link TensorFunctionOptimizer} when finding a reduce whose argument is a join.
+ */
+public class ReduceJoin extends CompositeTensorFunction {
+
+    private final TensorFunction argumentA, argumentB;
+    private final DoubleBinaryOperator combinator;
+    private final Reduce.Aggregator aggregator;
+    private final List<String> dimensions;
+
+    public ReduceJoin(TensorFunction argumentA, TensorFunction argumentB, DoubleBinaryOperator combinator,
+                      Reduce.Aggregator aggregator, List<String> dimensions) {
+        Objects.requireNonNull(argumentA, "The first argument tensor cannot be null");
+        Objects.requireNonNull(argumentB, "The second argument tensor cannot be null");
+        Objects.requireNonNull(combinator, "The combinator function cannot be null");
+        Objects.requireNonNull(aggregator, "The aggregator cannot be null");
+        Objects.requireNonNull(dimensions, "The dimensions cannot be null");
+        this.argumentA = argumentA;
+        this.argumentB = argumentB;
+        this.combinator = combinator;
+        this.aggregator = aggregator;
+        this.dimensions = ImmutableList.copyOf(dimensions);
+    }
+
+    /** Creates a reduce join which is equivalent to the given reduce of the given join */
+    public ReduceJoin(Reduce reduce, Join join) {
+        this(join.arguments().get(0), join.arguments().get(1), join.combinator(), reduce.aggregator(), reduce.dimensions());
+    }
+
+    @Override
+    public List<TensorFunction> arguments() { return ImmutableList.of(argumentA, argumentB); }
+
+    @Override
+    public TensorFunction withArguments(List<TensorFunction> arguments) {
+        if ( arguments.size() != 2)
+            throw new IllegalArgumentException("ReduceJoin must have 2 arguments, got " + arguments.size());
+        return new ReduceJoin(arguments.get(0), arguments.get(1), combinator, aggregator, dimensions);
+    }
+
+    @Override
+    public PrimitiveTensorFunction toPrimitive() {
+        return new Reduce(new Join(argumentA.toPrimitive(), argumentB.toPrimitive(), combinator), aggregator, dimensions);
+    }
+
+    @Override
+    public String toString(ToStringContext context) {
+        return toPrimitive().toString(context);
+    }
+
+    @Override
+    public <NAMETYPE extends TypeContext.Name> Tensor evaluate(EvaluationContext<NAMETYPE> context) {
+        Tensor a = argumentA.evaluate(context);
+        Tensor b = argumentB.evaluate(context);
+        if (a instanceof IndexedTensor && b instanceof IndexedTensor) {
+            Optional<IndexedReduction> reduction = IndexedReduction.of((IndexedTensor)a, (IndexedTensor)b,
+                                                                       combinator, aggregator, dimensions);
+            if (reduction.isPresent()) return reduction.get().evaluate(context.parallelism());
+        }
+        return a.join(b, combinator).reduce(aggregator, dimensions);
+    }
+
+}
@@ -0,0 +1,45 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites tensor function trees to equivalent trees which are faster to evaluate.
+ * Currently this replaces each reduce of a join by a {@link ReduceJoin}, which evaluates both in one pass
+ * over indexed tensors. Composite functions other than ReduceJoin (such as matmul and xw_plus_b)
+ * are converted to primitive functions first, such that reduces of joins inside them are found as well.
+ * <p>
+ * This is stateless and thread safe.
+ */
+public class TensorFunctionOptimizer {
+
+    /**
+     * Returns an optimized version of the given function, or the given function itself
+     * if it cannot be optimized.
+     */
+    public TensorFunction optimize(TensorFunction function) {
+        if (function instanceof CompositeTensorFunction && ! (function instanceof ReduceJoin))
+            function = function.toPrimitive();
+
+        function = optimizeArguments(function);
+
+        if (function instanceof Reduce && ((Reduce)function).argument() instanceof Join)
+            return new ReduceJoin((Reduce)function, (Join)((Reduce)function).argument());
+        return function;
+    }
+
+    /** Returns the function with optimized arguments, or the function itself if no argument could be optimized */
+    private TensorFunction optimizeArguments(TensorFunction function) {
+        List<TensorFunction> arguments = function.arguments();
+        List<TensorFunction> optimizedArguments = new ArrayList<>(arguments.size());
+        boolean changed = false;
+        for (TensorFunction argument : arguments) {
+            TensorFunction optimizedArgument = optimize(argument);
+            changed |= optimizedArgument != argument;
+            optimizedArguments.add(optimizedArgument);
+        }
+        return changed ? function.withArguments(optimizedArguments) : function;
+    }
+
+}
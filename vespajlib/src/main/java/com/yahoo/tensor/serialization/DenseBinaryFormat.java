@@ -3,10 +3,12 @@ package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedBufferTensor;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Optional;
 
@@ -17,11 +19,22 @@ import java.util.Optional;
  * Cell_values = [double, double, double, ...]*
  * where values are encoded in order of increasing indexes in each dimension, increasing
  * indexes of later dimensions in the dimension type before earlier.
+ * Cell values are floats instead of doubles if the serialization value type is float.
  *
  * @author bratseth
  */
 public class DenseBinaryFormat implements BinaryFormat {
 
+    private final TensorType.Value serializationValueType;
+
+    public DenseBinaryFormat() {
+        this(TensorType.Value.DOUBLE);
+    }
+
+    DenseBinaryFormat(TensorType.Value serializationValueType) {
+        this.serializationValueType = serializationValueType;
+    }
+
     @Override
     public void encode(GrowableByteBuffer buffer, Tensor tensor) {
         if ( ! ( tensor instanceof IndexedTensor))
@@ -40,34 +53,58 @@ public class DenseBinaryFormat implements BinaryFormat {
 
     private void encodeCells(GrowableByteBuffer buffer, Tensor tensor) {
         Iterator<Double> i = tensor.valueIterator();
-        while (i.hasNext())
-            buffer.putDouble(i.next());
+        if (serializationValueType == TensorType.Value.FLOAT) {
+            while (i.hasNext())
+                buffer.putFloat(i.next().floatValue());
+        }
+        else {
+            while (i.hasNext())
+                buffer.putDouble(i.next());
+        }
     }
 
     @Override
     public Tensor decode(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
-        TensorType type;
-        DimensionSizes sizes;
-        if (optionalType.isPresent()) {
-            type = optionalType.get();
-            TensorType serializedType = decodeType(buffer);
-            if ( ! serializedType.isAssignableTo(type))
-                throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
-                                                   " cannot be assigned to type " + type);
-            sizes = sizesFromType(serializedType);
-        }
-        else {
-            type = decodeType(buffer);
-            sizes = sizesFromType(type);
-        }
+        TensorType serializedType = decodeType(buffer);
+        TensorType type = resolveType(optionalType, serializedType);
+        DimensionSizes sizes = sizesFromType(serializedType);
         Tensor.Builder builder = Tensor.Builder.of(type, sizes);
         decodeCells(sizes, buffer, (IndexedTensor.BoundBuilder)builder);
         return builder.build();
     }
 
+    /**
+     * Decodes a tensor which is a read-only view over the cell values in the given buffer,
+     * without copying them. The buffer position is moved past the tensor as with decode.
+     * The content of the buffer must not be changed while the returned tensor is in use.
+     */
+    public IndexedBufferTensor decodeView(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
+        TensorType serializedType = decodeType(buffer);
+        TensorType type = resolveType(optionalType, serializedType);
+        DimensionSizes sizes = sizesFromType(serializedType);
+
+        int cellsSize = (int)sizes.totalSize() * IndexedBufferTensor.bytesPerCell(serializationValueType);
+        if (cellsSize > buffer.remaining())
+            throw new IllegalArgumentException("Expected " + cellsSize + " bytes of cells in a " + serializedType +
+                                               " but only " + buffer.remaining() + " bytes remain");
+        ByteBuffer cells = buffer.getByteBuffer().duplicate();
+        cells.limit(cells.position() + cellsSize);
+        cells = cells.slice().asReadOnlyBuffer().order(buffer.order()); // slicing resets the order
+        buffer.position(buffer.position() + cellsSize);
+        return new IndexedBufferTensor(type, sizes, cells, serializationValueType);
+    }
+
+    private TensorType resolveType(Optional<TensorType> optionalType, TensorType serializedType) {
+        if ( ! optionalType.isPresent()) return serializedType;
+        if ( ! serializedType.isAssignableTo(optionalType.get()))
+            throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
+                                               " cannot be assigned to type " + optionalType.get());
+        return optionalType.get();
+    }
+
     private TensorType decodeType(GrowableByteBuffer buffer) {
         int dimensionCount = buffer.getInt1_4Bytes();
-        TensorType.Builder builder = new TensorType.Builder();
+        TensorType.Builder builder = new TensorType.Builder(serializationValueType);
         for (int i = 0; i < dimensionCount; i++)
             builder.indexed(buffer.getUtf8String(), buffer.getInt1_4Bytes()); // XXX: Size truncation
         return builder.build();
@@ -82,8 +119,14 @@ public class DenseBinaryFormat implements BinaryFormat {
     }
 
     private void decodeCells(DimensionSizes sizes, GrowableByteBuffer buffer, IndexedTensor.BoundBuilder builder) {
-        for (long i = 0; i < sizes.totalSize(); i++)
-            builder.cellByDirectIndex(i, buffer.getDouble());
+        if (serializationValueType == TensorType.Value.FLOAT) {
+            for (long i = 0; i < sizes.totalSize(); i++)
+                builder.cellByDirectIndex(i, buffer.getFloat());
+        }
+        else {
+            for (long i = 0; i < sizes.totalSize(); i++)
+                builder.cellByDirectIndex(i, buffer.getDouble());
+        }
     }
 
 }
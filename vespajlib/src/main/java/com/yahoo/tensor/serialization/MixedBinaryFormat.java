@@ -21,6 +21,16 @@ import java.util.stream.Collectors;
  */
 class MixedBinaryFormat implements BinaryFormat {
 
+    private final TensorType.Value serializationValueType;
+
+    MixedBinaryFormat() {
+        this(TensorType.Value.DOUBLE);
+    }
+
+    MixedBinaryFormat(TensorType.Value serializationValueType) {
+        this.serializationValueType = serializationValueType;
+    }
+
     @Override
     public void encode(GrowableByteBuffer buffer, Tensor tensor) {
         if ( ! ( tensor instanceof MixedTensor))
@@ -63,13 +73,20 @@ class MixedBinaryFormat implements BinaryFormat {
                     new IllegalStateException("Dimension not found in address."));
                 buffer.putUtf8String(cell.getKey().label(index));
             }
-            buffer.putDouble(cell.getValue());
+            encodeValue(buffer, cell.getValue());
             for (int i = 1; i < denseSubspaceSize; ++i ) {
-                buffer.putDouble(cellIterator.next().getValue());
+                encodeValue(buffer, cellIterator.next().getValue());
             }
         }
     }
 
+    private void encodeValue(GrowableByteBuffer buffer, double value) {
+        if (serializationValueType == TensorType.Value.FLOAT)
+            buffer.putFloat((float)value);
+        else
+            buffer.putDouble(value);
+    }
+
     @Override
     public Tensor decode(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
         TensorType type;
@@ -89,7 +106,7 @@ class MixedBinaryFormat implements BinaryFormat {
     }
 
     private TensorType decodeType(GrowableByteBuffer buffer) {
-        TensorType.Builder builder = new TensorType.Builder();
+        TensorType.Builder builder = new TensorType.Builder(serializationValueType);
         int numMappedDimensions = buffer.getInt1_4Bytes();
         for (int i = 0; i < numMappedDimensions; ++i) {
             builder.mapped(buffer.getUtf8String());
@@ -118,7 +135,8 @@ class MixedBinaryFormat implements BinaryFormat {
                 sparseAddress.add(sparseDimension.name(), buffer.getUtf8String());
             }
             for (long denseOffset = 0; denseOffset < denseSubspaceSize; denseOffset++) {
-                denseSubspace[(int)denseOffset] = buffer.getDouble();
+                denseSubspace[(int)denseOffset] = serializationValueType == TensorType.Value.FLOAT ? buffer.getFloat()
+                                                                                                  : buffer.getDouble();
             }
             builder.block(sparseAddress.build(), denseSubspace);
         }
@@ -23,16 +23,35 @@ public class TypedBinaryFormat {
     private static final int SPARSE_BINARY_FORMAT_TYPE = 1;
     private static final int DENSE_BINARY_FORMAT_TYPE = 2;
     private static final int MIXED_BINARY_FORMAT_TYPE = 3;
+    private static final int DENSE_BINARY_FORMAT_WITH_CELLTYPE = 6;
+    private static final int MIXED_BINARY_FORMAT_WITH_CELLTYPE = 7;
+
+    /** Value type ids used in the formats with cell type */
+    private static final int DOUBLE_VALUE_TYPE = 0;
+    private static final int FLOAT_VALUE_TYPE = 1;
 
     public static byte[] encode(Tensor tensor) {
         GrowableByteBuffer buffer = new GrowableByteBuffer();
+        TensorType.Value valueType = tensor.type().valueType();
         if (tensor instanceof MixedTensor) {
-            buffer.putInt1_4Bytes(MIXED_BINARY_FORMAT_TYPE);
-            new MixedBinaryFormat().encode(buffer, tensor);
+            if (valueType == TensorType.Value.DOUBLE) { // the default, keep the format readable by old readers
+                buffer.putInt1_4Bytes(MIXED_BINARY_FORMAT_TYPE);
+            }
+            else {
+                buffer.putInt1_4Bytes(MIXED_BINARY_FORMAT_WITH_CELLTYPE);
+                encodeValueType(valueType, buffer);
+            }
+            new MixedBinaryFormat(valueType).encode(buffer, tensor);
         }
         else if (tensor instanceof IndexedTensor) {
-            buffer.putInt1_4Bytes(DENSE_BINARY_FORMAT_TYPE);
-            new DenseBinaryFormat().encode(buffer, tensor);
+            if (valueType == TensorType.Value.DOUBLE) { // the default, keep the format readable by old readers
+                buffer.putInt1_4Bytes(DENSE_BINARY_FORMAT_TYPE);
+            }
+            else {
+                buffer.putInt1_4Bytes(DENSE_BINARY_FORMAT_WITH_CELLTYPE);
+                encodeValueType(valueType, buffer);
+            }
+            new DenseBinaryFormat(valueType).encode(buffer, tensor);
         }
         else {
             buffer.putInt1_4Bytes(SPARSE_BINARY_FORMAT_TYPE);
@@ -58,8 +77,51 @@ public class TypedBinaryFormat {
             case MIXED_BINARY_FORMAT_TYPE: return new MixedBinaryFormat().decode(type, buffer);
             case SPARSE_BINARY_FORMAT_TYPE: return new SparseBinaryFormat().decode(type, buffer);
             case DENSE_BINARY_FORMAT_TYPE: return new DenseBinaryFormat().decode(type, buffer);
+            case MIXED_BINARY_FORMAT_WITH_CELLTYPE: return new MixedBinaryFormat(decodeValueType(buffer)).decode(type, buffer);
+            case DENSE_BINARY_FORMAT_WITH_CELLTYPE: return new DenseBinaryFormat(decodeValueType(buffer)).decode(type, buffer);
+            default: throw new IllegalArgumentException("Binary format type " + formatType + " is unknown");
+        }
+    }
+
+    /**
+     * Decode some data to a tensor without copying the cell values of dense tensors:
+     * Dense tensors are returned as read-only views which decode cells from the given buffer when accessed,
+     * while other tensors are decoded as by {@link #decode}.
+     * This is suitable when the tensor is only read a few times, e.g when it is just rendered.
+     * The content of the buffer must not be changed while the returned tensor is in use.
+     *
+     * @param type the type to decode and validate to, or empty to use the type given in the data
+     * @param buffer the buffer containing the data, use GrowableByteByffer.wrap(byte[]) if you have a byte array
+     * @return the resulting tensor
+     * @throws IllegalArgumentException if the tensor data was invalid
+     */
+    public static Tensor decodeView(Optional<TensorType> type, GrowableByteBuffer buffer) {
+        int formatType = buffer.getInt1_4Bytes();
+        switch (formatType) {
+            case MIXED_BINARY_FORMAT_TYPE: return new MixedBinaryFormat().decode(type, buffer);
+            case SPARSE_BINARY_FORMAT_TYPE: return new SparseBinaryFormat().decode(type, buffer);
+            case DENSE_BINARY_FORMAT_TYPE: return new DenseBinaryFormat().decodeView(type, buffer);
+            case MIXED_BINARY_FORMAT_WITH_CELLTYPE: return new MixedBinaryFormat(decodeValueType(buffer)).decode(type, buffer);
+            case DENSE_BINARY_FORMAT_WITH_CELLTYPE: return new DenseBinaryFormat(decodeValueType(buffer)).decodeView(type, buffer);
             default: throw new IllegalArgumentException("Binary format type " + formatType + " is unknown");
         }
     }
 
+    private static void encodeValueType(TensorType.Value valueType, GrowableByteBuffer buffer) {
+        switch (valueType) {
+            case DOUBLE: buffer.putInt1_4Bytes(DOUBLE_VALUE_TYPE); break;
+            case FLOAT: buffer.putInt1_4Bytes(FLOAT_VALUE_TYPE); break;
+            default: throw new IllegalArgumentException("Attempt to encode unknown tensor value type: " + valueType);
+        }
+    }
+
+    private static TensorType.Value decodeValueType(GrowableByteBuffer buffer) {
+        int valueType = buffer.getInt1_4Bytes();
+        switch (valueType) {
+            case DOUBLE_VALUE_TYPE: return TensorType.Value.DOUBLE;
+            case FLOAT_VALUE_TYPE: return TensorType.Value.FLOAT;
+            default: throw new IllegalArgumentException("Received tensor value type with unknown id " + valueType);
+        }
+    }
+
 }
@@ -44,6 +44,20 @@ public class IndexedTensorTestCase {
         assertEquals(singleValue, singleValueFromString);
     }
     
+    @Test
+    public void testFloatValues() {
+        Tensor tensor = Tensor.from("tensor<float>(x[2],y[2]):{{x:0,y:0}:0.1,{x:0,y:1}:1.5,{x:1,y:0}:3,{x:1,y:1}:-7}");
+        assertEquals(TensorType.Value.FLOAT, tensor.type().valueType());
+        assertEquals((float)0.1, tensor.get(TensorAddress.of(0, 0)), 0.0);
+        assertEquals(1.5, tensor.get(TensorAddress.of(0, 1)), 0.0);
+        assertEquals(-7.0, ((IndexedTensor)tensor).get(1, 1), 0.0);
+        assertEquals(Tensor.from("tensor(x[2],y[2]):{{x:0,y:0}:0.1,{x:0,y:1}:1.5,{x:1,y:0}:3,{x:1,y:1}:-7}"), tensor);
+
+        Tensor unbound = Tensor.from("tensor<float>(x[]):{{x:0}:0.1,{x:1}:0.2}");
+        assertEquals(TensorType.Value.FLOAT, unbound.type().valueType());
+        assertEquals((float)0.2, unbound.get(TensorAddress.of(1)), 0.0);
+    }
+
     @Test
     public void testBoundBuilding() {
         TensorType type = new TensorType.Builder().indexed("v", vSize)
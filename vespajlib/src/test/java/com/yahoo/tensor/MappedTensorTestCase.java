@@ -5,6 +5,7 @@ import com.google.common.collect.Sets;
 import junit.framework.TestCase;
 import org.junit.Test;
 
+import java.util.Iterator;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
@@ -52,4 +53,98 @@ public class MappedTensorTestCase {
         assertEquals("{{x:0,y:0}:1.0,{x:1,y:0}:2.0}", tensor.toString());
     }
 
+    @Test
+    public void testManyCells() {
+        TensorType type = new TensorType.Builder().mapped("x").mapped("y").build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int i = 0; i < 100000; i++)
+            builder.cell().label("x", "x" + i).label("y", "y" + (i % 100)).value(i);
+        Tensor tensor = builder.build();
+        assertEquals(100000, tensor.size());
+        assertEquals(12345.0, tensor.get(TensorAddress.of(new String[] {"x12345", "y45"})), 0.0);
+        assertTrue(Double.isNaN(tensor.get(TensorAddress.of(new String[] {"x12345", "y46"}))));
+        assertTrue(Double.isNaN(tensor.get(TensorAddress.of(new String[] {"x12345", "never-used-label"}))));
+        assertTrue(Double.isNaN(tensor.get(TensorAddress.of(new String[] {"x12345"}))));
+        assertEquals(tensor.cells().hashCode(), tensor.hashCode());
+    }
+
+    @Test
+    public void testAddressesWhichCannotBePacked() {
+        // With 8 dimensions there are 7 bits per label id, so these cannot all be packed
+        TensorType.Builder typeBuilder = new TensorType.Builder();
+        for (int d = 0; d < 8; d++)
+            typeBuilder.mapped("d" + d);
+        TensorType type = typeBuilder.build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int i = 0; i < 200; i++) {
+            String[] labels = new String[8];
+            for (int d = 0; d < 8; d++)
+                labels[d] = "label" + (i + d);
+            builder.cell(TensorAddress.of(labels), i);
+        }
+        Tensor tensor = builder.build();
+        assertEquals(200, tensor.size());
+        assertEquals(150.0, tensor.get(TensorAddress.of(new String[] {"label150", "label151", "label152", "label153",
+                                                                     "label154", "label155", "label156", "label157"})), 0.0);
+        assertEquals(tensor, Tensor.from(tensor.toString()));
+    }
+
+    @Test
+    public void testAddressesOfOtherTensorsCanBeLookedUp() {
+        TensorType type = new TensorType.Builder().mapped("x").mapped("y").build();
+        Tensor first = Tensor.Builder.of(type).cell().label("x", "a").label("y", "b").value(1)
+                                              .cell().label("x", "b").label("y", "a").value(2).build();
+        Tensor second = Tensor.Builder.of(type).cell().label("x", "b").label("y", "a").value(2)
+                                               .cell().label("x", "a").label("y", "b").value(1).build();
+        for (Iterator<Tensor.Cell> i = second.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell cell = i.next();
+            assertEquals(cell.getValue(), first.get(cell.getKey()), 0.0);
+        }
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first.cells(), second.cells());
+    }
+
+    @Test
+    public void testAddressesWithLabelsMissingInOtherTensorsCanBeLookedUpRepeatedly() {
+        TensorType type = new TensorType.Builder().mapped("x").build();
+        Tensor first = Tensor.Builder.of(type).cell().label("x", "a").value(1).build();
+        Tensor second = Tensor.Builder.of(type).cell().label("x", "b").value(2)
+                                               .cell().label("x", "a").value(3).build();
+        for (int pass = 0; pass < 2; pass++) {
+            for (Iterator<Tensor.Cell> i = second.cellIterator(); i.hasNext(); ) {
+                Tensor.Cell cell = i.next();
+                assertEquals(cell.getKey().label(0).equals("a") ? 1.0 : Double.NaN, first.get(cell.getKey()), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testTensorsBuiltFromTheCellsOfOthersCanAddLabels() {
+        TensorType type = new TensorType.Builder().mapped("x").build();
+        Tensor first = Tensor.Builder.of(type).cell().label("x", "a").value(1).build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (Iterator<Tensor.Cell> i = first.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell cell = i.next();
+            builder.cell(cell.getKey(), cell.getValue() + 1);
+        }
+        builder.cell().label("x", "b").value(3);
+        Tensor second = builder.build();
+        assertEquals("{{x:a}:1.0}", first.toString());
+        assertEquals("{{x:a}:2.0,{x:b}:3.0}", second.toString());
+        assertEquals(Double.NaN, first.get(TensorAddress.of(new String[] { "b" })), 0.0);
+    }
+
+    @Test
+    public void testBuilderCanBeUsedAfterBuild() {
+        TensorType type = new TensorType.Builder().mapped("x").build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        builder.cell().label("x", "a").value(1);
+        Tensor first = builder.build();
+        builder.cell().label("x", "b").value(2);
+        Tensor second = builder.build();
+        assertEquals("{{x:a}:1.0}", first.toString());
+        assertEquals("{{x:a}:1.0,{x:b}:2.0}", second.toString());
+    }
+
 }
@@ -106,6 +106,32 @@ public class TensorTestCase {
         assertEquals(Tensor.from("{ {x:1}:0, {x:3}:1, {x:9}:0 }"), Tensor.from("{ {x:1}:1, {x:3}:5, {x:9}:3 }").argmax("x"));
     }
 
+    @Test
+    public void testFloatValueTypeComputation() {
+        Tensor floatMatrix = Tensor.from("tensor<float>(x[2],y[2]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:1,y:0}:3,{x:1,y:1}:4}");
+        Tensor floatVector = Tensor.from("tensor<float>(y[2]):{{y:0}:0.5,{y:1}:2}");
+        Tensor doubleVector = Tensor.from("tensor(y[2]):{{y:0}:0.5,{y:1}:2}");
+
+        assertValueType(TensorType.Value.FLOAT, floatMatrix.multiply(floatMatrix));
+        assertValueType(TensorType.Value.FLOAT, floatMatrix.multiply(floatVector));
+        assertValueType(TensorType.Value.DOUBLE, floatMatrix.multiply(doubleVector));
+        assertValueType(TensorType.Value.FLOAT, floatMatrix.map(v -> v * 2));
+        assertValueType(TensorType.Value.FLOAT, floatMatrix.sum("y"));
+        assertValueType(TensorType.Value.DOUBLE, floatMatrix.sum());
+        assertValueType(TensorType.Value.FLOAT, floatMatrix.rename("x", "z"));
+
+        assertEquals(Tensor.from("tensor(x[2],y[2]):{{x:0,y:0}:0.5,{x:0,y:1}:4,{x:1,y:0}:1.5,{x:1,y:1}:8}"),
+                     floatMatrix.multiply(floatVector));
+        assertEquals(Tensor.from("tensor(x[2]):{{x:0}:4.5,{x:1}:9.5}"), floatMatrix.multiply(floatVector).sum("y"));
+        assertEquals(10.0, floatMatrix.sum().asDouble(), 0.0);
+    }
+
+    private void assertValueType(TensorType.Value expected, Tensor tensor) {
+        assertEquals(expected, tensor.type().valueType());
+        if (tensor.type().dimensions().size() > 0 && tensor instanceof IndexedTensor)
+            assertEquals(expected == TensorType.Value.FLOAT, tensor instanceof IndexedFloatTensor);
+    }
+
     /** Test the same computation made in various ways which are implemented with special-case optimizations */
     @Test
     public void testOptimizedComputation() {
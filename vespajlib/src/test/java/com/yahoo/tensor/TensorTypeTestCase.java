@@ -45,6 +45,27 @@ public class TensorTypeTestCase {
         assertTensorType("tensor(baR_09{})");
     }
 
+    @Test
+    public void requireThatValueTypesCanBeSpecified() {
+        assertTensorType("tensor<float>(x[5])");
+        assertTensorType("tensor<float>(x{},y[])", "tensor<float>( x{} , y[] )");
+        assertTensorType("tensor(x[5])", "tensor<double>(x[5])");
+        assertEquals(TensorType.Value.FLOAT, TensorType.fromSpec("tensor<float>(x[5])").valueType());
+        assertEquals(TensorType.Value.DOUBLE, TensorType.fromSpec("tensor(x[5])").valueType());
+        assertFalse(TensorType.fromSpec("tensor<float>(x[5])").equals(TensorType.fromSpec("tensor(x[5])")));
+        assertIllegalTensorType("tensor<int>(x[5])", "Value type must be either 'double' or 'float' but was 'int'");
+    }
+
+    @Test
+    public void requireThatValueTypesAreCombined() {
+        TensorType floatType = TensorType.fromSpec("tensor<float>(x[5])");
+        TensorType doubleType = TensorType.fromSpec("tensor(y[5])");
+        assertEquals("tensor<float>(x[5])", new TensorType.Builder(floatType, floatType).build().toString());
+        assertEquals("tensor(x[5],y[5])", new TensorType.Builder(floatType, doubleType).build().toString());
+        assertIsAssignableTo("tensor<float>(x[5])", "tensor(x[])");
+        assertIsAssignableTo("tensor(x[5])", "tensor<float>(x[])");
+    }
+
     @Test
     public void requireThatIndexedBoundDimensionMustHaveNonZeroSize() {
         assertIllegalTensorType("tensor(x[0])", "Size of bound dimension 'x' must be at least 1");
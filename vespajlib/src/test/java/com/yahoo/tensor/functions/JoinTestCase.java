@@ -35,6 +35,35 @@ public class JoinTestCase {
                      t2.divide(t1));
     }
 
+    /** Test the dense join optimizations which join by direct index */
+    @Test
+    public void testJoinIndexedDirect() {
+        // same shape
+        assertEquals(Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:2,{x:0,y:1}:6,{x:0,y:2}:12,{x:1,y:0}:20,{x:1,y:1}:30,{x:1,y:2}:42}"),
+                     Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:6}")
+                           .multiply(Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:2,{x:0,y:1}:3,{x:0,y:2}:4,{x:1,y:0}:5,{x:1,y:1}:6,{x:1,y:2}:7}")));
+
+        Tensor matrix = Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:6}");
+        // broadcast over the outer dimension
+        Tensor y = Tensor.from("tensor(y[3]):{{y:0}:1,{y:1}:10,{y:2}:100}");
+        assertEquals(Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:0,{x:0,y:1}:8,{x:0,y:2}:97,{x:1,y:0}:-3,{x:1,y:1}:5,{x:1,y:2}:94}"),
+                     y.subtract(matrix));
+        assertEquals(Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:0,{x:0,y:1}:-8,{x:0,y:2}:-97,{x:1,y:0}:3,{x:1,y:1}:-5,{x:1,y:2}:-94}"),
+                     matrix.subtract(y));
+        // broadcast over the inner dimension
+        Tensor x = Tensor.from("tensor(x[2]):{{x:0}:1,{x:1}:10}");
+        assertEquals(Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:0,{x:0,y:1}:1,{x:0,y:2}:2,{x:1,y:0}:-6,{x:1,y:1}:-5,{x:1,y:2}:-4}"),
+                     matrix.subtract(x));
+        // broadcast a scalar
+        assertEquals(Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:2,{x:0,y:1}:4,{x:0,y:2}:6,{x:1,y:0}:8,{x:1,y:1}:10,{x:1,y:2}:12}"),
+                     matrix.multiply(Tensor.from("{2}")));
+        // not contiguous: falls back to the general subspace join
+        Tensor xz = Tensor.from("tensor(x[2],z[1]):{{x:0,z:0}:1,{x:1,z:0}:10}");
+        Tensor xyz = matrix.multiply(Tensor.from("tensor(z[1]):{{z:0}:1}"));
+        assertEquals(Tensor.from("tensor(x[2],y[3],z[1]):{{x:0,y:0,z:0}:0,{x:0,y:1,z:0}:1,{x:0,y:2,z:0}:2,{x:1,y:0,z:0}:-6,{x:1,y:1,z:0}:-5,{x:1,y:2,z:0}:-4}"),
+                     xyz.subtract(xz));
+    }
+
     @Test
     public void testGeneralJoin() {
         assertEquals(Tensor.from("tensor(x[],y[]):{ {x:0,y:0}:1, {x:1,y:0}:2, {x:2,y:0}:3 }"),
@@ -0,0 +1,123 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.Parallelism;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that parallel evaluation produces the same results as sequential evaluation
+ */
+public class ParallelEvaluationTestCase {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    private final Tensor matrixA = tensor("tensor(x[300],y[500])", 1);
+    private final Tensor matrixB = tensor("tensor(x[300],y[500])", 2);
+    private final Tensor vectorX = tensor("tensor(x[300])", 3);
+    private final Tensor vectorY = tensor("tensor(y[500])", 4);
+    private final Tensor longVector = tensor("tensor(y[200000])", 5);
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testJoin() {
+        TensorFunction multiply = new Join(new VariableTensor("a"), new VariableTensor("b"), ScalarFunctions.multiply());
+        assertParallelEqual(multiply, matrixA, matrixB);
+        assertParallelEqual(multiply, longVector, longVector);
+        assertParallelEqual(multiply, vectorX, matrixB);
+        assertParallelEqual(multiply, matrixA, vectorY);
+    }
+
+    @Test
+    public void testReduceKeepingDimensions() {
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            assertParallelEqual(new Reduce(new VariableTensor("a"), aggregator, "x"), matrixA, null);
+            assertParallelEqual(new Reduce(new VariableTensor("a"), aggregator, "y"), matrixA, null);
+            assertParallelEqual(new ReduceJoin(new VariableTensor("a"), new VariableTensor("b"),
+                                               ScalarFunctions.multiply(), aggregator, Collections.singletonList("y")),
+                                matrixA, vectorY);
+        }
+    }
+
+    @Test
+    public void testReduceAll() {
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            TensorFunction reduce = new Reduce(new VariableTensor("a"), aggregator);
+            TensorFunction reduceJoin = new ReduceJoin(new VariableTensor("a"), new VariableTensor("b"),
+                                                       ScalarFunctions.multiply(), aggregator, Collections.emptyList());
+            assertParallelEqualish(reduce, matrixA, null);
+            assertParallelEqualish(reduce, longVector, null);
+            assertParallelEqualish(reduceJoin, matrixA, matrixB);
+            assertParallelDeterministic(reduce, matrixA, null);
+            assertParallelDeterministic(reduceJoin, matrixA, matrixB);
+        }
+    }
+
+    @Test
+    public void testSmallTensorsAreEvaluatedSequentially() {
+        MapEvaluationContext context = context(vectorX, null, new Parallelism(pool));
+        assertEquals(vectorX.reduce(Reduce.Aggregator.sum),
+                     new Reduce(new VariableTensor("a"), Reduce.Aggregator.sum).evaluate(context));
+    }
+
+    private void assertParallelEqual(TensorFunction function, Tensor a, Tensor b) {
+        assertEquals(function.evaluate(context(a, b, null)), function.evaluate(context(a, b, new Parallelism(pool, 1))));
+    }
+
+    private void assertParallelEqualish(TensorFunction function, Tensor a, Tensor b) {
+        double sequential = function.evaluate(context(a, b, null)).asDouble();
+        double parallel = function.evaluate(context(a, b, new Parallelism(pool, 1))).asDouble();
+        assertEquals(function.toString(), sequential, parallel, Math.abs(sequential) / 1e12);
+    }
+
+    /** Asserts that reduced values are exactly the same regardless of the pool size */
+    private void assertParallelDeterministic(TensorFunction function, Tensor a, Tensor b) {
+        ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+        try {
+            double expected = function.evaluate(context(a, b, new Parallelism(singleThreadPool, 1))).asDouble();
+            for (int i = 0; i < 3; i++)
+                assertEquals(expected, function.evaluate(context(a, b, new Parallelism(pool, 1))).asDouble(), 0.0);
+        }
+        finally {
+            singleThreadPool.shutdown();
+        }
+    }
+
+    private MapEvaluationContext context(Tensor a, Tensor b, Parallelism parallelism) {
+        MapEvaluationContext context = new MapEvaluationContext();
+        context.put("a", a);
+        if (b != null)
+            context.put("b", b);
+        context.setParallelism(parallelism);
+        return context;
+    }
+
+    /** Returns a dense tensor of the given type having varying values which are not exactly representable */
+    private static Tensor tensor(String type, int seed) {
+        TensorType tensorType = TensorType.fromSpec(type);
+        DimensionSizes.Builder sizesBuilder = new DimensionSizes.Builder(tensorType.dimensions().size());
+        for (int i = 0; i < tensorType.dimensions().size(); i++)
+            sizesBuilder.set(i, tensorType.dimensions().get(i).size().get());
+        DimensionSizes sizes = sizesBuilder.build();
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(tensorType, sizes);
+        for (long i = 0; i < sizes.totalSize(); i++)
+            builder.cellByDirectIndex(i, 1.0 / (1 + (i * seed) % 997));
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,102 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that reduce joins are created by the optimizer and produce the same results as the unfused functions
+ */
+public class ReduceJoinTestCase {
+
+    private final TensorFunctionOptimizer optimizer = new TensorFunctionOptimizer();
+
+    private final Tensor vectorA = Tensor.from("tensor(x[3]):{{x:0}:1,{x:1}:2,{x:2}:3}");
+    private final Tensor vectorB = Tensor.from("tensor(x[3]):{{x:0}:4,{x:1}:5,{x:2}:6}");
+    private final Tensor matrixA = Tensor.from("tensor(i[2],x[3]):{{i:0,x:0}:1,{i:0,x:1}:2,{i:0,x:2}:3," +
+                                                                   "{i:1,x:0}:4,{i:1,x:1}:5,{i:1,x:2}:6}");
+    private final Tensor matrixB = Tensor.from("tensor(x[3],y[2]):{{x:0,y:0}:7,{x:0,y:1}:8,{x:1,y:0}:9," +
+                                                                   "{x:1,y:1}:10,{x:2,y:0}:11,{x:2,y:1}:12}");
+
+    @Test
+    public void testDotProduct() {
+        TensorFunction function = new Reduce(new Join(new VariableTensor("a"), new VariableTensor("b"),
+                                                      ScalarFunctions.multiply()),
+                                             Reduce.Aggregator.sum);
+        assertOptimizedEqual(function, vectorA, vectorB);
+        assertEquals(32.0, optimizer.optimize(function).evaluate(context(vectorA, vectorB)).asDouble(), 0.0000001);
+    }
+
+    @Test
+    public void testMatmul() {
+        TensorFunction function = new Matmul(new VariableTensor("a"), new VariableTensor("b"), "x");
+        assertOptimizedEqual(function, matrixA, matrixB);
+        assertOptimizedEqual(function, vectorA, matrixB);
+        assertOptimizedEqual(function, matrixA, vectorB);
+        assertEquals(Tensor.from("tensor(i[2],y[2]):{{i:0,y:0}:58,{i:0,y:1}:64,{i:1,y:0}:139,{i:1,y:1}:154}"),
+                     optimizer.optimize(function).evaluate(context(matrixA, matrixB)));
+    }
+
+    @Test
+    public void testXwPlusB() {
+        TensorFunction function = new XwPlusB(new VariableTensor("a"), new VariableTensor("b"),
+                                              new ConstantTensor("tensor(y[2]):{{y:0}:1,{y:1}:-1}"), "x");
+        assertOptimizedEqual(function, vectorA, matrixB);
+        assertTrue(((Join)optimizer.optimize(function)).arguments().get(0) instanceof ReduceJoin);
+    }
+
+    @Test
+    public void testOtherCombinatorsAndAggregators() {
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            for (String dimension : new String[] { "i", "x", "y" }) {
+                TensorFunction function = new Reduce(new Join(new VariableTensor("a"), new VariableTensor("b"),
+                                                              ScalarFunctions.subtract()),
+                                                     aggregator, dimension);
+                assertOptimizedEqual(function, matrixA, matrixB);
+            }
+            TensorFunction reduceAll = new Reduce(new Join(new VariableTensor("a"), new VariableTensor("b"),
+                                                           ScalarFunctions.max()),
+                                                  aggregator, Collections.emptyList());
+            assertOptimizedEqual(reduceAll, matrixA, matrixB);
+        }
+    }
+
+    @Test
+    public void testNonIndexedArgumentsAreNotFused() {
+        TensorFunction function = new Reduce(new Join(new VariableTensor("a"), new VariableTensor("b"),
+                                                      ScalarFunctions.multiply()),
+                                             Reduce.Aggregator.sum, "x");
+        assertOptimizedEqual(function,
+                             Tensor.from("tensor(x{},y[2]):{{x:a,y:0}:1,{x:a,y:1}:2,{x:b,y:0}:3,{x:b,y:1}:4}"),
+                             Tensor.from("tensor(x{}):{{x:a}:2,{x:b}:3}"));
+    }
+
+    @Test
+    public void testOptimizerOnlyRewritesReduceOfJoin() {
+        TensorFunction function = new Join(new Reduce(new VariableTensor("a"), Reduce.Aggregator.sum, "x"),
+                                           new VariableTensor("b"), ScalarFunctions.add());
+        assertTrue(optimizer.optimize(function) == function);
+    }
+
+    private void assertOptimizedEqual(TensorFunction function, Tensor a, Tensor b) {
+        MapEvaluationContext context = context(a, b);
+        TensorFunction optimized = optimizer.optimize(function);
+        assertEquals(function.toPrimitive().toString(), optimized.toString());
+        assertEquals(function.evaluate(context), optimized.evaluate(context));
+    }
+
+    private MapEvaluationContext context(Tensor a, Tensor b) {
+        MapEvaluationContext context = new MapEvaluationContext();
+        context.put("a", a);
+        context.put("b", b);
+        return context;
+    }
+
+}
@@ -2,14 +2,18 @@
 package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.IndexedBufferTensor;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -28,6 +32,33 @@ public class DenseBinaryFormatTestCase {
         assertSerialization("tensor(x[1],y[2],z[3]):{{y:0,x:0,z:0}:2.0}");
     }
 
+    @Test
+    public void testFloatSerialization() {
+        assertSerialization("tensor<float>(x[]):{{x:0}:2.0}");
+        assertSerialization("tensor<float>(x[2],y[2]):{{x:0,y:0}:2.0, {x:0,y:1}:3.5, {x:1,y:0}:0.1, {x:1,y:1}:-5.0}");
+        Tensor tensor = Tensor.from("tensor<float>(x[2]):{{x:0}:2.0, {x:1}:3.0}");
+        Tensor decoded = TypedBinaryFormat.decode(Optional.empty(), GrowableByteBuffer.wrap(TypedBinaryFormat.encode(tensor)));
+        assertEquals(tensor.type(), decoded.type());
+        assertEquals(tensor, decoded);
+        // float tensors may be assigned to double types and vice versa
+        assertSerialization(tensor, TensorType.fromSpec("tensor(x[])"));
+        assertSerialization(Tensor.from("tensor(x[2]):{{x:0}:2.0, {x:1}:3.0}"), TensorType.fromSpec("tensor<float>(x[2])"));
+    }
+
+    @Test
+    public void requireThatFloatSerializationFormatDoNotChange() {
+        byte[] encodedTensor = new byte[]{6, // binary format type
+                                          1, // value type
+                                          2, // dimension count
+                                          2, (byte) 'x', (byte) 'y', 2, // dimension xy with size
+                                          1, (byte) 'z', 1, // dimension z with size
+                                          64, 0, 0, 0, // value 1
+                                          64, 64, 0, 0 // value 2
+        };
+        assertEquals(Arrays.toString(encodedTensor),
+                     Arrays.toString(TypedBinaryFormat.encode(Tensor.from("tensor<float>(xy[],z[]):{{xy:0,z:0}:2.0,{xy:1,z:0}:3.0}"))));
+    }
+
     @Test
     public void testSerializationToSeparateType() {
         assertSerialization(Tensor.from("tensor(x[1],y[1]):{{x:0,y:0}:2.0}"), TensorType.fromSpec("tensor(x[],y[])"));
@@ -40,6 +71,42 @@ public class DenseBinaryFormatTestCase {
         }
     }
 
+    @Test
+    public void testDecodeViewWithinLargerBuffer() {
+        Tensor first = Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:1.0,{x:0,y:1}:2.0,{x:0,y:2}:3.0," +
+                                                       "{x:1,y:0}:4.0,{x:1,y:1}:5.0,{x:1,y:2}:6.0}");
+        Tensor second = Tensor.from("tensor<float>(z[2]):{{z:0}:0.5,{z:1}:-1.5}");
+        byte[] firstBytes = TypedBinaryFormat.encode(first);
+        byte[] secondBytes = TypedBinaryFormat.encode(second);
+        byte[] bytes = new byte[3 + firstBytes.length + secondBytes.length];
+        System.arraycopy(firstBytes, 0, bytes, 3, firstBytes.length);
+        System.arraycopy(secondBytes, 0, bytes, 3 + firstBytes.length, secondBytes.length);
+
+        GrowableByteBuffer buffer = new GrowableByteBuffer(ByteBuffer.wrap(bytes, 3, bytes.length - 3).slice());
+        Tensor firstView = TypedBinaryFormat.decodeView(Optional.empty(), buffer);
+        assertEquals(firstBytes.length, buffer.position());
+        Tensor secondView = TypedBinaryFormat.decodeView(Optional.empty(), buffer);
+        assertEquals(0, buffer.remaining());
+
+        assertEquals(first, firstView);
+        assertEquals(6.0, ((IndexedTensor)firstView).get(1, 2), 0.0);
+        assertEquals(second, secondView);
+        assertEquals(second.type(), secondView.type());
+        assertEquals(-1.5, ((IndexedTensor)secondView).get(1), 0.0);
+    }
+
+    @Test
+    public void testDecodeViewOfTruncatedData() {
+        byte[] bytes = TypedBinaryFormat.encode(Tensor.from("tensor(x[3]):{{x:0}:1.0,{x:1}:2.0,{x:2}:3.0}"));
+        try {
+            TypedBinaryFormat.decodeView(Optional.empty(), GrowableByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)));
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException expected) {
+            assertEquals("Expected 24 bytes of cells in a tensor(x[3]) but only 23 bytes remain", expected.getMessage());
+        }
+    }
+
     @Test
     public void requireThatSerializationFormatDoNotChange() {
         byte[] encodedTensor = new byte[]{2, // binary format type
@@ -65,6 +132,10 @@ public class DenseBinaryFormatTestCase {
         byte[] encodedTensor = TypedBinaryFormat.encode(tensor);
         Tensor decodedTensor = TypedBinaryFormat.decode(Optional.of(expectedType), GrowableByteBuffer.wrap(encodedTensor));
         assertEquals(tensor, decodedTensor);
+        Tensor decodedView = TypedBinaryFormat.decodeView(Optional.of(expectedType), GrowableByteBuffer.wrap(encodedTensor));
+        assertTrue(decodedView instanceof IndexedBufferTensor);
+        assertEquals(decodedTensor, decodedView);
+        assertEquals(decodedTensor.hashCode(), decodedView.hashCode());
     }
 
 }
@@ -5,6 +5,7 @@ package com.yahoo.tensor.serialization;
 import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.tensor.MixedTensor;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
@@ -31,6 +32,16 @@ public class MixedBinaryFormatTestCase {
         assertSerialization("tensor(i{},j[],k{},l[]):{{i:a,j:0,k:c,l:0}:1.0,{i:a,j:0,k:c,l:1}:2.0,{i:a,j:0,k:d,l:0}:5.0,{i:a,j:0,k:d,l:1}:6.0,{i:a,j:1,k:c,l:0}:3.0,{i:a,j:1,k:c,l:1}:4.0,{i:a,j:1,k:d,l:0}:7.0,{i:a,j:1,k:d,l:1}:8.0,{i:b,j:0,k:c,l:0}:9.0,{i:b,j:0,k:c,l:1}:10.0,{i:b,j:0,k:d,l:0}:13.0,{i:b,j:0,k:d,l:1}:14.0,{i:b,j:1,k:c,l:0}:11.0,{i:b,j:1,k:c,l:1}:12.0,{i:b,j:1,k:d,l:0}:15.0,{i:b,j:1,k:d,l:1}:16.0}");
     }
 
+    @Test
+    public void testFloatSerialization() {
+        assertSerialization("tensor<float>(x{},y[3]):{{x:1,y:0}:1.0,{x:1,y:1}:2.5,{x:1,y:2}:0.0,{x:2,y:0}:4.0,{x:2,y:1}:0.1,{x:2,y:2}:6.0}");
+        assertSerialization("tensor<float>(x{},y[]):{{x:1,y:0}:1.0,{x:1,y:1}:2.5,{x:1,y:2}:0.0,{x:2,y:0}:4.0,{x:2,y:1}:0.1,{x:2,y:2}:6.0}");
+        Tensor tensor = Tensor.from("tensor<float>(x{},y[2]):{{x:1,y:0}:1.0,{x:1,y:1}:0.1}");
+        Tensor decoded = TypedBinaryFormat.decode(Optional.empty(), GrowableByteBuffer.wrap(TypedBinaryFormat.encode(tensor)));
+        assertEquals(tensor.type(), decoded.type());
+        assertEquals((float)0.1, decoded.get(TensorAddress.of(new String[] {"1", "1"})), 0.0);
+    }
+
     @Test
     public void testOneIndexedSerialization() {
         TensorType type = new TensorType.Builder().indexed("y", 3).build();